@@ -0,0 +1,55 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hillbillies.model.World;
+
+/**
+ * Benchmarks of one tick of a world full of units with their default behavior
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AdvanceTimeBenchmark {
+
+	@Param({"10", "50", "100"})
+	public int nbUnits;
+
+	@Param({"50x50x10"})
+	public String worldName;
+
+	private World world;
+
+	/**
+	 * Every iteration starts from a new world, so the units do not keep on falling or digging
+	 * 	from one iteration to the next
+	 */
+	@Setup(Level.Iteration)
+	public void setUp() throws IOException {
+		this.world = BenchmarkWorlds.createWorld(this.worldName);
+		for(int i=0; i<this.nbUnits; i++)
+			this.world.addUnit(this.world.createRandomUnit(true));
+	}
+
+	@Benchmark
+	public World advanceTime() {
+		this.world.advanceTime(0.1);
+		return this.world;
+	}
+}
@@ -0,0 +1,63 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+
+import hillbillies.model.World;
+import hillbillies.part2.internal.map.GameMap;
+import hillbillies.part2.internal.map.GameMapReader;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * A class loading the bundled worlds for the benchmarks
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+final class BenchmarkWorlds {
+
+	/*
+	 * the seed of every random choice in the benchmarks, so every run measures the same work
+	 */
+	static final long SEED = 2016;
+
+	private BenchmarkWorlds() {
+	}
+
+	/**
+	 * Read the terrain types of the bundled world with the given name, like 50x50x10
+	 */
+	static int[][][] readTypes(String name) throws IOException {
+		GameMap map = new GameMapReader().readFromResource("resources/" + name + ".wrld");
+		int[][][] types = new int[map.getNbTilesX()][map.getNbTilesY()][map.getNbTilesZ()];
+		for(int x=0; x<types.length; x++)
+			for(int y=0; y<types[x].length; y++)
+				for(int z=0; z<types[x][y].length; z++)
+					types[x][y][z] = map.getTypeAt(x, y, z).getByteValue();
+		return types;
+	}
+
+	/**
+	 * Create a world from the bundled world with the given name
+	 */
+	static World createWorld(String name) throws IOException {
+		return new World(readTypes(name), new DefaultTerrainChangeListener());
+	}
+
+	/**
+	 * Return the given number of random walkable positions in the given world
+	 */
+	static int[][] randomWalkablePositions(World world, int number) {
+		Random random = new Random(SEED);
+		int[][] positions = new int[number][];
+		for(int i=0; i<number; ){
+			int[] position = new int[]{random.nextInt(world.getNbCubesX()),
+					random.nextInt(world.getNbCubesY()), random.nextInt(world.getNbCubesZ())};
+			if(world.isWalkableCube(world.getCubeIndex(position[0], position[1], position[2])))
+				positions[i++] = position;
+		}
+		return positions;
+	}
+}
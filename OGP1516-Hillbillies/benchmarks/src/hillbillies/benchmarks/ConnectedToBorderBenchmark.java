@@ -0,0 +1,137 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hillbillies.model.IndexedConnectedToBorder;
+import hillbillies.model.SupportGraph;
+import hillbillies.model.TerrainStore;
+import hillbillies.util.ConnectedToBorder;
+
+/**
+ * Benchmarks of a sequence of digs in the bundled worlds, removing the cubes that cave in like World does,
+ * 	for the provided ConnectedToBorder and the classes replacing it in World
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConnectedToBorderBenchmark {
+
+	/*
+	 * the number of digs in one invocation
+	 */
+	private static final int NB_DIGS = 200;
+
+	@Param({"20x20x10", "25x25x25", "50x50x10"})
+	public String worldName;
+
+	@Param({"ConnectedToBorder", "IndexedConnectedToBorder", "SupportGraph"})
+	public String implementation;
+
+	private TerrainStore terrain;
+	private int[] digs;
+	private Digger digger;
+
+	/**
+	 * Pick the cubes to dig, each one solid and connected to the border when its turn comes
+	 */
+	@Setup(Level.Trial)
+	public void setUpSequence() throws IOException {
+		this.terrain = new TerrainStore(BenchmarkWorlds.readTypes(this.worldName));
+		SupportGraph scratch = new SupportGraph(this.terrain);
+		Random random = new Random(BenchmarkWorlds.SEED);
+		this.digs = new int[NB_DIGS];
+		for(int i=0; i<NB_DIGS; ){
+			int index = random.nextInt(this.terrain.getNbCubes());
+			if(scratch.isAnchored(index)){
+				for(int loose: scratch.changeSolidToPassable(index))
+					scratch.changeSolidToPassable(loose);
+				this.digs[i++] = index;
+			}
+		}
+	}
+
+	/**
+	 * Every invocation digs in the terrain as it was loaded
+	 */
+	@Setup(Level.Invocation)
+	public void setUpStructure() {
+		int nbX = this.terrain.getNbCubesX();
+		int nbY = this.terrain.getNbCubesY();
+		int nbZ = this.terrain.getNbCubesZ();
+		if(this.implementation.equals("SupportGraph")){
+			SupportGraph graph = new SupportGraph(this.terrain);
+			this.digger = index -> caveIn(graph.changeSolidToPassable(index), graph::changeSolidToPassable);
+		}
+		else if(this.implementation.equals("IndexedConnectedToBorder")){
+			IndexedConnectedToBorder border = new IndexedConnectedToBorder(nbX, nbY, nbZ);
+			for(int index=0; index<this.terrain.getNbCubes(); index++)
+				if(!this.terrain.isSolid(index) && border.isSolidConnectedToBorder(index))
+					caveIn(border.changeSolidToPassable(index), border::changeSolidToPassable);
+			this.digger = index -> caveIn(border.changeSolidToPassable(index), border::changeSolidToPassable);
+		}
+		else{
+			ConnectedToBorder border = new ConnectedToBorder(nbX, nbY, nbZ);
+			Digger digger = index -> {
+				int x = index % nbX;
+				int y = (index / nbX) % nbY;
+				int z = index / (nbX*nbY);
+				int nbLoose = 0;
+				for(int[] loose: border.changeSolidToPassable(x, y, z)){
+					border.changeSolidToPassable(loose[0], loose[1], loose[2]);
+					nbLoose++;
+				}
+				return nbLoose;
+			};
+			for(int index=0; index<this.terrain.getNbCubes(); index++)
+				if(!this.terrain.isSolid(index) && border.isSolidConnectedToBorder(
+						index % nbX, (index / nbX) % nbY, index / (nbX*nbY)))
+					digger.dig(index);
+			this.digger = digger;
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NB_DIGS)
+	public int digSequence() {
+		int nbLoose = 0;
+		for(int index: this.digs)
+			nbLoose += this.digger.dig(index);
+		return nbLoose;
+	}
+
+	/**
+	 * Remove the given loose cubes with the given change, returning how many there were
+	 */
+	private static int caveIn(int[] looseCubes, IntFunction<int[]> change) {
+		for(int loose: looseCubes)
+			change.apply(loose);
+		return looseCubes.length;
+	}
+
+	/**
+	 * A dig in one of the implementations, returning the number of cubes that caved in
+	 */
+	@FunctionalInterface
+	private interface Digger {
+		int dig(int index);
+	}
+}
@@ -0,0 +1,95 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hillbillies.model.PathFinding;
+import hillbillies.model.PathSearchEngine;
+import hillbillies.model.World;
+
+/**
+ * Benchmarks of the path searches between random walkable cubes of the bundled worlds
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathFindingBenchmark {
+
+	/*
+	 * the number of start and target pairs the searches cycle through
+	 */
+	private static final int NB_PAIRS = 256;
+
+	@Param({"15x15x15", "20x20x10", "20x20x40", "20x40x10", "25x25x25",
+		"50x50x10", "50x50x50", "80x80x10", "80x80x80"})
+	public String worldName;
+
+	private World world;
+	private PathSearchEngine engine;
+	private int[][] starts;
+	private int[][] targets;
+	private int next = 0;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.world = BenchmarkWorlds.createWorld(this.worldName);
+		//every search finishes in the constructor of the pathFinding
+		this.world.setPathSearchBudget(Integer.MAX_VALUE);
+		this.engine = new PathSearchEngine(this.world);
+		//only pairs with a path between them, so every search ends at its target
+		int[][] positions = BenchmarkWorlds.randomWalkablePositions(this.world, 64*NB_PAIRS);
+		this.starts = new int[NB_PAIRS][];
+		this.targets = new int[NB_PAIRS][];
+		int nbPairs = 0;
+		for(int i=0; i+1<positions.length && nbPairs<NB_PAIRS; i+=2)
+			if(this.world.isReachable(this.indexOf(positions[i]), this.indexOf(positions[i+1]))){
+				this.starts[nbPairs] = positions[i];
+				this.targets[nbPairs] = positions[i+1];
+				nbPairs++;
+			}
+		if(nbPairs < NB_PAIRS)
+			throw new IllegalStateException("Too few connected cubes in " + this.worldName);
+	}
+
+	/**
+	 * A bare A* search on the engine
+	 */
+	@Benchmark
+	public int[] searchEngine() {
+		int pair = this.nextPair();
+		return this.engine.findPath(this.indexOf(this.starts[pair]), this.indexOf(this.targets[pair]));
+	}
+
+	/**
+	 * A new pathFinding without help of the path cache, as a unit starting to move
+	 */
+	@Benchmark
+	public int[] newPathFinding() {
+		int pair = this.nextPair();
+		this.world.getPathCache().clear();
+		return new PathFinding(this.world, this.starts[pair], this.targets[pair]).getTargetPosition();
+	}
+
+	private int indexOf(int[] position) {
+		return this.world.getCubeIndex(position[0], position[1], position[2]);
+	}
+
+	private int nextPair() {
+		this.next = (this.next+1) % NB_PAIRS;
+		return this.next;
+	}
+}
@@ -0,0 +1,58 @@
+package hillbillies.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hillbillies.expression.positionExpression.LiteralPosition;
+import hillbillies.model.Scheduler;
+import hillbillies.model.Task;
+import hillbillies.model.Unit;
+import hillbillies.statement.wildcardStatement.Print;
+
+/**
+ * Benchmarks of the search for the task a unit takes next,
+ * 	in a scheduler where the tasks with the highest priorities are already assigned
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SchedulerBenchmark {
+
+	@Param({"1000", "5000"})
+	public int nbTasks;
+
+	@Param({"0.0", "0.5", "0.9"})
+	public double assignedFraction;
+
+	private Scheduler scheduler;
+
+	@Setup
+	public void setUp() {
+		this.scheduler = new Scheduler();
+		int nbAssigned = (int)(this.nbTasks*this.assignedFraction);
+		for(int i=0; i<this.nbTasks; i++){
+			Task task = new Task("task"+i, this.nbTasks-i, new Print(new LiteralPosition(0,0,0)));
+			this.scheduler.addAsTask(task);
+			if(i < nbAssigned)
+				task.addUnit(new Unit("Busy", new int[]{0,0,0}, 50, 50, 50, 50, false));
+		}
+	}
+
+	@Benchmark
+	public Task getHighestPriorityAssignableTask() {
+		return this.scheduler.getHighestPriorityAssignableTask();
+	}
+}
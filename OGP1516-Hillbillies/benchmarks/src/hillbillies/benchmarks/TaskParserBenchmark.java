@@ -0,0 +1,60 @@
+package hillbillies.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hillbillies.model.Task;
+import hillbillies.model.TaskFactory;
+import hillbillies.part3.programs.TaskParser;
+import ogp.framework.util.internal.ResourceUtils;
+
+/**
+ * Benchmarks of the parsing of the sample task files
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskParserBenchmark {
+
+	@Param({"dig", "digtunnel", "digtunnel_if", "goto_10_10_10", "operate_workshop"})
+	public String taskFile;
+
+	private String text;
+	private List<int[]> selectedCubes = Collections.singletonList(new int[]{1,1,1});
+
+	@Setup
+	public void setUp() throws IOException {
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(
+				ResourceUtils.openResource("resources/tasks/" + this.taskFile + ".txt")))){
+			this.text = reader.lines().collect(Collectors.joining("\n"));
+		}
+	}
+
+	/**
+	 * A parse with a new parser, as the game does for every file it loads
+	 */
+	@Benchmark
+	public Optional<List<Task>> parseString() {
+		return TaskParser.create(new TaskFactory()).parseString(this.text, this.selectedCubes);
+	}
+}
@@ -0,0 +1,68 @@
+package hillbillies.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hillbillies.model.Unit;
+import hillbillies.model.World;
+
+/**
+ * Benchmarks of the lookup of the units in a cube, half of the cubes asked for holding a unit
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UnitsOnPositionBenchmark {
+
+	/*
+	 * the number of cubes the lookups cycle through
+	 */
+	private static final int NB_POSITIONS = 256;
+
+	@Param({"10", "100"})
+	public int nbUnits;
+
+	@Param({"50x50x10", "80x80x80"})
+	public String worldName;
+
+	private World world;
+	private int[][] positions;
+	private int next = 0;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.world = BenchmarkWorlds.createWorld(this.worldName);
+		int[][] empty = BenchmarkWorlds.randomWalkablePositions(this.world, NB_POSITIONS/2);
+		this.positions = new int[NB_POSITIONS][];
+		int i = 0;
+		for(int j=0; j<this.nbUnits; j++){
+			Unit unit = this.world.createRandomUnit(false);
+			this.world.addUnit(unit);
+			if(i < NB_POSITIONS/2)
+				this.positions[i++] = unit.getCubePosition().toArray();
+		}
+		for(int j=0; i<NB_POSITIONS; i++, j++)
+			this.positions[i] = empty[j % empty.length];
+	}
+
+	@Benchmark
+	public List<Unit> getAllUnitsOnPosition() {
+		this.next = (this.next+1) % NB_POSITIONS;
+		return this.world.getAllUnitsOnPosition(this.positions[this.next]);
+	}
+}
@@ -435,4 +435,51 @@ public interface IFacade extends hillbillies.part1.facade.IFacade {
 	 */
 	public Set<Log> getLogs(World world) throws ModelException;
 
+	/* OBJECTS IN A BOX */
+
+	/**
+	 * Return all units of the given world with a position in the given box.
+	 * 
+	 * @param world
+	 *            The world from which to retrieve the units.
+	 * @param low
+	 *            The lowest corner of the box {x, y, z}, included.
+	 * @param high
+	 *            The highest corner of the box {x, y, z}, excluded.
+	 * @return A set containing the units of the given world in the box.
+	 * @throws ModelException
+	 *             A precondition was violated or an exception was thrown.
+	 */
+	public Set<Unit> getUnitsInBox(World world, double[] low, double[] high) throws ModelException;
+
+	/**
+	 * Return all boulders of the given world with a position in the given box.
+	 * 
+	 * @param world
+	 *            The world from which to retrieve the boulders.
+	 * @param low
+	 *            The lowest corner of the box {x, y, z}, included.
+	 * @param high
+	 *            The highest corner of the box {x, y, z}, excluded.
+	 * @return A set containing the boulders of the given world in the box.
+	 * @throws ModelException
+	 *             A precondition was violated or an exception was thrown.
+	 */
+	public Set<Boulder> getBouldersInBox(World world, double[] low, double[] high) throws ModelException;
+
+	/**
+	 * Return all logs of the given world with a position in the given box.
+	 * 
+	 * @param world
+	 *            The world from which to retrieve the logs.
+	 * @param low
+	 *            The lowest corner of the box {x, y, z}, included.
+	 * @param high
+	 *            The highest corner of the box {x, y, z}, excluded.
+	 * @return A set containing the logs of the given world in the box.
+	 * @throws ModelException
+	 *             A precondition was violated or an exception was thrown.
+	 */
+	public Set<Log> getLogsInBox(World world, double[] low, double[] high) throws ModelException;
+
 }
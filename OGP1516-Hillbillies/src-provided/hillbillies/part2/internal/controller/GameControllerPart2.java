@@ -4,9 +4,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.stream.Collectors;
 
 import hillbillies.common.internal.controller.GameController;
@@ -35,15 +37,23 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 
 	private final GameMap map;
 
-	private final Set<TerrainChangeListener> listeners = new HashSet<>();
+	// iterating gives a snapshot, so notifications need no copy of the set
+	private final Set<TerrainChangeListener> listeners = new CopyOnWriteArraySet<>();
 	private TerrainChangeListener modelListener = new TerrainChangeListener() {
 
 		@Override
 		public void notifyTerrainChanged(int x, int y, int z) {
-			for (TerrainChangeListener listener : new HashSet<>(listeners)) {
+			for (TerrainChangeListener listener : listeners) {
 				listener.notifyTerrainChanged(x, y, z);
 			}
 		}
+
+		@Override
+		public void notifyTerrainChangedBatch(List<int[]> positions) {
+			for (TerrainChangeListener listener : listeners) {
+				listener.notifyTerrainChangedBatch(positions);
+			}
+		}
 	};
 
 	public GameControllerPart2(IFacade facade, Part2Options options, GameMap map) throws ModelException {
@@ -155,13 +165,16 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 
 		@Override
 		public Set<?> getObjectsInBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+			// the world keeps its units and items by cube, only the cubes of the box are visited
+			final double[] low = new double[] { minX, minY, minZ };
+			final double[] high = new double[] { maxX, maxY, maxZ };
 			Set<Object> result = new HashSet<>();
-			result.addAll(getObjectsOfTypeInBox(Unit.class, minX, minY, minZ, maxX, maxY, maxZ, getFacade()::getUnits,
-					getFacade()::isAlive, getFacade()::getPosition));
+			result.addAll(getObjectsOfTypeInBox(Unit.class, minX, minY, minZ, maxX, maxY, maxZ,
+					w -> getFacade().getUnitsInBox(w, low, high), getFacade()::isAlive, getFacade()::getPosition));
 			result.addAll(getObjectsOfTypeInBox(Boulder.class, minX, minY, minZ, maxX, maxY, maxZ,
-					getFacade()::getBoulders, b -> true, getFacade()::getPosition));
-			result.addAll(getObjectsOfTypeInBox(Log.class, minX, minY, minZ, maxX, maxY, maxZ, getFacade()::getLogs,
-					l -> true, getFacade()::getPosition));
+					w -> getFacade().getBouldersInBox(w, low, high), b -> true, getFacade()::getPosition));
+			result.addAll(getObjectsOfTypeInBox(Log.class, minX, minY, minZ, maxX, maxY, maxZ,
+					w -> getFacade().getLogsInBox(w, low, high), l -> true, getFacade()::getPosition));
 			return result;
 		}
 
@@ -1,5 +1,7 @@
 package hillbillies.part2.listener;
 
+import java.util.List;
+
 /**
  * A listener for communicating terrain changes to the GUI.
  * 
@@ -25,4 +27,19 @@ public interface TerrainChangeListener {
 	 *            The z-coordinate of the cube that has changed type
 	 */
 	public void notifyTerrainChanged(int x, int y, int z);
+
+	/**
+	 * Notify the GUI that the terrain cubes at the given positions have been
+	 * changed, all at once.
+	 * 
+	 * By default, every cube is notified on its own.
+	 * 
+	 * @param positions
+	 *            The coordinates {x, y, z} of the cubes that have changed type
+	 */
+	public default void notifyTerrainChangedBatch(List<int[]> positions) {
+		for (int[] position : positions) {
+			notifyTerrainChanged(position[0], position[1], position[2]);
+		}
+	}
 }
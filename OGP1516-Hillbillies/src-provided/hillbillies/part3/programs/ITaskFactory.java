@@ -72,6 +72,15 @@ public interface ITaskFactory<E, S, T> {
 	 */
 	public List<T> createTasks(String name, int priority, S activity, List<int[]> selectedCubes);
 
+	/**
+	 * Prepare for a new task text, before the parser creates any of its
+	 * statements or expressions.
+	 * 
+	 * By default, nothing happens.
+	 */
+	public default void startParse() {
+	}
+
 	/* STATEMENTS */
 
 	/**
@@ -155,6 +155,7 @@ public class TaskParser<E, S, T> {
 
 	protected void reset() {
 		this.errors.clear();
+		this.factory.startParse();
 	}
 
 	public List<String> getErrors() {
@@ -5,27 +5,34 @@ import hillbillies.model.TaskHandler;
 public class ReadVariable extends Expression<Object> {
 
 	private final String variableName;
+	private final int slot;
 
+	/**
+	 * Initialize a read of the variable with the given name, in the slot the program gives its name
+	 */
 	public ReadVariable(String variableName) {
+		this(variableName, -1);
+	}
+
+	/**
+	 * Initialize a read of the variable with the given name, stored in the given slot
+	 * 	of the frame executing it, or in the slot the program gives its name if the slot is negative
+	 */
+	public ReadVariable(String variableName, int slot) {
 		super();
 		this.variableName = variableName;
+		this.slot = slot;
 	}
 
+	/**
+	 * Return the value of the variable in the frame of the given handler
+	 * 
+	 * @throws IllegalStateException
+	 * 		no value is assigned to the variable, the handler interrupts the task
+	 */
 	@Override
-	public Object evaluate(TaskHandler taskHandler) {
-		System.out.println(getVariableName());
-		try{
-			Expression<?> e = taskHandler.getValueOfVariable(getVariableName());
-			
-			if (e == null)
-				throw new IllegalStateException();
-			else
-				return e.evaluate(taskHandler);
-		
-		} catch(IllegalStateException e){
-			taskHandler.interruptTask();
-			throw new Error("variable does not exist");
-		}
+	public Object evaluate(TaskHandler taskHandler) throws IllegalStateException{
+		return taskHandler.getValueOfVariable(getSlot(), getVariableName());
 	}
 
 	/**
@@ -35,4 +42,11 @@ public class ReadVariable extends Expression<Object> {
 		return variableName;
 	}
 
+	/**
+	 * @return the slot of the variable, negative if the program gives its name a slot
+	 */
+	public int getSlot() {
+		return slot;
+	}
+
 }
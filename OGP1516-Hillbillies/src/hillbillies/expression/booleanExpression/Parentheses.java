@@ -11,8 +11,7 @@ public class Parentheses extends UnairyOperation {
 
 	@Override
 	public Boolean evaluate(TaskHandler taskHandler) {
-		// TODO Auto-generated method stub
-		return null;
+		return getExpression().evaluate(taskHandler);
 	}
 
 }
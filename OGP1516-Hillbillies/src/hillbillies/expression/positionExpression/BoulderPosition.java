@@ -1,9 +1,6 @@
 package hillbillies.expression.positionExpression;
 
-import hillbillies.model.TaskHandler;
-import hillbillies.model.helper.CubePosition;
 import hillbillies.model.Boulder;
-import hillbillies.model.Item;
 
 @Deprecated
 public class BoulderPosition extends ItemPosition<Boulder> {
@@ -12,17 +9,4 @@ public class BoulderPosition extends ItemPosition<Boulder> {
 		super(Boulder.class);
 	}
 
-	@Override
-	public CubePosition evaluate(TaskHandler taskHandler) {
-	
-		return taskHandler.getWorld().getAllItems()
-				.stream()
-				.filter((Item item)-> item instanceof Boulder)
-				.map((Item item)-> (Boulder) item)
-				.findAny()
-				.get()
-				.getCubePosition();
-				
-	}
-
 }
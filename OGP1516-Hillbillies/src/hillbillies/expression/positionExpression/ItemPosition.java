@@ -1,5 +1,7 @@
 package hillbillies.expression.positionExpression;
 
+import java.util.NoSuchElementException;
+
 import be.kuleuven.cs.som.annotate.Model;
 import hillbillies.expression.Expression;
 import hillbillies.model.Item;
@@ -16,13 +18,10 @@ public class ItemPosition<T extends Item> extends Expression<CubePosition> {
 
 	@Override
 	public CubePosition evaluate(TaskHandler taskHandler) {
-		return taskHandler.getWorld().getAllItems()
-				.stream()
-				.filter((Item item)-> item.getClass() == getType())
-				.map((Item item)-> getType().cast(item))
-				.findAny()
-				.get()
-				.getCubePosition();
+		T item = taskHandler.getWorld().getNearestItem(getType(), taskHandler.getUnit().getPosition());
+		if(item == null)
+			throw new NoSuchElementException();
+		return item.getCubePosition();
 	}
 
 	/**
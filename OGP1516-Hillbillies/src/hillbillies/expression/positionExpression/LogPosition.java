@@ -1,9 +1,6 @@
 package hillbillies.expression.positionExpression;
 
-import hillbillies.model.Item;
 import hillbillies.model.Log;
-import hillbillies.model.TaskHandler;
-import hillbillies.model.helper.CubePosition;
 
 @Deprecated
 public class LogPosition extends ItemPosition<Log> {
@@ -12,19 +9,4 @@ public class LogPosition extends ItemPosition<Log> {
 		super(Log.class);
 	}
 
-	@Override
-	public CubePosition evaluate(TaskHandler taskHandler) {
-	
-		return taskHandler.getWorld().getAllItems()
-				.stream()
-				.filter((Item item)-> item instanceof Log)
-				.map((Item item)-> (Log) item)
-				.findAny()
-				.get()
-				.getCubePosition();
-				
-	}
-	
-	
-
 }
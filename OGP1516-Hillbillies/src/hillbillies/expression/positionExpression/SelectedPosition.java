@@ -0,0 +1,23 @@
+package hillbillies.expression.positionExpression;
+
+import java.util.NoSuchElementException;
+
+import hillbillies.expression.Expression;
+import hillbillies.model.TaskHandler;
+import hillbillies.model.helper.CubePosition;
+
+public class SelectedPosition extends Expression<CubePosition> {
+
+	public SelectedPosition() {
+		super();
+	}
+
+	@Override
+	public CubePosition evaluate(TaskHandler taskHandler) {
+		CubePosition selected = taskHandler.getTask().getSelectedCube();
+		if(selected == null)
+			throw new NoSuchElementException();
+		return selected;
+	}
+
+}
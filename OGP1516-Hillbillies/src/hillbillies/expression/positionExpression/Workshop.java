@@ -1,5 +1,7 @@
 package hillbillies.expression.positionExpression;
 
+import java.util.NoSuchElementException;
+
 import hillbillies.expression.Expression;
 import hillbillies.model.TaskHandler;
 import hillbillies.model.helper.CubePosition;
@@ -12,10 +14,10 @@ public class Workshop extends Expression<CubePosition> {
 
 	@Override
 	public CubePosition evaluate(TaskHandler taskHandler) {
-		return taskHandler.getWorld().getAllWorkshops()
-				.stream()
-				.findAny()
-				.get();
+		CubePosition workshop = taskHandler.getWorld().getNearestWorkshop(taskHandler.getUnit().getPosition());
+		if(workshop == null)
+			throw new NoSuchElementException();
+		return workshop;
 	}
 	
 	
@@ -0,0 +1,32 @@
+package hillbillies.model;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * A class about schedulers whose tasks can be claimed, released and looked up
+ * by several threads at the same time
+ * 
+ * The tasks are kept in concurrent skip lists, so lookups never lock and iterators
+ * never fail, and a unit claims a task with a compare-and-set on the unit of the task.
+ * Adding and removing tasks and changing their priority is still done by one thread.
+ * 
+ * The scheduler is opt-in, through the constructor of Faction taking a scheduler. The factions
+ * of a world keep a plain Scheduler: even with a tick pool, units look for a task in the commit
+ * phase of the tick, on the thread advancing the world.
+ * 
+ * @author Holger Willems | 2e bach. ing. OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ * 
+ */
+public class ConcurrentScheduler extends Scheduler {
+
+	/**
+	 * Creates a new concurrent scheduler without any tasks
+	 * 
+	 * @effect | super(new ConcurrentSkipListSet<>(PRIORITY_ORDER), new ConcurrentSkipListSet<>(PRIORITY_ORDER))
+	 */
+	public ConcurrentScheduler(){
+		super(new ConcurrentSkipListSet<>(PRIORITY_ORDER), new ConcurrentSkipListSet<>(PRIORITY_ORDER));
+	}
+}
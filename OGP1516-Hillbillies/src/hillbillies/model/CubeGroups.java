@@ -0,0 +1,376 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * A class keeping groups of directly adjacent cubes of a world that belong together
+ *
+ * Every cube of a group is labelled with a group, and groups are merged by union-find. When a cube
+ * leaves its group, the cubes around it are searched again: one search starts from every neighbour
+ * in a group, the searches take turns, and searches that meet are merged. As soon as one unfinished
+ * search is left, the finished ones are the pieces that broke off.
+ *
+ * Subclasses decide which cubes are in a group, and what a group counts besides its cubes.
+ *
+ * @Invar The dimensions are strictly positive
+ * 		| getNbCubesX() > 0 && getNbCubesY() > 0 && getNbCubesZ() > 0
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public abstract class CubeGroups {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * the dimensions of the world
+	 */
+	protected final int nbX;
+	protected final int nbY;
+	protected final int nbZ;
+	protected final int nbXY;
+
+	/*
+	 * the group every cube was labelled with, the group of the cube is the root of the label
+	 */
+	protected final int[] groupOf;
+
+	/*
+	 * for every group: the group it was merged into, or itself if it is a root, and its number of cubes
+	 */
+	protected int[] parent;
+	protected int[] size;
+	/*
+	 * the number of groups ever made
+	 */
+	protected int nbGroups = 0;
+
+	/*
+	 * the mark of every cube visited by the current removal, or by an earlier one
+	 */
+	protected final int[] visited;
+	private int generation = 0;
+	/*
+	 * the cubes visited by every search of the current removal, in the order they were reached
+	 */
+	protected final int[][] searchCubes = new int[6][16];
+	protected final int[] nbSearchCubes = new int[6];
+	protected final int[] searchHead = new int[6];
+	/*
+	 * the search every search of the current removal was merged into
+	 */
+	protected final int[] searchParent = new int[6];
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize the groups for a world of the given dimensions, without any groups
+	 *
+	 * @param nbX
+	 * @param nbY
+	 * @param nbZ
+	 * 		the dimensions of the world
+	 * @post | new.getNbCubesX() == nbX && new.getNbCubesY() == nbY && new.getNbCubesZ() == nbZ
+	 * @throws IllegalArgumentException
+	 * 		| nbX <= 0 || nbY <= 0 || nbZ <= 0
+	 */
+	@Model
+	protected CubeGroups(int nbX, int nbY, int nbZ) throws IllegalArgumentException{
+		if(nbX <= 0 || nbY <= 0 || nbZ <= 0)
+			throw new IllegalArgumentException();
+		this.nbX = nbX;
+		this.nbY = nbY;
+		this.nbZ = nbZ;
+		this.nbXY = nbX*nbY;
+		int nbCubes = nbXY*nbZ;
+		this.groupOf = new int[nbCubes];
+		this.visited = new int[nbCubes];
+		this.parent = new int[16];
+		this.size = new int[16];
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------GETTERS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the number of cubes in the x direction
+	 */
+	@Basic @Raw @Immutable
+	public int getNbCubesX(){
+		return this.nbX;
+	}
+
+	/**
+	 * Return the number of cubes in the y direction
+	 */
+	@Basic @Raw @Immutable
+	public int getNbCubesY(){
+		return this.nbY;
+	}
+
+	/**
+	 * Return the number of cubes in the z direction
+	 */
+	@Basic @Raw @Immutable
+	public int getNbCubesZ(){
+		return this.nbZ;
+	}
+
+	/**
+	 * Return the index of the cube with the given coordinates
+	 *
+	 * @return | result == x + y*getNbCubesX() + z*getNbCubesX()*getNbCubesY()
+	 */
+	public int getIndex(int x, int y, int z){
+		return x + y*nbX + z*nbXY;
+	}
+
+	/**
+	 * Return whether the cube with the given index belongs to a group
+	 */
+	@Model
+	protected abstract boolean isGrouped(int index);
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------SEARCHES------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Start one search from every neighbour in a group of the cube with the given index
+	 *
+	 * @param generation
+	 * 		the mark of the current removal
+	 * @return the number of started searches
+	 */
+	@Model
+	protected int startSearches(int index, int generation){
+		int nbSearches = 0;
+		int x = index % nbX;
+		int y = (index % nbXY) / nbX;
+		int z = index / nbXY;
+		for(int k = 0; k < 6; k++){
+			int neighbour = getNeighbour(x, y, z, k);
+			if(neighbour < 0 || !isGrouped(neighbour))
+				continue;
+			visited[neighbour] = generation + nbSearches;
+			searchCubes[nbSearches][0] = neighbour;
+			nbSearchCubes[nbSearches] = 1;
+			searchHead[nbSearches] = 0;
+			searchParent[nbSearches] = nbSearches;
+			nbSearches++;
+		}
+		return nbSearches;
+	}
+
+	/**
+	 * Let the given searches take turns until at most one unfinished search is left
+	 *
+	 * @param generation
+	 * 		the mark of the current removal
+	 * @return the unfinished search that is left, or -1 if all searches finished
+	 * @throws IllegalStateException
+	 * 		the current thread is interrupted during the search
+	 */
+	@Model
+	protected int interleaveSearches(int nbSearches, int generation) throws IllegalStateException{
+		while(true){
+			if(Thread.currentThread().isInterrupted())
+				throw new IllegalStateException();
+			int remaining = -1;
+			int nbUnfinished = 0;
+			for(int s = 0; s < nbSearches; s++)
+				if(searchParent[s] == s && !isFinished(s, nbSearches)){
+					nbUnfinished++;
+					remaining = s;
+				}
+			if(nbUnfinished <= 1)
+				return remaining;
+			expandAll(nbSearches, generation);
+		}
+	}
+
+	/**
+	 * Visit the neighbours of the next cube of every unfinished search
+	 */
+	@Model
+	protected void expandAll(int nbSearches, int generation){
+		for(int s = 0; s < nbSearches; s++)
+			if(searchHead[s] < nbSearchCubes[s])
+				this.expand(s, generation);
+	}
+
+	/**
+	 * Visit the neighbours of the next cube of the given search
+	 * 	a neighbour visited by another search merges both searches
+	 */
+	@Model
+	private void expand(int search, int generation){
+		int cube = searchCubes[search][searchHead[search]++];
+		int x = cube % nbX;
+		int y = (cube % nbXY) / nbX;
+		int z = cube / nbXY;
+		for(int k = 0; k < 6; k++){
+			int neighbour = getNeighbour(x, y, z, k);
+			if(neighbour < 0 || !isGrouped(neighbour))
+				continue;
+			int mark = visited[neighbour] - generation;
+			if(mark >= 0 && mark < 6){
+				int own = findSearch(search);
+				int other = findSearch(mark);
+				if(own != other)
+					searchParent[Math.max(own, other)] = Math.min(own, other);
+				continue;
+			}
+			visited[neighbour] = generation + search;
+			if(nbSearchCubes[search] == searchCubes[search].length)
+				searchCubes[search] = Arrays.copyOf(searchCubes[search], 2*nbSearchCubes[search]);
+			searchCubes[search][nbSearchCubes[search]++] = neighbour;
+		}
+	}
+
+	/**
+	 * Return whether all searches merged into the given search visited all their cubes
+	 */
+	@Model
+	protected boolean isFinished(int search, int nbSearches){
+		for(int t = 0; t < nbSearches; t++)
+			if(findSearch(t) == search && searchHead[t] < nbSearchCubes[t])
+				return false;
+		return true;
+	}
+
+	/**
+	 * Return the unmerged search with the most cubes, or -1 if there are no searches
+	 */
+	@Model
+	protected int getLargestSearch(int nbSearches){
+		int largest = -1;
+		int largestSize = -1;
+		for(int s = 0; s < nbSearches; s++){
+			if(searchParent[s] != s)
+				continue;
+			int size = 0;
+			for(int t = 0; t < nbSearches; t++)
+				if(findSearch(t) == s)
+					size += nbSearchCubes[t];
+			if(size > largestSize){
+				largest = s;
+				largestSize = size;
+			}
+		}
+		return largest;
+	}
+
+	/**
+	 * Return the search the given search was merged into
+	 */
+	@Model
+	protected int findSearch(int search){
+		while(searchParent[search] != search)
+			search = searchParent[search];
+		return search;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------GROUPS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the root of the given group, shortening the way to it
+	 */
+	@Model
+	protected int find(int group){
+		int root = group;
+		while(parent[root] != root)
+			root = parent[root];
+		while(parent[group] != root){
+			int next = parent[group];
+			parent[group] = root;
+			group = next;
+		}
+		return root;
+	}
+
+	/**
+	 * Merge the groups with the given roots and return the root of the merged group
+	 */
+	@Model
+	protected int union(int root1, int root2){
+		if(root1 == root2)
+			return root1;
+		if(size[root1] < size[root2]){
+			int swap = root1;
+			root1 = root2;
+			root2 = swap;
+		}
+		parent[root2] = root1;
+		size[root1] += size[root2];
+		return root1;
+	}
+
+	/**
+	 * Return a new empty group
+	 */
+	@Model
+	protected int newGroup(){
+		if(nbGroups == parent.length){
+			parent = Arrays.copyOf(parent, 2*nbGroups);
+			size = Arrays.copyOf(size, 2*nbGroups);
+		}
+		parent[nbGroups] = nbGroups;
+		size[nbGroups] = 0;
+		return nbGroups++;
+	}
+
+	/**
+	 * Return a new mark for the visited cubes, leaving room for one mark per search,
+	 * 	and resetting the marks when they run out
+	 */
+	@Model
+	protected int nextGeneration(){
+		if(this.generation > Integer.MAX_VALUE - 12){
+			Arrays.fill(this.visited, 0);
+			this.generation = 0;
+		}
+		this.generation += 6;
+		return this.generation;
+	}
+
+	/**
+	 * Return the index of the k-th directly adjacent cube of the cube with the given coordinates,
+	 * 	or -1 if it lies outside the world
+	 */
+	@Model
+	protected int getNeighbour(int x, int y, int z, int k){
+		switch(k){
+		case 0: return x > 0? getIndex(x-1, y, z) : -1;
+		case 1: return x < nbX-1? getIndex(x+1, y, z) : -1;
+		case 2: return y > 0? getIndex(x, y-1, z) : -1;
+		case 3: return y < nbY-1? getIndex(x, y+1, z) : -1;
+		case 4: return z > 0? getIndex(x, y, z-1) : -1;
+		default: return z < nbZ-1? getIndex(x, y, z+1) : -1;
+		}
+	}
+}
@@ -0,0 +1,256 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Raw;
+import hillbillies.expression.Expression;
+import hillbillies.statement.ActionStatement;
+import hillbillies.statement.Statement;
+import hillbillies.statement.wildcardStatement.Assignment;
+
+/**
+ * A class of frames keeping the state of one execution of a task program
+ *
+ * The program and its statements are shared by every frame executing them; the program counter,
+ * the operand stack and the variables belong to the frame, so every unit executing a program
+ * has a frame of its own. The value of a variable is kept in the slot the program has for it,
+ * the program giving a slot to every variable it assigns or reads.
+ *
+ * @Invar The program of this frame is effective
+ * 		| getProgram() != null
+ * @Invar The program counter of this frame is an instruction of the program, or its end
+ * 		| 0 <= getProgramCounter() && getProgramCounter() <= getProgram().getNbInstructions()
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class ExecutionFrame {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * the program executed in this frame
+	 */
+	private final TaskProgram program;
+	/*
+	 * the index of the instruction to execute next
+	 */
+	private int programCounter;
+	/*
+	 * the values of the expressions being evaluated
+	 */
+	private final Object[] operandStack;
+	private int nbOperands;
+	/*
+	 * the values of the variables in the slots of the program, and which of them are assigned
+	 */
+	private final Object[] variables;
+	private final boolean[] assigned;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize a frame at the start of the given program, without variables
+	 *
+	 * @param program
+	 * 		the program to execute
+	 * @post | new.getProgram() == program
+	 * @post | new.getProgramCounter() == 0
+	 * @throws IllegalArgumentException
+	 * 		| program == null
+	 */
+	public ExecutionFrame(TaskProgram program) throws IllegalArgumentException{
+		if(program == null)
+			throw new IllegalArgumentException("no program to execute");
+		this.program = program;
+		this.programCounter = 0;
+		this.operandStack = new Object[program.getMaxStackSize()];
+		this.nbOperands = 0;
+		this.variables = new Object[program.getNbVariables()];
+		this.assigned = new boolean[program.getNbVariables()];
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------INSPECTORS---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the program executed in this frame
+	 */
+	@Basic @Raw @Immutable
+	public TaskProgram getProgram() {
+		return this.program;
+	}
+
+	/**
+	 * Return the index of the instruction to execute next
+	 */
+	@Basic @Raw
+	public int getProgramCounter() {
+		return this.programCounter;
+	}
+
+	/**
+	 * Check whether the program counter is at the end of the program
+	 *
+	 * @return | result == (getProgramCounter() == getProgram().getNbInstructions())
+	 */
+	public boolean isDone() {
+		return this.getProgramCounter() == this.getProgram().getNbInstructions();
+	}
+
+	/**
+	 * Check whether the instruction to execute next is the first instruction of a statement
+	 *
+	 * @return | result == getProgram().isStatementStart(getProgramCounter())
+	 */
+	public boolean isAtStatementStart() {
+		return this.getProgram().isStatementStart(this.getProgramCounter());
+	}
+
+	/**
+	 * Return the statement of the instruction to execute next, null if the program is done
+	 *
+	 * @return | result == getProgram().getStatementAt(getProgramCounter())
+	 */
+	public Statement getCurrentStatement() {
+		return this.getProgram().getStatementAt(this.getProgramCounter());
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES OF THE PROGRAM-------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Assign the given value to the variable with the given name, in the given slot
+	 * 	or in the slot the program has for the name if the given slot is not a slot of the program
+	 *
+	 * @post | new.getValueOfVariable(slot, variableName) == value
+	 * @throws IllegalArgumentException
+	 * 		the program has no slot for the variable
+	 * 		| getSlot(slot, variableName) < 0
+	 */
+	public void assign(int slot, String variableName, Object value) throws IllegalArgumentException{
+		slot = this.getSlot(slot, variableName);
+		if(slot < 0)
+			throw new IllegalArgumentException("variable " + variableName + " is not a variable of the program");
+		this.variables[slot] = value;
+		this.assigned[slot] = true;
+	}
+
+	/**
+	 * Return the value of the variable with the given name, in the given slot
+	 * 	or in the slot the program has for the name if the given slot is not a slot of the program
+	 *
+	 * @throws IllegalStateException
+	 * 		no value is assigned to the variable
+	 */
+	public Object getValueOfVariable(int slot, String variableName) throws IllegalStateException{
+		slot = this.getSlot(slot, variableName);
+		if(slot < 0 || !this.assigned[slot])
+			throw new IllegalStateException("variable " + variableName + " is not assigned");
+		return this.variables[slot];
+	}
+
+	/**
+	 * Return the given slot if it is a slot of the program, the slot the program has for the variable
+	 * 	with the given name otherwise
+	 *
+	 * @return | if (0 <= slot && slot < getProgram().getNbVariables())
+	 * 		|	then result == slot
+	 * 		|	else result == getProgram().getVariableSlot(variableName)
+	 */
+	private int getSlot(int slot, String variableName) {
+		if(0 <= slot && slot < this.variables.length)
+			return slot;
+		return this.getProgram().getVariableSlot(variableName);
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------EXECUTION---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Execute the instruction at the program counter for the given handler
+	 *
+	 * @param taskHandler
+	 * 		the handler evaluating the expressions and performing the actions
+	 * @throws IllegalStateException
+	 * 		| isDone()
+	 */
+	public void executeInstruction(TaskHandler taskHandler) throws IllegalStateException{
+		if(this.isDone())
+			throw new IllegalStateException("the program is done");
+		TaskProgram program = this.getProgram();
+		int pc = this.programCounter++;
+		int operand = program.getOperand(pc);
+		switch(program.getOpcode(pc)){
+		case TaskProgram.EVAL:
+			this.push(((Expression<?>) program.getConstant(operand)).evaluate(taskHandler));
+			break;
+		case TaskProgram.CONST:
+			this.push(program.getConstant(operand));
+			break;
+		case TaskProgram.NOT:
+			this.push(!(Boolean) this.pop());
+			break;
+		case TaskProgram.JUMP:
+			this.programCounter += operand;
+			break;
+		case TaskProgram.JUMP_IF_FALSE:
+			if(!(Boolean) this.pop())
+				this.programCounter += operand;
+			break;
+		case TaskProgram.ASSIGN:
+			((Assignment) program.getConstant(operand)).execute(taskHandler);
+			break;
+		case TaskProgram.PERFORM:
+			((ActionStatement) program.getConstant(operand)).perform(taskHandler, this.pop());
+			break;
+		default:
+			throw new IllegalStateException("unknown opcode");
+		}
+	}
+
+	/**
+	 * Set this frame back to the start of its program, without operands or variables
+	 *
+	 * @post | new.getProgramCounter() == 0
+	 * @post no variable is assigned
+	 */
+	public void reset() {
+		this.programCounter = 0;
+		Arrays.fill(this.operandStack, null);
+		this.nbOperands = 0;
+		Arrays.fill(this.variables, null);
+		Arrays.fill(this.assigned, false);
+	}
+
+	private void push(Object value){
+		this.operandStack[this.nbOperands++] = value;
+	}
+
+	private Object pop(){
+		Object value = this.operandStack[--this.nbOperands];
+		this.operandStack[this.nbOperands] = null;
+		return value;
+	}
+}
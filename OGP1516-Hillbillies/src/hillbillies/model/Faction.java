@@ -65,9 +65,27 @@ public class Faction {
 	 *         Scheduler.
 	 */
 	public Faction(){
+		this(new Scheduler());
+	}
+	
+	/**
+	 * Creates a new faction with the given scheduler
+	 * 	a ConcurrentScheduler lets its tasks be claimed from several threads
+	 * 
+	 * @param  scheduler
+	 *         The scheduler for this new faction.
+	 * @post   The faction is not yet terminated
+	 * @post   The faction does not contain any units yet
+	 * @post   The Scheduler of this new Faction is equal to the given scheduler.
+	 * @throws IllegalArgumentException
+	 *         | ! canHaveAsScheduler(scheduler)
+	 */
+	public Faction(Scheduler scheduler) throws IllegalArgumentException{
+		if(! canHaveAsScheduler(scheduler))
+			throw new IllegalArgumentException();
 		this.isTerminated = false;
-		this.units = new HashSet<Unit>(MAX_UNITS_IN_FACTION);
-		this.scheduler = new Scheduler();
+		this.units = new LinkedHashSet<Unit>(MAX_UNITS_IN_FACTION);
+		this.scheduler = scheduler;
 	}
 	
 	/*___________________________________________________________________
@@ -0,0 +1,400 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.PriorityQueue;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * A class holding for every cube of a world the next cube on the fastest way to one target cube
+ *
+ * The field is built by one search backwards from the target, moving only in one direction
+ * at a time like World.quickFindReachableAdjacents. Every unit heading to the target reads its
+ * next step from the field, instead of searching a path of its own.
+ * After a terrain change only the cubes whose way passed the changed cubes are searched again.
+ *
+ * @Invar The world of this field is effective
+ * 		| getWorld() != null
+ * @Invar The target of this field is a cube of the world
+ * 		| getTarget() >= 0 && getTarget() < getWorld().getNbCubes()
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class FlowField {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * The world for this field
+	 */
+	private final World world;
+	/*
+	 * the index of the target cube
+	 */
+	private final int target;
+	/*
+	 * the cost to reach the target from every cube, infinite if it can not be reached
+	 */
+	private final float[] cost;
+	/*
+	 * the index of the next cube towards the target for every cube, -1 if there is none
+	 */
+	private final int[] next;
+	/*
+	 * the cubes changed since the field was last brought up to date
+	 */
+	private final BitSet changedCubes = new BitSet();
+	/*
+	 * the number of pathFindings following this field
+	 */
+	private int nbUsers = 0;
+
+	/*
+	 * the dimensions of the world
+	 */
+	private final int nbX;
+	private final int nbY;
+	private final int nbZ;
+	private final int nbXY;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize the field towards the given target in the given world
+	 *
+	 * @param world
+	 * 		the world of this field
+	 * @param target
+	 * 		the index of the target cube
+	 * @post the world of this field is the given world
+	 * 		| new.getWorld() == world
+	 * @post the target of this field is the given target
+	 * 		| new.getTarget() == target
+	 * @post the field holds the fastest way to the target from every cube
+	 * @throws IllegalArgumentException
+	 * 		| world == null || target < 0 || target >= world.getNbCubes()
+	 */
+	public FlowField(World world, int target) throws IllegalArgumentException{
+		if(world == null || target < 0 || target >= world.getNbCubes())
+			throw new IllegalArgumentException();
+		this.world = world;
+		this.target = target;
+		this.nbX = world.getNbCubesX();
+		this.nbY = world.getNbCubesY();
+		this.nbZ = world.getNbCubesZ();
+		this.nbXY = nbX*nbY;
+		this.cost = new float[world.getNbCubes()];
+		this.next = new int[world.getNbCubes()];
+		this.compute();
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------GETTERS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the world of this field
+	 */
+	@Basic @Raw @Immutable
+	public World getWorld(){
+		return this.world;
+	}
+
+	/**
+	 * Return the index of the target cube of this field
+	 */
+	@Basic @Raw @Immutable
+	public int getTarget(){
+		return this.target;
+	}
+
+	/**
+	 * Return the index of the next cube on the fastest way from the given cube to the target
+	 *
+	 * @param index
+	 * 		the index of the cube
+	 * @return the index of the next cube, the target if the given cube is the target,
+	 * 		or -1 if the target can not be reached from the given cube
+	 * @effect the field is brought up to date with the terrain
+	 * 		| update()
+	 */
+	public int getNextCube(int index){
+		this.update();
+		return this.next[index];
+	}
+
+	/**
+	 * Return the cost to reach the target from the given cube
+	 *
+	 * @param index
+	 * 		the index of the cube
+	 * @return the cost, or Float.POSITIVE_INFINITY if the target can not be reached
+	 * @effect the field is brought up to date with the terrain
+	 * 		| update()
+	 */
+	public float getCost(int index){
+		this.update();
+		return this.cost[index];
+	}
+
+	/**
+	 * Return the number of pathFindings following this field
+	 */
+	@Basic @Raw
+	public int getNbUsers(){
+		return this.nbUsers;
+	}
+
+	/**
+	 * Return whether a pathFinding follows this field
+	 * 		| result == getNbUsers() > 0
+	 */
+	public boolean isInUse(){
+		return this.getNbUsers() > 0;
+	}
+
+	/**
+	 * Register one more pathFinding following this field
+	 *
+	 * @post | new.getNbUsers() == getNbUsers() + 1
+	 */
+	void addUser(){
+		this.nbUsers++;
+	}
+
+	/**
+	 * Register one pathFinding less following this field
+	 *
+	 * @post | new.getNbUsers() == getNbUsers() - 1
+	 * @throws IllegalStateException
+	 * 		| !isInUse()
+	 */
+	void removeUser() throws IllegalStateException{
+		if(!this.isInUse())
+			throw new IllegalStateException();
+		this.nbUsers--;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------TERRAIN CHANGES----------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Remember that the cube with the given coordinates changed
+	 * 	the cube and its neighbours, which may have lost or gained a solid neighbour,
+	 * 	are searched again the next time the field is used
+	 *
+	 * @param x
+	 * @param y
+	 * @param z
+	 * 		the coordinates of the changed cube
+	 */
+	public void terrainChanged(int x, int y, int z){
+		for(int i = Math.max(0, x-1); i <= Math.min(nbX-1, x+1); i++)
+			for(int j = Math.max(0, y-1); j <= Math.min(nbY-1, y+1); j++)
+				for(int k = Math.max(0, z-1); k <= Math.min(nbZ-1, z+1); k++)
+					this.changedCubes.set(i + j*nbX + k*nbXY);
+	}
+
+	/**
+	 * Bring the field up to date with the terrain
+	 *
+	 * @post the field holds the fastest way to the target from every cube
+	 * 		only the cubes whose way passed a changed cube are searched again
+	 */
+	public void update(){
+		if(this.changedCubes.isEmpty())
+			return;
+		if(this.changedCubes.get(target)){
+			this.compute();
+			return;
+		}
+
+		//CUBES WHOSE WAY PASSES A CHANGED CUBE
+		BitSet invalid = this.findInvalidCubes();
+		this.changedCubes.clear();
+
+		//SEARCH THEM AGAIN FROM THE CUBES AROUND THEM
+		PriorityQueue<Entry> queue = new PriorityQueue<>();
+		for(int index = invalid.nextSetBit(0); index >= 0; index = invalid.nextSetBit(index+1)){
+			this.cost[index] = Float.POSITIVE_INFINITY;
+			this.next[index] = -1;
+		}
+		for(int index = invalid.nextSetBit(0); index >= 0; index = invalid.nextSetBit(index+1)){
+			int x = index % nbX;
+			int y = (index % nbXY) / nbX;
+			int z = index / nbXY;
+			offerReached(queue, x-1, y, z);
+			offerReached(queue, x+1, y, z);
+			offerReached(queue, x, y-1, z);
+			offerReached(queue, x, y+1, z);
+			offerReached(queue, x, y, z-1);
+			offerReached(queue, x, y, z+1);
+		}
+		this.propagate(queue);
+	}
+
+	//---------------------------------------HELPERS
+
+	/**
+	 * Search the whole field again, starting from the target
+	 */
+	@Model
+	private void compute(){
+		this.changedCubes.clear();
+		Arrays.fill(this.cost, Float.POSITIVE_INFINITY);
+		Arrays.fill(this.next, -1);
+		if(!isWalkable(target))
+			return;
+		this.cost[target] = 0;
+		this.next[target] = target;
+		PriorityQueue<Entry> queue = new PriorityQueue<>();
+		queue.add(new Entry(target, 0));
+		this.propagate(queue);
+	}
+
+	/**
+	 * Return the changed cubes and all cubes whose way to the target passes a changed cube
+	 */
+	@Model
+	private BitSet findInvalidCubes(){
+		//0: unknown, 1: way is still valid, 2: way passes a changed cube
+		byte[] state = new byte[next.length];
+		for(int index = changedCubes.nextSetBit(0); index >= 0; index = changedCubes.nextSetBit(index+1))
+			state[index] = 2;
+		state[target] = 1;
+
+		int[] chain = new int[64];
+		for(int index = 0; index < next.length; index++){
+			if(state[index] != 0)
+				continue;
+			if(next[index] < 0){
+				state[index] = 1;
+				continue;
+			}
+			//follow the way until a cube with a known state
+			int length = 0;
+			int current = index;
+			while(state[current] == 0){
+				if(length == chain.length)
+					chain = Arrays.copyOf(chain, 2*length);
+				chain[length++] = current;
+				current = next[current];
+			}
+			byte result = state[current];
+			for(int i = 0; i < length; i++)
+				state[chain[i]] = result;
+		}
+
+		BitSet invalid = new BitSet(next.length);
+		for(int index = 0; index < next.length; index++)
+			if(state[index] == 2)
+				invalid.set(index);
+		return invalid;
+	}
+
+	/**
+	 * Add the cube with the given coordinates to the queue, if the target can be reached from it
+	 */
+	@Model
+	private void offerReached(PriorityQueue<Entry> queue, int x, int y, int z){
+		if(x < 0 || x >= nbX || y < 0 || y >= nbY || z < 0 || z >= nbZ)
+			return;
+		int index = x + y*nbX + z*nbXY;
+		if(this.next[index] >= 0)
+			queue.add(new Entry(index, this.cost[index]));
+	}
+
+	/**
+	 * Search backwards from the cubes in the queue, improving the way of every cube reached
+	 */
+	@Model
+	private void propagate(PriorityQueue<Entry> queue){
+		while(!queue.isEmpty()){
+			Entry entry = queue.poll();
+			if(entry.cost > this.cost[entry.index])
+				continue;
+			int index = entry.index;
+			int x = index % nbX;
+			int y = (index % nbXY) / nbX;
+			int z = index / nbXY;
+			//cubes below have to climb up to this cube, cubes above fall down
+			relax(queue, index, x-1, y, z, 1);
+			relax(queue, index, x+1, y, z, 1);
+			relax(queue, index, x, y-1, z, 1);
+			relax(queue, index, x, y+1, z, 1);
+			relax(queue, index, x, y, z-1, PathSearchEngine.UP_COST);
+			relax(queue, index, x, y, z+1, PathSearchEngine.DOWN_COST);
+		}
+	}
+
+	/**
+	 * Let the cube with the given coordinates move to the given cube, if that is faster
+	 */
+	@Model
+	private void relax(PriorityQueue<Entry> queue, int to, int x, int y, int z, float stepCost){
+		if(x < 0 || x >= nbX || y < 0 || y >= nbY || z < 0 || z >= nbZ)
+			return;
+		int index = x + y*nbX + z*nbXY;
+		if(!isWalkable(index))
+			return;
+		float tentativeCost = this.cost[to] + stepCost;
+		if(tentativeCost >= this.cost[index])
+			return;
+		this.cost[index] = tentativeCost;
+		this.next[index] = to;
+		queue.add(new Entry(index, tentativeCost));
+	}
+
+	/**
+	 * Return whether a unit can stand in the cube with the given index
+	 */
+	@Model
+	private boolean isWalkable(int index){
+		return getWorld().isWalkableCube(index);
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * --------------------------ENTRY-----------------------------------
+	 * -----------------------NESTED CLASS-------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * A cube in the queue with the cost it was reached with
+	 */
+	private static class Entry implements Comparable<Entry> {
+		private final int index;
+		private final float cost;
+
+		private Entry(int index, float cost){
+			this.index = index;
+			this.cost = cost;
+		}
+
+		@Override
+		public int compareTo(Entry other){
+			return Float.compare(this.cost, other.cost);
+		}
+	}
+}
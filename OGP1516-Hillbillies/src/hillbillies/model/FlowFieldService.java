@@ -0,0 +1,189 @@
+package hillbillies.model;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * A class handing out the flow fields of a world, one for every target
+ *
+ * Units heading to the same target share one field. A field counts the pathFindings
+ * following it; fields nobody follows are kept for a while, and the least recently
+ * released one is removed when there are too many of them.
+ *
+ * @Invar The world of this service is effective
+ * 		| getWorld() != null
+ * @Invar The number of unused fields never exceeds the maximum
+ * 		| getNbUnusedFlowFields() <= getMaxNbUnusedFlowFields()
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class FlowFieldService {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * The world for this service
+	 */
+	private final World world;
+	/*
+	 * The maximal number of fields kept while nobody follows them
+	 */
+	private final int maxNbUnusedFlowFields;
+	/*
+	 * the fields followed by at least one pathFinding, by their target
+	 */
+	private final Map<Integer,FlowField> usedFlowFields = new HashMap<>();
+	/*
+	 * the fields nobody follows, by their target, the least recently released first
+	 */
+	private final LinkedHashMap<Integer,FlowField> unusedFlowFields = new LinkedHashMap<>();
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize a service without fields for the given world
+	 *
+	 * @param world
+	 * 		the world of this service
+	 * @param maxNbUnusedFlowFields
+	 * 		the maximal number of fields kept while nobody follows them
+	 * @post | new.getWorld() == world
+	 * @post | new.getMaxNbUnusedFlowFields() == maxNbUnusedFlowFields
+	 * @throws IllegalArgumentException
+	 * 		| world == null || maxNbUnusedFlowFields < 0
+	 */
+	public FlowFieldService(World world, int maxNbUnusedFlowFields) throws IllegalArgumentException{
+		if(world == null || maxNbUnusedFlowFields < 0)
+			throw new IllegalArgumentException();
+		this.world = world;
+		this.maxNbUnusedFlowFields = maxNbUnusedFlowFields;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------GETTERS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the world of this service
+	 */
+	@Basic @Raw @Immutable
+	public World getWorld(){
+		return this.world;
+	}
+
+	/**
+	 * Return the maximal number of fields kept while nobody follows them
+	 */
+	@Basic @Raw @Immutable
+	public int getMaxNbUnusedFlowFields(){
+		return this.maxNbUnusedFlowFields;
+	}
+
+	/**
+	 * Return the number of fields followed by at least one pathFinding
+	 */
+	public int getNbUsedFlowFields(){
+		return this.usedFlowFields.size();
+	}
+
+	/**
+	 * Return the number of fields kept while nobody follows them
+	 */
+	public int getNbUnusedFlowFields(){
+		return this.unusedFlowFields.size();
+	}
+
+	/**
+	 * Return whether this service holds a field towards the given target
+	 */
+	public boolean hasFlowField(int target){
+		return this.usedFlowFields.containsKey(target) || this.unusedFlowFields.containsKey(target);
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------FIELDS-------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the field towards the given target, to be followed by one more pathFinding
+	 *
+	 * @param target
+	 * 		the index of the target cube
+	 * @return the field of this service towards the target,
+	 * 		a new field if there was none
+	 * @effect | result.addUser()
+	 * @throws IllegalArgumentException
+	 * 		| target < 0 || target >= getWorld().getNbCubes()
+	 */
+	public FlowField acquireFlowField(int target) throws IllegalArgumentException{
+		FlowField field = this.usedFlowFields.get(target);
+		if(field == null){
+			field = this.unusedFlowFields.remove(target);
+			if(field == null)
+				field = new FlowField(this.getWorld(), target);
+			this.usedFlowFields.put(target, field);
+		}
+		field.addUser();
+		return field;
+	}
+
+	/**
+	 * Register that one pathFinding less follows the given field
+	 *
+	 * @param field
+	 * 		the field to release
+	 * @effect | field.removeUser()
+	 * @post if nobody follows the field anymore, it is kept until there are too many unused fields
+	 * @throws IllegalArgumentException
+	 * 		the field is not followed by anyone through this service
+	 * 		| field == null || !field.isInUse()
+	 */
+	public void releaseFlowField(FlowField field) throws IllegalArgumentException{
+		if(field == null || this.usedFlowFields.get(field.getTarget()) != field)
+			throw new IllegalArgumentException();
+		field.removeUser();
+		if(field.isInUse())
+			return;
+		this.usedFlowFields.remove(field.getTarget());
+		this.unusedFlowFields.put(field.getTarget(), field);
+
+		Iterator<FlowField> eldest = this.unusedFlowFields.values().iterator();
+		while(this.unusedFlowFields.size() > this.getMaxNbUnusedFlowFields()){
+			eldest.next();
+			eldest.remove();
+		}
+	}
+
+	/**
+	 * Remember in all fields that the cube with the given coordinates changed
+	 *
+	 * @effect | for each field in this service: field.terrainChanged(x,y,z)
+	 */
+	public void terrainChanged(int x, int y, int z){
+		for(FlowField field: this.usedFlowFields.values())
+			field.terrainChanged(x, y, z);
+		for(FlowField field: this.unusedFlowFields.values())
+			field.terrainChanged(x, y, z);
+	}
+}
@@ -0,0 +1,659 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * A class implementing the abstract graph used for hierarchical pathFinding (HPA*)
+ *
+ * The world is cut into chunks of chunkSize x chunkSize x chunkSize cubes.
+ * Between two neighbouring chunks, every connected group of cubes where a unit can cross
+ * the border gets one entrance: a pair of adjacent cubes, one at each side.
+ * The cubes of the entrances are the nodes of the graph, connected by the cost of the
+ * fastest path between them inside their chunk, and by a single step across the border.
+ *
+ * A search on the graph only gives the entrances to pass,
+ * the path between two of them is searched when the unit gets there.
+ * Like PathSearchEngine, the search keeps its scores in arrays indexed by cube,
+ * with a generation stamp marking the entries of the current search.
+ * When the terrain changes, only the chunks around the changed cube are rebuilt.
+ *
+ * @Invar The world of this graph is effective
+ * 		| getWorld() != null
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class HierarchicalGraph {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * The world for this graph
+	 */
+	private final World world;
+
+	/*
+	 * The number of cubes along each side of a chunk and the number of chunks along each side of the world
+	 */
+	private final int chunkSize;
+	private final int nbChunksX;
+	private final int nbChunksY;
+	private final int nbChunksZ;
+
+	/*
+	 * the entrances between every chunk and its neighbour in the positive x, y and z direction
+	 * 	stored as pairs of cube indices {inside, outside, inside, outside, ...}
+	 * 	| entrances[chunk*3+direction]
+	 */
+	private final int[][] entrances;
+	/*
+	 * the cube indices of the nodes of every chunk
+	 */
+	private final int[][] nodes;
+	/*
+	 * the cost between every two nodes of a chunk
+	 * 	| costs[chunk][i*nodes[chunk].length+j] is the cost from node i to node j
+	 */
+	private final float[][] costs;
+	/*
+	 * the chunks that have to be rebuilt before the next search
+	 */
+	private final boolean[] dirty;
+	private boolean hasDirtyChunks;
+
+	/*
+	 * the cost from the start and the previous waypoint of every cube reached by the abstract search
+	 */
+	private final float[] gScore;
+	private final int[] parent;
+	/*
+	 * the generation in which the entries of a cube were last written, and in which it was closed
+	 */
+	private final int[] stamp;
+	private final int[] closedStamp;
+	/*
+	 * the current generation
+	 */
+	private int generation = 0;
+	/*
+	 * the edges leaving the node expanded last, with their costs
+	 */
+	private int[] edgeTargets = new int[16];
+	private float[] edgeCosts = new float[16];
+	private int nbEdges;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize the abstract graph for the given world
+	 *
+	 * @param world
+	 * 		the world of this graph
+	 * @param chunkSize
+	 * 		the number of cubes along each side of a chunk
+	 * @post the world of this graph is the given world
+	 * 		| new.getWorld() == world
+	 * @post the chunk size of this graph is the given chunk size
+	 * 		| new.getChunkSize() == chunkSize
+	 * @effect all entrances and all costs inside the chunks are computed
+	 * @throws IllegalArgumentException
+	 * 		| world == null || chunkSize < 2
+	 */
+	public HierarchicalGraph(World world, int chunkSize) throws IllegalArgumentException{
+		if(world == null || chunkSize < 2)
+			throw new IllegalArgumentException();
+		this.world = world;
+		this.chunkSize = chunkSize;
+		this.nbChunksX = (world.getNbCubesX()+chunkSize-1)/chunkSize;
+		this.nbChunksY = (world.getNbCubesY()+chunkSize-1)/chunkSize;
+		this.nbChunksZ = (world.getNbCubesZ()+chunkSize-1)/chunkSize;
+
+		int nbChunks = nbChunksX*nbChunksY*nbChunksZ;
+		this.entrances = new int[nbChunks*3][];
+		this.nodes = new int[nbChunks][];
+		this.costs = new float[nbChunks][];
+		this.dirty = new boolean[nbChunks];
+		int nbCubes = world.getNbCubesX()*world.getNbCubesY()*world.getNbCubesZ();
+		this.gScore = new float[nbCubes];
+		this.parent = new int[nbCubes];
+		this.stamp = new int[nbCubes];
+		this.closedStamp = new int[nbCubes];
+
+		for(int chunk=0; chunk<nbChunks; chunk++)
+			for(int direction=0; direction<3; direction++)
+				entrances[chunk*3+direction] = computeEntrances(chunk, direction);
+		for(int chunk=0; chunk<nbChunks; chunk++)
+			computeNodes(chunk);
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------GETTERS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the world of this graph
+	 */
+	@Basic @Raw @Immutable
+	public World getWorld(){
+		return this.world;
+	}
+
+	/**
+	 * Return the number of cubes along each side of a chunk
+	 */
+	@Basic @Raw @Immutable
+	public int getChunkSize(){
+		return this.chunkSize;
+	}
+
+	/**
+	 * Return the number of nodes in the given chunk
+	 *
+	 * @param chunk
+	 * 		the number of the chunk
+	 */
+	public int getNbNodes(int chunk){
+		this.update();
+		return this.nodes[chunk].length;
+	}
+
+	/**
+	 * Return the number of the chunk holding the cube with the given index
+	 *
+	 * @param index
+	 * 		the index of the cube
+	 * @return the number of the chunk, counted x first, then y, then z
+	 */
+	public int getChunk(int index){
+		int[] position = getWorld().getCubePosition(index);
+		return getChunk(position[0]/chunkSize, position[1]/chunkSize, position[2]/chunkSize);
+	}
+
+	/**
+	 * Return the number of the chunk with the given chunk coordinates
+	 */
+	@Model
+	private int getChunk(int cx, int cy, int cz){
+		return cx + cy*nbChunksX + cz*nbChunksX*nbChunksY;
+	}
+
+	/**
+	 * Return the lowest cube coordinates of the given chunk
+	 */
+	@Model
+	private int[] getLowerCorner(int chunk){
+		int cx = chunk % nbChunksX;
+		int cy = (chunk / nbChunksX) % nbChunksY;
+		int cz = chunk / (nbChunksX*nbChunksY);
+		return new int[]{cx*chunkSize, cy*chunkSize, cz*chunkSize};
+	}
+
+	/**
+	 * Return the highest cube coordinates of the given chunk, clipped to the world
+	 */
+	@Model
+	private int[] getUpperCorner(int chunk){
+		int[] lower = getLowerCorner(chunk);
+		return new int[]{
+				Math.min(lower[0]+chunkSize, getWorld().getNbCubesX())-1,
+				Math.min(lower[1]+chunkSize, getWorld().getNbCubesY())-1,
+				Math.min(lower[2]+chunkSize, getWorld().getNbCubesZ())-1};
+	}
+
+	/**
+	 * Return the neighbouring chunk that lies delta chunks away in the given direction, or -1 if there is none
+	 */
+	@Model
+	private int getNeighbour(int chunk, int direction, int delta){
+		int[] c = new int[]{chunk % nbChunksX, (chunk / nbChunksX) % nbChunksY, chunk / (nbChunksX*nbChunksY)};
+		c[direction] += delta;
+		if(c[0] < 0 || c[1] < 0 || c[2] < 0 || c[0] >= nbChunksX || c[1] >= nbChunksY || c[2] >= nbChunksZ)
+			return -1;
+		return getChunk(c[0], c[1], c[2]);
+	}
+
+	/**
+	 * Return whether a unit can stand in the cube with the given coordinates
+	 */
+	@Model
+	private boolean isWalkable(int x, int y, int z){
+		return getWorld().isWalkableCube(getWorld().getCubeIndex(x, y, z));
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------BUILDING----------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Compute the entrances between the given chunk and its neighbour in the given direction
+	 *
+	 * @param chunk
+	 * 		the number of the chunk
+	 * @param direction
+	 * 		0, 1 or 2 for the neighbour in positive x, y or z direction
+	 * @return the pairs of cube indices {inside, outside, ...}, one pair for every
+	 * 		connected group of cubes where a unit can cross the border,
+	 * 		the cube closest to the middle of the group is taken
+	 */
+	@Model
+	private int[] computeEntrances(int chunk, int direction){
+		if(getNeighbour(chunk, direction, 1) < 0)
+			return new int[0];
+
+		int[] lower = getLowerCorner(chunk);
+		int[] upper = getUpperCorner(chunk);
+		int first = (direction+1)%3;
+		int second = (direction+2)%3;
+		int sizeFirst = upper[first]-lower[first]+1;
+		int sizeSecond = upper[second]-lower[second]+1;
+
+		//CUBES WHERE THE BORDER CAN BE CROSSED
+		boolean[] open = new boolean[sizeFirst*sizeSecond];
+		int[] inside = new int[3];
+		int[] outside = new int[3];
+		for(int u=0; u<sizeFirst; u++){
+			for(int v=0; v<sizeSecond; v++){
+				inside[direction] = upper[direction];
+				inside[first] = lower[first]+u;
+				inside[second] = lower[second]+v;
+				outside[direction] = upper[direction]+1;
+				outside[first] = inside[first];
+				outside[second] = inside[second];
+				open[u*sizeSecond+v] = isWalkable(inside[0], inside[1], inside[2]) &&
+						isWalkable(outside[0], outside[1], outside[2]);
+			}
+		}
+
+		//ONE ENTRANCE PER CONNECTED GROUP
+		int[] pairs = new int[16];
+		int nbPairs = 0;
+		boolean[] seen = new boolean[open.length];
+		int[] group = new int[open.length];
+		for(int cell=0; cell<open.length; cell++){
+			if(!open[cell] || seen[cell])
+				continue;
+			int groupSize = 0;
+			group[groupSize++] = cell;
+			seen[cell] = true;
+			double sumU = 0, sumV = 0;
+			for(int i=0; i<groupSize; i++){
+				int u = group[i]/sizeSecond;
+				int v = group[i]%sizeSecond;
+				sumU += u;
+				sumV += v;
+				int[] next = new int[]{u>0? group[i]-sizeSecond : -1, u<sizeFirst-1? group[i]+sizeSecond : -1,
+						v>0? group[i]-1 : -1, v<sizeSecond-1? group[i]+1 : -1};
+				for(int n: next){
+					if(n >= 0 && open[n] && !seen[n]){
+						seen[n] = true;
+						group[groupSize++] = n;
+					}
+				}
+			}
+			double middleU = sumU/groupSize;
+			double middleV = sumV/groupSize;
+			int best = group[0];
+			double bestDistance = Double.MAX_VALUE;
+			for(int i=0; i<groupSize; i++){
+				double du = group[i]/sizeSecond - middleU;
+				double dv = group[i]%sizeSecond - middleV;
+				if(du*du+dv*dv < bestDistance){
+					bestDistance = du*du+dv*dv;
+					best = group[i];
+				}
+			}
+			inside[direction] = upper[direction];
+			inside[first] = lower[first]+best/sizeSecond;
+			inside[second] = lower[second]+best%sizeSecond;
+			int insideIndex = getWorld().getCubeIndex(inside[0], inside[1], inside[2]);
+			inside[direction]++;
+			if(nbPairs == pairs.length)
+				pairs = Arrays.copyOf(pairs, 2*nbPairs);
+			pairs[nbPairs++] = insideIndex;
+			pairs[nbPairs++] = getWorld().getCubeIndex(inside[0], inside[1], inside[2]);
+		}
+		return Arrays.copyOf(pairs, nbPairs);
+	}
+
+	/**
+	 * Collect the nodes of the given chunk and compute the costs between them
+	 *
+	 * @param chunk
+	 * 		the number of the chunk
+	 * @post the nodes are all entrance cubes at the inside of the chunk
+	 * @post the costs are those of the fastest paths staying inside the chunk
+	 */
+	@Model
+	private void computeNodes(int chunk){
+		int[] chunkIndices = new int[0];
+		for(int direction=0; direction<3; direction++){
+			int[] pairs = entrances[chunk*3+direction];
+			for(int i=0; i<pairs.length; i+=2)
+				chunkIndices = addIfAbsent(chunkIndices, pairs[i]);
+			int neighbour = getNeighbour(chunk, direction, -1);
+			if(neighbour >= 0){
+				pairs = entrances[neighbour*3+direction];
+				for(int i=1; i<pairs.length; i+=2)
+					chunkIndices = addIfAbsent(chunkIndices, pairs[i]);
+			}
+		}
+
+		int k = chunkIndices.length;
+		float[] chunkCosts = new float[k*k];
+
+		PathSearchEngine engine = getWorld().getPathSearchEngine();
+		int[] lower = getLowerCorner(chunk);
+		int[] upper = getUpperCorner(chunk);
+		for(int i=0; i<k; i++){
+			engine.explore(chunkIndices[i], false, lower, upper);
+			for(int j=0; j<k; j++)
+				chunkCosts[i*k+j] = engine.getCostTo(chunkIndices[j]);
+		}
+		this.nodes[chunk] = chunkIndices;
+		this.costs[chunk] = chunkCosts;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------TERRAIN CHANGES----------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Register that the cube with the given coordinates changed
+	 *
+	 * @param x
+	 * 		the x coordinate of the cube
+	 * @param y
+	 * 		the y coordinate of the cube
+	 * @param z
+	 * 		the z coordinate of the cube
+	 * @post the chunks of the cube and of all its neighbours
+	 * 		(whose standability may change) will be rebuilt before the next search
+	 */
+	public void terrainChanged(int x, int y, int z){
+		for (int dx= -1; dx <=1;dx++)
+			for (int dy= -1; dy <=1;dy++)
+				for (int dz= -1; dz <=1;dz++)
+					if(getWorld().isValidPosition(x+dx, y+dy, z+dz)){
+						dirty[getChunk((x+dx)/chunkSize, (y+dy)/chunkSize, (z+dz)/chunkSize)] = true;
+						hasDirtyChunks = true;
+					}
+	}
+
+	/**
+	 * Rebuild all chunks that changed
+	 *
+	 * @post the entrances of the changed chunks are computed again,
+	 * 		the costs are computed again for the changed chunks and for
+	 * 		the neighbours whose shared entrances changed
+	 */
+	@Model
+	private void update(){
+		if(!hasDirtyChunks)
+			return;
+		boolean[] rebuild = new boolean[dirty.length];
+		for(int chunk=0; chunk<dirty.length; chunk++){
+			if(!dirty[chunk])
+				continue;
+			rebuild[chunk] = true;
+			for(int direction=0; direction<3; direction++){
+				//OWN FACE
+				int[] pairs = computeEntrances(chunk, direction);
+				if(!Arrays.equals(pairs, entrances[chunk*3+direction])){
+					entrances[chunk*3+direction] = pairs;
+					rebuild[getNeighbour(chunk, direction, 1)] = true;
+				}
+				//FACE OF THE NEIGHBOUR BELOW
+				int neighbour = getNeighbour(chunk, direction, -1);
+				if(neighbour >= 0){
+					pairs = computeEntrances(neighbour, direction);
+					if(!Arrays.equals(pairs, entrances[neighbour*3+direction])){
+						entrances[neighbour*3+direction] = pairs;
+						rebuild[neighbour] = true;
+					}
+				}
+			}
+			dirty[chunk] = false;
+		}
+		for(int chunk=0; chunk<rebuild.length; chunk++)
+			if(rebuild[chunk])
+				computeNodes(chunk);
+		hasDirtyChunks = false;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------SEARCHING----------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Search the entrances to pass on the fastest path between the two given cubes
+	 *
+	 * @param start
+	 * 		the index of the start cube
+	 * @param target
+	 * 		the index of the target cube
+	 * @return the cube indices to pass, beginning with start and ending with target,
+	 * 		two consecutive cubes are either in the same chunk or adjacent across a border,
+	 * 		or null if the target can not be reached
+	 */
+	public int[] findWaypoints(int start, int target){
+		this.update();
+		if(start == target)
+			return new int[]{start};
+
+		PathSearchEngine engine = getWorld().getPathSearchEngine();
+		int startChunk = getChunk(start);
+		int targetChunk = getChunk(target);
+
+		//CONNECT START AND TARGET TO THEIR CHUNK
+		int[] startNodes = nodes[startChunk];
+		float[] fromStart = new float[startNodes.length];
+		engine.explore(start, false, getLowerCorner(startChunk), getUpperCorner(startChunk));
+		for(int i=0; i<startNodes.length; i++)
+			fromStart[i] = engine.getCostTo(startNodes[i]);
+		float direct = startChunk == targetChunk ? engine.getCostTo(target) : Float.POSITIVE_INFINITY;
+
+		int[] targetNodes = nodes[targetChunk];
+		float[] toTarget = new float[targetNodes.length];
+		engine.explore(target, true, getLowerCorner(targetChunk), getUpperCorner(targetChunk));
+		for(int i=0; i<targetNodes.length; i++)
+			toTarget[i] = engine.getCostTo(targetNodes[i]);
+
+		//A* ON THE ABSTRACT GRAPH
+		this.nextGeneration();
+		PriorityQueue<Entry> open = new PriorityQueue<>();
+		stamp[start] = generation;
+		gScore[start] = 0f;
+		open.add(new Entry(start, engine.getHeuristicCostEstimate(start, target)));
+
+		while(!open.isEmpty()){
+			int current = open.poll().index;
+			if(closedStamp[current] == generation)
+				continue;
+			closedStamp[current] = generation;
+			if(current == target)
+				return reconstructWaypoints(start, target);
+
+			float g = gScore[current];
+			nbEdges = 0;
+
+			if(current == start){
+				for(int i=0; i<startNodes.length; i++)
+					addEdge(startNodes[i], fromStart[i]);
+				addEdge(target, direct);
+			}
+			int chunk = getChunk(current);
+			int[] chunkNodes = nodes[chunk];
+			int i = indexOf(chunkNodes, current);
+			if(i >= 0){
+				int k = chunkNodes.length;
+				//INSIDE THE CHUNK
+				for(int j=0; j<k; j++)
+					if(j != i)
+						addEdge(chunkNodes[j], costs[chunk][i*k+j]);
+				if(chunk == targetChunk)
+					addEdge(target, toTarget[i]);
+				//ACROSS THE BORDER
+				for(int direction=0; direction<3; direction++){
+					int[] pairs = entrances[chunk*3+direction];
+					for(int p=0; p<pairs.length; p+=2)
+						if(pairs[p] == current)
+							addEdge(pairs[p+1], direction==2? PathSearchEngine.UP_COST : 1);
+					int neighbour = getNeighbour(chunk, direction, -1);
+					if(neighbour >= 0){
+						pairs = entrances[neighbour*3+direction];
+						for(int p=1; p<pairs.length; p+=2)
+							if(pairs[p] == current)
+								addEdge(pairs[p-1], direction==2? PathSearchEngine.DOWN_COST : 1);
+					}
+				}
+			}
+
+			for(int e=0; e<nbEdges; e++){
+				int next = edgeTargets[e];
+				float tentativeGScore = g + edgeCosts[e];
+				if(closedStamp[next] == generation)
+					continue;
+				if(stamp[next] == generation && tentativeGScore >= gScore[next])
+					continue;
+				stamp[next] = generation;
+				gScore[next] = tentativeGScore;
+				parent[next] = current;
+				open.add(new Entry(next, tentativeGScore + engine.getHeuristicCostEstimate(next, target)));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Search the path between two consecutive waypoints
+	 *
+	 * @param from
+	 * 		the index of the waypoint to start from
+	 * @param to
+	 * 		the index of the next waypoint
+	 * @return the indices of the path, starting with to and ending with the first cube after from,
+	 * 		or null if there is no such path anymore
+	 */
+	public int[] refineSegment(int from, int to){
+		int chunk = getChunk(from);
+		if(chunk != getChunk(to))
+			return new int[]{to};
+		return getWorld().getPathSearchEngine().findPath(from, to, getLowerCorner(chunk), getUpperCorner(chunk));
+	}
+
+	//---------------------------------------HELPERS
+
+	/**
+	 * Add an edge leaving the node expanded last if it has a finite cost
+	 */
+	@Model
+	private void addEdge(int to, float cost){
+		if(cost < Float.POSITIVE_INFINITY){
+			if(nbEdges == edgeTargets.length){
+				edgeTargets = Arrays.copyOf(edgeTargets, 2*nbEdges);
+				edgeCosts = Arrays.copyOf(edgeCosts, 2*nbEdges);
+			}
+			edgeTargets[nbEdges] = to;
+			edgeCosts[nbEdges] = cost;
+			nbEdges++;
+		}
+	}
+
+	/**
+	 * Move on to a new generation, resetting the stamps only when the counter wraps around
+	 */
+	@Model
+	private void nextGeneration(){
+		generation++;
+		if(generation == 0){
+			Arrays.fill(stamp, 0);
+			Arrays.fill(closedStamp, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Return the place of the given value in the given array, or -1
+	 */
+	private static int indexOf(int[] array, int value){
+		for(int i=0; i<array.length; i++)
+			if(array[i] == value)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Return the given array with the given value added at the end, or the given array if it holds the value
+	 */
+	private static int[] addIfAbsent(int[] array, int value){
+		if(indexOf(array, value) >= 0)
+			return array;
+		int[] result = Arrays.copyOf(array, array.length+1);
+		result[array.length] = value;
+		return result;
+	}
+
+	/**
+	 * Return the waypoints from start to target, following the parents back from target
+	 */
+	@Model
+	private int[] reconstructWaypoints(int start, int target){
+		int length = 1;
+		for(int current = target; current != start; current = parent[current])
+			length++;
+		int[] result = new int[length];
+		for(int current = target; current != start; current = parent[current])
+			result[--length] = current;
+		result[0] = start;
+		return result;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * --------------------------ENTRY-----------------------------------
+	 * -----------------------NESTED CLASS-------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * An entry of the open set of the abstract search, ordered on its f value
+	 */
+	private static class Entry implements Comparable<Entry>{
+		private final int index;
+		private final float f;
+
+		private Entry(int index, float f){
+			this.index = index;
+			this.f = f;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			return Float.compare(this.f, other.f);
+		}
+	}
+}
@@ -0,0 +1,413 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * A class determining whether a solid cube is connected to a border of the world
+ * 	through other directly adjacent solid cubes
+ *
+ * The class has the same contract as hillbillies.util.ConnectedToBorder: initially the entire
+ * world is solid, and the state is updated with changeSolidToPassable and changePassableToSolid.
+ * The cubes are handled by their index, numbered the same way as in ConnectedToBorder. The searches
+ * use int arrays as work stacks and mark the cubes they visit with a generation number,
+ * so no marks have to be cleared between searches and no coordinates are boxed.
+ *
+ * @Invar The dimensions are strictly positive
+ * 		| getNbCubesX() > 0 && getNbCubesY() > 0 && getNbCubesZ() > 0
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class IndexedConnectedToBorder {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * the dimensions of the world
+	 */
+	private final int nbX;
+	private final int nbY;
+	private final int nbZ;
+	private final int nbXY;
+
+	/*
+	 * whether every cube is passable
+	 */
+	private final boolean[] passable;
+	/*
+	 * whether every cube is known not to be connected to the border
+	 */
+	private final boolean[] notConnected;
+
+	/*
+	 * the generation of the last search that visited every cube
+	 */
+	private final int[] visited;
+	/*
+	 * the generation of the last change that found every cube connected or not connected
+	 */
+	private final int[] knownConnected;
+	private final int[] knownNotConnected;
+	/*
+	 * the generation of the current search and of the current change
+	 */
+	private int searchGeneration = 0;
+	private int changeGeneration = 0;
+
+	/*
+	 * the cubes still to visit by a search, and the cubes a search visited
+	 */
+	private final int[] stack;
+	private final int[] visitedCubes;
+	/*
+	 * the number of cubes the last search visited
+	 */
+	private int nbVisitedCubes = 0;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize the algorithm for a world of the given dimensions where all cubes are solid
+	 *
+	 * @param nbX
+	 * @param nbY
+	 * @param nbZ
+	 * 		the dimensions of the world
+	 * @post | new.getNbCubesX() == nbX && new.getNbCubesY() == nbY && new.getNbCubesZ() == nbZ
+	 * @post every cube is solid and connected to the border
+	 * 		| new.isSolidConnectedToBorder(x,y,z)
+	 * @throws IllegalArgumentException
+	 * 		| nbX <= 0 || nbY <= 0 || nbZ <= 0
+	 */
+	public IndexedConnectedToBorder(int nbX, int nbY, int nbZ) throws IllegalArgumentException{
+		if(nbX <= 0 || nbY <= 0 || nbZ <= 0)
+			throw new IllegalArgumentException();
+		this.nbX = nbX;
+		this.nbY = nbY;
+		this.nbZ = nbZ;
+		this.nbXY = nbX*nbY;
+		int nbCubes = nbXY*nbZ;
+		this.passable = new boolean[nbCubes];
+		this.notConnected = new boolean[nbCubes];
+		this.visited = new int[nbCubes];
+		this.knownConnected = new int[nbCubes];
+		this.knownNotConnected = new int[nbCubes];
+		//every cube is pushed at most once by a search
+		this.stack = new int[nbCubes];
+		this.visitedCubes = new int[nbCubes];
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------GETTERS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the number of cubes in the x direction
+	 */
+	@Basic @Raw @Immutable
+	public int getNbCubesX(){
+		return this.nbX;
+	}
+
+	/**
+	 * Return the number of cubes in the y direction
+	 */
+	@Basic @Raw @Immutable
+	public int getNbCubesY(){
+		return this.nbY;
+	}
+
+	/**
+	 * Return the number of cubes in the z direction
+	 */
+	@Basic @Raw @Immutable
+	public int getNbCubesZ(){
+		return this.nbZ;
+	}
+
+	/**
+	 * Return the index of the cube with the given coordinates
+	 *
+	 * @return | result == x + y*getNbCubesX() + z*getNbCubesX()*getNbCubesY()
+	 */
+	public int getIndex(int x, int y, int z){
+		return x + y*nbX + z*nbXY;
+	}
+
+	/**
+	 * Return whether the cube with the given coordinates is a solid cube connected
+	 * 	to a border of the world through other directly adjacent solid cubes
+	 *
+	 * @return | result == isSolidConnectedToBorder(getIndex(x,y,z))
+	 */
+	public boolean isSolidConnectedToBorder(int x, int y, int z){
+		return isSolidConnectedToBorder(getIndex(x, y, z));
+	}
+
+	/**
+	 * Return whether the cube with the given index is a solid cube connected
+	 * 	to a border of the world through other directly adjacent solid cubes
+	 * 	the result is computed by the changes, so this query returns immediately
+	 */
+	public boolean isSolidConnectedToBorder(int index){
+		return !passable[index] && !notConnected[index];
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CHANGES------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Make the cube with the given coordinates solid instead of passable
+	 *
+	 * @return the coordinates {x, y, z} of the cubes that became connected to the border
+	 * 		by this change, including the given cube if any
+	 * 		| result == toCoordinates(changePassableToSolid(getIndex(x,y,z)))
+	 */
+	public List<int[]> changePassableToSolid(int x, int y, int z){
+		return toCoordinates(changePassableToSolid(getIndex(x, y, z)));
+	}
+
+	/**
+	 * Make the cube with the given index solid instead of passable
+	 *
+	 * @return the indices of the cubes that became connected to the border by this change,
+	 * 		including the given cube if any
+	 */
+	public int[] changePassableToSolid(int index){
+		if(!passable[index])
+			return new int[0];
+		passable[index] = false;
+		if(!isBorder(index) && !hasConnectedNeighbour(index))
+			return new int[0];
+
+		//every solid cube that is not connected and is reached from the given cube becomes connected
+		int nbConnected = 0;
+		notConnected[index] = false;
+		visitedCubes[nbConnected++] = index;
+		for(int head = 0; head < nbConnected; head++){
+			int cube = visitedCubes[head];
+			int x = cube % nbX;
+			int y = (cube % nbXY) / nbX;
+			int z = cube / nbXY;
+			for(int k = 0; k < 6; k++){
+				int neighbour = getNeighbour(x, y, z, k);
+				if(neighbour >= 0 && !passable[neighbour] && notConnected[neighbour]){
+					notConnected[neighbour] = false;
+					visitedCubes[nbConnected++] = neighbour;
+				}
+			}
+		}
+		return Arrays.copyOf(visitedCubes, nbConnected);
+	}
+
+	/**
+	 * Make the cube with the given coordinates passable instead of solid
+	 *
+	 * @return the coordinates {x, y, z} of the cubes that are no longer connected to the border
+	 * 		by this change
+	 * 		| result == toCoordinates(changeSolidToPassable(getIndex(x,y,z)))
+	 */
+	public List<int[]> changeSolidToPassable(int x, int y, int z){
+		return toCoordinates(changeSolidToPassable(getIndex(x, y, z)));
+	}
+
+	/**
+	 * Make the cube with the given index passable instead of solid
+	 *
+	 * @return the indices of the cubes that are no longer connected to the border by this change
+	 * @throws IllegalStateException
+	 * 		the current thread is interrupted during the search
+	 */
+	public int[] changeSolidToPassable(int index) throws IllegalStateException{
+		if(passable[index])
+			return new int[0];
+		passable[index] = true;
+		notConnected[index] = true;
+
+		int change = nextChangeGeneration();
+		int[] changed = new int[0];
+		int nbChanged = 0;
+		int x = index % nbX;
+		int y = (index % nbXY) / nbX;
+		int z = index / nbXY;
+		for(int k = 0; k < 6; k++){
+			int neighbour = getNeighbour(x, y, z, k);
+			if(neighbour < 0 || passable[neighbour] ||
+					knownConnected[neighbour] == change || knownNotConnected[neighbour] == change)
+				continue;
+			//all cubes visited while searching are connected if a path is found, and not connected otherwise
+			boolean connected = existsPathToBorder(neighbour, change);
+			int nbVisited = this.nbVisitedCubes;
+			if(connected){
+				for(int i = 0; i < nbVisited; i++)
+					knownConnected[visitedCubes[i]] = change;
+			}
+			else{
+				if(nbChanged + nbVisited > changed.length)
+					changed = Arrays.copyOf(changed, Math.max(2*changed.length, nbChanged + nbVisited));
+				for(int i = 0; i < nbVisited; i++){
+					int cube = visitedCubes[i];
+					knownNotConnected[cube] = change;
+					notConnected[cube] = true;
+					changed[nbChanged++] = cube;
+				}
+			}
+		}
+		return Arrays.copyOf(changed, nbChanged);
+	}
+
+	//---------------------------------------HELPERS
+
+	/**
+	 * Search a path through solid cubes from the given cube to the border, depth first
+	 * 	the visited cubes are stored in visitedCubes
+	 *
+	 * @param origin
+	 * 		the index of the solid cube to start from
+	 * @param change
+	 * 		the generation of the current change
+	 * @return whether a path to the border, or to a cube known to be connected in this change, exists
+	 */
+	@Model
+	private boolean existsPathToBorder(int origin, int change) throws IllegalStateException{
+		int search = nextSearchGeneration();
+		int top = 0;
+		int nbVisited = 0;
+		stack[top++] = origin;
+		visited[origin] = search;
+		visitedCubes[nbVisited++] = origin;
+		try{
+			while(top > 0){
+				//this might take a long time, check whether the impatient user stopped us
+				if(Thread.currentThread().isInterrupted())
+					throw new IllegalStateException();
+				int cube = stack[--top];
+				if(knownConnected[cube] == change)
+					return true;
+				if(knownNotConnected[cube] == change)
+					return false;
+				if(isBorder(cube)){
+					knownConnected[cube] = change;
+					return true;
+				}
+				int x = cube % nbX;
+				int y = (cube % nbXY) / nbX;
+				int z = cube / nbXY;
+				for(int k = 0; k < 6; k++){
+					int neighbour = getNeighbour(x, y, z, k);
+					if(neighbour >= 0 && !passable[neighbour] && visited[neighbour] != search){
+						visited[neighbour] = search;
+						visitedCubes[nbVisited++] = neighbour;
+						stack[top++] = neighbour;
+					}
+				}
+			}
+			return false;
+		}
+		finally{
+			this.nbVisitedCubes = nbVisited;
+		}
+	}
+
+	/**
+	 * Return whether a directly adjacent cube of the cube with the given index
+	 * 	is solid and connected to the border
+	 */
+	@Model
+	private boolean hasConnectedNeighbour(int index){
+		int x = index % nbX;
+		int y = (index % nbXY) / nbX;
+		int z = index / nbXY;
+		for(int k = 0; k < 6; k++){
+			int neighbour = getNeighbour(x, y, z, k);
+			if(neighbour >= 0 && isSolidConnectedToBorder(neighbour))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Return the index of the k-th directly adjacent cube of the cube with the given coordinates,
+	 * 	or -1 if it lies outside the world
+	 */
+	@Model
+	private int getNeighbour(int x, int y, int z, int k){
+		switch(k){
+		case 0: return x > 0? getIndex(x-1, y, z) : -1;
+		case 1: return x < nbX-1? getIndex(x+1, y, z) : -1;
+		case 2: return y > 0? getIndex(x, y-1, z) : -1;
+		case 3: return y < nbY-1? getIndex(x, y+1, z) : -1;
+		case 4: return z > 0? getIndex(x, y, z-1) : -1;
+		default: return z < nbZ-1? getIndex(x, y, z+1) : -1;
+		}
+	}
+
+	/**
+	 * Return whether the cube with the given index lies at a border of the world
+	 */
+	@Model
+	private boolean isBorder(int index){
+		int x = index % nbX;
+		int y = (index % nbXY) / nbX;
+		int z = index / nbXY;
+		return x == 0 || x == nbX-1 || y == 0 || y == nbY-1 || z == 0 || z == nbZ-1;
+	}
+
+	/**
+	 * Return a new search generation, resetting the marks when the generations run out
+	 */
+	@Model
+	private int nextSearchGeneration(){
+		if(this.searchGeneration == Integer.MAX_VALUE){
+			Arrays.fill(this.visited, 0);
+			this.searchGeneration = 0;
+		}
+		return ++this.searchGeneration;
+	}
+
+	/**
+	 * Return a new change generation, resetting the marks when the generations run out
+	 */
+	@Model
+	private int nextChangeGeneration(){
+		if(this.changeGeneration == Integer.MAX_VALUE){
+			Arrays.fill(this.knownConnected, 0);
+			Arrays.fill(this.knownNotConnected, 0);
+			this.changeGeneration = 0;
+		}
+		return ++this.changeGeneration;
+	}
+
+	/**
+	 * Return a new list with the coordinates {x, y, z} of the cubes with the given indices
+	 */
+	@Model
+	private List<int[]> toCoordinates(int[] indices){
+		List<int[]> result = new ArrayList<>(indices.length+1);
+		for(int index: indices)
+			result.add(new int[]{index % nbX, (index % nbXY) / nbX, index / nbXY});
+		return result;
+	}
+}
@@ -163,7 +163,18 @@ public abstract class Item implements IGameObject {
 	protected void setPosition(double[] position) throws IllegalArgumentException {
 		if (!isValidPosition(position))
 			throw new IllegalArgumentException();
+		double[] previousPosition = this.position;
 		this.position = position;
+		//the world only registers the cube of an item
+		if(this.hasWorld() && (previousPosition == null || !Utils.inSameCube(previousPosition, position)))
+			this.getWorld().updatePosition(this);
+	}
+	
+	/**
+	 * Check whether this item has a position yet
+	 */
+	boolean hasPosition(){
+		return this.position != null;
 	}
 	
 	/**
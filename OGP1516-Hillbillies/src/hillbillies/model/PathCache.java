@@ -0,0 +1,329 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * A class caching the paths found in a world
+ *
+ * Paths are stored per (start cube, target cube), the least recently used path is
+ * removed when the cache is full. A path remembers the terrain version of every region
+ * of the world it passes, and is only handed out while none of those regions changed.
+ * A path to the same target passing the start cube can be reused from the start cube on.
+ *
+ * @Invar The world of this cache is effective
+ * 		| getWorld() != null
+ * @Invar The cache never holds more paths than its capacity
+ * 		| getNbPaths() <= getCapacity()
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class PathCache {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * The world for this cache
+	 */
+	private final World world;
+	/*
+	 * The maximal number of paths in this cache
+	 */
+	private final int capacity;
+	/*
+	 * the paths of this cache by their key, in order of use
+	 */
+	private final LinkedHashMap<Long,Entry> entries;
+	/*
+	 * the keys of the paths of this cache by their target cube
+	 */
+	private final Map<Integer,Set<Long>> keysByTarget = new HashMap<>();
+
+	/*
+	 * the number of paths handed out completely, as suffix of another path, or not found
+	 */
+	private int nbHits;
+	private int nbSuffixHits;
+	private int nbMisses;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize an empty cache for the given world
+	 *
+	 * @param world
+	 * 		the world of this cache
+	 * @param capacity
+	 * 		the maximal number of paths in this cache
+	 * @post the world of this cache is the given world
+	 * 		| new.getWorld() == world
+	 * @post the capacity of this cache is the given capacity
+	 * 		| new.getCapacity() == capacity
+	 * @throws IllegalArgumentException
+	 * 		| world == null || capacity <= 0
+	 */
+	public PathCache(World world, int capacity) throws IllegalArgumentException{
+		if(world == null || capacity <= 0)
+			throw new IllegalArgumentException();
+		this.world = world;
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<Long,Entry>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long,Entry> eldest) {
+				if(size() <= PathCache.this.getCapacity())
+					return false;
+				forgetKey(eldest.getKey(), eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------GETTERS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the world of this cache
+	 */
+	@Basic @Raw @Immutable
+	public World getWorld(){
+		return this.world;
+	}
+
+	/**
+	 * Return the maximal number of paths in this cache
+	 */
+	@Basic @Raw @Immutable
+	public int getCapacity(){
+		return this.capacity;
+	}
+
+	/**
+	 * Return the number of paths in this cache
+	 */
+	public int getNbPaths(){
+		return this.entries.size();
+	}
+
+	/**
+	 * Return the number of paths handed out for exactly the same start and target
+	 */
+	@Basic
+	public int getNbHits(){
+		return this.nbHits;
+	}
+
+	/**
+	 * Return the number of paths handed out as the remainder of a path from another start
+	 */
+	@Basic
+	public int getNbSuffixHits(){
+		return this.nbSuffixHits;
+	}
+
+	/**
+	 * Return the number of requests for which no valid path was cached
+	 */
+	@Basic
+	public int getNbMisses(){
+		return this.nbMisses;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------PATHS--------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return a cached path between the two given cubes
+	 *
+	 * @param start
+	 * 		the index of the start cube
+	 * @param target
+	 * 		the index of the target cube
+	 * @return the indices of the path, starting with the target and ending with
+	 * 		the first cube after start, or null if no valid path is cached
+	 * 		the path of another start to the same target is used from start on if it passes start
+	 * @post cached paths over changed terrain are removed
+	 */
+	public int[] getPath(int start, int target){
+		//SAME START AND TARGET
+		long key = getKey(start, target);
+		Entry entry = entries.get(key);
+		if(entry != null){
+			if(entry.isValid()){
+				nbHits++;
+				return entry.path;
+			}
+			removePath(key);
+		}
+
+		//PATH TO THE SAME TARGET PASSING START
+		Set<Long> keys = keysByTarget.get(target);
+		if(keys != null){
+			List<Long> invalid = new ArrayList<>();
+			int[] suffix = null;
+			for(long otherKey: keys){
+				Entry other = entries.get(otherKey);
+				if(!other.isValid()){
+					invalid.add(otherKey);
+					continue;
+				}
+				for(int i=0; i<other.path.length; i++){
+					if(other.path[i] == start){
+						suffix = Arrays.copyOf(other.path, i);
+						break;
+					}
+				}
+				if(suffix != null)
+					break;
+			}
+			for(long invalidKey: invalid)
+				removePath(invalidKey);
+			if(suffix != null){
+				nbSuffixHits++;
+				return suffix;
+			}
+		}
+		nbMisses++;
+		return null;
+	}
+
+	/**
+	 * Store the given path between the two given cubes
+	 *
+	 * @param start
+	 * 		the index of the start cube
+	 * @param target
+	 * 		the index of the target cube
+	 * @param path
+	 * 		the indices of the path, starting with the target and ending with the first cube after start
+	 * @post the path is cached with the current terrain version of all regions it passes
+	 * @post if the cache was full, the least recently used path is removed
+	 * @throws IllegalArgumentException
+	 * 		| path == null || path.length == 0
+	 */
+	public void putPath(int start, int target, int[] path) throws IllegalArgumentException{
+		if(path == null || path.length == 0)
+			throw new IllegalArgumentException();
+		long key = getKey(start, target);
+		removePath(key);
+		entries.put(key, new Entry(start, path));
+		Set<Long> keys = keysByTarget.get(target);
+		if(keys == null){
+			keys = new HashSet<>();
+			keysByTarget.put(target, keys);
+		}
+		keys.add(key);
+	}
+
+	/**
+	 * Remove all paths from this cache
+	 *
+	 * @post | new.getNbPaths() == 0
+	 */
+	public void clear(){
+		entries.clear();
+		keysByTarget.clear();
+	}
+
+	//---------------------------------------HELPERS
+
+	/**
+	 * Return the key for the path between the two given cubes
+	 */
+	private long getKey(int start, int target){
+		return (long) start * getWorld().getNbCubes() + target;
+	}
+
+	/**
+	 * Remove the path with the given key
+	 */
+	private void removePath(long key){
+		Entry entry = entries.remove(key);
+		if(entry != null)
+			forgetKey(key, entry);
+	}
+
+	/**
+	 * Remove the given key from the keys by target
+	 */
+	private void forgetKey(long key, Entry entry){
+		int target = entry.path[0];
+		Set<Long> keys = keysByTarget.get(target);
+		if(keys != null){
+			keys.remove(key);
+			if(keys.isEmpty())
+				keysByTarget.remove(target);
+		}
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * --------------------------ENTRY-----------------------------------
+	 * -----------------------NESTED CLASS-------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * A cached path with the terrain versions of the regions it passes
+	 */
+	private class Entry {
+		private final int[] path;
+		private final int[] regions;
+		private final int[] versions;
+
+		private Entry(int start, int[] path){
+			this.path = path;
+			Set<Integer> passed = new HashSet<>();
+			passed.add(getWorld().getTerrainRegion(start));
+			for(int index: path)
+				passed.add(getWorld().getTerrainRegion(index));
+
+			this.regions = new int[passed.size()];
+			this.versions = new int[passed.size()];
+			int i = 0;
+			for(int region: passed){
+				regions[i] = region;
+				versions[i] = getWorld().getTerrainRegionVersion(region);
+				i++;
+			}
+		}
+
+		/**
+		 * Return whether none of the regions of the path changed
+		 */
+		private boolean isValid(){
+			for(int i=0; i<regions.length; i++)
+				if(getWorld().getTerrainRegionVersion(regions[i]) != versions[i])
+					return false;
+			return true;
+		}
+	}
+}
@@ -1,15 +1,8 @@
 package hillbillies.model;
 
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Set;
-import java.util.TreeSet;
-
 import be.kuleuven.cs.som.annotate.Basic;
 import be.kuleuven.cs.som.annotate.Immutable;
 import be.kuleuven.cs.som.annotate.Raw;
-import be.kuleuven.cs.som.annotate.Value;
-import hillbillies.model.helper.Utils;
 
 /**
  * A class used to find paths for units in the game world
@@ -36,17 +29,52 @@ public class PathFinding {
 	
 	//---------A* algorithm
 	/*
-	 * linked list: ideal to remove/add last element in constant time
+	 * the cube indices of the path, from the target back to the first step
+	 */
+	private int[] path = new int[0];
+	/*
+	 * the number of positions of the path that are not yet handed out
+	 */
+	private int remaining = 0;
+	/*
+	 * the start and target cube index of the search
+	 */
+	private final int startIndex;
+	private final int targetIndex;
+	/*
+	 * whether the search for the path is still going on
+	 */
+	private boolean searching = false;
+	/*
+	 * the cubes a hierarchical path passes, from start to target, or null
+	 * 	and the place of the next one to refine the path to
 	 */
-	private LinkedList<int[]> path = new LinkedList<>();
+	private int[] waypoints;
+	private int nextWaypoint;
 	/*
-	 * HashSet for the closedSet: ideal to access information in constant time
+	 * the terrain version of the world when the search started
 	 */
-	private Set<int[]> closedSet = new HashSet<>();
+	private int searchVersion;
 	/*
-	 * TreeSet for the openSet: ideal for making yourself a natural ordering (which is recommended for the A*)
+	 * the flow field followed towards the target, or null
+	 * 	and the index of the last cube handed out
 	 */
-	private TreeSet<Node> openSet = new TreeSet<Node>();
+	private FlowField flowField;
+	private int currentIndex;
+	/*
+	 * the number of cubes expanded that the world does not know of yet,
+	 * 	and whether the path found still has to be put in the cache of the world
+	 */
+	private int uncommittedExpanded = 0;
+	private boolean uncommittedPath = false;
+	/*
+	 * the engine a parallel tick of the world continues this search with, -1 if none yet
+	 */
+	private int engineSlot = -1;
+	/*
+	 * the request for the path to the path request service of the world, or null
+	 */
+	private PathRequestService.Request request;
 	
 	/*___________________________________________________________________
 	 * __________________________________________________________________
@@ -64,16 +92,25 @@ public class PathFinding {
 	 * @param target
 	 * 		the target position
 	 * 
-	 * @effect calculateFastestPath(start, target)
+	 * @effect the pathFinding is counted by the world
+	 * 		| world.registerPathFinding()
+	 * @effect calculateFastestPath()
 
 	 * @throws IllegalArgumentException
 	 *  		| world == null
+	 * @throws IllegalArgumentException
+	 * 		| !world.isValidPosition(start) || !world.isValidPosition(target)
 	 */
 	public PathFinding(World world, int[] start, int[] target) throws IllegalArgumentException{
 		if(world == null)
 			throw new IllegalArgumentException();
+		if(!world.isValidPosition(start) || !world.isValidPosition(target))
+			throw new IllegalArgumentException();
 		this.world = world;
-		this.calculateFastestPath(start, target);
+		this.startIndex = world.getCubeIndex(start[0], start[1], start[2]);
+		this.targetIndex = world.getCubeIndex(target[0], target[1], target[2]);
+		world.registerPathFinding();
+		this.calculateFastestPath();
 	}
 	
 	/*___________________________________________________________________
@@ -100,135 +137,309 @@ public class PathFinding {
 	/**
 	 * Calculates the fastest path from start to target
 	 * 
-	 * @param start
-	 * 		the starting position
-	 * @param target
-	 * 		the target position
-	 * @throws IllegalArgumentException
-	 * 		!world.isValidPosition(start) || !world.isValidPosition(target)
 	 * @post
-	 * 		the path will contain the fastest path or no path at all
+	 * 		the path will contain the fastest path or no path at all,
+	 * 		unless the search needs more than the path search budget of the world
+	 * @effect a search that needs more than the budget is continued by the world in the next ticks
+	 * 		| if (isSearching()) then getWorld().addPendingPathSearch(this)
+	 * @effect if the world has a path request service, the path is requested from it
+	 * 		and the world polls the request in the next ticks,
+	 * 		if the service refuses the request the path is searched with the budget of the world
+	 * 		| if (getWorld().getPathRequestService() != null
+	 * 		| 		&& getWorld().getPathRequestService().request(start, target) != null)
+	 * 		| 	then getWorld().addPendingPathRequest(this)
+	 * @effect a valid path between start and target in the cache of the world is reused
+	 * 		| if (getWorld().getPathCache().getPath(start,target) != null)
+	 * 		| 	then no search is done
+	 * @effect if the world uses hierarchical pathFinding, only the waypoints are searched
+	 * 		and the path to the first one is refined
+	 * 		| if (getWorld().getPathFindingStrategy() == PathFindingStrategy.HIERARCHICAL)
+	 * 		| 	then calculateHierarchicalPath()
+	 * @effect if the world uses flow fields, the shared field towards the target is followed
+	 * 		| if (getWorld().getPathFindingStrategy() == PathFindingStrategy.FLOW_FIELD)
+	 * 		| 	then getWorld().getFlowFieldService().acquireFlowField(target)
 	 */
-	private void calculateFastestPath(int[] start, int[] target) throws IllegalArgumentException{
+	private void calculateFastestPath(){
 		
-		if(!this.getWorld().isValidPosition(start) || !this.getWorld().isValidPosition(target))
-			throw new IllegalArgumentException();
+		if(this.getWorld().getPathFindingStrategy() == PathFindingStrategy.HIERARCHICAL){
+			this.calculateHierarchicalPath();
+			return;
+		}
+		if(this.getWorld().getPathFindingStrategy() == PathFindingStrategy.FLOW_FIELD){
+			this.flowField = this.getWorld().getFlowFieldService().acquireFlowField(targetIndex);
+			this.currentIndex = startIndex;
+			return;
+		}
 		
-		openSet.add(new Node(start,0,getHeuristicCostEstimate(start,target),null));
+		//REUSE A PATH OF THE CACHE
+		int[] cached = this.getWorld().getPathCache().getPath(startIndex, targetIndex);
+		if(cached != null){
+			this.path = cached;
+			this.remaining = cached.length;
+			return;
+		}
 		
-		//We set a maximum on the items of the closed set so we don't have to calculate exhaustively long
-		while (!openSet.isEmpty() && closedSet.size()<800){
-			
-			Node current = openSet.pollFirst();
-			closedSet.add(current.getPosition());
-			
-			//TERMINATE PATHFINDING
-			if (Utils.equals(current.getPosition(), target)){
-				reconstructPathTo(current);
-				break;
+		this.searching = true;
+		//SEARCH ON THE WORKERS OF THE WORLD
+		if(this.getWorld().getPathRequestService() != null){
+			this.request = this.getWorld().getPathRequestService().request(startIndex, targetIndex);
+			if(this.request != null){
+				this.getWorld().addPendingPathRequest(this);
+				return;
 			}
-			
-			//CONTINUE SEARCHING
-			for (int[] pos : this.getWorld().quickFindReachableAdjacents((current.getPosition()))){
-				// time consuming factor!!!!!
-				
-				//Already a shorter way to this position
-				if (closedSet.contains(pos)){
-					continue;
+		}
+		this.advanceSearch(this.getWorld().getPathSearchEngine(), this.getWorld().getPathSearchBudget());
+		
+		if(this.isSearching())
+			this.getWorld().addPendingPathSearch(this);
+	}
+	
+	/**
+	 * Calculates the waypoints from start to target on the hierarchical graph of the world
+	 * 
+	 * @post the waypoints are the entrances between chunks to pass, or there is no path at all
+	 * @effect the path to the first waypoint is refined
+	 * 		| refineNextSegment()
+	 */
+	private void calculateHierarchicalPath(){
+		this.waypoints = this.getWorld().getHierarchicalGraph().findWaypoints(startIndex, targetIndex);
+		this.nextWaypoint = 1;
+		this.refineNextSegment();
+	}
+	
+	/**
+	 * Search the path to the next waypoint if all positions of the current part are handed out
+	 * 
+	 * @post the path holds the positions to the next waypoint,
+	 * 		if that waypoint can not be reached anymore the waypoints are searched again
+	 * 		from the last waypoint reached, if the target can not be reached from there the path ends here
+	 * @post once the last waypoint is refined the waypoints are dropped, so the rest of the path is followed locally
+	 * 		| if (no waypoints are left to refine) then new.isFollowedLocally()
+	 */
+	private void refineNextSegment(){
+		boolean replanned = false;
+		while(remaining == 0 && waypoints != null && nextWaypoint < waypoints.length){
+			int[] segment = this.getWorld().getHierarchicalGraph().refineSegment(
+					waypoints[nextWaypoint-1], waypoints[nextWaypoint]);
+			if(segment == null){
+				if(replanned){
+					this.waypoints = null;
+					return;
 				}
-				
-				double tentativeGscore = current.getGScore()+getDistanceBetween(current.getPosition(),pos);
-				Node neighbor = getCorrespondingNodeFrom(pos);
-				
-				if(neighbor !=null){
-					if(tentativeGscore >= neighbor.getGScore())
-						continue;
-					else
-						openSet.remove(neighbor);
-				} 
-				
-				neighbor = new Node(pos, tentativeGscore, tentativeGscore+getHeuristicCostEstimate(pos,target), current);
-				openSet.add(neighbor);
+				//THE TERRAIN CHANGED, SEARCH THE WAYPOINTS AGAIN
+				this.waypoints = this.getWorld().getHierarchicalGraph().findWaypoints(
+						waypoints[nextWaypoint-1], targetIndex);
+				this.nextWaypoint = 1;
+				replanned = true;
+				continue;
 			}
+			this.path = segment;
+			this.remaining = segment.length;
+			this.nextWaypoint++;
 		}
+		if(waypoints != null && nextWaypoint >= waypoints.length)
+			this.waypoints = null;
 	}
 	
-	//---------------------------------------HELPERS
-	
 	/**
-	 * Calculates the fastest path, storing it in the path variable
+	 * Continue the search for the path with the given engine
+	 * 	if the engine holds the search of another pathFinding, the search starts over in that engine
 	 * 
-	 * @param target
-	 * 		The target node
+	 * @param engine
+	 * 		the engine to search with
+	 * @param budget
+	 * 		the maximal number of cubes to expand
+	 * @return the number of cubes that were expanded
+	 * @effect | runSearch(engine, budget)
+	 * @effect | commitSearch()
+	 */
+	public int advanceSearch(PathSearchEngine engine, int budget){
+		int expanded = this.runSearch(engine, budget);
+		this.commitSearch();
+		return expanded;
+	}
+	
+	/**
+	 * Continue the search for the path with the given engine, changing nothing but this pathFinding
+	 * 	and the engine, so searches with different engines can run at the same time
 	 * 
-	 * @post
-	 * 		the path is stored in the path variable
-	 * 		while the first node is not reached, 
-	 * 		the position of the current node will be added to the path
-	 */
-	private void reconstructPathTo(Node target){
-		Node currentNode = target;
-		while (currentNode.getParent()!=null){
-			path.addLast(currentNode.getPosition());
-			currentNode = currentNode.getParent();
+	 * @param engine
+	 * 		the engine to search with
+	 * @param budget
+	 * 		the maximal number of cubes to expand
+	 * @return the number of cubes that were expanded
+	 * @post if the search is finished, the path will contain the fastest path or no path at all
+	 * 		and the pathFinding is not searching anymore
+	 * @post the expanded cubes and the path found are handed to the world by the next commitSearch()
+	 */
+	int runSearch(PathSearchEngine engine, int budget){
+		if(!this.isSearching())
+			return 0;
+		if(engine.getSearchOwner() != this || engine.isSearchFinished()){
+			engine.startSearch(startIndex, targetIndex, this);
+			this.searchVersion = this.getWorld().getTerrainVersion();
+		}
+		
+		int expanded = engine.advanceSearch(budget);
+		this.uncommittedExpanded += expanded;
+		
+		if(engine.isSearchFinished()){
+			int[] found = engine.getFoundPath();
+			if(found != null){
+				this.path = found;
+				this.remaining = found.length;
+				//only paths over unchanged terrain are shared
+				this.uncommittedPath = found.length > 0 && this.searchVersion == this.getWorld().getTerrainVersion();
+			}
+			this.searching = false;
 		}
+		return expanded;
 	}
 	
 	/**
-	 * Returns the exact time to move to an adjacent
+	 * Hand the results of the search since the last commit to the world
 	 * 
-	 * @param start
-	 * 		the starting position
-	 * @param target
-	 * 		the target position
-	 * @return
-	 * 		getEstimatedTimeTo(start,target)
+	 * @effect the expanded cubes are counted by the world
+	 * 		| getWorld().registerExpandedCubes(expanded cubes since the last commit)
+	 * @effect a path found over terrain that did not change during the search is cached
 	 */
-	private double getDistanceBetween(int[] start, int[] target) {
-		return getHeuristicCostEstimate(start,target);
+	void commitSearch(){
+		this.getWorld().registerExpandedCubes(this.uncommittedExpanded);
+		this.uncommittedExpanded = 0;
+		if(this.uncommittedPath){
+			this.getWorld().getPathCache().putPath(startIndex, targetIndex, this.path);
+			this.uncommittedPath = false;
+		}
 	}
-
-
+	
 	/**
-	 * Returns an estimated time to move from the the starting position to the target
+	 * Take the path of the request to the path request service, if the search is done
 	 * 
-	 * @param start
-	 * 		the start position
-	 * @param target
-	 * 		the target position
-	 * @return
-	 * 		the maximal change in direction, taking in mind that moves in z direction change the time slightly
+	 * @return whether this pathFinding is done waiting for the service
+	 * @effect the expanded cubes are counted by the world
+	 * 		| getWorld().registerExpandedCubes(request.getNbExpandedCubes())
+	 * @post a path found over the current terrain is taken and cached
+	 * @post a path found over older terrain is taken as long as all its cubes are still walkable,
+	 * 		otherwise the path is requested again over the current terrain
+	 * @effect if the request was cancelled by the service or the service refuses the new request,
+	 * 		the path is searched with the budget of the world in the next ticks
+	 * 		| getWorld().addPendingPathSearch(this)
 	 */
-	private double getHeuristicCostEstimate(int[] start, int[] target) {
-		double dx = Math.abs(target[0]-start[0]);
-		double dy = Math.abs(target[0]-start[0]);
-		double dz = target[0]-start[0];
-		
-			if(dz>0)
-				dz = Math.abs(dz)/0.5;
-			else
-				dz = Math.abs(dz)/1.2;
-			
-		double maxSameLevel = Math.max(dx, dy);
-		double maxTotal = Math.max(maxSameLevel, dz);
+	boolean pollRequest(){
+		if(this.request == null)
+			return true;
+		if(!this.request.isDone())
+			return false;
+		PathRequestService.Request done = this.request;
+		this.request = null;
+		if(done.isCancelled()){
+			this.getWorld().addPendingPathSearch(this);
+			return true;
+		}
+		this.getWorld().registerExpandedCubes(done.getNbExpandedCubes());
 		
-		return maxTotal;
+		int[] found = done.getPath();
+		boolean current = done.getTerrainVersion() == this.getWorld().getTerrainVersion();
+		if(!current && (found == null || !this.isWalkablePath(found))){
+			this.request = done.getService().request(startIndex, targetIndex);
+			if(this.request != null)
+				return false;
+			this.getWorld().addPendingPathSearch(this);
+			return true;
+		}
+		if(found != null){
+			this.path = found;
+			this.remaining = found.length;
+			//only paths over unchanged terrain are shared
+			if(current && found.length > 0)
+				this.getWorld().getPathCache().putPath(startIndex, targetIndex, found);
+		}
+		this.searching = false;
+		return true;
+	}
+	
+	/**
+	 * Check whether a unit can still stand in all cubes of the given path
+	 */
+	private boolean isWalkablePath(int[] path){
+		for(int index: path)
+			if(!this.getWorld().isWalkableCube(index))
+				return false;
+		return true;
+	}
+	
+	/**
+	 * Return the engine a parallel tick of the world continues this search with, -1 if none yet
+	 */
+	@Basic
+	int getEngineSlot(){
+		return this.engineSlot;
+	}
+	
+	/**
+	 * Set the engine a parallel tick of the world continues this search with
+	 */
+	void setEngineSlot(int engineSlot){
+		this.engineSlot = engineSlot;
 	}
+	
 	/**
-	 * Returns the corresponding node of the open set for the given position
+	 * Stop searching for the path
 	 * 
-	 * @param position
-	 * 		the position to correspond with
-	 * @return
-	 * 		the matching node or null
+	 * @post the pathFinding is not searching anymore
+	 * 		| !new.isSearching()
+	 * @effect the world will not continue the search anymore
+	 * 		| getWorld().removePendingPathSearch(this)
+	 * @effect a request to the path request service is cancelled
+	 * @effect the flow field is not followed anymore
+	 * 		| releaseFlowField()
+	 * @post no waypoints are left to refine
+	 * 		| new.isFollowedLocally()
 	 */
-	private Node getCorrespondingNodeFrom(int[] position){
-		for (Node node : openSet){
-			if (Utils.equals(node.getPosition(),position)){
-				return node;
-			}
+	public void cancelSearch(){
+		if(this.isSearching()){
+			this.searching = false;
+			this.getWorld().removePendingPathSearch(this);
 		}
-		return null;
+		if(this.request != null){
+			this.request.cancel();
+			this.request = null;
+		}
+		this.releaseFlowField();
+		this.waypoints = null;
+	}
+	
+	/**
+	 * Stop following the flow field
+	 * 
+	 * @effect | getWorld().getFlowFieldService().releaseFlowField(flowField)
+	 */
+	private void releaseFlowField(){
+		if(this.flowField != null){
+			this.getWorld().getFlowFieldService().releaseFlowField(this.flowField);
+			this.flowField = null;
+		}
+	}
+	
+	/**
+	 * Stop following the flow field if it leads no further
+	 * 
+	 * @effect if the target is reached or can not be reached anymore, the flow field is released
+	 * 		| if (flowField.getNextCube(currentIndex) == -1 || currentIndex == target)
+	 * 		|	then releaseFlowField()
+	 */
+	private void checkFlowField(){
+		if(this.flowField != null &&
+				(currentIndex == targetIndex || this.flowField.getNextCube(currentIndex) < 0))
+			this.releaseFlowField();
+	}
+	
+	/**
+	 * @return whether the search for the path is still going on
+	 */
+	@Basic
+	public boolean isSearching(){
+		return this.searching;
 	}
 
 	/**
@@ -243,143 +454,70 @@ public class PathFinding {
 		if (hasPathCompleted()){
 			return null;
 		}
-		return path.removeLast();
+		if (flowField != null){
+			currentIndex = flowField.getNextCube(currentIndex);
+			return this.getWorld().getCubePosition(currentIndex);
+		}
+		remaining--;
+		return this.getWorld().getCubePosition(path[remaining]);
 	}
 
 	/**
 	 * @return whether the path is completed
+	 * 		| result == no positions of the path are left
+	 * 		while searching, there are no positions yet
+	 * 		while following a flow field, until the target is reached or can not be reached anymore
 	 */
 	public boolean hasPathCompleted() {
-		return path.isEmpty();
+		this.refineNextSegment();
+		this.checkFlowField();
+		if (flowField != null){
+			return false;
+		}
+		return remaining == 0;
 	}
 	
 	/**
-	 * Returns the target position or if the path is completed null
+	 * Check whether positions of the path may be left, without refining the next part of a hierarchical path
+	 * 	or checking whether a flow field still leads somewhere, so nothing changes
 	 * 
-	 * @return the target position
-	 * 			or null if the path is completed
+	 * @return | result == (remaining positions of the path > 0 || waypoints are left to refine
+	 * 		| 	|| a flow field is followed)
 	 */
-	public int[] getTargetPosition(){
-		if (hasPathCompleted()){
-			return null;
-		}
-		int[] target = path.get(0);
-		return target;
+	public boolean hasPositionsLeft() {
+		return remaining > 0 || flowField != null || (waypoints != null && nextWaypoint < waypoints.length);
 	}
 
-	/*___________________________________________________________________
-	 * __________________________________________________________________
-	 * --------------------------NODE------------------------------------
-	 * -----------------------NESTED CLASS-------------------------------
-	 *___________________________________________________________________
-	 *___________________________________________________________________*/
-	
+	/**
+	 * Check whether the path is followed without touching the hierarchical graph or the flow fields of the world,
+	 * 	so units following it can be advanced at the same time
+	 *
+	 * @return | result == (no waypoints are left to refine && no flow field is followed)
+	 */
+	public boolean isFollowedLocally() {
+		return flowField == null && waypoints == null;
+	}
 	
 	/**
+	 * Returns the target position or if the path is completed null
 	 * 
-	 * @author Holger
-	 * 
-	 * A class implementing the nodes used in the A* algorithm
-	 * with a natural ordering for the nodes used in the treeSet
-	 *
+	 * @return the target position
+	 * 			or null if the path is completed and the search is finished
 	 */
-	@Value
-	public class Node implements Comparable<Node>{
-		
-		
-			//VARIABLES
-			private final int[] position;
-			private final Node parent;
-			private final double gScore;
-			private final double fScore;
-			
-			//CONSTRUCTOR
-			/**
-			 * Creates a node with immutable properties
-			 * 
-			 * @param position
-			 * 			the position of the node
-			 * @param gScore
-			 * 		the g value of the node
-			 * @param fScore
-			 * 		the f value of the node
-			 * @param parent
-			 * 		the nodes parent
-			 * @post
-			 * 		the position will be set to the given position
-			 * 		the parent will be set to the given parent
-			 * 		the g value will be set to the given g
-			 * 		the f value will be set to the given f
-			 */
-			public Node(int[] position, double gScore, double fScore, Node parent){
-				this.position = position;
-				this.parent = parent;	
-				this.gScore = gScore;
-				this.fScore = fScore;
-				
-			}
-			
-			//INSPECTORS
-			/**
-			 * returns the position
-			 */
-			@Basic @Immutable
-			public int[] getPosition(){
-				return this.position;
-			}
-			/**
-			 * returns the gvalue
-			 */
-			@Basic @Immutable
-			public double getGScore(){
-				return this.gScore;
-			}
-			/**
-			 * returns the parent
-			 */
-			@Basic @Immutable
-			public Node getParent(){
-				return this.parent;
-			}
-			/**
-			 * returns the f value
-			 */
-			@Basic @Immutable
-			public double getFScore(){
-				return this.fScore;
-			}
-			
-			/**
-			 * Override functional method for natural ordering of nodes (used in TreeSet)
-			 */
-			@Override
-			public int compareTo(Node otherNode) {
-				if (this.equals(otherNode))
-					return 0;
-				if (this.getFScore()<otherNode.getFScore())
-					return -1;
-				else 
-					return 1;
-			}
-
-			/* 
-			 * Returns if two nodes are equal
-			 */
-			@Override
-			public boolean equals(Object obj) {
-				return super.equals(obj);
-			}
-
-			/* 
-			 * Returns the hashcode for the node
-			 */
-			@Override
-			public int hashCode() {
-				return super.hashCode();
-			}
-			
-			
-
+	public int[] getTargetPosition(){
+		if (isSearching()){
+			return this.getWorld().getCubePosition(targetIndex);
+		}
+		if (hasPathCompleted()){
+			return null;
+		}
+		if (flowField != null){
+			return this.getWorld().getCubePosition(targetIndex);
 		}
+		if (waypoints != null){
+			return this.getWorld().getCubePosition(waypoints[waypoints.length-1]);
+		}
+		return this.getWorld().getCubePosition(path[0]);
+	}
 	
 }
@@ -0,0 +1,27 @@
+package hillbillies.model;
+
+import be.kuleuven.cs.som.annotate.Value;
+
+/**
+ * A class about the ways paths can be searched in the game world
+ * 
+ * @author Holger Willems | 2e bach. ing. OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ * 
+ */
+
+/*
+ * This is an enum containing the strategies a pathFinding can use
+ * 	A_STAR: one A* search over all cubes of the world
+ * 	HIERARCHICAL: a search over the entrances between the chunks of the world,
+ * 		refined one chunk at a time while moving (HPA*)
+ * 	FLOW_FIELD: every unit heading to the same target follows one shared flow field
+ */
+@Value
+public enum PathFindingStrategy {
+	
+	A_STAR,
+	HIERARCHICAL,
+	FLOW_FIELD;
+}
@@ -0,0 +1,302 @@
+package hillbillies.model;
+
+import java.util.BitSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * A class searching the paths of a world on a pool of worker threads
+ *
+ * A request searches a snapshot of the walkable cubes of the world, taken when the request is made,
+ * so the world can go on changing while the workers search. Every worker has an engine of its own.
+ * At most a given number of requests wait for a worker; when more are made, or once the service
+ * is shut down, the service refuses the request and the world searches the path in its ticks.
+ *
+ * @Invar The world of this service is effective
+ * 		| getWorld() != null
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class PathRequestService {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * the number of cubes a worker expands before it checks whether its request was cancelled
+	 */
+	private static final int CANCEL_CHECK_INTERVAL = 1000;
+
+	/*
+	 * The world for this service
+	 */
+	private final World world;
+	/*
+	 * the workers searching the paths
+	 */
+	private final ThreadPoolExecutor executor;
+	/*
+	 * the engine of every thread searching for this service
+	 */
+	private final ThreadLocal<PathSearchEngine> engines;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize a service for the given world with the given number of workers
+	 *
+	 * @param world
+	 * 		the world of this service
+	 * @param nbWorkers
+	 * 		the number of threads searching paths
+	 * @param maxNbWaiting
+	 * 		the maximal number of requests waiting for a worker
+	 * @post | new.getWorld() == world
+	 * @throws IllegalArgumentException
+	 * 		| world == null || nbWorkers < 1 || maxNbWaiting < 1
+	 */
+	public PathRequestService(World world, int nbWorkers, int maxNbWaiting) throws IllegalArgumentException{
+		if(world == null || nbWorkers < 1 || maxNbWaiting < 1)
+			throw new IllegalArgumentException();
+		this.world = world;
+		AtomicInteger nbThreads = new AtomicInteger();
+		ThreadFactory factory = runnable -> {
+			Thread thread = new Thread(runnable, "PathRequestService-" + nbThreads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		this.executor = new ThreadPoolExecutor(nbWorkers, nbWorkers, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(maxNbWaiting), factory, new ThreadPoolExecutor.AbortPolicy());
+		this.engines = ThreadLocal.withInitial(() -> new PathSearchEngine(world));
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------INSPECTORS---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the world of this service
+	 */
+	@Basic @Raw @Immutable
+	public World getWorld() {
+		return this.world;
+	}
+
+	/**
+	 * Return the number of requests waiting for a worker
+	 */
+	public int getNbWaitingRequests() {
+		return this.executor.getQueue().size();
+	}
+
+	/**
+	 * Check whether this service is shut down
+	 */
+	public boolean isShutdown() {
+		return this.executor.isShutdown();
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------REQUESTS---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Request the fastest path between the two given cubes, in the terrain of the world as it is now
+	 * 	this method changes nothing in the world, but must be called on the thread advancing it
+	 *
+	 * @param start
+	 * 		the index of the start cube
+	 * @param target
+	 * 		the index of the target cube
+	 * @return a request for the path over the current terrain of the world,
+	 * 		or null if the service is shut down or too many requests wait for a worker
+	 * 		| result == null || result.getTerrainVersion() == getWorld().getTerrainVersion()
+	 */
+	public Request request(int start, int target) {
+		if(this.isShutdown())
+			return null;
+		BitSet walkableCubes = this.getWorld().getWalkableSnapshot();
+		try{
+			Future<Result> result = this.executor.submit(() -> this.search(start, target, walkableCubes));
+			return new Request(this, this.getWorld().getTerrainVersion(), result);
+		}
+		catch(RejectedExecutionException e){
+			return null;
+		}
+	}
+
+	/**
+	 * Search the fastest path between the two given cubes in the given walkable cubes
+	 * 	with the engine of the current thread
+	 *
+	 * @return the path found and the number of expanded cubes, without a path if there is none,
+	 * 		or a cancelled result if the worker was interrupted
+	 */
+	private Result search(int start, int target, BitSet walkableCubes){
+		PathSearchEngine engine = this.engines.get();
+		engine.setWalkableCubes(walkableCubes);
+		engine.startSearch(start, target, this);
+		int expanded = 0;
+		while(!engine.isSearchFinished()){
+			if(Thread.currentThread().isInterrupted())
+				return new Result(null, expanded, true);
+			expanded += engine.advanceSearch(CANCEL_CHECK_INTERVAL);
+		}
+		return new Result(engine.getFoundPath(), expanded, false);
+	}
+
+	/**
+	 * Stop the workers of this service, cancelling the requests they did not finish
+	 *
+	 * @post | new.isShutdown()
+	 * @post the requests still waiting for a worker are cancelled
+	 */
+	public void shutdown() {
+		for(Runnable waiting: this.executor.shutdownNow())
+			((Future<?>) waiting).cancel(false);
+	}
+
+	/**
+	 * A class of requests for a path, searched by the workers of a service
+	 */
+	public static class Request {
+
+		/*
+		 * the service searching the path
+		 */
+		private final PathRequestService service;
+		/*
+		 * the terrain version of the world the path is searched in
+		 */
+		private final int terrainVersion;
+		/*
+		 * the result of the search, once it is done
+		 */
+		private final Future<Result> result;
+
+		private Request(PathRequestService service, int terrainVersion, Future<Result> result){
+			this.service = service;
+			this.terrainVersion = terrainVersion;
+			this.result = result;
+		}
+
+		/**
+		 * Return the service searching the path
+		 */
+		@Basic @Immutable
+		public PathRequestService getService() {
+			return this.service;
+		}
+
+		/**
+		 * Return the terrain version of the world the path is searched in
+		 */
+		@Basic @Immutable
+		public int getTerrainVersion() {
+			return this.terrainVersion;
+		}
+
+		/**
+		 * Check whether the search is done, or cancelled
+		 */
+		public boolean isDone() {
+			return this.result.isDone();
+		}
+
+		/**
+		 * Check whether the request is cancelled, before or while a worker searched it
+		 */
+		public boolean isCancelled() {
+			return this.result.isCancelled() || (this.result.isDone() && this.get().cancelled);
+		}
+
+		/**
+		 * Cancel the request, stopping its search if a worker is searching it
+		 *
+		 * @post | new.isCancelled() || new.isDone()
+		 */
+		public void cancel() {
+			this.result.cancel(true);
+		}
+
+		/**
+		 * Return the number of cubes the search expanded
+		 *
+		 * @throws IllegalStateException
+		 * 		| !isDone() || isCancelled()
+		 */
+		public int getNbExpandedCubes() throws IllegalStateException{
+			return this.getResult().expanded;
+		}
+
+		/**
+		 * Return the indices of the path found, starting with the target and ending with the first cube
+		 * 	after the start, or null if the target can not be reached (an empty array if start equals target)
+		 *
+		 * @throws IllegalStateException
+		 * 		| !isDone() || isCancelled()
+		 */
+		public int[] getPath() throws IllegalStateException{
+			return this.getResult().path;
+		}
+
+		private Result getResult() throws IllegalStateException{
+			if(!this.isDone() || this.isCancelled())
+				throw new IllegalStateException("The search is not done");
+			return this.get();
+		}
+
+		private Result get() throws IllegalStateException{
+			try{
+				return this.result.get();
+			}
+			catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			catch(ExecutionException e){
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * The path found by a search, the number of cubes it expanded and whether it was cancelled
+	 */
+	private static final class Result {
+
+		private final int[] path;
+		private final int expanded;
+		private final boolean cancelled;
+
+		private Result(int[] path, int expanded, boolean cancelled){
+			this.path = path;
+			this.expanded = expanded;
+			this.cancelled = cancelled;
+		}
+	}
+}
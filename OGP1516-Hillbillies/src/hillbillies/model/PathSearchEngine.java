@@ -0,0 +1,557 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * A class implementing the A* search used by the pathFinding of units
+ *
+ * All cubes are addressed by their flat index
+ * 		| x + y*nbCubesX + z*nbCubesX*nbCubesY
+ * The scores, parents and the open set (a binary heap with decrease-key)
+ * are primitive arrays that are allocated once per world and reused for every search.
+ * A generation stamp marks which entries belong to the current search,
+ * so no array has to be cleared between two searches.
+ * 
+ * A search can be advanced in steps of a limited number of expanded cubes,
+ * the engine keeps the state of one search at a time for the owner that started it.
+ * A search can be limited to a box of cubes, and the engine can explore all cubes
+ * of such a box to know the cost from (or towards) one cube to all others.
+ * An engine can search a snapshot of the walkable cubes instead of the world itself,
+ * so it can run on another thread while the world changes.
+ *
+ * @Invar The world of this engine is effective
+ * 		| getWorld() != null
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class PathSearchEngine {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTANTS---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * Position in the heap of a node that already left the open set
+	 */
+	private static final int CLOSED = -1;
+
+	/*
+	 * The time to move one cube up and one cube down, relative to a horizontal move
+	 */
+	static final float UP_COST = (float) (1/0.5);
+	static final float DOWN_COST = (float) (1/1.2);
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * The world for this engine
+	 */
+	private final World world;
+
+	/*
+	 * the walkable cubes searched, or null to search the current terrain of the world
+	 */
+	private BitSet walkableCubes;
+
+	/*
+	 * The dimensions of the world
+	 */
+	private final int nbX;
+	private final int nbXY;
+
+	/*
+	 * gScore and fScore of every cube reached in the current search
+	 */
+	private final float[] gScore;
+	private final float[] fScore;
+	/*
+	 * the cube from which every cube was reached in the current search
+	 */
+	private final int[] parent;
+	/*
+	 * the generation in which the entries of a cube were last written
+	 */
+	private final int[] stamp;
+	/*
+	 * the place of every open cube in the heap, or CLOSED
+	 */
+	private final int[] heapPosition;
+	/*
+	 * the binary heap with the open cubes, ordered on their fScore
+	 */
+	private final int[] heap;
+	private int heapSize;
+
+	/*
+	 * the current generation
+	 */
+	private int generation;
+
+	/*
+	 * the current search: its owner, start, target and the path found (null if unreachable)
+	 */
+	private Object searchOwner;
+	private int searchStart;
+	private int searchTarget;
+	private boolean searchFinished = true;
+	private int[] foundPath;
+	/*
+	 * the box of cubes the current search is limited to (both inclusive)
+	 */
+	private int minX, minY, minZ, maxX, maxY, maxZ;
+	/*
+	 * whether the costs of the current search are those of moves towards its start
+	 */
+	private boolean reverse;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize a search engine for the given world
+	 *
+	 * @param world
+	 * 		the world to search in
+	 * @post the world of this engine is the given world
+	 * 		| new.getWorld() == world
+	 * @throws IllegalArgumentException
+	 * 		| world == null
+	 */
+	public PathSearchEngine(World world) throws IllegalArgumentException{
+		if(world == null)
+			throw new IllegalArgumentException();
+		this.world = world;
+		this.nbX = world.getNbCubesX();
+		this.nbXY = world.getNbCubesX()*world.getNbCubesY();
+
+		int size = world.getNbCubes();
+		this.gScore = new float[size];
+		this.fScore = new float[size];
+		this.parent = new int[size];
+		this.stamp = new int[size];
+		this.heapPosition = new int[size];
+		this.heap = new int[size];
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------WORLD--------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the world of this engine
+	 */
+	@Basic @Raw @Immutable
+	public World getWorld(){
+		return this.world;
+	}
+
+	/**
+	 * Return the walkable cubes searched by this engine, null if it searches the current terrain of the world
+	 */
+	@Basic
+	BitSet getWalkableCubes(){
+		return this.walkableCubes;
+	}
+
+	/**
+	 * Let this engine search the given walkable cubes instead of the current terrain of the world
+	 *
+	 * @param walkableCubes
+	 * 		the walkable cubes to search, indexed like the cubes of the world,
+	 * 		or null to search the current terrain of the world
+	 * @post | new.getWalkableCubes() == walkableCubes
+	 */
+	void setWalkableCubes(BitSet walkableCubes){
+		this.walkableCubes = walkableCubes;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------A* ALGORITHM-------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Search the fastest path between the two given cubes at once
+	 *
+	 * @param start
+	 * 		the index of the start cube
+	 * @param target
+	 * 		the index of the target cube
+	 * @return the indices of the path, starting with the target and ending with
+	 * 		the first cube after start, or null if the target can not be reached
+	 * 		(an empty array if start equals target)
+	 * 		| startSearch(start, target, null); advanceSearch(Integer.MAX_VALUE)
+	 * 		| result == getFoundPath()
+	 */
+	public int[] findPath(int start, int target){
+		this.startSearch(start, target, null);
+		this.advanceSearch(Integer.MAX_VALUE);
+		return this.getFoundPath();
+	}
+
+	/**
+	 * Start a new search between the two given cubes, abandoning the current one
+	 *
+	 * @param start
+	 * 		the index of the start cube
+	 * @param target
+	 * 		the index of the target cube
+	 * @param owner
+	 * 		the object the search is done for
+	 * @post the search is not yet finished and belongs to the given owner
+	 * 		| !new.isSearchFinished() && new.getSearchOwner() == owner
+	 */
+	public void startSearch(int start, int target, Object owner){
+		this.startSearch(start, target, owner, new int[]{0,0,0}, new int[]{
+				getWorld().getNbCubesX()-1, getWorld().getNbCubesY()-1, getWorld().getNbCubesZ()-1});
+	}
+
+	/**
+	 * Start a new search between the two given cubes, abandoning the current one,
+	 * 	only passing through cubes inside the given box
+	 *
+	 * @param start
+	 * 		the index of the start cube
+	 * @param target
+	 * 		the index of the target cube
+	 * @param owner
+	 * 		the object the search is done for
+	 * @param lower
+	 * 		the lowest coordinates of the box
+	 * @param upper
+	 * 		the highest coordinates of the box (inclusive)
+	 * @post the search is not yet finished and belongs to the given owner
+	 * 		| !new.isSearchFinished() && new.getSearchOwner() == owner
+	 */
+	public void startSearch(int start, int target, Object owner, int[] lower, int[] upper){
+		this.minX = Math.max(0, lower[0]);
+		this.minY = Math.max(0, lower[1]);
+		this.minZ = Math.max(0, lower[2]);
+		this.maxX = Math.min(getWorld().getNbCubesX()-1, upper[0]);
+		this.maxY = Math.min(getWorld().getNbCubesY()-1, upper[1]);
+		this.maxZ = Math.min(getWorld().getNbCubesZ()-1, upper[2]);
+		this.reverse = false;
+		
+		this.nextGeneration();
+		this.heapSize = 0;
+		this.open(start, 0, CLOSED);
+
+		this.searchOwner = owner;
+		this.searchStart = start;
+		this.searchTarget = target;
+		this.searchFinished = false;
+		this.foundPath = null;
+	}
+
+	/**
+	 * Continue the current search for at most the given number of expanded cubes
+	 *
+	 * @param budget
+	 * 		the maximal number of cubes to expand
+	 * @return the number of cubes that were expanded
+	 * @post the search is finished if the target was reached or all reachable cubes are expanded
+	 */
+	public int advanceSearch(int budget){
+		int expanded = 0;
+		while (!searchFinished && expanded < budget){
+			if(heapSize == 0){
+				//NO PATH
+				searchFinished = true;
+				break;
+			}
+			int current = this.poll();
+			expanded++;
+
+			//TERMINATE PATHFINDING
+			if (current == searchTarget){
+				foundPath = reconstructPathTo(current, searchStart);
+				searchFinished = true;
+				break;
+			}
+
+			//CONTINUE SEARCHING
+			this.expand(current, searchTarget);
+		}
+		//an exhausted open set is noticed without spending budget
+		if(!searchFinished && heapSize == 0)
+			searchFinished = true;
+		return expanded;
+	}
+
+	/**
+	 * Search the fastest path between the two given cubes inside the given box at once
+	 *
+	 * @return the indices of the path, starting with the target and ending with
+	 * 		the first cube after start, or null if the target can not be reached inside the box
+	 * 		| startSearch(start, target, null, lower, upper); advanceSearch(Integer.MAX_VALUE)
+	 * 		| result == getFoundPath()
+	 */
+	public int[] findPath(int start, int target, int[] lower, int[] upper){
+		this.startSearch(start, target, null, lower, upper);
+		this.advanceSearch(Integer.MAX_VALUE);
+		return this.getFoundPath();
+	}
+
+	/**
+	 * Compute the cost of the fastest path between the given cube and all cubes inside the given box
+	 *
+	 * @param start
+	 * 		the index of the cube to explore from
+	 * @param reverse
+	 * 		if true, the costs are those of moving from the other cubes to the given cube
+	 * @param lower
+	 * 		the lowest coordinates of the box
+	 * @param upper
+	 * 		the highest coordinates of the box (inclusive)
+	 * @effect the costs can be asked with getCostTo(index) until the next search
+	 */
+	public void explore(int start, boolean reverse, int[] lower, int[] upper){
+		this.startSearch(start, -1, null, lower, upper);
+		this.reverse = reverse;
+		this.advanceSearch(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Return the cost found by the last search for the given cube
+	 *
+	 * @param index
+	 * 		the index of the cube
+	 * @return the cost of the fastest path between the start of the last search and the given cube,
+	 * 		or Float.POSITIVE_INFINITY if the cube was not reached
+	 */
+	public float getCostTo(int index){
+		if(stamp[index] != generation || heapPosition[index] != CLOSED)
+			return Float.POSITIVE_INFINITY;
+		return gScore[index];
+	}
+
+	/**
+	 * Return whether the current search is finished
+	 */
+	@Basic @Raw
+	public boolean isSearchFinished(){
+		return this.searchFinished;
+	}
+
+	/**
+	 * Return the owner of the current search
+	 */
+	@Basic @Raw
+	public Object getSearchOwner(){
+		return this.searchOwner;
+	}
+
+	/**
+	 * Return the path found by the last finished search
+	 * 
+	 * @return the indices of the path, starting with the target and ending with
+	 * 		the first cube after start, or null if the search is not finished
+	 * 		or the target can not be reached
+	 */
+	public int[] getFoundPath(){
+		return this.foundPath;
+	}
+
+	//---------------------------------------HELPERS
+
+	/**
+	 * Relax all reachable neighbours of the given cube
+	 * 		moving only in one direction at a time, like World.quickFindReachableAdjacents
+	 *
+	 * @param current
+	 * 		the cube to expand
+	 * @param target
+	 * 		the target of the search
+	 */
+	@Model
+	private void expand(int current, int target){
+		int x = current % nbX;
+		int y = (current % nbXY) / nbX;
+		int z = current / nbXY;
+		float g = gScore[current];
+
+		relax(current, g, x-1, y, z, 1, target);
+		relax(current, g, x+1, y, z, 1, target);
+		relax(current, g, x, y-1, z, 1, target);
+		relax(current, g, x, y+1, z, 1, target);
+		relax(current, g, x, y, z-1, reverse? UP_COST : DOWN_COST, target);
+		relax(current, g, x, y, z+1, reverse? DOWN_COST : UP_COST, target);
+	}
+
+	/**
+	 * Open or improve the given neighbour if it can be reached cheaper through current
+	 */
+	@Model
+	private void relax(int current, float g, int x, int y, int z, float cost, int target){
+		World world = this.getWorld();
+		if(x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ)
+			return;
+		int neighbour = x + y*nbX + z*nbXY;
+		if(walkableCubes == null? !world.isWalkableCube(neighbour) : !walkableCubes.get(neighbour))
+			return;
+
+		float tentativeGScore = g + cost;
+
+		if (stamp[neighbour] == generation){
+			//Already a shorter way to this position
+			if(heapPosition[neighbour] == CLOSED || tentativeGScore >= gScore[neighbour])
+				return;
+			gScore[neighbour] = tentativeGScore;
+			fScore[neighbour] = tentativeGScore + getHeuristicCostEstimate(neighbour, target);
+			parent[neighbour] = current;
+			siftUp(heapPosition[neighbour]);
+		} else {
+			open(neighbour, tentativeGScore, current);
+			fScore[neighbour] = tentativeGScore + getHeuristicCostEstimate(neighbour, target);
+			siftUp(heapPosition[neighbour]);
+		}
+	}
+
+	/**
+	 * Put the given cube at the bottom of the heap for the current generation
+	 */
+	@Model
+	private void open(int index, float g, int from){
+		stamp[index] = generation;
+		gScore[index] = g;
+		fScore[index] = g;
+		parent[index] = from;
+		heap[heapSize] = index;
+		heapPosition[index] = heapSize;
+		heapSize++;
+	}
+
+	/**
+	 * Move on to a new generation, resetting the stamps only when the counter wraps around
+	 */
+	@Model
+	private void nextGeneration(){
+		generation++;
+		if(generation == 0){
+			Arrays.fill(stamp, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Returns an estimated time to move from the given cube to the target
+	 *
+	 * @return
+	 * 		the maximal change in direction, taking in mind that moves in z direction change the time slightly
+	 * 		or 0 if there is no target
+	 */
+	float getHeuristicCostEstimate(int from, int target) {
+		if(target < 0)
+			return 0;
+		float dx = Math.abs(target % nbX - from % nbX);
+		float dy = Math.abs((target % nbXY) / nbX - (from % nbXY) / nbX);
+		float dz = target / nbXY - from / nbXY;
+
+		if(dz>0)
+			dz = dz*UP_COST;
+		else
+			dz = -dz*DOWN_COST;
+
+		return Math.max(Math.max(dx, dy), dz);
+	}
+
+	/**
+	 * Returns the path from the given target back to the given start
+	 *
+	 * @return the indices of all cubes on the path, without the start
+	 */
+	private int[] reconstructPathTo(int target, int start){
+		int length = 0;
+		for(int current = target; current != start; current = parent[current])
+			length++;
+
+		int[] path = new int[length];
+		int i = 0;
+		for(int current = target; current != start; current = parent[current])
+			path[i++] = current;
+		return path;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------BINARY HEAP--------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Remove and return the open cube with the lowest fScore
+	 */
+	private int poll(){
+		int first = heap[0];
+		heapPosition[first] = CLOSED;
+		heapSize--;
+		if(heapSize > 0){
+			heap[0] = heap[heapSize];
+			heapPosition[heap[0]] = 0;
+			siftDown(0);
+		}
+		return first;
+	}
+
+	/**
+	 * Move the entry on the given place up until the heap is ordered again
+	 */
+	private void siftUp(int place){
+		int index = heap[place];
+		float f = fScore[index];
+		while(place > 0){
+			int parentPlace = (place-1) >>> 1;
+			int parentIndex = heap[parentPlace];
+			if(fScore[parentIndex] <= f)
+				break;
+			heap[place] = parentIndex;
+			heapPosition[parentIndex] = place;
+			place = parentPlace;
+		}
+		heap[place] = index;
+		heapPosition[index] = place;
+	}
+
+	/**
+	 * Move the entry on the given place down until the heap is ordered again
+	 */
+	private void siftDown(int place){
+		int index = heap[place];
+		float f = fScore[index];
+		int half = heapSize >>> 1;
+		while(place < half){
+			int child = 2*place+1;
+			int right = child+1;
+			if(right < heapSize && fScore[heap[right]] < fScore[heap[child]])
+				child = right;
+			if(f <= fScore[heap[child]])
+				break;
+			heap[place] = heap[child];
+			heapPosition[heap[place]] = place;
+			place = child;
+		}
+		heap[place] = index;
+		heapPosition[index] = place;
+	}
+}
@@ -1,11 +1,12 @@
 package hillbillies.model;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.NavigableSet;
 import java.util.Set;
-import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -36,26 +37,45 @@ public class Scheduler{
 	 *_____________________________________________________________
 	 */
 	
+	/**
+	 * The order of the tasks in a scheduler: descending priority,
+	 * 	and tasks with the same priority in the order they were created
+	 */
+	public static final Comparator<Task> PRIORITY_ORDER = 
+			Comparator.comparingInt(Task::getPriority).reversed().thenComparingLong(Task::getSequenceNumber);
+	
 	/**
 	 * Creates a new scheduler without any tasks
 	 * 
 	 * @post A new treeSet of tasks is created, 
 	 * 		sorted according to priority
-	 * 		| tasks = new TreeSet<>(
-	 * 					(Task t1, Task t2) -> t2.getPriority()-t1.getPriority())
+	 * 		| tasks = new TreeSet<>(PRIORITY_ORDER)
+	 * @post A new treeSet of the tasks without unit is created, sorted the same way
+	 * 		| assignableTasks = new TreeSet<>(PRIORITY_ORDER)
 	 * @post the scheduler is not yet terminated
 	 * 		|	this.isTerminated() == false;
 	 */
 	public Scheduler(){
-		tasks = new TreeSet<>( new Comparator<Task>() {
-
-			@Override
-			public int compare(Task t1, Task t2) {
-				// reverse order
-				return t2.getPriority()-t1.getPriority();
-			}
-		}
-		);
+		this(new TreeSet<>(PRIORITY_ORDER), new TreeSet<>(PRIORITY_ORDER));
+	}
+	
+	/**
+	 * Creates a new scheduler without any tasks, keeping its tasks in the given sets
+	 * 
+	 * @param tasks
+	 * 		an empty set ordered by PRIORITY_ORDER, for all tasks
+	 * @param assignableTasks
+	 * 		an empty set ordered by PRIORITY_ORDER, for the tasks without unit
+	 * @post the scheduler is not yet terminated
+	 * 		|	this.isTerminated() == false;
+	 * @throws IllegalArgumentException
+	 * 		| tasks == null || assignableTasks == null || !tasks.isEmpty() || !assignableTasks.isEmpty()
+	 */
+	protected Scheduler(NavigableSet<Task> tasks, NavigableSet<Task> assignableTasks) throws IllegalArgumentException{
+		if(tasks == null || assignableTasks == null || !tasks.isEmpty() || !assignableTasks.isEmpty())
+			throw new IllegalArgumentException();
+		this.tasks = tasks;
+		this.assignableTasks = assignableTasks;
 		
 		this.isTerminated = false;
 	}
@@ -64,12 +84,12 @@ public class Scheduler{
 	 * Terminates the scheduler
 	 * 
 	 * @effect All the tasks this scheduler has, will be removed
-	 * 		| removeAsTasks(getAllTasks());
+	 * 		| removeAsTasks(new ArrayList<>(getAllTasks()));
 	 * @post the scheduler will be terminated
 	 * 		|this.isTerminated() == true
 	 */
 	public void terminate(){
-		removeAsTasks(getAllTasks());
+		removeAsTasks(new ArrayList<>(getAllTasks()));
 		this.isTerminated = true;
 	}
 	/**
@@ -105,19 +125,29 @@ public class Scheduler{
      * 			  	( (task != null) &&
      * 			 	(! task.isTerminated()) )
      */
-    private final SortedSet<Task> tasks;
+    private final NavigableSet<Task> tasks;
     
+    /**
+     * Variable referencing a sorted set collecting the tasks 
+     * of this scheduler that have no unit.
+     * 
+     * @Invar The referenced set holds the tasks without unit,
+     * 			apart from the tasks units are claiming or releasing right now
+     * 			| for each task in tasks:
+     * 			|	assignableTasks.contains(task) == !task.hasUnit()
+     */
+    private final NavigableSet<Task> assignableTasks;
     
     /**
-     * Gives back all the tasks in no particular order
+     * Gives back all the tasks, ordered with descending priority
      * 
      * @return
-     * 		All the tasks scheduled by the scheduler
+     * 		An unmodifiable view of all the tasks scheduled by the scheduler
      * 		| result == tasks
      */
     @Basic @Raw
     public Set<Task> getAllTasks(){
-    	return new HashSet<>(this.tasks);
+    	return Collections.unmodifiableSet(this.tasks);
     }
     
     /**
@@ -194,6 +224,16 @@ public class Scheduler{
     	return tasks.size();
     }
     
+    /**
+     * Return the number of tasks of this scheduler without unit,
+     * 	which may be off by the tasks units are claiming or releasing right now.
+     *
+     * @return | result == getAllTasksSatisfying(task -> !task.hasUnit()).size()
+     */
+    public int getNbAssignableTasks() {
+    	return assignableTasks.size();
+    }
+    
     
     /**
      * Add a collection of tasks
@@ -251,6 +291,8 @@ public class Scheduler{
     		throw new IllegalArgumentException("Task already scheduled");
     	
     	this.tasks.add(task);
+    	if(!task.hasUnit())
+    		this.assignableTasks.add(task);
     	task.addAsScheduler(this);
     	
     }
@@ -277,7 +319,57 @@ public class Scheduler{
     		throw new IllegalStateException("Task not scheduled");
     	
     	task.removeAsScheduler(this);
-    	this.tasks.remove(task);	
+    	this.tasks.remove(task);
+    	this.assignableTasks.remove(task);
+    }
+    
+    /**
+     * Take the given task out of the order of this scheduler,
+     * 	before its priority or unit changes
+     * 
+     * @param task
+     * 		the task that changes
+     * @post the task is left out of the sorted sets, till it is reordered
+     */
+    void unorderTask(Task task) {
+    	this.tasks.remove(task);
+    	this.assignableTasks.remove(task);
+    }
+    
+    /**
+     * Put the given task back in the order of this scheduler,
+     * 	after its priority or unit changed
+     * 
+     * @param task
+     * 		the task that changed
+     * @post | hasAsTask(task)
+     * @post | new.getAllTasksSatisfying(t -> !t.hasUnit()).contains(task) == !task.hasUnit()
+     */
+    void reorderTask(Task task) {
+    	this.tasks.add(task);
+    	if(!task.hasUnit())
+    		this.assignableTasks.add(task);
+    }
+    
+    /**
+     * Hand out the given task or stop handing it out, after a unit claimed or released it
+     * 	when units claim and release the task at the same time, the last one to finish
+     * 	leaves the task handed out exactly when it has no unit
+     * 
+     * @param task
+     * 		the task claimed or released
+     * @post | if (hasAsTask(task))
+     * 		| then new.getAllTasksSatisfying(t -> !t.hasUnit()).contains(task) == !task.hasUnit()
+     */
+    void claimChanged(Task task) {
+    	boolean claimed;
+    	do{
+    		claimed = task.hasUnit();
+    		if(claimed)
+    			this.assignableTasks.remove(task);
+    		else if(this.hasAsTask(task))
+    			this.assignableTasks.add(task);
+    	} while(claimed != task.hasUnit());
     }
     
     /**
@@ -309,14 +401,15 @@ public class Scheduler{
      * 
      * @return an iterator of all the tasks of this scheduler
      *  	ordered with descending priority
-     *  	| tasks.iterator();
+     *  	| getAllTasks().iterator();
      */
     public Iterator<Task> getAllTasksIterator(){
-    	return tasks.iterator();
+    	return getAllTasks().iterator();
     }
     
     /**
      * Returns the highest priority task that has no unit
+     * 	of the tasks with that priority, the one created first
      * 
      * @return the highest priority task without unit
      * 		| for each task in tasks
@@ -325,12 +418,34 @@ public class Scheduler{
      * 		
      */
     public Task getHighestPriorityAssignableTask(){
-    	for(Task task : tasks)
+    	for(Task task : assignableTasks)
     		if (!task.hasUnit())
     			return task;
     	return null;
     }
     
+    /**
+     * Let the given unit claim the highest priority task that has no unit
+     * 	when units claim tasks at the same time, each task goes to one of them
+     * 
+     * @param unit
+     * 		the unit claiming a task
+     * @return the task claimed by the unit, null if it could not claim any task
+     * 		| for each task in tasks
+     * 		| 	if (task.claim(unit))
+     * 		|  	then return task
+     * @throws IllegalArgumentException
+     * 		| unit == null || unit.hasTask()
+     */
+    public Task claimHighestPriorityAssignableTask(Unit unit) throws IllegalArgumentException{
+    	if(unit == null || unit.hasTask())
+    		throw new IllegalArgumentException("invalid unit for task");
+    	for(Task task : assignableTasks)
+    		if (task.claim(unit))
+    			return task;
+    	return null;
+    }
+    
     /**
      * Get all the tasks that satisfy some predicate
      * 
@@ -355,14 +470,18 @@ public class Scheduler{
      * @param unit
      * 		the unit to connect with
      * @effect a bidirectional association will be set
-     * 		| task.addUnit(unit);
+     * 		| task.claim(unit);
      * @throws IllegalArgumentException
      * 		| if(!hasAsTask(task) && unit.getFaction().getScheduler() != this)
+     * @throws IllegalStateException
+     * 		another unit has the task
+     * 		| task.hasUnit()
      */
-    public void markTaskByUnit(Task task, Unit unit) throws IllegalArgumentException {
+    public void markTaskByUnit(Task task, Unit unit) throws IllegalArgumentException, IllegalStateException {
     	if(!hasAsTask(task) || unit.getFaction().getScheduler() != this)
     		throw new IllegalArgumentException("task not scheduled");
-    	task.addUnit(unit);
+    	if(!task.claim(unit))
+    		throw new IllegalStateException("task already marked");
     };
     
     /**
@@ -373,13 +492,13 @@ public class Scheduler{
      * @param unit
      * 		the unit to disconnect with
      * @effect a bidirectional association will be broken down
-     * 		| task.removeUnit(unit);
+     * 		| task.release(unit);
      * @throws IllegalArgumentException
      * 		| if(!hasAsTask(task) && unit.getFaction().getScheduler() != this)
      */
     public void resetMarkTaskByUnit(Task task, Unit unit) throws IllegalArgumentException {
     	if(!hasAsTask(task) && unit.getFaction().getScheduler() != this)
     		throw new IllegalArgumentException("task not scheduled");
-    	task.removeUnit(unit);
+    	task.release(unit);
     };
 }
@@ -0,0 +1,390 @@
+package hillbillies.model;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+/**
+ * A class driving a world with ticks of a fixed duration, independent of any view
+ *
+ * Elapsed time is gathered in an accumulator and every whole tick in it advances the world
+ * once, so the simulation no longer depends on the frame rate. The driver can run on a thread
+ * of its own at real time, or fast forward a number of ticks as fast as possible.
+ * While its thread runs, only the driver touches the world: others hand over their changes
+ * with invokeLater and read the world through the latest snapshot.
+ *
+ * @Invar The world of this driver is effective
+ * 		| getWorld() != null
+ * @Invar The duration of a tick is a valid duration for the world
+ * 		| isValidTickDuration(getTickDuration())
+ * @Invar The accumulated time is less than a tick, except while ticks are done
+ * 		| 0 <= getAccumulatedTime() < getTickDuration()
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class SimulationDriver {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * the world driven by this driver
+	 */
+	private final World world;
+	/*
+	 * the game time one tick advances the world
+	 */
+	private final double tickDuration;
+	/*
+	 * the maximal number of ticks done for one call to advanceTime, so a slow tick
+	 * 	can not make the driver fall further and further behind
+	 */
+	private final int maxTicksPerStep;
+	/*
+	 * the elapsed time not yet used by a tick
+	 */
+	private double accumulatedTime = 0;
+	/*
+	 * the number of ticks done by this driver
+	 */
+	private long nbTicks = 0;
+	/*
+	 * the changes to do on the world before the next tick
+	 */
+	private final Queue<Runnable> pendingActions = new ConcurrentLinkedQueue<>();
+	/*
+	 * the snapshot of the world after the last step of this driver
+	 */
+	private volatile WorldSnapshot snapshot;
+	/*
+	 * the thread running this driver at real time, null if it does not run
+	 */
+	private Thread thread = null;
+	/*
+	 * whether the thread of this driver has to keep running
+	 */
+	private volatile boolean running = false;
+	/*
+	 * the lock the thread of this driver sleeps on between ticks, signalled when the driver is stopped
+	 */
+	private final Object sleepLock = new Object();
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize a driver for the given world with the given tick duration
+	 *
+	 * @param world
+	 * 		the world to drive
+	 * @param tickDuration
+	 * 		the game time one tick advances the world
+	 * @param maxTicksPerStep
+	 * 		the maximal number of ticks for one call to advanceTime
+	 * @post | new.getWorld() == world
+	 * @post | new.getTickDuration() == tickDuration
+	 * @post | new.getMaxTicksPerStep() == maxTicksPerStep
+	 * @post | new.getNbTicks() == 0 && new.getSnapshot().getNbTicks() == 0
+	 * @throws IllegalArgumentException
+	 * 		| world == null || !isValidTickDuration(tickDuration) || maxTicksPerStep < 1
+	 */
+	public SimulationDriver(World world, double tickDuration, int maxTicksPerStep) throws IllegalArgumentException{
+		if(world == null || !isValidTickDuration(tickDuration) || maxTicksPerStep < 1)
+			throw new IllegalArgumentException();
+		this.world = world;
+		this.tickDuration = tickDuration;
+		this.maxTicksPerStep = maxTicksPerStep;
+		this.snapshot = new WorldSnapshot(world, 0, 0);
+	}
+
+	/**
+	 * Initialize a driver for the given world with the given tick duration,
+	 * 	doing at most 5 ticks for one call to advanceTime
+	 *
+	 * @effect | this(world, tickDuration, 5)
+	 */
+	public SimulationDriver(World world, double tickDuration) throws IllegalArgumentException{
+		this(world, tickDuration, 5);
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------INSPECTORS---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the world driven by this driver
+	 */
+	@Basic @Immutable
+	public World getWorld() {
+		return this.world;
+	}
+
+	/**
+	 * Return the game time one tick advances the world
+	 */
+	@Basic @Immutable
+	public double getTickDuration() {
+		return this.tickDuration;
+	}
+
+	/**
+	 * Check whether the given duration is a valid duration for a tick
+	 *
+	 * @return | result == (tickDuration > 0 && World.isValidDuration(tickDuration))
+	 */
+	public static boolean isValidTickDuration(double tickDuration) {
+		return tickDuration > 0 && World.isValidDuration(tickDuration);
+	}
+
+	/**
+	 * Return the maximal number of ticks done for one call to advanceTime
+	 */
+	@Basic @Immutable
+	public int getMaxTicksPerStep() {
+		return this.maxTicksPerStep;
+	}
+
+	/**
+	 * Return the elapsed time not yet used by a tick
+	 */
+	@Basic
+	public synchronized double getAccumulatedTime() {
+		return this.accumulatedTime;
+	}
+
+	/**
+	 * Return the number of ticks done by this driver
+	 */
+	@Basic
+	public synchronized long getNbTicks() {
+		return this.nbTicks;
+	}
+
+	/**
+	 * Return the snapshot of the world after the last step of this driver
+	 */
+	@Basic
+	public WorldSnapshot getSnapshot() {
+		return this.snapshot;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------STEPPING---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Add the given elapsed time to the accumulated time and do a tick for every
+	 * 	whole tick duration in it
+	 *
+	 * @param elapsed
+	 * 		the time elapsed since the last call
+	 * @return the number of ticks done, at most the maximal number of ticks per step
+	 * 		| result == min(getMaxTicksPerStep(), floor((getAccumulatedTime()+elapsed)/getTickDuration()))
+	 * @post the time of the ticks that were dropped is dropped as well
+	 * 		| new.getAccumulatedTime() < getTickDuration()
+	 * @effect the snapshot is taken again after the ticks
+	 * @throws IllegalArgumentException
+	 * 		| elapsed < 0
+	 */
+	public synchronized int advanceTime(double elapsed) throws IllegalArgumentException{
+		if(elapsed < 0)
+			throw new IllegalArgumentException();
+		this.accumulatedTime += elapsed;
+		int nbDone = 0;
+		while(this.accumulatedTime >= this.tickDuration && nbDone < this.maxTicksPerStep){
+			this.tick();
+			this.accumulatedTime -= this.tickDuration;
+			nbDone++;
+		}
+		if(this.accumulatedTime >= this.tickDuration)
+			this.accumulatedTime %= this.tickDuration;
+		this.takeSnapshot();
+		return nbDone;
+	}
+
+	/**
+	 * Do the given number of ticks as fast as possible
+	 *
+	 * @param nbTicks
+	 * 		the number of ticks to do
+	 * @post | new.getNbTicks() == getNbTicks() + nbTicks
+	 * @post the accumulated time is left untouched
+	 * 		| new.getAccumulatedTime() == getAccumulatedTime()
+	 * @effect the snapshot is taken again after the ticks
+	 * @throws IllegalArgumentException
+	 * 		| nbTicks < 0
+	 */
+	public synchronized void fastForward(long nbTicks) throws IllegalArgumentException{
+		if(nbTicks < 0)
+			throw new IllegalArgumentException();
+		for(long i=0; i<nbTicks; i++)
+			this.tick();
+		this.takeSnapshot();
+	}
+
+	/**
+	 * Do the given action on the world right before the next tick,
+	 * 	on the thread doing that tick
+	 *
+	 * @param action
+	 * 		the change to make to the world
+	 * @throws IllegalArgumentException
+	 * 		| action == null
+	 */
+	public void invokeLater(Runnable action) throws IllegalArgumentException{
+		if(action == null)
+			throw new IllegalArgumentException();
+		this.pendingActions.add(action);
+	}
+
+	/**
+	 * Do the pending actions and advance the world with the duration of one tick
+	 *
+	 * @effect | getWorld().advanceTime(getTickDuration())
+	 * @post the tick is counted, also if the world failed to advance
+	 * 		| new.getNbTicks() == getNbTicks()+1
+	 */
+	@Model
+	private void tick(){
+		try{
+			Runnable action;
+			while((action = this.pendingActions.poll()) != null)
+				action.run();
+			this.getWorld().advanceTime(this.tickDuration);
+		}
+		finally{
+			this.nbTicks++;
+		}
+	}
+
+	/**
+	 * Take a new snapshot of the world
+	 */
+	@Model
+	private void takeSnapshot(){
+		this.snapshot = new WorldSnapshot(this.getWorld(), this.nbTicks, this.nbTicks*this.tickDuration);
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------THREAD---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Check whether this driver runs on a thread of its own
+	 */
+	public synchronized boolean isRunning() {
+		return this.thread != null;
+	}
+
+	/**
+	 * Start running this driver at real time on a thread of its own
+	 *
+	 * @post | new.isRunning()
+	 * @throws IllegalStateException
+	 * 		| isRunning()
+	 */
+	public synchronized void start() throws IllegalStateException{
+		if(this.isRunning())
+			throw new IllegalStateException("The driver already runs");
+		this.running = true;
+		this.thread = new Thread(this::run, "SimulationDriver");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Stop the thread of this driver, waiting until its last tick is done
+	 * 	the thread is woken up if it sleeps, but never interrupted, so a tick always runs to its end
+	 *
+	 * @post | !new.isRunning()
+	 */
+	public void stop(){
+		Thread thread;
+		synchronized(this){
+			thread = this.thread;
+			this.running = false;
+		}
+		if(thread == null)
+			return;
+		synchronized(this.sleepLock){
+			this.sleepLock.notifyAll();
+		}
+		boolean interrupted = false;
+		while(thread.isAlive()){
+			try{
+				thread.join();
+			}
+			catch(InterruptedException e){
+				interrupted = true;
+			}
+		}
+		synchronized(this){
+			if(this.thread == thread)
+				this.thread = null;
+		}
+		if(interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Advance this driver with the real time elapsed, sleeping until the next tick is due,
+	 * 	until the driver is stopped
+	 */
+	@Model
+	private void run(){
+		try{
+			long previous = System.nanoTime();
+			while(this.running){
+				long now = System.nanoTime();
+				this.advanceTime((now-previous)/1e9);
+				previous = now;
+				long wakeUp = now + (long)((this.tickDuration-this.getAccumulatedTime())*1e9);
+				this.sleepUntil(wakeUp);
+			}
+		}
+		catch(InterruptedException e){
+			//interrupted by someone else while sleeping
+		}
+		finally{
+			//a tick that fails stops the driver as well
+			synchronized(this){
+				if(this.thread == Thread.currentThread())
+					this.thread = null;
+			}
+		}
+	}
+
+	/**
+	 * Sleep on the lock of this driver until the given time of System.nanoTime,
+	 * 	or until the driver is stopped
+	 *
+	 * @throws InterruptedException
+	 * 		the thread is interrupted while sleeping
+	 */
+	@Model
+	private void sleepUntil(long wakeUp) throws InterruptedException{
+		synchronized(this.sleepLock){
+			long sleepTime;
+			while(this.running && (sleepTime = wakeUp - System.nanoTime()) > 0)
+				this.sleepLock.wait(sleepTime/1000000, (int)(sleepTime%1000000));
+		}
+	}
+}
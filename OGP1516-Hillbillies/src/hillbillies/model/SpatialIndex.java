@@ -0,0 +1,393 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * A class registering the objects of a world by the cube they are in
+ *
+ * Objects are only moved in the index when they cross the border of a cube.
+ * A query looks at the cubes of the asked region, or at the occupied cubes if there are fewer
+ * of them, so its time is proportional to the result and not to the number of objects.
+ *
+ * @param <T>
+ * 		the type of the objects in the index
+ *
+ * @Invar The world of this index is effective
+ * 		| getWorld() != null
+ * @Invar The position function of this index is effective
+ * 		| getPositionFunction() != null
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class SpatialIndex<T> {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * The world for this index
+	 */
+	private final World world;
+	/*
+	 * the function giving the position of the objects in this index
+	 */
+	private final Function<? super T, double[]> positionFunction;
+	/*
+	 * the objects in every occupied cube, by the index of the cube
+	 */
+	private final Map<Integer,List<T>> objectsByCube = new HashMap<>();
+	/*
+	 * the index of the cube of every object in this index
+	 */
+	private final Map<T,Integer> cubes = new HashMap<>();
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize an empty index for the given world
+	 *
+	 * @param world
+	 * 		the world of this index
+	 * @param positionFunction
+	 * 		the function giving the position of an object in the index
+	 * @post | new.getWorld() == world
+	 * @post | new.getPositionFunction() == positionFunction
+	 * @post | new.getNbObjects() == 0
+	 * @throws IllegalArgumentException
+	 * 		| world == null || positionFunction == null
+	 */
+	public SpatialIndex(World world, Function<? super T, double[]> positionFunction) throws IllegalArgumentException{
+		if(world == null || positionFunction == null)
+			throw new IllegalArgumentException();
+		this.world = world;
+		this.positionFunction = positionFunction;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------GETTERS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the world of this index
+	 */
+	@Basic @Raw @Immutable
+	public World getWorld(){
+		return this.world;
+	}
+
+	/**
+	 * Return the function giving the position of the objects in this index
+	 */
+	@Basic @Raw @Immutable
+	public Function<? super T, double[]> getPositionFunction(){
+		return this.positionFunction;
+	}
+
+	/**
+	 * Return the number of objects in this index
+	 */
+	public int getNbObjects(){
+		return this.cubes.size();
+	}
+
+	/**
+	 * Return whether the given object is in this index
+	 */
+	public boolean contains(T object){
+		return this.cubes.containsKey(object);
+	}
+
+	/**
+	 * Return the index of the cube the given object is registered in
+	 *
+	 * @return the index of the cube, or -1 if the object is not in this index
+	 */
+	public int getCube(T object){
+		Integer cube = this.cubes.get(object);
+		return cube == null? -1 : cube;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------OBJECTS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Register the given object in the cube with the given index
+	 * 	moving it out of its previous cube if it was already in this index
+	 *
+	 * @param object
+	 * 		the object to register
+	 * @param cube
+	 * 		the index of the cube the object is in
+	 * @post | new.getCube(object) == cube
+	 * @throws IllegalArgumentException
+	 * 		| object == null || cube < 0 || cube >= getWorld().getNbCubes()
+	 */
+	public void update(T object, int cube) throws IllegalArgumentException{
+		if(object == null || cube < 0 || cube >= getWorld().getNbCubes())
+			throw new IllegalArgumentException();
+		Integer previous = this.cubes.put(object, cube);
+		if(previous != null){
+			if(previous == cube)
+				return;
+			this.removeFromCube(object, previous);
+		}
+		List<T> objects = this.objectsByCube.get(cube);
+		if(objects == null){
+			objects = new ArrayList<>(2);
+			this.objectsByCube.put(cube, objects);
+		}
+		objects.add(object);
+	}
+
+	/**
+	 * Remove the given object from this index
+	 *
+	 * @post | !new.contains(object)
+	 */
+	public void remove(T object){
+		Integer cube = this.cubes.remove(object);
+		if(cube != null)
+			this.removeFromCube(object, cube);
+	}
+
+	//---------------------------------------QUERIES
+
+	/**
+	 * Return the objects in the cube with the given index
+	 *
+	 * @return a new list with every object registered in the cube
+	 */
+	public List<T> getObjectsInCube(int cube){
+		List<T> objects = this.objectsByCube.get(cube);
+		return objects == null? new ArrayList<>(0) : new ArrayList<>(objects);
+	}
+
+	/**
+	 * Add all objects with a position in the given box to the given collection
+	 *
+	 * @param low
+	 * 		the lowest corner of the box, included
+	 * @param high
+	 * 		the highest corner of the box, excluded
+	 * @param result
+	 * 		the collection to add the objects to
+	 * @effect | for each object in this index:
+	 * 		|	if (low <= getPosition(object) < high) then result.add(object)
+	 */
+	public void collectObjectsInBox(double[] low, double[] high, Collection<? super T> result){
+		World world = this.getWorld();
+		int minX = Math.max(0, (int) Math.floor(low[0]));
+		int minY = Math.max(0, (int) Math.floor(low[1]));
+		int minZ = Math.max(0, (int) Math.floor(low[2]));
+		int maxX = Math.min(world.getNbCubesX()-1, (int) Math.floor(high[0]));
+		int maxY = Math.min(world.getNbCubesY()-1, (int) Math.floor(high[1]));
+		int maxZ = Math.min(world.getNbCubesZ()-1, (int) Math.floor(high[2]));
+		if(minX > maxX || minY > maxY || minZ > maxZ)
+			return;
+
+		long nbCubesInBox = (long) (maxX-minX+1) * (maxY-minY+1) * (maxZ-minZ+1);
+		if(nbCubesInBox > this.objectsByCube.size()){
+			//fewer occupied cubes than cubes in the box
+			for(List<T> objects: this.objectsByCube.values())
+				for(T object: objects)
+					if(liesInBox(getPosition(object), low, high))
+						result.add(object);
+			return;
+		}
+		for(int z = minZ; z <= maxZ; z++)
+			for(int y = minY; y <= maxY; y++)
+				for(int x = minX; x <= maxX; x++){
+					List<T> objects = this.objectsByCube.get(world.getCubeIndex(x, y, z));
+					if(objects != null)
+						for(T object: objects)
+							if(liesInBox(getPosition(object), low, high))
+								result.add(object);
+				}
+	}
+
+	/**
+	 * Return the objects with a position in the given box
+	 *
+	 * @param low
+	 * 		the lowest corner of the box, included
+	 * @param high
+	 * 		the highest corner of the box, excluded
+	 * @return a new list with every object whose position lies in the box
+	 * 		| result == collectObjectsInBox(low, high, new list)
+	 */
+	public List<T> getObjectsInBox(double[] low, double[] high){
+		List<T> result = new ArrayList<>();
+		this.collectObjectsInBox(low, high, result);
+		return result;
+	}
+
+	/**
+	 * Return the objects within the given distance of the given position
+	 *
+	 * @param center
+	 * 		the position to measure from
+	 * @param radius
+	 * 		the maximal distance
+	 * @return a new list with every object whose position lies within the distance
+	 * 		| for each object in result: distance(getPosition(object), center) <= radius
+	 */
+	public List<T> getObjectsInRadius(double[] center, double radius){
+		double[] low = new double[]{center[0]-radius, center[1]-radius, center[2]-radius};
+		//the box excludes its highest corner
+		double[] high = new double[]{Math.nextUp(center[0]+radius), Math.nextUp(center[1]+radius),
+				Math.nextUp(center[2]+radius)};
+		List<T> result = new ArrayList<>();
+		for(T object: this.getObjectsInBox(low, high)){
+			double[] position = getPosition(object);
+			double dx = position[0]-center[0];
+			double dy = position[1]-center[1];
+			double dz = position[2]-center[2];
+			if(dx*dx + dy*dy + dz*dz <= radius*radius)
+				result.add(object);
+		}
+		return result;
+	}
+
+	/**
+	 * Return the object nearest to the given position satisfying the given condition
+	 * 	the cubes around the position are visited in growing shells, until no object
+	 * 	in a next shell can be nearer than the nearest one found. When the next shell
+	 * 	has more cubes than there are occupied cubes, the occupied cubes are visited instead.
+	 *
+	 * @param center
+	 * 		the position to measure from, in the world of this index
+	 * @param condition
+	 * 		the condition the object has to satisfy, only tested for objects nearer than
+	 * 		the nearest one found so far
+	 * @return an object satisfying the condition with the least distance to the given position,
+	 * 		or null if there is none
+	 * 		| for each object in this index:
+	 * 		|	if condition.test(object) then
+	 * 		|		distance(getPosition(result), center) <= distance(getPosition(object), center)
+	 */
+	public T findNearest(double[] center, Predicate<? super T> condition){
+		World world = this.getWorld();
+		int cx = (int) Math.floor(center[0]);
+		int cy = (int) Math.floor(center[1]);
+		int cz = (int) Math.floor(center[2]);
+		int maxRadius = Math.max(world.getNbCubesX(), Math.max(world.getNbCubesY(), world.getNbCubesZ()));
+		Nearest nearest = new Nearest(center, condition);
+		long nbVisitedCubes = 0;
+		for(int r = 0; r <= maxRadius; r++){
+			//every position in a cube of shell r lies at least r-1 away from the center
+			if(nearest.object != null && (double) (r-1)*(r-1) >= nearest.distance)
+				return nearest.object;
+			long nbCubesInShell = r == 0? 1 : (long) (2*r+1)*(2*r+1)*(2*r+1) - (long) (2*r-1)*(2*r-1)*(2*r-1);
+			if(nbVisitedCubes + nbCubesInShell > this.objectsByCube.size()){
+				//fewer occupied cubes than cubes left to visit
+				for(List<T> objects: this.objectsByCube.values())
+					nearest.offer(objects);
+				return nearest.object;
+			}
+			for(int z = cz-r; z <= cz+r; z++)
+				for(int y = cy-r; y <= cy+r; y++){
+					boolean onShell = z == cz-r || z == cz+r || y == cy-r || y == cy+r;
+					for(int x = cx-r; x <= cx+r; x += onShell? 1 : 2*r)
+						if(world.isValidPosition(x, y, z))
+							nearest.offer(this.objectsByCube.get(world.getCubeIndex(x, y, z)));
+				}
+			nbVisitedCubes += nbCubesInShell;
+		}
+		return nearest.object;
+	}
+
+	//---------------------------------------HELPERS
+
+	/**
+	 * Return the position of the given object
+	 * 		| result == getPositionFunction().apply(object)
+	 */
+	@Model
+	private double[] getPosition(T object){
+		return this.positionFunction.apply(object);
+	}
+
+	/**
+	 * Remove the given object from the list of the cube with the given index
+	 */
+	private void removeFromCube(T object, int cube){
+		List<T> objects = this.objectsByCube.get(cube);
+		objects.remove(object);
+		if(objects.isEmpty())
+			this.objectsByCube.remove(cube);
+	}
+
+	/**
+	 * Return whether the given position lies in the given box
+	 */
+	private static boolean liesInBox(double[] position, double[] low, double[] high){
+		return low[0] <= position[0] && position[0] < high[0] &&
+				low[1] <= position[1] && position[1] < high[1] &&
+				low[2] <= position[2] && position[2] < high[2];
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * --------------------------NEAREST---------------------------------
+	 * -----------------------NESTED CLASS-------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * The nearest object satisfying a condition among the objects offered so far
+	 */
+	private class Nearest {
+		private final double[] center;
+		private final Predicate<? super T> condition;
+		private T object = null;
+		//the squared distance of the object to the center
+		private double distance = Double.POSITIVE_INFINITY;
+
+		private Nearest(double[] center, Predicate<? super T> condition){
+			this.center = center;
+			this.condition = condition;
+		}
+
+		private void offer(List<T> objects){
+			if(objects == null)
+				return;
+			for(T object: objects){
+				double[] position = getPosition(object);
+				double dx = position[0]-center[0];
+				double dy = position[1]-center[1];
+				double dz = position[2]-center[2];
+				double distance = dx*dx + dy*dy + dz*dz;
+				if(distance < this.distance && condition.test(object)){
+					this.object = object;
+					this.distance = distance;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,406 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import be.kuleuven.cs.som.annotate.Model;
+
+/**
+ * A class keeping the groups of directly adjacent solid cubes of a world,
+ * 	and whether each group touches a border of the world
+ *
+ * A solid cube is anchored if its group touches a border. Every cube is labelled with a group,
+ * and groups joined by a new solid cube are merged by union-find, so the question whether a cube
+ * is anchored is answered in near constant time. Every group counts its cubes and its cubes at
+ * a border. When a solid cube is removed, only its own group is searched again: one search starts
+ * from every solid neighbour, the searches take turns, and searches that meet are merged. As soon
+ * as one unfinished search is left, the finished ones are the pieces that broke off. The last piece
+ * keeps the group, and the counts tell whether it still touches a border without visiting it.
+ *
+ * The class has the same contract as hillbillies.util.ConnectedToBorder, except that removing
+ * a cube that is not anchored gives no cubes, as no cube loses its anchor by that change.
+ *
+ * @Invar The dimensions are strictly positive
+ * 		| getNbCubesX() > 0 && getNbCubesY() > 0 && getNbCubesZ() > 0
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class SupportGraph extends CubeGroups {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * whether every cube is passable
+	 */
+	private final boolean[] passable;
+	/*
+	 * for every group: its number of cubes at a border
+	 */
+	private int[] nbBorderCubes;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize the graph for a world of the given dimensions where all cubes are solid
+	 *
+	 * @param nbX
+	 * @param nbY
+	 * @param nbZ
+	 * 		the dimensions of the world
+	 * @post | new.getNbCubesX() == nbX && new.getNbCubesY() == nbY && new.getNbCubesZ() == nbZ
+	 * @post every cube is solid and anchored
+	 * 		| new.isAnchored(index)
+	 * @throws IllegalArgumentException
+	 * 		| nbX <= 0 || nbY <= 0 || nbZ <= 0
+	 */
+	public SupportGraph(int nbX, int nbY, int nbZ) throws IllegalArgumentException{
+		super(nbX, nbY, nbZ);
+		int nbCubes = nbXY*nbZ;
+		this.passable = new boolean[nbCubes];
+		this.nbBorderCubes = new int[16];
+
+		int nbInner = Math.max(0, nbX-2)*Math.max(0, nbY-2)*Math.max(0, nbZ-2);
+		int group = newGroup();
+		this.size[group] = nbCubes;
+		this.nbBorderCubes[group] = nbCubes - nbInner;
+	}
+
+	/**
+	 * Initialize the graph for the solid cubes of the given terrain
+	 * 	the groups are found by one flood fill over the whole terrain
+	 *
+	 * @param terrain
+	 * 		the terrain to take the dimensions and the solid cubes from
+	 * @post | new.getNbCubesX() == terrain.getNbCubesX() && new.getNbCubesY() == terrain.getNbCubesY()
+	 * 		|	&& new.getNbCubesZ() == terrain.getNbCubesZ()
+	 * @post a cube is anchored if it is solid and connected to a border of the world
+	 * 		through other directly adjacent solid cubes
+	 */
+	public SupportGraph(TerrainStore terrain){
+		this(terrain.getNbCubesX(), terrain.getNbCubesY(), terrain.getNbCubesZ());
+		this.nbGroups = 0;
+		int[] queue = new int[passable.length];
+		for(int index = 0; index < passable.length; index++)
+			passable[index] = !terrain.isSolid(index);
+		for(int start = 0; start < passable.length; start++){
+			if(passable[start] || visited[start] != 0)
+				continue;
+			int group = newGroup();
+			int nbCubes = 0;
+			queue[nbCubes++] = start;
+			visited[start] = 1;
+			for(int head = 0; head < nbCubes; head++){
+				int cube = queue[head];
+				groupOf[cube] = group;
+				size[group]++;
+				if(isBorder(cube))
+					nbBorderCubes[group]++;
+				int x = cube % nbX;
+				int y = (cube % nbXY) / nbX;
+				int z = cube / nbXY;
+				for(int k = 0; k < 6; k++){
+					int neighbour = getNeighbour(x, y, z, k);
+					if(neighbour >= 0 && !passable[neighbour] && visited[neighbour] == 0){
+						visited[neighbour] = 1;
+						queue[nbCubes++] = neighbour;
+					}
+				}
+			}
+		}
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------GETTERS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return whether the cube with the given index is solid
+	 */
+	@Override @Model
+	protected boolean isGrouped(int index){
+		return !passable[index];
+	}
+
+	/**
+	 * Return whether the cube with the given index is solid and its group touches a border
+	 */
+	public boolean isAnchored(int index){
+		return !passable[index] && nbBorderCubes[find(groupOf[index])] > 0;
+	}
+
+	/**
+	 * Return whether the cube with the given coordinates is a solid cube connected
+	 * 	to a border of the world through other directly adjacent solid cubes
+	 *
+	 * @return | result == isAnchored(getIndex(x,y,z))
+	 */
+	public boolean isSolidConnectedToBorder(int x, int y, int z){
+		return isAnchored(getIndex(x, y, z));
+	}
+
+	/**
+	 * Return whether the cubes with the given indices are solid and in the same group
+	 */
+	public boolean inSameGroup(int index1, int index2){
+		return !passable[index1] && !passable[index2] && find(groupOf[index1]) == find(groupOf[index2]);
+	}
+
+	/**
+	 * Return the number of cubes in the group of the solid cube with the given index
+	 *
+	 * @throws IllegalArgumentException
+	 * 		| the cube is passable
+	 */
+	public int getGroupSize(int index) throws IllegalArgumentException{
+		if(passable[index])
+			throw new IllegalArgumentException();
+		return size[find(groupOf[index])];
+	}
+
+	/**
+	 * Return the indices of all solid cubes that are not anchored
+	 *
+	 * @return | for each index: contains(result, index) == (isSolid(index) && !isAnchored(index))
+	 */
+	public int[] getLooseCubes(){
+		int[] result = new int[16];
+		int nbLoose = 0;
+		for(int index = 0; index < passable.length; index++)
+			if(!passable[index] && !isAnchored(index)){
+				if(nbLoose == result.length)
+					result = Arrays.copyOf(result, 2*nbLoose);
+				result[nbLoose++] = index;
+			}
+		return Arrays.copyOf(result, nbLoose);
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CHANGES------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Make the cube with the given coordinates solid instead of passable
+	 *
+	 * @return the coordinates {x, y, z} of the cubes that became anchored by this change
+	 * 		| result == toCoordinates(changePassableToSolid(getIndex(x,y,z)))
+	 */
+	public List<int[]> changePassableToSolid(int x, int y, int z){
+		return toCoordinates(changePassableToSolid(getIndex(x, y, z)));
+	}
+
+	/**
+	 * Make the cube with the given index solid instead of passable
+	 * 	the groups of the anchored neighbours are merged, the cubes of groups that are not
+	 * 	anchored are searched from the given cube, as those groups may have broken apart
+	 *
+	 * @return the indices of the cubes that became anchored by this change,
+	 * 		including the given cube if any
+	 */
+	public int[] changePassableToSolid(int index){
+		if(!passable[index])
+			return new int[0];
+		passable[index] = false;
+		int x = index % nbX;
+		int y = (index % nbXY) / nbX;
+		int z = index / nbXY;
+
+		//MERGE THE ANCHORED NEIGHBOURS
+		int group = -1;
+		boolean hasLooseNeighbour = false;
+		for(int k = 0; k < 6; k++){
+			int neighbour = getNeighbour(x, y, z, k);
+			if(neighbour < 0 || passable[neighbour])
+				continue;
+			int root = find(groupOf[neighbour]);
+			if(nbBorderCubes[root] == 0)
+				hasLooseNeighbour = true;
+			else
+				group = group < 0? root : union(group, root);
+		}
+		boolean anchored = group >= 0 || isBorder(index);
+		if(group < 0)
+			group = newGroup();
+		groupOf[index] = group;
+		size[group]++;
+		if(isBorder(index))
+			nbBorderCubes[group]++;
+		if(!hasLooseNeighbour)
+			return anchored? new int[]{index} : new int[0];
+
+		//ADD THE CUBES OF THE LOOSE NEIGHBOURS
+		int generation = nextGeneration();
+		int[] cubes = searchCubes[0];
+		int nbCubes = 0;
+		cubes[nbCubes++] = index;
+		visited[index] = generation;
+		for(int head = 0; head < nbCubes; head++){
+			int cube = cubes[head];
+			int cx = cube % nbX;
+			int cy = (cube % nbXY) / nbX;
+			int cz = cube / nbXY;
+			for(int k = 0; k < 6; k++){
+				int neighbour = getNeighbour(cx, cy, cz, k);
+				if(neighbour < 0 || passable[neighbour] || visited[neighbour] == generation)
+					continue;
+				int root = find(groupOf[neighbour]);
+				if(nbBorderCubes[root] > 0)
+					continue;
+				visited[neighbour] = generation;
+				size[root]--;
+				groupOf[neighbour] = group;
+				size[group]++;
+				if(isBorder(neighbour))
+					nbBorderCubes[group]++;
+				if(nbCubes == cubes.length)
+					cubes = searchCubes[0] = Arrays.copyOf(cubes, 2*nbCubes);
+				cubes[nbCubes++] = neighbour;
+			}
+		}
+		return anchored? Arrays.copyOf(cubes, nbCubes) : new int[0];
+	}
+
+	/**
+	 * Make the cube with the given coordinates passable instead of solid
+	 *
+	 * @return the coordinates {x, y, z} of the cubes that lost their anchor by this change
+	 * 		| result == toCoordinates(changeSolidToPassable(getIndex(x,y,z)))
+	 */
+	public List<int[]> changeSolidToPassable(int x, int y, int z){
+		return toCoordinates(changeSolidToPassable(getIndex(x, y, z)));
+	}
+
+	/**
+	 * Make the cube with the given index passable instead of solid
+	 * 	only the group of the given cube is searched again
+	 *
+	 * @return the indices of the cubes that lost their anchor by this change
+	 * @throws IllegalStateException
+	 * 		the current thread is interrupted during the search
+	 */
+	public int[] changeSolidToPassable(int index) throws IllegalStateException{
+		if(passable[index])
+			return new int[0];
+		passable[index] = true;
+		int group = find(groupOf[index]);
+		size[group]--;
+		if(isBorder(index))
+			nbBorderCubes[group]--;
+		if(nbBorderCubes[group] == 0 && !isBorder(index))
+			//the group was not anchored, it is searched again when a cube is added next to it
+			return new int[0];
+
+		//ONE SEARCH FROM EVERY SOLID NEIGHBOUR
+		int generation = nextGeneration();
+		int nbSearches = startSearches(index, generation);
+
+		//THE SEARCHES TAKE TURNS UNTIL ONE UNFINISHED SEARCH IS LEFT
+		int remaining = interleaveSearches(nbSearches, generation);
+
+		//THE FINISHED SEARCHES ARE THE PIECES THAT BROKE OFF
+		if(remaining < 0)
+			remaining = getLargestSearch(nbSearches);
+		int[] loose = new int[0];
+		int nbLoose = 0;
+		for(int s = 0; s < nbSearches; s++){
+			if(searchParent[s] != s || s == remaining)
+				continue;
+			int piece = newGroup();
+			for(int t = 0; t < nbSearches; t++)
+				if(findSearch(t) == s)
+					for(int i = 0; i < nbSearchCubes[t]; i++){
+						int cube = searchCubes[t][i];
+						groupOf[cube] = piece;
+						size[piece]++;
+						if(isBorder(cube))
+							nbBorderCubes[piece]++;
+					}
+			size[group] -= size[piece];
+			nbBorderCubes[group] -= nbBorderCubes[piece];
+			if(nbBorderCubes[piece] == 0){
+				loose = Arrays.copyOf(loose, nbLoose + size[piece]);
+				for(int t = 0; t < nbSearches; t++)
+					if(findSearch(t) == s){
+						System.arraycopy(searchCubes[t], 0, loose, nbLoose, nbSearchCubes[t]);
+						nbLoose += nbSearchCubes[t];
+					}
+			}
+		}
+
+		//THE LAST PIECE KEEPS THE GROUP
+		if(remaining >= 0 && nbBorderCubes[group] == 0){
+			while(!isFinished(remaining, nbSearches))
+				expandAll(nbSearches, generation);
+			for(int t = 0; t < nbSearches; t++)
+				if(findSearch(t) == remaining){
+					loose = Arrays.copyOf(loose, nbLoose + nbSearchCubes[t]);
+					System.arraycopy(searchCubes[t], 0, loose, nbLoose, nbSearchCubes[t]);
+					nbLoose += nbSearchCubes[t];
+				}
+		}
+		return loose;
+	}
+
+	//---------------------------------------HELPERS
+
+	/**
+	 * Merge the groups with the given roots and return the root of the merged group
+	 * 	the merged group counts the cubes at a border of both groups
+	 */
+	@Override @Model
+	protected int union(int root1, int root2){
+		int root = super.union(root1, root2);
+		if(root1 != root2)
+			nbBorderCubes[root] += nbBorderCubes[root == root1? root2 : root1];
+		return root;
+	}
+
+	/**
+	 * Return a new empty group, without cubes at a border
+	 */
+	@Override @Model
+	protected int newGroup(){
+		int group = super.newGroup();
+		if(group == nbBorderCubes.length)
+			nbBorderCubes = Arrays.copyOf(nbBorderCubes, 2*group);
+		nbBorderCubes[group] = 0;
+		return group;
+	}
+
+	/**
+	 * Return whether the cube with the given index lies at a border of the world
+	 */
+	@Model
+	private boolean isBorder(int index){
+		int x = index % nbX;
+		int y = (index % nbXY) / nbX;
+		int z = index / nbXY;
+		return x == 0 || x == nbX-1 || y == 0 || y == nbY-1 || z == 0 || z == nbZ-1;
+	}
+
+	/**
+	 * Return a new list with the coordinates {x, y, z} of the cubes with the given indices
+	 */
+	@Model
+	private List<int[]> toCoordinates(int[] indices){
+		List<int[]> result = new ArrayList<>(indices.length+1);
+		for(int index: indices)
+			result.add(new int[]{index % nbX, (index % nbXY) / nbX, index / nbXY});
+		return result;
+	}
+}
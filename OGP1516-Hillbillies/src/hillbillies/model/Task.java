@@ -2,7 +2,11 @@ package hillbillies.model;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import be.kuleuven.cs.som.annotate.*;
+import hillbillies.model.helper.CubePosition;
 import hillbillies.statement.Statement;
 
 /**
@@ -54,6 +58,28 @@ public class Task {
  * @param  activity
  *         The Activity for this new Task.
  *         
+ * @effect The new Task is initialized with the given activity compiled,
+ * 		   without a selected cube
+ *       | this(name, priority, TaskProgram.compile(activity), null)
+ */
+public Task(String name, int priority,Statement activity)throws IllegalArgumentException {
+	this(name, priority, activity == null ? null : TaskProgram.compile(activity), null);
+}
+
+/**
+ * Initialize this new Task with given priority and
+ *  a given name and a given compiled activity for the given selected cube and an empty set of schedulers.
+ *  The program can be shared by all the tasks created from the same activity.
+ *
+ * @param  priority
+ *         The priority for this new Task.
+ * @param  name
+ *         The name for this new Task.
+ * @param  program
+ *         The compiled Activity for this new Task.
+ * @param  selectedCube
+ *         The cube selected for this new Task, or null.
+ *         
  * @effect The priority of this new Task is set to
  *         the given priority.
  *       | this.setPriority(priority)
@@ -61,9 +87,12 @@ public class Task {
  * @post   The name of this new Task is equal to the given
  *         name.
  *       | new.getName() == name
- * @post   The Activity of this new Task is equal to the given
- *         Activity.
- *       | new.getActivity() == activity
+ * @post   The program of this new Task is equal to the given
+ *         program.
+ *       | new.getProgram() == program
+ * @post   The selected cube of this new Task is the given cube
+ *       | if(selectedCube == null) new.getSelectedCube() == null
+ *       | else new.getSelectedCube().equals(new CubePosition(selectedCube))
  * @post The task is not yet terminated
  * 		| isTerminated() == false
  * @post The task has not yet schedulers assigned to it
@@ -73,20 +102,21 @@ public class Task {
  *         This new Task cannot have the given name as its name.
  *       | ! canHaveAsName(this.getName())
  * @throws IllegalArgumentException
- *         This new Task cannot have the given Activity as its Activity.
- *       | ! canHaveAsActivity(this.getActivity())       
+ *         This new Task cannot have the activity of the given program as its Activity.
+ *       | program == null || ! canHaveAsActivity(program.getActivity())       
  */
-public Task(String name, int priority,Statement activity)throws IllegalArgumentException {
+public Task(String name, int priority, TaskProgram program, int[] selectedCube)throws IllegalArgumentException {
 	
 	if (! canHaveAsName(name))
 		throw new IllegalArgumentException("Invalid name for a task");
-	if (! canHaveAsActivity(activity))
+	if (program == null || ! canHaveAsActivity(program.getActivity()))
 		throw new IllegalArgumentException("invalid activity for a task");
 	
 	this.setPriority(priority);
 	this.name = name;
-	this.activity = activity;
-	this.schedulers = new HashSet<>();
+	this.program = program;
+	this.selectedCube = selectedCube == null ? null : new CubePosition(selectedCube);
+	this.schedulers = new CopyOnWriteArraySet<>();
 	this.isTerminated = false;
 }
 
@@ -172,19 +202,45 @@ public static boolean isValidPriority(int priority) {
  *		 	|	  gePriority() = Integer.MIN_VALUE+200;
  *		    |  else 
  *			|     gePriority() = priority
+ * @effect the schedulers of this task reorder it
+ * 			| for each scheduler in getAllSchedulers()
+ * 			|	scheduler.reorderTask(this)
  */
 @Raw
 public void setPriority(int priority) {
+	this.unorderInSchedulers();
 	if (! isValidPriority(priority))
 		this.priority = Integer.MIN_VALUE+200;
 	else
 		this.priority = priority;
+	this.reorderInSchedulers();
 }
 
 /**
  * Variable registering the priority of this Task.
  */
 private int priority;
+
+//-------------------------SEQUENCE NUMBER
+
+/**
+ * Return the number of tasks created before this Task,
+ * 	ordering tasks with the same priority
+ */
+@Basic @Raw @Immutable
+public long getSequenceNumber() {
+	return this.sequenceNumber;
+}
+
+/**
+ * Variable registering the number of tasks created before this Task.
+ */
+private final long sequenceNumber = nbCreatedTasks.getAndIncrement();
+
+/**
+ * Variable registering the number of tasks created.
+ */
+private static final AtomicLong nbCreatedTasks = new AtomicLong();
 	
 //-------------------------NAME
 
@@ -219,9 +275,9 @@ private final String name;
 /**
  * Return the Activity of this Task.
  */
-@Basic @Raw @Immutable
+@Raw @Immutable
 public Statement getActivity() {
-	return this.activity;
+	return this.getProgram().getActivity();
 }
 
 /**
@@ -238,9 +294,30 @@ public boolean canHaveAsActivity(Statement activity) {
 }
 
 /**
- * Variable registering the Activity of this Task.
+ * Return the activity of this Task compiled to instructions, executed by the handlers of its units
+ */
+@Basic @Raw @Immutable
+public TaskProgram getProgram() {
+	return this.program;
+}
+
+/**
+ * Variable registering the compiled Activity of this Task.
  */
-private final Statement activity;
+private final TaskProgram program;
+
+/**
+ * Return the cube selected for this Task, null if no cube was selected
+ */
+@Basic @Raw @Immutable
+public CubePosition getSelectedCube() {
+	return this.selectedCube;
+}
+
+/**
+ * Variable registering the selected cube of this Task.
+ */
+private final CubePosition selectedCube;
 
 /*___________________________________________________________________
  * __________________________________________________________________
@@ -255,7 +332,7 @@ private final Statement activity;
  */
 @Basic @Raw
 public Unit getUnit() {
-	return this.unit;
+	return this.unit.get();
 }
 
 /**
@@ -279,6 +356,9 @@ public boolean canHaveAsUnit(Unit unit) {
  * @post   The Unit of this new Task is equal to
  *         the given Unit.
  *       | new.getUnit() == unit
+ * @effect the schedulers of this task reorder it
+ * 		 | for each scheduler in getAllSchedulers()
+ * 		 |	scheduler.reorderTask(this)
  * @throws IllegalArgumentException
  *         The given Unit is not a valid Unit for any
  *         Task.
@@ -288,13 +368,15 @@ public boolean canHaveAsUnit(Unit unit) {
 private void setUnit(Unit unit) throws IllegalArgumentException {
 	if (! canHaveAsUnit(unit))
 		throw new IllegalArgumentException();
-	this.unit = unit;
+	this.unorderInSchedulers();
+	this.unit.set(unit);
+	this.reorderInSchedulers();
 }
 	
 /**
  * Variable registering the Unit of this Task.
  */
-private Unit unit;
+private final AtomicReference<Unit> unit = new AtomicReference<>();
 
 //ASSOCIATION
 
@@ -344,6 +426,55 @@ public void removeUnit(Unit unit) throws IllegalArgumentException{
 	unit.setTask(null);
 	this.setUnit(null);
 }
+
+/**
+ * Claim this task for the given unit, if no other unit has it
+ * 	at most one of the units claiming this task at the same time gets it
+ * 
+ * @param unit
+ * 		the unit claiming this task
+ * @return whether the unit got this task
+ * 		| result == !hasUnit()
+ * @effect if the unit got this task, a bidirectional association is set up
+ * 		| if (result) then new.getUnit() == unit && unit.setTask(this)
+ * @effect if the unit got this task, its schedulers do not hand it out anymore
+ * 		| for each scheduler in getAllSchedulers()
+ * 		|	scheduler.claimChanged(this)
+ * @throws IllegalArgumentException
+ * 		|(unit == null || unit.hasTask())
+ */
+public boolean claim(Unit unit) throws IllegalArgumentException{
+	if (unit == null || unit.hasTask())
+		throw new IllegalArgumentException("invalid unit for task");
+	if(!this.unit.compareAndSet(null, unit))
+		return false;
+	for(Scheduler scheduler: this.schedulers)
+		scheduler.claimChanged(this);
+	unit.setTask(this);
+	return true;
+}
+
+/**
+ * Release this task claimed by the given unit
+ * 
+ * @param unit
+ * 		the unit releasing this task
+ * @post | !new.hasUnit()
+ * @effect the unit has no task anymore
+ * 		| unit.setTask(null)
+ * @effect the schedulers of this task hand it out again
+ * 		| for each scheduler in getAllSchedulers()
+ * 		|	scheduler.claimChanged(this)
+ * @throws IllegalArgumentException
+ * 		|(unit == null || unit != getUnit())
+ */
+public void release(Unit unit) throws IllegalArgumentException{
+	if(unit == null || !this.unit.compareAndSet(unit, null))
+		throw new IllegalArgumentException("invalid unit for task");
+	unit.setTask(null);
+	for(Scheduler scheduler: this.schedulers)
+		scheduler.claimChanged(this);
+}
 /**
  * Checks if a unit is assigned to this task
  * 
@@ -421,6 +552,27 @@ public boolean hasProperSchedulers(){
 	return true;
 }
 
+/**
+ * Take this task out of the order of its schedulers, before its priority or unit changes
+ * 	the priority is set in the constructor, before there are schedulers
+ */
+@Model
+private void unorderInSchedulers(){
+	if(this.schedulers != null)
+		for(Scheduler scheduler: this.schedulers)
+			scheduler.unorderTask(this);
+}
+
+/**
+ * Put this task back in the order of its schedulers, after its priority or unit changed
+ */
+@Model
+private void reorderInSchedulers(){
+	if(this.schedulers != null)
+		for(Scheduler scheduler: this.schedulers)
+			scheduler.reorderTask(this);
+}
+
 //ASSOCIATION
 
 
@@ -1,7 +1,9 @@
 package hillbillies.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import hillbillies.expression.Expression;
 import hillbillies.expression.ReadVariable;
@@ -31,18 +33,51 @@ import hillbillies.statement.wildcardStatement.Print;
 public class TaskFactory implements ITaskFactory<Expression, Statement, Task> {
 
 	/**
-	 * @Alone implementation of selected is not mandatory
+	 * The slots of the variables of the task being parsed, resolved while its statements are created
+	 */
+	private final Map<String,Integer> variableSlots = new HashMap<>();
+
+	/**
+	 * Return the slot of the variable with the given name in the task being parsed,
+	 * 	giving it the next free slot if it has none yet
+	 */
+	private int getVariableSlot(String variableName) {
+		Integer slot = variableSlots.get(variableName);
+		if(slot == null){
+			slot = variableSlots.size();
+			variableSlots.put(variableName, slot);
+		}
+		return slot;
+	}
+
+	/**
+	 * Forget the slots of the variables of the previous task text, also if its parse failed,
+	 * 	so the task parsed next resolves its variables to slots of its own
+	 */
+	@Override
+	public void startParse() {
+		variableSlots.clear();
+	}
+
+	/**
+	 * Create a task for every selected cube, or a single task if no cubes are selected.
+	 * 	The activity is compiled once; all the tasks share its program.
 	 */
 	@Override
 	public List<Task> createTasks(String name, int priority, Statement activity, List<int[]> selectedCubes) {
+		TaskProgram program = TaskProgram.compile(activity);
 		List<Task> result = new ArrayList<>();
-			result.add(new Task(name, priority, activity));
+		if(selectedCubes == null || selectedCubes.isEmpty())
+			result.add(new Task(name, priority, program, null));
+		else
+			for(int[] selectedCube: selectedCubes)
+				result.add(new Task(name, priority, program, selectedCube));
 		return result;
 	}
 
 	@Override
 	public Statement createAssignment(String variableName, Expression value, SourceLocation sourceLocation) {
-		return new Assignment(variableName, value);
+		return new Assignment(variableName, value, getVariableSlot(variableName));
 	}
 
 	@Override
@@ -96,7 +131,7 @@ public class TaskFactory implements ITaskFactory<Expression, Statement, Task> {
 
 	@Override
 	public Expression<?> createReadVariable(String variableName, SourceLocation sourceLocation) {
-		return new ReadVariable(variableName);
+		return new ReadVariable(variableName, getVariableSlot(variableName));
 	}
 
 	@Override
@@ -164,12 +199,9 @@ public class TaskFactory implements ITaskFactory<Expression, Statement, Task> {
 		return new Workshop();
 	}
 
-	/**
-	 * @Alone implementation of selected is not mandatory
-	 */
 	@Override
 	public Expression<CubePosition> createSelectedPosition(SourceLocation sourceLocation) {
-		return null;
+		return new SelectedPosition();
 	}
 
 	@Override
@@ -1,14 +1,15 @@
 package hillbillies.model;
 
-import java.util.HashMap;
+import java.util.NoSuchElementException;
 
 import be.kuleuven.cs.som.annotate.*;
-import hillbillies.expression.Expression;
 import hillbillies.statement.Statement;
 
 /**
  * A class to handle a task that belongs to a unit
  * 
+ * The handler executes the compiled program of the task in an execution frame of its own,
+ * 	so the statements and the program of the task are never changed.
  * 
  * @Invar  Each TaskHandler can have its Task as Task.
  *       | canHaveAsTask(this.getTask())
@@ -19,7 +20,7 @@ public class TaskHandler {
 private final World world;
 private final Unit unit;
 private final Task task;
-private Statement currentStatement;
+private final ExecutionFrame frame;
 
 /**
  * Initialize this new TaskHandler with given Task.
@@ -37,7 +38,7 @@ public TaskHandler(Unit unit, World world, Task task) throws IllegalArgumentExce
 	this.unit = unit;
 	this.world = world;
 	this.task = task;
-	setCurrentStatement(task.getActivity());
+	this.frame = new ExecutionFrame(task.getProgram());
 }
 
 //UNIT
@@ -61,83 +62,135 @@ public World getWorld() {
 
 //ASSIGNING VARIABLES
 
-private final HashMap<String,Expression<?>> assignedVariablesMap = new  HashMap<String,Expression<?>>();
-
 /**
  * 
+ * @param slot
  * @param variableName
- * @param expression
- * @post 
- * 		|assignedVariablesMap.put(variableName, expression);
+ * @param value
+ * @effect 
+ * 		|getFrame().assign(slot, variableName, value);
+ * @throws IllegalArgumentException
+ * 		the program of the task has no slot for the variable
  */
-public void assign(String variableName, Expression<?> expression) {
-	assignedVariablesMap.put(variableName, expression);
+public void assign(int slot, String variableName, Object value) throws IllegalArgumentException{
+	getFrame().assign(slot, variableName, value);
 }
 
 /**
  * 
+ * @param slot
  * @param variableName
- * @return Expression<?>
- * 		|assignedVariablesMap.get(variableName);
+ * @return Object
+ * 		|getFrame().getValueOfVariable(slot, variableName);
+ * @throws IllegalStateException
+ * 		no value is assigned to the variable
  */
-public Expression<?> getValueOfVariable(String variableName) {
-	return assignedVariablesMap.get(variableName);
+public Object getValueOfVariable(int slot, String variableName) throws IllegalStateException{
+	return getFrame().getValueOfVariable(slot, variableName);
 }
 
 //EXECUTE TASK
 
 /**
- * Execute one statement of a task
+ * Execute one statement of a task, or terminate the task if its program is done
+ * 
+ * @effect if the program is done, the task is terminated
+ * 		| if(getCurrentStatement() == null)
+ * 		|	getTask().terminate()
+ * @effect else the instructions are executed up to the start of the next statement,
+ * 		as long as the unit keeps the task
+ * 		| executeInstruction()
  */
 public void executeTask(){
-	
-	if(getCurrentStatement()==null){
+	if(isProgramDone()){
 		getTask().terminate();
-		
-	}	else {
-	
-		//System.out.println("execute statement"+getCurrentStatement().getClass());
-		getCurrentStatement().execute(this);
-		
-		if(getUnit().hasTask()){
-			if(getCurrentStatement().getNext() != null)
-				setCurrentStatement(getCurrentStatement().getNext());
-			
-			else if(getCurrentStatement().getPrevious() != null)
-					setCurrentStatement(getCurrentStatement().getPrevious());
-			
-			else 
-				setCurrentStatement(null);
-			}
+		return;
+	}
+	do
+		executeInstruction();
+	while(isExecutingTask() && !isProgramDone() && !getFrame().isAtStatementStart());
 }
+
+/**
+ * Execute at most the given number of statements of the task, stopping when the unit
+ * 	starts an action or loses the task, and terminating the task when its program is done
+ * 
+ * @param budget
+ * 		the maximal number of statements to execute, finishing the program counting as one
+ * @effect | while (budget-- > 0 && the unit keeps the task && !getUnit().isExecutingStatement())
+ * 		|	executeTask()
+ */
+public void executeTask(int budget){
+	while(budget > 0 && isExecutingTask() && !getUnit().isExecutingStatement()){
+		budget--;
+		executeTask();
 	}
+}
 
+/**
+ * Execute the next instruction of the task, interrupting the task if the instruction fails,
+ * 	like an expression asking for a workshop in a world without workshops
+ * 
+ * @effect | getFrame().executeInstruction(this)
+ * @effect if the instruction finds no such element, gets an illegal argument or can not be done
+ * 		by the unit in its current state, the task is interrupted and the frame starts over
+ * 		| interruptTask() && getFrame().reset()
+ */
+private void executeInstruction(){
+	try{
+		getFrame().executeInstruction(this);
+	}catch(NoSuchElementException | IllegalArgumentException | IllegalStateException e){
+		interruptTask();
+		getFrame().reset();
+	}
+}
+
+/**
+ * Check whether the unit of this handler still has the task
+ */
+private boolean isExecutingTask(){
+	return getTask().getUnit() == getUnit();
+}
 
+/**
+ * Check whether the program counter is at the end of the program
+ */
+public boolean isProgramDone(){
+	return getFrame().isDone();
+}
 
 /**
  * Interrupt a task if it can not be completed
  */
 public void interruptTask(){
 		Task task = this.getTask();
-		task.removeUnit(getUnit());
+		//lower the priority before other units can claim the task again
 		task.setPriority(task.getPriority() - 100);
-		task.getActivity().setNext(null);
+		task.release(getUnit());
 		getUnit().setLeader(null);
 		getUnit().setTaskHandler(null);
 }
 
 /**
- * @return the currentStatement
+ * @return the statement of the instruction to execute next, null if the program is done
  */
 public Statement getCurrentStatement() {
-	return currentStatement;
+	return getFrame().getCurrentStatement();
+}
+
+/**
+ * @return the index of the instruction to execute next
+ */
+public int getProgramCounter() {
+	return getFrame().getProgramCounter();
 }
 
 /**
- * @param currentStatement the currentStatement to set
+ * @return the frame in which the program of the task is executed
  */
-public void setCurrentStatement(Statement currentStatement) {
-	this.currentStatement = currentStatement;
+@Basic @Immutable
+public ExecutionFrame getFrame() {
+	return frame;
 }
 
 /**
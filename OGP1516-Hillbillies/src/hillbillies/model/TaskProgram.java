@@ -0,0 +1,478 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import hillbillies.expression.Expression;
+import hillbillies.expression.ReadVariable;
+import hillbillies.expression.booleanExpression.And;
+import hillbillies.expression.booleanExpression.BinairyOperation;
+import hillbillies.expression.booleanExpression.IsSolid;
+import hillbillies.expression.booleanExpression.Not;
+import hillbillies.expression.booleanExpression.Or;
+import hillbillies.expression.booleanExpression.Parentheses;
+import hillbillies.expression.booleanExpression.UnairyOperation;
+import hillbillies.expression.booleanExpression.UnitInspector;
+import hillbillies.expression.positionExpression.NextToPosition;
+import hillbillies.expression.positionExpression.PositionOfUnit;
+import hillbillies.statement.ActionStatement;
+import hillbillies.statement.Sequence;
+import hillbillies.statement.Statement;
+import hillbillies.statement.booleanStatement.If;
+import hillbillies.statement.booleanStatement.While;
+import hillbillies.statement.wildcardStatement.Assignment;
+
+/**
+ * A class of task activities compiled to a flat array of instructions
+ *
+ * Every instruction is an opcode and an operand. Expressions leave their value on the operand stack
+ * of the handler executing the program, conditions are compiled to jumps over the instructions
+ * of the bodies, and the operand of a jump is the number of instructions it skips,
+ * counted from the instruction after the jump. A program is never changed once it is compiled,
+ * so the handlers of all units can execute the same program at the same time.
+ *
+ * A null statement, the way the factory creates a break, leaves the innermost loop around it.
+ *
+ * The variables assigned or read in the program have a slot each, the slot the factory resolved for them
+ * while parsing, or a free slot for the names met without one. Assignments without a slot are compiled
+ * to assignments to the slot of their name, so a frame keeps the value of every variable in its slot.
+ *
+ * @Invar The instructions of this program jump to instructions of this program, or to its end
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public final class TaskProgram {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------OPCODES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * push the value of the expression at the operand in the constants
+	 */
+	static final int EVAL = 0;
+	/*
+	 * push the constant at the operand
+	 */
+	static final int CONST = 1;
+	/*
+	 * replace the boolean on top of the stack by its negation
+	 */
+	static final int NOT = 2;
+	/*
+	 * skip the number of instructions in the operand
+	 */
+	static final int JUMP = 3;
+	/*
+	 * pop a boolean and skip the number of instructions in the operand if it is false
+	 */
+	static final int JUMP_IF_FALSE = 4;
+	/*
+	 * execute the assignment at the operand in the constants
+	 */
+	static final int ASSIGN = 5;
+	/*
+	 * pop a value and let the action statement at the operand in the constants perform it
+	 */
+	static final int PERFORM = 6;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * the statement compiled to this program
+	 */
+	private final Statement activity;
+	/*
+	 * the opcode and the operand of every instruction, one after the other
+	 */
+	private final int[] code;
+	/*
+	 * the expressions, statements and values the operands refer to
+	 */
+	private final Object[] constants;
+	/*
+	 * the statement every instruction was compiled from
+	 */
+	private final Statement[] statements;
+	/*
+	 * whether the instruction at an index is the first instruction of a statement
+	 */
+	private final boolean[] starts;
+	/*
+	 * the number of values on the operand stack at most
+	 */
+	private final int maxStackSize;
+	/*
+	 * the slot of every variable assigned or read in this program
+	 */
+	private final Map<String,Integer> variableSlots;
+	/*
+	 * the number of slots for the variables of this program
+	 */
+	private final int nbVariables;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	private TaskProgram(Statement activity, int[] code, Object[] constants, Statement[] statements, boolean[] starts,
+			int maxStackSize, Map<String,Integer> variableSlots, int nbVariables){
+		this.activity = activity;
+		this.code = code;
+		this.constants = constants;
+		this.statements = statements;
+		this.starts = starts;
+		this.maxStackSize = maxStackSize;
+		this.variableSlots = variableSlots;
+		this.nbVariables = nbVariables;
+	}
+
+	/**
+	 * Compile the given activity of a task
+	 *
+	 * @param activity
+	 * 		the statement to compile
+	 * @return a program executing the given activity
+	 * 		| result.getActivity() == activity
+	 * @throws IllegalArgumentException
+	 * 		the activity is not effective, or it breaks outside a loop
+	 * 		| activity == null
+	 */
+	public static TaskProgram compile(Statement activity) throws IllegalArgumentException{
+		if(activity == null)
+			throw new IllegalArgumentException("no activity to compile");
+		Compiler compiler = new Compiler();
+		compiler.compileStatement(activity);
+		return compiler.toProgram(activity);
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------INSPECTORS---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the statement compiled to this program
+	 */
+	@Basic @Immutable
+	public Statement getActivity() {
+		return this.activity;
+	}
+
+	/**
+	 * Return the number of instructions of this program
+	 */
+	@Basic @Immutable
+	public int getNbInstructions() {
+		return this.code.length / 2;
+	}
+
+	/**
+	 * Return the number of values on the operand stack at most while executing this program
+	 */
+	@Basic @Immutable
+	public int getMaxStackSize() {
+		return this.maxStackSize;
+	}
+
+	/**
+	 * Return the number of slots for the variables of this program
+	 */
+	@Basic @Immutable
+	public int getNbVariables() {
+		return this.nbVariables;
+	}
+
+	/**
+	 * Return the slot of the variable with the given name, -1 if the program does not assign or read it
+	 */
+	public int getVariableSlot(String variableName) {
+		Integer slot = this.variableSlots.get(variableName);
+		return slot == null ? -1 : slot;
+	}
+
+	/**
+	 * Return the statement the instruction at the given index was compiled from,
+	 * 	or null for the end of the program
+	 *
+	 * @throws IndexOutOfBoundsException
+	 * 		| pc < 0 || pc > getNbInstructions()
+	 */
+	public Statement getStatementAt(int pc) throws IndexOutOfBoundsException{
+		if(pc == this.getNbInstructions())
+			return null;
+		return this.statements[pc];
+	}
+
+	/**
+	 * Check whether the instruction at the given index is the first instruction of a statement,
+	 * 	the end of the program being the start of no statement
+	 *
+	 * @throws IndexOutOfBoundsException
+	 * 		| pc < 0 || pc > getNbInstructions()
+	 */
+	public boolean isStatementStart(int pc) throws IndexOutOfBoundsException{
+		if(pc == this.getNbInstructions())
+			return false;
+		return this.starts[pc];
+	}
+
+	/**
+	 * Return the opcode of the instruction at the given index
+	 */
+	int getOpcode(int pc) {
+		return this.code[2 * pc];
+	}
+
+	/**
+	 * Return the operand of the instruction at the given index
+	 */
+	int getOperand(int pc) {
+		return this.code[2 * pc + 1];
+	}
+
+	/**
+	 * Return the constant at the given index
+	 */
+	Object getConstant(int index) {
+		return this.constants[index];
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------COMPILER---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * A class emitting the instructions of a program
+	 */
+	private static final class Compiler {
+
+		private int[] code = new int[32];
+		private int nbInstructions = 0;
+		private final List<Object> constants = new ArrayList<>();
+		private final List<Statement> statements = new ArrayList<>();
+		private boolean[] starts = new boolean[16];
+		/*
+		 * whether the next instruction is the first instruction of a statement
+		 */
+		private boolean startPending = false;
+		/*
+		 * the jumps of every enclosing loop leaving it, to be patched at the end of the loop
+		 */
+		private final List<List<Integer>> breaks = new ArrayList<>();
+		private Statement statement;
+		private int stackSize = 0;
+		private int maxStackSize = 0;
+		private final Map<String,Integer> variableSlots = new HashMap<>();
+		/*
+		 * the variables assigned or read without a slot
+		 */
+		private final List<String> unresolvedVariables = new ArrayList<>();
+		/*
+		 * the constants of the assignments without a slot, compiled to the slot of their name at the end
+		 */
+		private final List<Integer> unresolvedAssignments = new ArrayList<>();
+		private int nbVariables = 0;
+
+		private void compileStatement(Statement statement){
+			Statement enclosing = this.statement;
+			if(!(statement instanceof Sequence)){
+				// a break belongs to the statement around it
+				if(statement != null)
+					this.statement = statement;
+				this.startPending = true;
+			}
+			if(statement == null){
+				if(this.breaks.isEmpty())
+					throw new IllegalArgumentException("break outside a loop");
+				this.breaks.get(this.breaks.size() - 1).add(this.emit(JUMP, 0));
+			}
+			else if(statement instanceof Sequence){
+				for(Statement s: ((Sequence) statement).getStatements())
+					this.compileStatement(s);
+			}
+			else if(statement instanceof While){
+				While loop = (While) statement;
+				int start = this.nbInstructions;
+				this.compileExpression(loop.getExpression());
+				int exit = this.emit(JUMP_IF_FALSE, 0);
+				this.breaks.add(new ArrayList<>());
+				this.compileStatement(loop.getBody());
+				this.statement = statement;
+				this.patch(this.emit(JUMP, 0), start);
+				this.patch(exit, this.nbInstructions);
+				for(int jump: this.breaks.remove(this.breaks.size() - 1))
+					this.patch(jump, this.nbInstructions);
+			}
+			else if(statement instanceof If){
+				If condition = (If) statement;
+				this.compileExpression(condition.getExpression());
+				int toElse = this.emit(JUMP_IF_FALSE, 0);
+				this.compileStatement(condition.getIfBody());
+				if(condition.getElseBody() != null){
+					this.statement = statement;
+					int toEnd = this.emit(JUMP, 0);
+					this.patch(toElse, this.nbInstructions);
+					this.compileStatement(condition.getElseBody());
+					this.patch(toEnd, this.nbInstructions);
+				}
+				else
+					this.patch(toElse, this.nbInstructions);
+			}
+			else if(statement instanceof Assignment){
+				Assignment assignment = (Assignment) statement;
+				this.addVariable(assignment.getVariableName(), assignment.getSlot());
+				this.addReadVariables(assignment.getExpression());
+				int constant = this.addConstant(statement);
+				if(assignment.getSlot() < 0)
+					this.unresolvedAssignments.add(constant);
+				this.emit(ASSIGN, constant);
+			}
+			else if(statement instanceof ActionStatement){
+				this.compileExpression(statement.getExpression());
+				this.emit(PERFORM, this.addConstant(statement));
+			}
+			else
+				throw new IllegalArgumentException("unknown statement " + statement.getClass().getSimpleName());
+			this.statement = enclosing;
+		}
+
+		private void compileExpression(Expression<?> expression){
+			if(expression instanceof Parentheses)
+				this.compileExpression(((Parentheses) expression).getExpression());
+			else if(expression instanceof Not){
+				this.compileExpression(((Not) expression).getExpression());
+				this.emit(NOT, 0);
+			}
+			else if(expression instanceof And){
+				// left && right: false without evaluating right if left is false
+				And and = (And) expression;
+				this.compileExpression(and.getLeft());
+				int toFalse = this.emit(JUMP_IF_FALSE, 0);
+				this.compileExpression(and.getRight());
+				int toEnd = this.emit(JUMP, 0);
+				// the value of right is not on the stack when jumping here from left
+				this.stackSize--;
+				this.patch(toFalse, this.nbInstructions);
+				this.emit(CONST, this.addConstant(Boolean.FALSE));
+				this.patch(toEnd, this.nbInstructions);
+			}
+			else if(expression instanceof Or){
+				// left || right: true without evaluating right if left is true
+				Or or = (Or) expression;
+				this.compileExpression(or.getLeft());
+				int toRight = this.emit(JUMP_IF_FALSE, 0);
+				this.emit(CONST, this.addConstant(Boolean.TRUE));
+				int toEnd = this.emit(JUMP, 0);
+				// the constant is not on the stack when jumping here from left
+				this.stackSize--;
+				this.patch(toRight, this.nbInstructions);
+				this.compileExpression(or.getRight());
+				this.patch(toEnd, this.nbInstructions);
+			}
+			else{
+				this.addReadVariables(expression);
+				this.emit(EVAL, this.addConstant(expression));
+			}
+		}
+
+		/**
+		 * Give a slot to every variable the given expression reads
+		 */
+		private void addReadVariables(Expression<?> expression){
+			if(expression instanceof ReadVariable)
+				this.addVariable(((ReadVariable) expression).getVariableName(), ((ReadVariable) expression).getSlot());
+			else if(expression instanceof UnairyOperation)
+				this.addReadVariables(((UnairyOperation) expression).getExpression());
+			else if(expression instanceof BinairyOperation){
+				this.addReadVariables(((BinairyOperation) expression).getLeft());
+				this.addReadVariables(((BinairyOperation) expression).getRight());
+			}
+			else if(expression instanceof UnitInspector)
+				this.addReadVariables(((UnitInspector) expression).getUnit());
+			else if(expression instanceof IsSolid)
+				this.addReadVariables(((IsSolid) expression).getPosition());
+			else if(expression instanceof NextToPosition)
+				this.addReadVariables(((NextToPosition) expression).getPosition());
+			else if(expression instanceof PositionOfUnit)
+				this.addReadVariables(((PositionOfUnit) expression).getUnit());
+		}
+
+		/**
+		 * Add an instruction and return its index
+		 */
+		private int emit(int opcode, int operand){
+			if(2 * this.nbInstructions + 2 > this.code.length)
+				this.code = Arrays.copyOf(this.code, 2 * this.code.length);
+			if(this.nbInstructions == this.starts.length)
+				this.starts = Arrays.copyOf(this.starts, 2 * this.starts.length);
+			this.starts[this.nbInstructions] = this.startPending;
+			this.startPending = false;
+			this.code[2 * this.nbInstructions] = opcode;
+			this.code[2 * this.nbInstructions + 1] = operand;
+			this.statements.add(this.statement);
+			if(opcode == EVAL || opcode == CONST)
+				this.stackSize++;
+			else if(opcode == JUMP_IF_FALSE || opcode == PERFORM)
+				this.stackSize--;
+			this.maxStackSize = Math.max(this.maxStackSize, this.stackSize);
+			return this.nbInstructions++;
+		}
+
+		/**
+		 * Let the jump at the given index jump to the given target
+		 */
+		private void patch(int jump, int target){
+			this.code[2 * jump + 1] = target - (jump + 1);
+		}
+
+		private void addVariable(String variableName, int slot){
+			if(slot < 0)
+				this.unresolvedVariables.add(variableName);
+			else{
+				this.variableSlots.put(variableName, slot);
+				this.nbVariables = Math.max(this.nbVariables, slot + 1);
+			}
+		}
+
+		private int addConstant(Object constant){
+			this.constants.add(constant);
+			return this.constants.size() - 1;
+		}
+
+		private TaskProgram toProgram(Statement activity){
+			for(String variableName: this.unresolvedVariables)
+				if(!this.variableSlots.containsKey(variableName))
+					this.variableSlots.put(variableName, this.nbVariables++);
+			for(int constant: this.unresolvedAssignments){
+				Assignment assignment = (Assignment) this.constants.get(constant);
+				this.constants.set(constant, new Assignment(assignment.getVariableName(), assignment.getExpression(),
+						this.variableSlots.get(assignment.getVariableName())));
+			}
+			return new TaskProgram(activity, Arrays.copyOf(this.code, 2 * this.nbInstructions), this.constants.toArray(),
+					this.statements.toArray(new Statement[this.nbInstructions]),
+					Arrays.copyOf(this.starts, this.nbInstructions), this.maxStackSize,
+					Collections.unmodifiableMap(this.variableSlots), this.nbVariables);
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package hillbillies.model;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Raw;
+
+/**
+ * A class storing the cube types of a world in one byte per cube
+ *
+ * The cubes are numbered the same way as in ConnectedToBorder,
+ * 	x first, then y, then z.
+ *
+ * @Invar The dimensions of the store are strictly positive
+ * 		| getNbCubesX() > 0 && getNbCubesY() > 0 && getNbCubesZ() > 0
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class TerrainStore implements ITerrainType {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * the cube type of every cube, by index
+	 */
+	private final byte[] types;
+	/*
+	 * the dimensions of the store
+	 */
+	private final int nbX;
+	private final int nbY;
+	private final int nbZ;
+	private final int nbXY;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize the store with a copy of the given cube types
+	 *
+	 * @param terrainTypes
+	 * 		the cube types, by x, y and z coordinate
+	 * @post the dimensions of the store are those of the given cube types
+	 * 		| new.getNbCubesX() == terrainTypes.length
+	 * @post every cube has the given type
+	 * 		| new.getType(x,y,z) == terrainTypes[x][y][z]
+	 * @throws IllegalArgumentException
+	 * 		| !World.isValidTerrainTypes(terrainTypes)
+	 */
+	public TerrainStore(int[][][] terrainTypes) throws IllegalArgumentException{
+		if(!World.isValidTerrainTypes(terrainTypes))
+			throw new IllegalArgumentException();
+		this.nbX = terrainTypes.length;
+		this.nbY = terrainTypes[0].length;
+		this.nbZ = terrainTypes[0][0].length;
+		this.nbXY = nbX*nbY;
+		this.types = new byte[nbXY*nbZ];
+		for(int x=0; x<nbX; x++)
+			for(int y=0; y<nbY; y++)
+				for(int z=0; z<nbZ; z++)
+					this.types[getIndex(x, y, z)] = (byte) terrainTypes[x][y][z];
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------GETTERS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the number of cubes in the x direction
+	 */
+	@Basic @Raw @Immutable
+	public int getNbCubesX(){
+		return this.nbX;
+	}
+
+	/**
+	 * Return the number of cubes in the y direction
+	 */
+	@Basic @Raw @Immutable
+	public int getNbCubesY(){
+		return this.nbY;
+	}
+
+	/**
+	 * Return the number of cubes in the z direction
+	 */
+	@Basic @Raw @Immutable
+	public int getNbCubesZ(){
+		return this.nbZ;
+	}
+
+	/**
+	 * Return the number of cubes in the store
+	 */
+	@Immutable
+	public int getNbCubes(){
+		return this.types.length;
+	}
+
+	/**
+	 * Return the index of the cube with the given coordinates
+	 *
+	 * @return | result == x + y*getNbCubesX() + z*getNbCubesX()*getNbCubesY()
+	 */
+	public int getIndex(int x, int y, int z){
+		return x + y*nbX + z*nbXY;
+	}
+
+	/**
+	 * Return the type of the cube with the given coordinates
+	 * 	the coordinates are not checked, an index outside the store throws an ArrayIndexOutOfBoundsException
+	 */
+	public int getType(int x, int y, int z){
+		return this.types[getIndex(x, y, z)];
+	}
+
+	/**
+	 * Return the type of the cube with the given index
+	 */
+	public int getType(int index){
+		return this.types[index];
+	}
+
+	/**
+	 * Return whether the cube with the given index is rock or tree
+	 */
+	public boolean isSolid(int index){
+		int type = this.types[index];
+		return type == TYPE_ROCK || type == TYPE_TREE;
+	}
+
+	/**
+	 * Return a new array with the cube types of this store, by x, y and z coordinate
+	 *
+	 * @return | result[x][y][z] == getType(x,y,z)
+	 */
+	public int[][][] toArray(){
+		int[][][] result = new int[nbX][nbY][nbZ];
+		for(int x=0; x<nbX; x++)
+			for(int y=0; y<nbY; y++)
+				for(int z=0; z<nbZ; z++)
+					result[x][y][z] = this.types[getIndex(x, y, z)];
+		return result;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------SETTERS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Set the type of the cube with the given coordinates
+	 * 	only the world of this store changes its terrain
+	 *
+	 * @post | new.getType(x,y,z) == type
+	 */
+	void setType(int x, int y, int z, int type){
+		this.types[getIndex(x, y, z)] = (byte) type;
+	}
+}
@@ -0,0 +1,213 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Model;
+
+/**
+ * A class keeping the groups of walkable cubes of a world that can reach each other
+ * 	by moving in only one direction at a time
+ *
+ * Every walkable cube is labelled with a group, and groups joined by a new walkable cube are merged
+ * by union-find, so the question whether two cubes reach each other is answered in near constant time.
+ * When a cube stops being walkable, only the cubes around it are searched again, as in CubeGroups:
+ * one search starts from every walkable neighbour, the searches take turns, and searches that meet
+ * are merged. As soon as one unfinished search is left, the finished ones are the pieces that broke off
+ * and get a group of their own, the last piece keeps the group without being visited.
+ *
+ * @Invar The dimensions are strictly positive
+ * 		| getNbCubesX() > 0 && getNbCubesY() > 0 && getNbCubesZ() > 0
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class WalkableComponents extends CubeGroups {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * whether every cube is walkable
+	 */
+	private final boolean[] walkable;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize the groups for a world of the given dimensions with the given walkable cubes
+	 * 	the groups are found by one flood fill over the walkable cubes
+	 *
+	 * @param nbX
+	 * @param nbY
+	 * @param nbZ
+	 * 		the dimensions of the world
+	 * @param walkableCubes
+	 * 		the indices of the walkable cubes
+	 * @post | new.getNbCubesX() == nbX && new.getNbCubesY() == nbY && new.getNbCubesZ() == nbZ
+	 * @post two cubes are connected if both are walkable and a path between them
+	 * 		moving in only one direction at a time exists
+	 * @throws IllegalArgumentException
+	 * 		| nbX <= 0 || nbY <= 0 || nbZ <= 0
+	 */
+	public WalkableComponents(int nbX, int nbY, int nbZ, BitSet walkableCubes) throws IllegalArgumentException{
+		super(nbX, nbY, nbZ);
+		int nbCubes = nbXY*nbZ;
+		this.walkable = new boolean[nbCubes];
+
+		for(int index = walkableCubes.nextSetBit(0); index >= 0 && index < nbCubes; index = walkableCubes.nextSetBit(index+1))
+			walkable[index] = true;
+		int[] queue = new int[16];
+		for(int start = 0; start < nbCubes; start++){
+			if(!walkable[start] || visited[start] != 0)
+				continue;
+			int group = newGroup();
+			int nbQueued = 0;
+			queue[nbQueued++] = start;
+			visited[start] = 1;
+			for(int head = 0; head < nbQueued; head++){
+				int cube = queue[head];
+				groupOf[cube] = group;
+				size[group]++;
+				int x = cube % nbX;
+				int y = (cube % nbXY) / nbX;
+				int z = cube / nbXY;
+				for(int k = 0; k < 6; k++){
+					int neighbour = getNeighbour(x, y, z, k);
+					if(neighbour >= 0 && walkable[neighbour] && visited[neighbour] == 0){
+						visited[neighbour] = 1;
+						if(nbQueued == queue.length)
+							queue = Arrays.copyOf(queue, 2*nbQueued);
+						queue[nbQueued++] = neighbour;
+					}
+				}
+			}
+		}
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------GETTERS------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return whether the cube with the given index is walkable
+	 */
+	@Basic
+	public boolean isWalkable(int index){
+		return walkable[index];
+	}
+
+	/**
+	 * Return whether the cube with the given index is walkable
+	 */
+	@Override @Model
+	protected boolean isGrouped(int index){
+		return walkable[index];
+	}
+
+	/**
+	 * Return whether the cubes with the given indices are walkable and can reach each other
+	 */
+	public boolean isConnected(int index1, int index2){
+		return walkable[index1] && walkable[index2] && find(groupOf[index1]) == find(groupOf[index2]);
+	}
+
+	/**
+	 * Return the number of cubes in the group of the walkable cube with the given index
+	 *
+	 * @throws IllegalArgumentException
+	 * 		| !isWalkable(index)
+	 */
+	public int getGroupSize(int index) throws IllegalArgumentException{
+		if(!walkable[index])
+			throw new IllegalArgumentException();
+		return size[find(groupOf[index])];
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CHANGES------------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Make the cube with the given index walkable
+	 * 	the groups of its walkable neighbours are merged with it
+	 *
+	 * @post | new.isWalkable(index)
+	 */
+	public void addCube(int index){
+		if(walkable[index])
+			return;
+		walkable[index] = true;
+		int x = index % nbX;
+		int y = (index % nbXY) / nbX;
+		int z = index / nbXY;
+		int group = -1;
+		for(int k = 0; k < 6; k++){
+			int neighbour = getNeighbour(x, y, z, k);
+			if(neighbour < 0 || !walkable[neighbour])
+				continue;
+			int root = find(groupOf[neighbour]);
+			group = group < 0? root : union(group, root);
+		}
+		if(group < 0)
+			group = newGroup();
+		groupOf[index] = group;
+		size[group]++;
+	}
+
+	/**
+	 * Make the cube with the given index not walkable
+	 * 	only the cubes around the given cube are searched again,
+	 * 	the pieces that broke off from its group get a group of their own
+	 *
+	 * @post | !new.isWalkable(index)
+	 * @throws IllegalStateException
+	 * 		the current thread is interrupted during the search
+	 */
+	public void removeCube(int index) throws IllegalStateException{
+		if(!walkable[index])
+			return;
+		walkable[index] = false;
+		int group = find(groupOf[index]);
+		size[group]--;
+
+		//ONE SEARCH FROM EVERY WALKABLE NEIGHBOUR
+		int generation = nextGeneration();
+		int nbSearches = startSearches(index, generation);
+		if(nbSearches <= 1)
+			return;
+
+		//THE SEARCHES TAKE TURNS UNTIL ONE UNFINISHED SEARCH IS LEFT
+		int remaining = interleaveSearches(nbSearches, generation);
+
+		//THE FINISHED SEARCHES ARE THE PIECES THAT BROKE OFF, THE LAST PIECE KEEPS THE GROUP
+		if(remaining < 0)
+			remaining = getLargestSearch(nbSearches);
+		for(int s = 0; s < nbSearches; s++){
+			if(searchParent[s] != s || s == remaining)
+				continue;
+			int piece = newGroup();
+			for(int t = 0; t < nbSearches; t++)
+				if(findSearch(t) == s)
+					for(int i = 0; i < nbSearchCubes[t]; i++){
+						groupOf[searchCubes[t][i]] = piece;
+						size[piece]++;
+					}
+			size[group] -= size[piece];
+		}
+	}
+}
@@ -1,11 +1,17 @@
 package hillbillies.model;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.function.IntPredicate;
 import be.kuleuven.cs.som.annotate.*;
 import hillbillies.model.helper.CubePosition;
 import hillbillies.model.helper.Utils;
 import hillbillies.part2.listener.TerrainChangeListener;
-import hillbillies.util.ConnectedToBorder;
 
 /**
  * A class about the world of the game
@@ -64,6 +70,58 @@ public class World implements ITerrainType {
 	public static final int MAX_UNITS_IN_WORLD = 100;
 	public static final int MAX_FACTIONS = 5;
 	
+	public static final int DEFAULT_PATH_SEARCH_BUDGET = 2000;
+	public static final int HIERARCHICAL_CHUNK_SIZE = 8;
+	public static final int TERRAIN_REGION_SIZE = 8;
+	public static final int PATH_CACHE_SIZE = 256;
+	public static final int MAX_UNUSED_FLOW_FIELDS = 4;
+	
+	/*
+	 * The borders of the world a cube can touch, used in the border mask of a cube
+	 */
+	public static final int BORDER_LOW_X = 1;
+	public static final int BORDER_HIGH_X = 2;
+	public static final int BORDER_LOW_Y = 4;
+	public static final int BORDER_HIGH_Y = 8;
+	public static final int BORDER_LOW_Z = 16;
+	public static final int BORDER_HIGH_Z = 32;
+	
+	/*
+	 * The coordinate offsets of the 26 adjacent cubes, dx first, then dy, then dz,
+	 * 	and the borders a cube may not touch to have that adjacent cube
+	 */
+	private static final int NB_ADJACENTS = 26;
+	private static final int[] ADJACENT_DX = new int[NB_ADJACENTS];
+	private static final int[] ADJACENT_DY = new int[NB_ADJACENTS];
+	private static final int[] ADJACENT_DZ = new int[NB_ADJACENTS];
+	private static final int[] ADJACENT_BORDERS = new int[NB_ADJACENTS];
+	/*
+	 * The adjacent cubes differing in only one coordinate,
+	 * 	in the order of quickFindReachableAdjacents
+	 */
+	private static final int[] DIRECT_ADJACENTS = new int[6];
+	
+	static {
+		int k = 0;
+		for (int dx=-1; dx<=1;dx++)
+			for (int dy=-1; dy<=1;dy++)
+				for (int dz=-1; dz<=1;dz++){
+					if(dx==0&&dy==0&&dz==0)
+						continue;
+					ADJACENT_DX[k] = dx;
+					ADJACENT_DY[k] = dy;
+					ADJACENT_DZ[k] = dz;
+					ADJACENT_BORDERS[k] = (dx<0? BORDER_LOW_X : 0) | (dx>0? BORDER_HIGH_X : 0) |
+							(dy<0? BORDER_LOW_Y : 0) | (dy>0? BORDER_HIGH_Y : 0) |
+							(dz<0? BORDER_LOW_Z : 0) | (dz>0? BORDER_HIGH_Z : 0);
+					k++;
+				}
+		k = 0;
+		for(int i=0; i<=2; i++)
+			for(int d=-1;d<=1;d+=2)
+				DIRECT_ADJACENTS[k++] = getAdjacentNumber(i==0? d : 0, i==1? d : 0, i==2? d : 0);
+	}
+	
 	
 	
 	/*___________________________________________________________________
@@ -74,9 +132,9 @@ public class World implements ITerrainType {
 	
 	
 	/**
-	 * Variable registering the TerrainTypes of this world.
+	 * Variable registering the cube types of this world, one byte per cube.
 	 */
-	private int[][][] terrainTypes;
+	private TerrainStore terrain;
 	/**
 	 * Variable registering the nbCubesX of this world.
 	 */
@@ -94,9 +152,40 @@ public class World implements ITerrainType {
 	 */
 	private final TerrainChangeListener modelListener;
 	/**
-	 * Variable registering the ConnectedToBorder class storing information about this world
+	 * Variable registering the cubes changed since the TerrainChangeListener was last notified,
+	 * 	while the terrain changes are collected
+	 */
+	private final BitSet changedCubes = new BitSet();
+	/**
+	 * Variable registering how many times the collecting of terrain changes was started
+	 * 	and not yet stopped
+	 */
+	private int nbTerrainCollectors = 0;
+	/**
+	 * Variable registering the SupportGraph storing which solid cubes of this world are anchored
+	 */
+	private final SupportGraph border;
+	/**
+	 * Variable registering the index offsets of the 26 adjacent cubes in this world
+	 */
+	private final int[] adjacentOffsets = new int[NB_ADJACENTS];
+	/**
+	 * Variables registering for every cube whether it is solid, whether it has a solid
+	 * 	adjacent cube or lies on ground level, and whether a unit can stand in it,
+	 * 	kept up to date with every terrain change
+	 */
+	private final BitSet solidCubes = new BitSet();
+	private final BitSet standableCubes = new BitSet();
+	private final BitSet walkableCubes = new BitSet();
+	/**
+	 * Variable registering the number of solid adjacent cubes of every cube
+	 */
+	private byte[] nbSolidAdjacents;
+	/**
+	 * Variable registering the groups of walkable cubes that can reach each other,
+	 * 	or null if they were not asked yet, kept up to date with every change of a walkable cube
 	 */
-	private final ConnectedToBorder border;
+	private WalkableComponents walkableComponents;
 	/**
 	 * Variable referencing a set collecting all the cubepositions of workshops
 	 * of this world.
@@ -110,6 +199,160 @@ public class World implements ITerrainType {
 	 */
 	@Model
 	private final Set<CubePosition> workshops;
+	/**
+	 * Variable registering the workshops of this world by the cube they are in
+	 */
+	private final SpatialIndex<CubePosition> workshopIndex =
+			new SpatialIndex<>(this, (CubePosition workshop) -> Utils.getCubeCenter(workshop.toArray()));
+	/**
+	 * Variable registering the search engine used by the pathFinding in this world,
+	 * 	created the first time a path is searched
+	 */
+	private PathSearchEngine pathSearchEngine;
+	/**
+	 * Variable registering the search engine continuing the pending path searches
+	 * 	of this world, created the first time a search is pending
+	 */
+	private PathSearchEngine pendingPathSearchEngine;
+	/**
+	 * Variable registering the pool continuing the pending path searches and advancing the units
+	 * 	of a tick in parallel, null if they are handled one after the other
+	 */
+	private ForkJoinPool tickPool;
+	/**
+	 * Variable registering whether the units are advanced in the read phase of a parallel tick,
+	 * 	in which they leave their changes to the world for the commit phase
+	 */
+	private volatile boolean inReadPhase = false;
+	/**
+	 * Variable registering the seed of the random draws of this world and of its units
+	 */
+	private final long seed;
+	/**
+	 * Variable registering the random draws of this world, made outside the read phase in the order of the tick
+	 */
+	private final Random random;
+	/**
+	 * Variable registering the number of units added to this world, the index of the next unit
+	 */
+	private long nbAddedUnits = 0;
+	/**
+	 * Variable registering the search engines of a parallel tick, one for every thread of the pool,
+	 * 	created the first time a parallel tick continues a search
+	 */
+	private PathSearchEngine[] parallelEngines;
+	/**
+	 * Variable registering the engine the next search of a parallel tick gets
+	 */
+	private int nextEngineSlot = 0;
+	/**
+	 * Variable registering the number of cubes a path search may expand per tick
+	 */
+	private int pathSearchBudget = DEFAULT_PATH_SEARCH_BUDGET;
+	/**
+	 * Variable referencing the queue of path searches that are continued in the next ticks
+	 * 
+	 * @Invar  The referenced queue is effective.
+	 *       | pendingPathSearches != null
+	 * @Invar  Each pathFinding in the queue is still searching
+	 *       | for each pathFinding in pendingPathSearches:
+	 *       |   pathFinding.isSearching()
+	 */
+	@Model
+	private final Deque<PathFinding> pendingPathSearches = new ArrayDeque<>();
+	/**
+	 * Variable registering the service searching paths of this world on worker threads,
+	 * 	null if the paths are searched in the ticks of this world
+	 */
+	private PathRequestService pathRequestService;
+	/**
+	 * Variable referencing the pathFindings waiting for a path from the path request service
+	 * 
+	 * @Invar  Each pathFinding in the list is still searching
+	 *       | for each pathFinding in pendingPathRequests:
+	 *       |   pathFinding.isSearching()
+	 */
+	@Model
+	private final List<PathFinding> pendingPathRequests = new ArrayList<>();
+	/**
+	 * Variable registering a copy of the walkable cubes of this world, handed to the path request service,
+	 * 	null if no copy was made since the last terrain change
+	 */
+	private BitSet walkableSnapshot;
+	/**
+	 * Variable registering the terrain version of the copy of the walkable cubes
+	 */
+	private int walkableSnapshotVersion;
+	/**
+	 * Variable registering the number of pathFindings started in this world
+	 */
+	private long nbPathFindings = 0;
+	/**
+	 * Variable registering the number of cubes expanded by the path searches in this world
+	 */
+	private long nbExpandedCubes = 0;
+	/**
+	 * Variable registering the strategy used by the pathFinding in this world
+	 */
+	private PathFindingStrategy pathFindingStrategy = PathFindingStrategy.A_STAR;
+	/**
+	 * Variable registering the abstract graph for hierarchical pathFinding in this world,
+	 * 	created the first time a hierarchical path is searched
+	 */
+	private HierarchicalGraph hierarchicalGraph;
+	/**
+	 * Variable registering the paths found in this world,
+	 * 	created the first time a path is searched
+	 */
+	private PathCache pathCache;
+	/**
+	 * Variable registering the flow fields towards the targets of this world,
+	 * 	created the first time a flow field is needed
+	 */
+	private FlowFieldService flowFieldService;
+	/**
+	 * Variable registering the number of terrain changes in this world
+	 */
+	private int terrainVersion;
+	/**
+	 * Variable registering the number of terrain changes in or next to each region of this world,
+	 * 	a region being a block of TERRAIN_REGION_SIZE cubes along each side
+	 */
+	private final int[] terrainRegionVersions;
+	/**
+	 * Variable registering the time the units of this world are advanced to
+	 * 	at the start of the current tick, or at the end of the last one
+	 */
+	private double gameTime = 0;
+	/**
+	 * Variable registering the number of ticks of this world
+	 */
+	private long nbTicks = 0;
+	/**
+	 * Variable registering the duration of the current tick
+	 */
+	private double tickDuration = 0;
+	/**
+	 * Variable registering whether the units of this world are being advanced
+	 */
+	private boolean advancingUnits = false;
+	/**
+	 * Variable registering whether units waiting for an event sleep instead of being advanced every tick
+	 */
+	private boolean sleepingUnitsEnabled = true;
+	/**
+	 * Variable referencing the sleeping units of this world, the one with the earliest event first
+	 * 
+	 * @Invar  Each unit in the queue is sleeping in this world
+	 *       | for each unit in sleepingUnits:
+	 *       |   unit.isSleeping() && unit.getWorld() == this
+	 */
+	@Model
+	private final PriorityQueue<Unit> sleepingUnits = new PriorityQueue<>(Comparator.comparingDouble(Unit::getWakeUpTime));
+	/**
+	 * Variable registering the number of times a unit was advanced by a tick of this world
+	 */
+	private long nbUnitAdvances = 0;
 		
 	
 	/*___________________________________________________________________
@@ -150,8 +393,26 @@ public class World implements ITerrainType {
  * 		| this.makeAllSolidsConnected();
  * @effect Let all solids be connected to the border of the game world
  * 		| this.makeAllSolidsConnected();
+ * @effect The random draws of this world start from a random seed
+ * 		| this(terrainTypes, modelListener, new Random().nextLong())
  */
 public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws IllegalArgumentException {
+	this(terrainTypes, modelListener, new Random().nextLong());
+}
+
+/**
+ * Initialize this new world with given terrain types and TerrainChangeListener,
+ * 	drawing its random numbers and those of its units from the given seed
+ * 
+ * @param seed
+ * 		the seed of the random draws of this world
+ * @post | new.getSeed() == seed
+ * @effect the world is initialized like a world without seed
+ * 		| World(terrainTypes, modelListener)
+ */
+public World(int[][][] terrainTypes, TerrainChangeListener modelListener, long seed) throws IllegalArgumentException {
+	this.seed = seed;
+	this.random = new Random(seed);
 	
 	//Connection with the GUI
 		if(modelListener==null)
@@ -164,15 +425,24 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	this.nbCubesX = terrainTypes.length;
 	this.nbCubesY = terrainTypes[0].length;
 	this.nbCubesZ = terrainTypes[0][0].length;
+	for(int k=0; k<NB_ADJACENTS; k++)
+		this.adjacentOffsets[k] = ADJACENT_DX[k] + ADJACENT_DY[k]*nbCubesX + ADJACENT_DZ[k]*nbCubesX*nbCubesY;
 	this.workshops = new HashSet<CubePosition>();
 	
 	//Initialize associations
-	this.units = new HashSet<Unit>(MAX_UNITS_IN_WORLD);
-	this.factions = new HashSet<Faction>(MAX_FACTIONS);
-	this.items = new HashSet<Item>();
+	//units and items advance in the order they were added, so ticks are reproducible
+	this.units = new LinkedHashSet<Unit>(MAX_UNITS_IN_WORLD);
+	this.factions = new LinkedHashSet<Faction>(MAX_FACTIONS);
+	this.items = new LinkedHashSet<Item>();
 	
-	//Connection to ConnectedToBorder
-	this.border = new ConnectedToBorder(this.getNbCubesX(),this.getNbCubesY(), this.getNbCubesZ());
+	//Terrain versions
+	this.terrainRegionVersions = new int[getNbRegions(nbCubesX)*getNbRegions(nbCubesY)*getNbRegions(nbCubesZ)];
+	
+	//Terrain layers
+	this.initializeTerrainLayers();
+	
+	//Connection to the SupportGraph, built for the whole terrain at once
+	this.border = new SupportGraph(this.terrain);
 	this.makeAllSolidsConnected();
 }
 
@@ -210,10 +480,20 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	
 	/**
 	 * Return the TerrainTypes of this world.
+	 * 	the result is a copy, writing in it does not change this world
 	 */
 	@Basic @Raw
 	public int[][][] getTerrainTypes() {
-		return this.terrainTypes.clone();
+		return this.getTerrain().toArray();
+	}
+	
+	/**
+	 * Return the store with the cube types of this world
+	 * 	reading the terrain through the store does not copy it
+	 */
+	@Basic @Raw
+	public TerrainStore getTerrain() {
+		return this.terrain;
 	}
 	
 	/**
@@ -227,15 +507,83 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	 */
 	@Raw
 	public int getCubeType(int[] position) throws IllegalArgumentException {
-		if (!isValidPosition(position))
+		return this.getCubeType(position[0], position[1], position[2]);
+	}
+	
+	/**
+	 * Get the cube type on the given coordinates
+	 * 
+	 * @param x
+	 * 		the x coordinate of the cube
+	 * @param y
+	 * 		the y coordinate of the cube
+	 * @param z
+	 * 		the z coordinate of the cube
+	 * @return the cubeType
+	 * @throws IllegalArgumentException
+	 * 		if the coordinates are out of bounds
+	 * 		| !isValidPosition(x,y,z)
+	 */
+	@Raw
+	public int getCubeType(int x, int y, int z) throws IllegalArgumentException {
+		if (!isValidPosition(x,y,z))
 			throw new IllegalArgumentException();
-		
-		int X = position[0];
-		int Y = position[1];
-		int Z = position[2];
-		
-		return this.getTerrainTypes()[X][Y][Z];
-		
+		//no copy of the terrain for a single lookup
+		return this.terrain.getType(x, y, z);
+	}
+	
+	/**
+	 * Return the flat index of the cube with the given coordinates
+	 * 
+	 * @param x
+	 * 		the x coordinate of the cube
+	 * @param y
+	 * 		the y coordinate of the cube
+	 * @param z
+	 * 		the z coordinate of the cube
+	 * @return the index of the cube, numbered the same way as in ConnectedToBorder
+	 * 		| result == x + y*getNbCubesX() + z*getNbCubesX()*getNbCubesY()
+	 */
+	public int getCubeIndex(double[] position){
+		return getCubeIndex((int) Math.floor(position[0]), (int) Math.floor(position[1]), (int) Math.floor(position[2]));
+	}
+	
+	/**
+	 * Return the flat index of the cube with the given coordinates
+	 * 
+	 * @param x
+	 * 		the x coordinate of the cube
+	 * @param y
+	 * 		the y coordinate of the cube
+	 * @param z
+	 * 		the z coordinate of the cube
+	 * @return the index of the cube, numbered the same way as in ConnectedToBorder
+	 * 		| result == x + y*getNbCubesX() + z*getNbCubesX()*getNbCubesY()
+	 */
+	public int getCubeIndex(int x, int y, int z){
+		return this.terrain.getIndex(x, y, z);
+	}
+	
+	/**
+	 * Return the position of the cube with the given flat index
+	 * 
+	 * @param index
+	 * 		the index of the cube
+	 * @return the coordinates of the cube
+	 * 		| getCubeIndex(result[0],result[1],result[2]) == index
+	 */
+	public int[] getCubePosition(int index){
+		int nbXY = this.getNbCubesX()*this.getNbCubesY();
+		return new int[]{index % this.getNbCubesX(), (index % nbXY) / this.getNbCubesX(), index / nbXY};
+	}
+	
+	/**
+	 * Return the total number of cubes in this world
+	 * 
+	 * @return | result == getNbCubesX()*getNbCubesY()*getNbCubesZ()
+	 */
+	public int getNbCubes(){
+		return this.getNbCubesX()*this.getNbCubesY()*this.getNbCubesZ();
 	}
 	
 	/**
@@ -250,10 +598,21 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	 * Return the connectedToBorder of this world.
 	 */
 	@Basic @Raw @Immutable
-	public ConnectedToBorder getConnectedToBorder() {
+	public SupportGraph getConnectedToBorder() {
 		return this.border;
 	}
 	
+	/**
+	 * Return the search engine for the pathFinding in this world
+	 * 	the engine and its arrays are shared by all searches in this world
+	 */
+	@Raw
+	public PathSearchEngine getPathSearchEngine() {
+		if(this.pathSearchEngine == null)
+			this.pathSearchEngine = new PathSearchEngine(this);
+		return this.pathSearchEngine;
+	}
+	
 	/**
 	 * Return a set with all workshops in this world
 	 */
@@ -262,6 +621,24 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 		return new HashSet<CubePosition>(workshops);
 	}
 	
+	/**
+	 * Return the workshop nearest to the given position,
+	 * 	that a unit standing on the given position can reach
+	 * 
+	 * @param position
+	 * 		the position to measure from
+	 * @return a workshop reachable from the cube of the given position,
+	 * 		with the least distance to the given position, or null if there is none
+	 * 		| for each workshop in getAllWorkshops():
+	 * 		|	if isReachable(getCubeIndex(position), getCubeIndex(workshop))
+	 * 		|	then distance(result, position) <= distance(workshop, position)
+	 */
+	public CubePosition getNearestWorkshop(double[] position){
+		int from = getCubeIndex(position);
+		return this.workshopIndex.findNearest(position, (CubePosition workshop) ->
+				isReachable(from, getCubeIndex(workshop.getX(), workshop.getY(), workshop.getZ())));
+	}
+	
 	//------------------------SETTERS
 	
 	/**
@@ -272,6 +649,8 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	 * @post   The TerrainTypes of this new world is equal to
 	 *         the given TerrainTypes.
 	 *       | new.getTerrainTypes() == terrainTypes
+	 * @effect The cube types are copied in a new store
+	 *       | this.terrain = new TerrainStore(terrainTypes)
 	 * @throws IllegalArgmunetException
 	 *         The given TerrainTypes is not a valid TerrainTypes for any
 	 *         world.
@@ -281,7 +660,7 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	private void setTerrainTypes(int[][][] terraintypes) throws IllegalArgumentException {
 		if (! isValidTerrainTypes(terraintypes))
 			throw new IllegalArgumentException();
-		this.terrainTypes = terraintypes;
+		this.terrain = new TerrainStore(terraintypes);
 	}
 	
 	/**
@@ -305,8 +684,18 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 		int Y = position[1];
 		int Z = position[2];
 		//more efficient than changing the whole world
-		this.terrainTypes[X][Y][Z] = cubeType;
-		this.getTerrainChangeListener().notifyTerrainChanged(X,Y,Z);
+		this.terrain.setType(X, Y, Z, cubeType);
+		this.updateTerrainLayers(getCubeIndex(X, Y, Z));
+		this.updateTerrainVersions(X, Y, Z);
+		this.wakeUpUnitsAround(X, Y, Z);
+		if(this.hierarchicalGraph != null)
+			this.hierarchicalGraph.terrainChanged(X, Y, Z);
+		if(this.flowFieldService != null)
+			this.flowFieldService.terrainChanged(X, Y, Z);
+		if(this.isCollectingTerrainChanges())
+			this.changedCubes.set(getCubeIndex(X, Y, Z));
+		else
+			this.getTerrainChangeListener().notifyTerrainChanged(X,Y,Z);
 		
 	}
 	
@@ -371,13 +760,25 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	 */
 	@Raw
 	public boolean isValidPosition(int[] position) {
-		
-		int X = position[0];
-		int Y = position[1];
-		int Z = position[2];
-		return 0<=X&&X<this.getNbCubesX()&&
-				0<=Y&&Y<this.getNbCubesY()&&
-				0<=Z&&Z<this.getNbCubesZ();	
+		return isValidPosition(position[0], position[1], position[2]);
+	}
+	
+	/**
+	 * 
+	 * @param x
+	 * 		the x coordinate to check
+	 * @param y
+	 * 		the y coordinate to check
+	 * @param z
+	 * 		the z coordinate to check
+	 * @return
+	 * 		whether the coordinates are inside the game world
+	 */
+	@Raw
+	public boolean isValidPosition(int x, int y, int z) {
+		return 0<=x&&x<this.getNbCubesX()&&
+				0<=y&&y<this.getNbCubesY()&&
+				0<=z&&z<this.getNbCubesZ();	
 	}
 	/**
 	 * Returns whether the cube is solid or not
@@ -388,8 +789,25 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	 * 		if the cube at the given position is rock or tree
 	 */
 	public boolean isSolidCube(int[] position){
-		int type = this.getCubeType(position);
-		return (type == TYPE_ROCK) || (type == TYPE_TREE);	
+		return isSolidCube(position[0], position[1], position[2]);
+	}
+	
+	/**
+	 * Returns whether the cube with the given coordinates is solid or not
+	 * 
+	 * @param x
+	 * 		the x coordinate of the cube
+	 * @param y
+	 * 		the y coordinate of the cube
+	 * @param z
+	 * 		the z coordinate of the cube
+	 * @return
+	 * 		if the cube at the given coordinates is rock or tree
+	 */
+	public boolean isSolidCube(int x, int y, int z){
+		if (!isValidPosition(x,y,z))
+			throw new IllegalArgumentException();
+		return this.terrain.isSolid(this.terrain.getIndex(x, y, z));
 	}
 	
 	/**
@@ -401,268 +819,1311 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	 */
 	public List<int[]> getAdjacentCubes(int[] position){
 		
-		List<int[]> adjacentCubes = new ArrayList<>();
+		List<int[]> adjacentCubes = new ArrayList<>(NB_ADJACENTS);
+		forEachAdjacentCube(getCubeIndex(position[0], position[1], position[2]),
+				index -> adjacentCubes.add(getCubePosition(index)));
+		return adjacentCubes;
+	}
+	
+	/**
+	 * Checks whether there are solid cubes surrounding the given cube
+	 * 		or the cube is positioned on ground level
+	 * 
+	 * @param position
+	 * 		The position
+	 * @return
+	 * 		whether there are solid cubes surrounding the given cube
+	 *  or the cube itself is positioned on ground level
+	 * 		
+	 */
+	public boolean hasSolidAdjacents(int[] position){
+		return hasSolidAdjacents(position[0], position[1], position[2]);
+	}
+	
+	/**
+	 * Checks whether there are solid cubes surrounding the cube with the given coordinates
+	 * 		or the cube is positioned on ground level
+	 * 
+	 * @param x
+	 * 		the x coordinate of the cube
+	 * @param y
+	 * 		the y coordinate of the cube
+	 * @param z
+	 * 		the z coordinate of the cube
+	 * @return
+	 * 		whether there are solid cubes surrounding the given cube
+	 *  or the cube itself is positioned on ground level
+	 */
+	public boolean hasSolidAdjacents(int x, int y, int z){
 		
-		int x = position[0];
-		int y = position[1];
-		int z = position[2];
+		if(z == 0)
+			return true;
+		if(isValidPosition(x,y,z))
+			return hasSolidAdjacents(getCubeIndex(x, y, z));
 		
-			for (int dx=-1; dx<=1;dx++){
-				for (int dy=-1; dy<=1;dy++){
-					for (int dz=-1; dz<=1;dz++){
-						int[] adjacentCube = new int[]{x+dx,y+dy,z+dz};
-						if(isValidPosition(adjacentCube) && !(dx==0&&dy==0&&dz==0)){
-							adjacentCubes.add(adjacentCube);
-						}	
-					}
-				}	
-			}
-			return adjacentCubes;
+		//a position outside the world only looks at the cubes inside
+		for (int dx= -1; dx <=1;dx++){
+			for (int dy= -1; dy <=1;dy++){
+				for (int dz= -1; dz <=1;dz++){
+					if(isValidPosition(x+dx,y+dy,z+dz) && !(dx==0&&dy==0&&dz==0) && isSolidCube(x+dx,y+dy,z+dz)){
+						return true ;
+					}	
+				}
+			}	
+		}
+		return false;
+	}
+	
+	/**
+	 * Checks whether the cube under the give position is solid
+	 * 
+	 * @param position
+	 * 		the given position
+	 * @return
+	 * 		whether the cube under the give position is solid
+	 * 			 with the level under z=0 considered as 0
+	 */
+	public boolean isSolidUnder(int[] position){
+		return position[2] == 0 || 
+				isSolidCube(position[0], position[1], position[2]-1);
+	}
+	
+	/**
+	 * TODO find a more comprehensible piece of code (efficiency is okay!)
+	 * 
+	 * Check if you can move directly from the given position to the other
+	 * !!Only meant for adjacent cubes!!
+	 * 
+	 * @param nextPosition
+	 * @param currentPosition
+	 * @return
+	 * 		if you can move directly from the current position to the next
+	 */
+	@Raw
+	public boolean canMoveDirectly(int[] currentPosition, int dx, int dy, int dz) {
+		
+		int x = currentPosition[0];
+		int y = currentPosition[1];
+		int z = currentPosition[2];
+		
+		if(dx!=0 && dy !=0 && dz !=0){
+			// chance : 8/26
+			if(isSolidCube(x, y, z+dz) && isSolidCube(x, y+dy, z) && isSolidCube(x+dx, y, z))
+				return false;
+		} else if(dx!=0 && dy !=0 && dz ==0){
+			//chance : 4/26
+			if(isSolidCube(x+dx, y, z) && isSolidCube(x, y+dy, z))
+				return false;
+		} else if(dx==0 && dy !=0 && dz !=0){
+			//chance : 4/26
+			if(isSolidCube(x, y, z+dz) && isSolidCube(x, y+dy, z))
+				return false;
+		}else if(dx!=0 && dy ==0 && dz !=0){
+			//chance :  4/26
+			if(isSolidCube(x, y, z+dz) && isSolidCube(x+dx, y, z))
+				return false;
+		}
+		
+		return true;
+
+	}
+	/**
+	 * 
+	 * Get a list with all positions
+	 * Inside game world, non solid,directly movable to and not the same
+	 * 
+	 * @param position
+	 * @return
+	 * 		a list with all positions Inside game world, non solid,directly movable to and not the same
+	 */
+	public List<int[]> findReachableAdjacents(int[] position){
+		
+		List<int[]> adjacentCubes = new ArrayList<>(NB_ADJACENTS);
+		forEachReachableNeighbour(getCubeIndex(position[0], position[1], position[2]),
+				index -> adjacentCubes.add(getCubePosition(index)));
+		return adjacentCubes;
+	}
+	/**
+	 * A quicker way to select proper adjacents moving only in one direction at a time
+	 * 
+	 * @param position
+	 * 		the position departing from
+	 * @return
+	 * 		the list with adjacents where is direct access to
+	 */
+	public List<int[]> quickFindReachableAdjacents(int[] position){
+		
+		List<int[]> adjacentCubes = new ArrayList<>(DIRECT_ADJACENTS.length);
+		forEachDirectlyReachableNeighbour(getCubeIndex(position[0], position[1], position[2]),
+				index -> adjacentCubes.add(getCubePosition(index)));
+		return adjacentCubes;
+	}
+	
+	/*___________________________________________________________________
+	 *___________________________________________________________________
+	 * -----------------------NEIGHBOURS---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+	
+	/**
+	 * Return the borders of the world the cube with the given index touches
+	 * 
+	 * @param index
+	 * 		the index of the cube
+	 * @return the union of the BORDER_ flags of the borders the cube lies against
+	 * 		| result == (x == 0? BORDER_LOW_X : 0) | (x == getNbCubesX()-1? BORDER_HIGH_X : 0) | ...
+	 */
+	public int getBorderMask(int index){
+		int nbXY = this.getNbCubesX()*this.getNbCubesY();
+		int x = index % this.getNbCubesX();
+		int y = (index % nbXY) / this.getNbCubesX();
+		int z = index / nbXY;
+		return (x == 0? BORDER_LOW_X : 0) | (x == this.getNbCubesX()-1? BORDER_HIGH_X : 0) |
+				(y == 0? BORDER_LOW_Y : 0) | (y == this.getNbCubesY()-1? BORDER_HIGH_Y : 0) |
+				(z == 0? BORDER_LOW_Z : 0) | (z == this.getNbCubesZ()-1? BORDER_HIGH_Z : 0);
+	}
+	
+	/**
+	 * Give the indices of all cubes adjacent to the cube with the given index to the given action
+	 * 	without creating any objects
+	 * 
+	 * @param index
+	 * 		the index of the cube
+	 * @param action
+	 * 		the action to perform on the index of every adjacent cube inside the world,
+	 * 		in the same order as getAdjacentCubes
+	 */
+	public void forEachAdjacentCube(int index, IntConsumer action){
+		int borders = getBorderMask(index);
+		for(int k=0; k<NB_ADJACENTS; k++)
+			if((ADJACENT_BORDERS[k] & borders) == 0)
+				action.accept(index + adjacentOffsets[k]);
+	}
+	
+	/**
+	 * Give the indices of the cubes a unit can move to from the cube with the given index to the given action
+	 * 	without creating any objects
+	 * 
+	 * @param index
+	 * 		the index of the cube
+	 * @param action
+	 * 		the action to perform on the index of every cube findReachableAdjacents would give
+	 */
+	public void forEachReachableNeighbour(int index, IntConsumer action){
+		int borders = getBorderMask(index);
+		for(int k=0; k<NB_ADJACENTS; k++)
+			if(isReachableNeighbour(index, borders, k))
+				action.accept(index + adjacentOffsets[k]);
+	}
+	
+	/**
+	 * Give the indices of the cubes a unit can move to from the cube with the given index,
+	 * 	moving in only one direction, to the given action without creating any objects
+	 * 
+	 * @param index
+	 * 		the index of the cube
+	 * @param action
+	 * 		the action to perform on the index of every cube quickFindReachableAdjacents would give
+	 */
+	public void forEachDirectlyReachableNeighbour(int index, IntConsumer action){
+		int borders = getBorderMask(index);
+		for(int k: DIRECT_ADJACENTS)
+			if(isReachableNeighbour(index, borders, k))
+				action.accept(index + adjacentOffsets[k]);
+	}
+	
+	/**
+	 * Return the first cube a unit can move to from the cube with the given index
+	 * 	that satisfies the given condition, without creating any objects
+	 * 
+	 * @param index
+	 * 		the index of the cube
+	 * @param condition
+	 * 		the condition on the index of the neighbour
+	 * @return the index of the first cube of forEachReachableNeighbour(index) satisfying the condition,
+	 * 		or -1 if there is none
+	 */
+	public int findReachableNeighbour(int index, IntPredicate condition){
+		int borders = getBorderMask(index);
+		for(int k=0; k<NB_ADJACENTS; k++)
+			if(isReachableNeighbour(index, borders, k) && condition.test(index + adjacentOffsets[k]))
+				return index + adjacentOffsets[k];
+		return -1;
+	}
+	
+	/**
+	 * Checks whether there are solid cubes surrounding the cube with the given index
+	 * 		or the cube is positioned on ground level
+	 * 
+	 * @param index
+	 * 		the index of the cube
+	 * @return | result == hasSolidAdjacents(getCubePosition(index))
+	 */
+	public boolean hasSolidAdjacents(int index){
+		return this.standableCubes.get(index);
+	}
+	
+	/**
+	 * Returns whether the cube with the given index is solid or not
+	 * 
+	 * @param index
+	 * 		the index of the cube
+	 * @return | result == isSolidCube(getCubePosition(index))
+	 */
+	public boolean isSolidCube(int index){
+		return this.solidCubes.get(index);
+	}
+	
+	/**
+	 * Returns whether a unit can stand in the cube with the given index
+	 * 
+	 * @param index
+	 * 		the index of the cube
+	 * @return | result == !isSolidCube(index) && hasSolidAdjacents(index)
+	 */
+	public boolean isWalkableCube(int index){
+		return this.walkableCubes.get(index);
+	}
+	
+	//---------------------------------------HELPERS
+	
+	/**
+	 * Return whether a unit can move from the cube with the given index and borders
+	 * 	to its adjacent cube with the given number, like findReachableAdjacents
+	 */
+	@Model
+	private boolean isReachableNeighbour(int index, int borders, int k){
+		if((ADJACENT_BORDERS[k] & borders) != 0)
+			return false;
+		if(!this.walkableCubes.get(index + adjacentOffsets[k]))
+			return false;
+		return canMoveDirectly(index, k);
+	}
+	
+	/**
+	 * Return whether a unit can move from the cube with the given index
+	 * 	to its adjacent cube with the given number without passing between solid cubes, like canMoveDirectly
+	 */
+	@Model
+	private boolean canMoveDirectly(int index, int k){
+		int dx = ADJACENT_DX[k];
+		int dy = ADJACENT_DY[k];
+		int dz = ADJACENT_DZ[k];
+		int nbZeros = (dx == 0? 1 : 0) + (dy == 0? 1 : 0) + (dz == 0? 1 : 0);
+		if(nbZeros >= 2)
+			return true;
+		//diagonal moves are blocked if every straight move towards the neighbour is
+		if(dx != 0 && !this.terrain.isSolid(index + adjacentOffsets[getAdjacentNumber(dx, 0, 0)]))
+			return true;
+		if(dy != 0 && !this.terrain.isSolid(index + adjacentOffsets[getAdjacentNumber(0, dy, 0)]))
+			return true;
+		if(dz != 0 && !this.terrain.isSolid(index + adjacentOffsets[getAdjacentNumber(0, 0, dz)]))
+			return true;
+		return false;
+	}
+	
+	/**
+	 * Return the number of the adjacent cube with the given offsets in the offset tables
+	 */
+	@Model
+	private static int getAdjacentNumber(int dx, int dy, int dz){
+		int number = (dx+1)*9 + (dy+1)*3 + (dz+1);
+		//the cube itself, number 13, is not in the tables
+		return number > 13? number-1 : number;
+	}
+	
+	
+	
+	/*___________________________________________________________________
+	 *___________________________________________________________________
+	 * -----------------------TERRAIN LAYERS-----------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+	
+	/**
+	 * Check whether the solid, standable and walkable layers agree with the terrain
+	 * 
+	 * @return whether for every cube the layers equal the values computed from the terrain
+	 * 		| result == for each index in 0..getNbCubes()-1:
+	 * 		|	isSolidCube(index) == getTerrain().isSolid(index) &&
+	 * 		|	hasSolidAdjacents(index) == (z == 0 || a solid adjacent cube exists) &&
+	 * 		|	isWalkableCube(index) == (!isSolidCube(index) && hasSolidAdjacents(index))
+	 */
+	public boolean hasConsistentTerrainLayers(){
+		for(int index=0; index<getNbCubes(); index++){
+			boolean solid = this.terrain.isSolid(index);
+			int borders = getBorderMask(index);
+			int count = 0;
+			for(int k=0; k<NB_ADJACENTS; k++)
+				if((ADJACENT_BORDERS[k] & borders) == 0 && this.terrain.isSolid(index + adjacentOffsets[k]))
+					count++;
+			boolean standable = (borders & BORDER_LOW_Z) != 0 || count > 0;
+			if(this.solidCubes.get(index) != solid || this.nbSolidAdjacents[index] != count ||
+					this.standableCubes.get(index) != standable ||
+					this.walkableCubes.get(index) != (standable && !solid))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Fill the layers from the terrain of this world
+	 */
+	@Model
+	private void initializeTerrainLayers(){
+		this.nbSolidAdjacents = new byte[getNbCubes()];
+		for(int index=0; index<getNbCubes(); index++)
+			if(this.terrain.isSolid(index)){
+				this.solidCubes.set(index);
+				this.addToSolidAdjacents(index, 1);
+			}
+		for(int index=0; index<getNbCubes(); index++)
+			this.updateStandability(index);
+	}
+	
+	/**
+	 * Bring the layers up to date after the cube with the given index changed
+	 * 	only the cube and its adjacent cubes are looked at
+	 */
+	@Model
+	private void updateTerrainLayers(int index){
+		boolean solid = this.terrain.isSolid(index);
+		if(this.solidCubes.get(index) == solid)
+			return;
+		this.solidCubes.set(index, solid);
+		this.addToSolidAdjacents(index, solid? 1 : -1);
+		this.updateStandability(index);
+	}
+	
+	/**
+	 * Add the given number to the number of solid adjacents of all cubes adjacent to the given cube
+	 * 	and update whether they are standable
+	 */
+	@Model
+	private void addToSolidAdjacents(int index, int delta){
+		int borders = getBorderMask(index);
+		for(int k=0; k<NB_ADJACENTS; k++)
+			if((ADJACENT_BORDERS[k] & borders) == 0){
+				int adjacent = index + adjacentOffsets[k];
+				this.nbSolidAdjacents[adjacent] += delta;
+				if(this.standableCubes.get(adjacent) != isStandable(adjacent))
+					this.updateStandability(adjacent);
+			}
+	}
+	
+	/**
+	 * Update whether the cube with the given index is standable and walkable
+	 */
+	@Model
+	private void updateStandability(int index){
+		boolean standable = isStandable(index);
+		boolean walkable = standable && !this.solidCubes.get(index);
+		this.standableCubes.set(index, standable);
+		this.walkableCubes.set(index, walkable);
+		if(this.walkableComponents == null)
+			return;
+		if(walkable)
+			this.walkableComponents.addCube(index);
+		else
+			this.walkableComponents.removeCube(index);
+	}
+	
+	/**
+	 * Return whether the cube with the given index lies on ground level or has a solid adjacent cube
+	 */
+	@Model
+	private boolean isStandable(int index){
+		return index < getNbCubesX()*getNbCubesY() || this.nbSolidAdjacents[index] > 0;
+	}
+	
+	/*___________________________________________________________________
+	 *___________________________________________________________________
+	 * ---------------------TERRAIN NOTIFICATIONS------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+	
+	/**
+	 * Check whether the terrain changes of this world are collected
+	 * 	instead of being notified one by one
+	 */
+	public boolean isCollectingTerrainChanges(){
+		return this.nbTerrainCollectors > 0;
+	}
+	
+	/**
+	 * Start collecting the terrain changes of this world
+	 * 
+	 * @post | new.isCollectingTerrainChanges()
+	 */
+	@Model
+	private void startCollectingTerrainChanges(){
+		this.nbTerrainCollectors++;
+	}
+	
+	/**
+	 * Stop collecting the terrain changes of this world, notifying all collected changes at once
+	 * 	when no one else still collects them
+	 * 
+	 * @effect if no one else collects the changes, the TerrainChangeListener is notified once
+	 * 		of every changed cube, in the order of their index
+	 * 		| getTerrainChangeListener().notifyTerrainChangedBatch(changed cubes)
+	 */
+	@Model
+	private void stopCollectingTerrainChanges(){
+		this.nbTerrainCollectors--;
+		if(this.isCollectingTerrainChanges() || this.changedCubes.isEmpty())
+			return;
+		List<int[]> positions = new ArrayList<>(this.changedCubes.cardinality());
+		for(int index = this.changedCubes.nextSetBit(0); index >= 0; index = this.changedCubes.nextSetBit(index+1))
+			positions.add(getCubePosition(index));
+		this.changedCubes.clear();
+		this.getTerrainChangeListener().notifyTerrainChangedBatch(positions);
+	}
+	
+	/*___________________________________________________________________
+	 *___________________________________________________________________
+	 * -----------------------REACHABILITY-------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+	
+	/**
+	 * Check whether a unit standing in the first given cube can walk to the second given cube
+	 * 
+	 * @param from
+	 * 		the index of the cube to start from
+	 * @param to
+	 * 		the index of the cube to go to
+	 * @return true if both cubes are the same, or both are walkable and a path between them
+	 * 		moving in only one direction at a time exists
+	 * 		| result == (from == to) || 
+	 * 		|	(isWalkableCube(from) && isWalkableCube(to) && new PathFinding(from, to).hasPath())
+	 */
+	public boolean isReachable(int from, int to){
+		if(from == to)
+			return true;
+		return this.getWalkableComponents().isConnected(from, to);
+	}
+	
+	/**
+	 * Return the groups of walkable cubes, finding them by one flood fill the first time they are asked
+	 * 	after that every cube that becomes walkable or stops being walkable updates them
+	 */
+	@Model
+	private WalkableComponents getWalkableComponents(){
+		if(this.walkableComponents == null)
+			this.walkableComponents = new WalkableComponents(getNbCubesX(), getNbCubesY(), getNbCubesZ(), this.walkableCubes);
+		return this.walkableComponents;
+	}
+	
+	/*___________________________________________________________________
+	 *___________________________________________________________________
+	 * -----------------------TERRAIN CHANGES----------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+	
+	/**
+	 * Cave in the world on the specific position and control if there
+	 *  are, due to this change, cubes not connected anymore to the border
+	 * 
+	 * @param position
+	 * 			The position where a cave in will happen
+	 * 
+	 * @post The type of the position will be changed to TYPE_AIR
+	 * @effect the SupportGraph will change his content due to the change
+	 * @effect The TerrainChangeListener will be notified
+	 * 
+	 * @effect A boulder will be spawned
+	 * @effect A log will be spawned
+	 * 
+	 */
+	public void caveIn(int[] position) throws IllegalArgumentException{
+		
+		if(!isSolidCube(position) && !isValidPosition(position))
+			throw new IllegalArgumentException("The cube is not solid or is on an invalid location");
+		
+		this.startCollectingTerrainChanges();
+		try{
+			this.caveInCollected(position);
+		}
+		finally{
+			this.stopCollectingTerrainChanges();
+		}
+	}
+	
+	/**
+	 * Cave in the world on the specific position, while the terrain changes are collected
+	 */
+	@Model
+	private void caveInCollected(int[] position){
+		int[] looseCubes = this.getConnectedToBorder().changeSolidToPassable(
+				getCubeIndex(position[0], position[1], position[2]));
+		List<int[]> caveInList = new ArrayList<>(looseCubes.length+1);
+		for(int index: looseCubes){
+			//the loose cubes fall, so the graph only keeps solid cubes that stay
+			this.getConnectedToBorder().changeSolidToPassable(index);
+			caveInList.add(getCubePosition(index));
+		}
+		caveInList.add(position);
+		
+		for(int[] caveInPosition: caveInList){
+			
+			if(isSolidCube(caveInPosition)){
+				
+				//REPLACE CUBE BY AIR
+				int type = this.getCubeType(caveInPosition);
+				this.setcubeType(TYPE_AIR, caveInPosition);	
+				
+				//SPAWN RAWMATERIAL
+				double probability = 0.25;
+				
+				if (this.random.nextDouble() <= probability){
+					
+					if (type == TYPE_ROCK){
+						new Boulder(caveInPosition,this);
+						//System.out.println("spawn boulder");
+						
+					}else if(type == TYPE_TREE){
+						new Log(caveInPosition,this);
+						//System.out.println("spawn log");
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Makes all the solid cubes connected, for the whole world at once
+	 * 	the groups of solid cubes are found by one flood fill, and all solid cubes
+	 * 	not connected to the border are replaced by air in one batch
+	 * 
+	 * @effect the solid cubes in the world which are not connected will cave in,
+	 * 		spawning raw material like caveIn does
+	 * @effect The TerrainChangeListener will be notified once of all caved in cubes
+	 * 		| getTerrainChangeListener().notifyTerrainChangedBatch(caved in cubes)
+	 */
+	@Raw @Model
+	private void makeAllSolidsConnected(){
+		//the graph only keeps solid cubes that stay
+		int[] looseCubes = this.getConnectedToBorder().getLooseCubes();
+		List<int[]> caveInList = new ArrayList<>(looseCubes.length);
+		int[] types = new int[looseCubes.length];
+		for(int i=0; i<looseCubes.length; i++){
+			int index = looseCubes[i];
+			this.getConnectedToBorder().changeSolidToPassable(index);
+			int[] position = getCubePosition(index);
+			types[i] = this.terrain.getType(index);
+			this.terrain.setType(position[0], position[1], position[2], TYPE_AIR);
+			this.updateTerrainLayers(index);
+			caveInList.add(position);
+		}
+		
+		// make a set with all cubepositions of workshop
+		for(int index=0; index<getNbCubes(); index++)
+			if(this.terrain.getType(index) == TYPE_WORKSHOP){
+				CubePosition workshop = new CubePosition(getCubePosition(index));
+				this.workshops.add(workshop);
+				this.workshopIndex.update(workshop, index);
+			}
+		
+		//SPAWN RAWMATERIAL
+		for(int i=0; i<looseCubes.length; i++)
+			if (this.random.nextDouble() <= 0.25){
+				if (types[i] == TYPE_ROCK)
+					new Boulder(caveInList.get(i),this);
+				else if(types[i] == TYPE_TREE)
+					new Log(caveInList.get(i),this);
+			}
+		
+		if(!caveInList.isEmpty())
+			this.getTerrainChangeListener().notifyTerrainChangedBatch(caveInList);
+	}
+	
+	/*___________________________________________________________________
+	 *___________________________________________________________________
+	 * -----------------------PATH SEARCHES------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+	
+	/**
+	 * Return the number of cubes a path search may expand per tick
+	 */
+	@Basic @Raw
+	public int getPathSearchBudget() {
+		return this.pathSearchBudget;
+	}
+	
+	/**
+	 * Set the number of cubes a path search may expand per tick
+	 * 
+	 * @param pathSearchBudget
+	 * 		the new budget
+	 * @post the budget of this world is the given budget
+	 * 		| new.getPathSearchBudget() == pathSearchBudget
+	 * @throws IllegalArgumentException
+	 * 		| !isValidPathSearchBudget(pathSearchBudget)
+	 */
+	@Raw
+	public void setPathSearchBudget(int pathSearchBudget) throws IllegalArgumentException {
+		if(!isValidPathSearchBudget(pathSearchBudget))
+			throw new IllegalArgumentException();
+		this.pathSearchBudget = pathSearchBudget;
+	}
+	
+	/**
+	 * Check whether the given budget is a valid path search budget for any world
+	 * 
+	 * @param pathSearchBudget
+	 * 		the budget to check
+	 * @return | result == pathSearchBudget > 0
+	 */
+	public static boolean isValidPathSearchBudget(int pathSearchBudget) {
+		return pathSearchBudget > 0;
+	}
+	
+	/**
+	 * Return the number of path searches that are continued in the next ticks
+	 */
+	public int getNbPendingPathSearches() {
+		return this.pendingPathSearches.size();
+	}
+	
+	/**
+	 * Add the given pathFinding to the path searches continued in the next ticks
+	 * 
+	 * @param pathFinding
+	 * 		the pathFinding to add
+	 * @post the search will be continued after all searches that are already pending
+	 * @throws IllegalArgumentException
+	 * 		| pathFinding == null || pathFinding.getWorld() != this || !pathFinding.isSearching()
+	 */
+	public void addPendingPathSearch(PathFinding pathFinding) throws IllegalArgumentException {
+		if(pathFinding == null || pathFinding.getWorld() != this || !pathFinding.isSearching())
+			throw new IllegalArgumentException();
+		this.pendingPathSearches.addLast(pathFinding);
+	}
+	
+	/**
+	 * Return the number of pathFindings started in this world
+	 */
+	@Basic
+	public long getNbPathFindings() {
+		return this.nbPathFindings;
+	}
+	
+	/**
+	 * Return the number of cubes expanded by the path searches in this world
+	 */
+	@Basic
+	public long getNbExpandedCubes() {
+		return this.nbExpandedCubes;
+	}
+	
+	/**
+	 * Register a pathFinding started in this world
+	 * 
+	 * @post | new.getNbPathFindings() == getNbPathFindings()+1
+	 */
+	void registerPathFinding() {
+		this.nbPathFindings++;
+	}
+	
+	/**
+	 * Register the given number of cubes expanded by a path search in this world
+	 * 
+	 * @post | new.getNbExpandedCubes() == getNbExpandedCubes()+nbExpanded
+	 */
+	void registerExpandedCubes(int nbExpanded) {
+		this.nbExpandedCubes += nbExpanded;
+	}
+	
+	/**
+	 * Remove the given pathFinding from the path searches continued in the next ticks
+	 * 
+	 * @param pathFinding
+	 * 		the pathFinding to remove
+	 */
+	public void removePendingPathSearch(PathFinding pathFinding) {
+		this.pendingPathSearches.remove(pathFinding);
+		this.pendingPathRequests.remove(pathFinding);
+	}
+	
+	/**
+	 * Return the service searching paths of this world on worker threads,
+	 * 	null if the paths are searched in the ticks of this world
+	 */
+	@Basic @Raw
+	public PathRequestService getPathRequestService() {
+		return this.pathRequestService;
+	}
+	
+	/**
+	 * Set the service searching paths of this world on worker threads
+	 * 
+	 * @param pathRequestService
+	 * 		the new service, or null to search the paths in the ticks of this world
+	 * @post | new.getPathRequestService() == pathRequestService
+	 * @post the searches already requested go on with the service they were requested from
+	 * @throws IllegalArgumentException
+	 * 		| pathRequestService != null && pathRequestService.getWorld() != this
+	 */
+	@Raw
+	public void setPathRequestService(PathRequestService pathRequestService) throws IllegalArgumentException {
+		if(pathRequestService != null && pathRequestService.getWorld() != this)
+			throw new IllegalArgumentException();
+		this.pathRequestService = pathRequestService;
+	}
+	
+	/**
+	 * Return the number of pathFindings waiting for a path from the path request service
+	 */
+	public int getNbPendingPathRequests() {
+		return this.pendingPathRequests.size();
+	}
+	
+	/**
+	 * Add the given pathFinding to the pathFindings waiting for a path from the path request service
+	 * 
+	 * @param pathFinding
+	 * 		the pathFinding to add
+	 * @post the pathFinding is polled for its path in every next tick, until it has one
+	 * @throws IllegalArgumentException
+	 * 		| pathFinding == null || pathFinding.getWorld() != this || !pathFinding.isSearching()
+	 */
+	void addPendingPathRequest(PathFinding pathFinding) throws IllegalArgumentException {
+		if(pathFinding == null || pathFinding.getWorld() != this || !pathFinding.isSearching())
+			throw new IllegalArgumentException();
+		this.pendingPathRequests.add(pathFinding);
+	}
+	
+	/**
+	 * Return a copy of the walkable cubes of this world, shared by all requests until the terrain changes
+	 * 
+	 * @return | for each index in 0..getNbCubes()-1:
+	 * 		|   result.get(index) == isWalkableCube(index)
+	 */
+	BitSet getWalkableSnapshot() {
+		if(this.walkableSnapshot == null || this.walkableSnapshotVersion != this.getTerrainVersion()){
+			this.walkableSnapshot = (BitSet) this.walkableCubes.clone();
+			this.walkableSnapshotVersion = this.getTerrainVersion();
+		}
+		return this.walkableSnapshot;
+	}
+	
+	/**
+	 * Hand the paths found by the path request service to the pathFindings waiting for them
+	 * 
+	 * @post the pathFindings that got their path are not pending anymore
+	 */
+	@Model
+	private void pollPathRequests() {
+		Iterator<PathFinding> iterator = this.pendingPathRequests.iterator();
+		while(iterator.hasNext())
+			if(iterator.next().pollRequest())
+				iterator.remove();
+	}
+	
+	/**
+	 * Continue the pending path searches, in order, until the budget for this tick is used
+	 * 
+	 * @effect the paths found by the path request service are handed out first
+	 * @effect the searches are advanced with at most getPathSearchBudget() expanded cubes in total
+	 * @post finished searches are not pending anymore
+	 */
+	@Model
+	private void advancePathSearches() {
+		if(!this.pendingPathRequests.isEmpty())
+			this.pollPathRequests();
+		if(this.isParallelTick()){
+			this.advancePathSearchesInParallel();
+			return;
+		}
+		int budget = this.getPathSearchBudget();
+		
+		while(budget > 0 && !pendingPathSearches.isEmpty()){
+			PathFinding search = pendingPathSearches.peekFirst();
+			budget -= search.advanceSearch(this.getPendingPathSearchEngine(), budget);
+			if(!search.isSearching())
+				pendingPathSearches.pollFirst();
+		}
+	}
+	
+	/**
+	 * Return the pool continuing the pending path searches and advancing the units of a tick in parallel,
+	 * 	null if they are handled one after the other
+	 */
+	@Basic @Raw
+	public ForkJoinPool getTickPool() {
+		return this.tickPool;
+	}
+	
+	/**
+	 * Return the seed of the random draws of this world and of its units
+	 */
+	@Basic @Immutable
+	public long getSeed() {
+		return this.seed;
+	}
+	
+	/**
+	 * Check whether the pending path searches and the units of a tick are handled in parallel
+	 * 
+	 * @return | result == (getTickPool() != null)
+	 */
+	public boolean isParallelTick() {
+		return this.tickPool != null;
+	}
+	
+	/**
+	 * Set the pool continuing the pending path searches and advancing the units of a tick in parallel
+	 * 
+	 * @param tickPool
+	 * 		the new pool, or null to handle the searches and the units one after the other
+	 * @post | new.getTickPool() == tickPool
+	 * @post every thread of the pool gets an engine of its own, searches continued with another
+	 * 		engine than before start over
+	 */
+	@Raw
+	public void setTickPool(ForkJoinPool tickPool) {
+		this.tickPool = tickPool;
+		this.parallelEngines = null;
+	}
+	
+	/**
+	 * Continue the pending path searches on the threads of the tick pool
+	 * 
+	 * The searches are spread over the engines in the order they became pending. The path search
+	 * budget is split evenly over the engines that have searches, the first of them getting the cubes
+	 * that are left, so a tick expands no more cubes than when the searches are continued one after
+	 * the other. In the read phase every engine continues its searches in the order of the queue with
+	 * its share of the budget, reading the terrain but changing nothing in this world. In the commit phase the
+	 * expanded cubes and the paths found are handed to this world in the order of the queue.
+	 * Which search ends in which tick so depends only on the queue, never on the threads.
+	 * 
+	 * @post finished searches are not pending anymore
+	 * @throws IllegalStateException
+	 * 		the thread is interrupted while waiting for the pool
+	 */
+	@Model
+	private void advancePathSearchesInParallel() throws IllegalStateException {
+		if(this.pendingPathSearches.isEmpty())
+			return;
+		if(this.parallelEngines == null)
+			this.parallelEngines = new PathSearchEngine[this.tickPool.getParallelism()];
+		
+		List<List<PathFinding>> groups = new ArrayList<>(this.parallelEngines.length);
+		for(int slot=0; slot<this.parallelEngines.length; slot++)
+			groups.add(new ArrayList<>());
+		for(PathFinding search: this.pendingPathSearches){
+			if(search.getEngineSlot() < 0 || search.getEngineSlot() >= this.parallelEngines.length){
+				search.setEngineSlot(this.nextEngineSlot);
+				this.nextEngineSlot = (this.nextEngineSlot+1) % this.parallelEngines.length;
+			}
+			groups.get(search.getEngineSlot()).add(search);
+		}
+		
+		//SPLIT THE BUDGET
+		int nbGroups = 0;
+		for(List<PathFinding> group: groups)
+			if(!group.isEmpty())
+				nbGroups++;
+		int share = this.getPathSearchBudget() / nbGroups;
+		int leftOver = this.getPathSearchBudget() % nbGroups;
+		
+		//READ PHASE
+		List<Callable<Void>> searches = new ArrayList<>();
+		for(int slot=0; slot<this.parallelEngines.length; slot++){
+			List<PathFinding> group = groups.get(slot);
+			if(group.isEmpty())
+				continue;
+			if(this.parallelEngines[slot] == null)
+				this.parallelEngines[slot] = new PathSearchEngine(this);
+			PathSearchEngine engine = this.parallelEngines[slot];
+			int slotBudget = share + (searches.size() < leftOver ? 1 : 0);
+			searches.add(() -> {
+				int budget = slotBudget;
+				for(PathFinding search: group){
+					if(budget <= 0)
+						break;
+					budget -= search.runSearch(engine, budget);
+				}
+				return null;
+			});
+		}
+		this.invokeOnTickPool(searches);
+		
+		//COMMIT PHASE
+		Iterator<PathFinding> iterator = this.pendingPathSearches.iterator();
+		while(iterator.hasNext()){
+			PathFinding search = iterator.next();
+			search.commitSearch();
+			if(!search.isSearching())
+				iterator.remove();
+		}
+	}
+	
+	/**
+	 * Run the given jobs on the threads of the tick pool and wait until all of them are done
+	 * 
+	 * @throws IllegalStateException
+	 * 		the thread is interrupted while waiting for the pool
+	 * @throws RuntimeException
+	 * 		a job threw it, it is thrown again on this thread
+	 */
+	@Model
+	private void invokeOnTickPool(List<Callable<Void>> jobs) throws IllegalStateException {
+		try{
+			for(Future<Void> result: this.tickPool.invokeAll(jobs))
+				result.get();
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		catch(ExecutionException e){
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if(e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Check whether the units are advanced in the read phase of a parallel tick,
+	 * 	in which they may change nothing in this world but leave their changes for the commit phase
+	 */
+	@Basic
+	boolean isInReadPhase() {
+		return this.inReadPhase;
+	}
+	
+	/**
+	 * Advance the units of this tick that are awake on the threads of the tick pool
+	 * 
+	 * In the read phase the units that only change themselves in this tick are advanced at the same time,
+	 * split in one run of units for every thread of the pool. They decide against the world as it was
+	 * at the start of the tick and leave their changes to the world, like moving to another cube,
+	 * claiming a task, starting a path or attacking, for the commit phase. In the commit phase the units
+	 * are handled in the order of this world: a unit advanced in the read phase does the changes it left,
+	 * any other unit is advanced like in a tick without pool. The changes so reach the world in the same
+	 * order in every tick, whatever thread advanced the unit. Every unit draws its random numbers from a
+	 * generator of its own, seeded by this world, so a world with the same seed gives the same ticks.
+	 * 
+	 * @param dt
+	 * 		the time to progress
+	 * @effect every unit that is awake when its turn in the commit phase comes, is advanced once and may fall asleep
+	 * 		| for each unit in units
+	 * 		| 	if(!unit.isSleeping())
+	 * 		| 		then unit.advanceTime(dt)
+	 * @throws IllegalStateException
+	 * 		the thread is interrupted while waiting for the pool
+	 */
+	@Model
+	private void advanceUnitsInParallel(double dt) throws IllegalStateException {
+		List<Unit> readUnits = new ArrayList<>();
+		for(Unit unit: this.units)
+			if(!unit.isSleeping() && unit.canAdvanceInReadPhase(dt))
+				readUnits.add(unit);
+		Set<Unit> advanced = new HashSet<>(readUnits);
+		
+		//READ PHASE
+		int nbRuns = Math.min(this.tickPool.getParallelism(), readUnits.size());
+		List<Callable<Void>> runs = new ArrayList<>(nbRuns);
+		for(int run=0; run<nbRuns; run++){
+			List<Unit> part = readUnits.subList(run*readUnits.size()/nbRuns, (run+1)*readUnits.size()/nbRuns);
+			runs.add(() -> {
+				for(Unit unit: part){
+					unit.setLastTick(this.nbTicks);
+					unit.advanceTime(dt);
+				}
+				return null;
+			});
+		}
+		this.inReadPhase = true;
+		try{
+			this.invokeOnTickPool(runs);
+		}
+		finally{
+			this.inReadPhase = false;
+		}
+		
+		//COMMIT PHASE
+		for(Unit unit: this.units){
+			if(advanced.contains(unit))
+				unit.commitPendingChanges();
+			else{
+				unit.setLastTick(this.nbTicks);
+				if(unit.isSleeping())
+					continue;
+				unit.advanceTime(dt);
+			}
+			this.nbUnitAdvances++;
+			if(unit.isAlive() && unit.getWorld() == this)
+				this.putToSleep(unit);
+		}
+	}
+	
+	/**
+	 * Return the strategy used by the pathFinding in this world
+	 */
+	@Basic @Raw
+	public PathFindingStrategy getPathFindingStrategy() {
+		return this.pathFindingStrategy;
+	}
+	
+	/**
+	 * Set the strategy used by the pathFinding in this world
+	 * 
+	 * @param pathFindingStrategy
+	 * 		the new strategy
+	 * @post the strategy of this world is the given strategy
+	 * 		| new.getPathFindingStrategy() == pathFindingStrategy
+	 * @throws IllegalArgumentException
+	 * 		| pathFindingStrategy == null
+	 */
+	@Raw
+	public void setPathFindingStrategy(PathFindingStrategy pathFindingStrategy) throws IllegalArgumentException {
+		if(pathFindingStrategy == null)
+			throw new IllegalArgumentException();
+		this.pathFindingStrategy = pathFindingStrategy;
+	}
+	
+	/**
+	 * Return the abstract graph for the hierarchical pathFinding in this world
+	 * 	the graph is built the first time it is needed and kept up to date with the terrain
+	 */
+	@Raw
+	public HierarchicalGraph getHierarchicalGraph() {
+		if(this.hierarchicalGraph == null)
+			this.hierarchicalGraph = new HierarchicalGraph(this, HIERARCHICAL_CHUNK_SIZE);
+		return this.hierarchicalGraph;
+	}
+	
+	/**
+	 * Return the cache with the paths found in this world
+	 */
+	@Raw
+	public PathCache getPathCache() {
+		if(this.pathCache == null)
+			this.pathCache = new PathCache(this, PATH_CACHE_SIZE);
+		return this.pathCache;
+	}
+	
+	/**
+	 * Return the service handing out the flow fields towards the targets of this world
+	 */
+	@Raw
+	public FlowFieldService getFlowFieldService() {
+		if(this.flowFieldService == null)
+			this.flowFieldService = new FlowFieldService(this, MAX_UNUSED_FLOW_FIELDS);
+		return this.flowFieldService;
+	}
+	
+	/*___________________________________________________________________
+	 *___________________________________________________________________
+	 * -----------------------TERRAIN VERSIONS---------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+	
+	/**
+	 * Return the number of terrain changes in this world
+	 */
+	@Basic @Raw
+	public int getTerrainVersion() {
+		return this.terrainVersion;
+	}
+	
+	/**
+	 * Return the region holding the cube with the given index
+	 * 
+	 * @param index
+	 * 		the index of the cube
+	 * @return the number of the region, counted x first, then y, then z
+	 */
+	public int getTerrainRegion(int index) {
+		int[] position = this.getCubePosition(index);
+		return getTerrainRegion(position[0], position[1], position[2]);
+	}
+	
+	/**
+	 * Return the region holding the cube with the given coordinates
+	 */
+	@Model
+	private int getTerrainRegion(int x, int y, int z) {
+		int nbRegionsX = getNbRegions(getNbCubesX());
+		int nbRegionsY = getNbRegions(getNbCubesY());
+		return x/TERRAIN_REGION_SIZE + (y/TERRAIN_REGION_SIZE)*nbRegionsX
+				+ (z/TERRAIN_REGION_SIZE)*nbRegionsX*nbRegionsY;
+	}
+	
+	/**
+	 * Return the number of terrain changes in or next to the given region
+	 * 
+	 * @param region
+	 * 		the number of the region
+	 */
+	public int getTerrainRegionVersion(int region) {
+		return this.terrainRegionVersions[region];
+	}
+	
+	/**
+	 * Return the number of regions along a side of the given number of cubes
+	 */
+	private static int getNbRegions(int nbCubes) {
+		return (nbCubes+TERRAIN_REGION_SIZE-1)/TERRAIN_REGION_SIZE;
+	}
+	
+	/**
+	 * Register a change of the cube with the given coordinates
+	 * 
+	 * @post the terrain version is raised
+	 * @post the version of the regions of the cube and of all cubes around it is raised,
+	 * 		since whether a unit can stand there may have changed
+	 */
+	@Model
+	private void updateTerrainVersions(int x, int y, int z) {
+		this.terrainVersion++;
+		for (int dx= -1; dx <=1;dx++)
+			for (int dy= -1; dy <=1;dy++)
+				for (int dz= -1; dz <=1;dz++)
+					if(isValidPosition(x+dx, y+dy, z+dz))
+						this.terrainRegionVersions[getTerrainRegion(x+dx, y+dy, z+dz)]++;
+	}
+	
+	/**
+	 * Return the search engine for the pending path searches
+	 * 	so they don't lose their progress when other paths are searched in between
+	 */
+	@Model
+	private PathSearchEngine getPendingPathSearchEngine() {
+		if(this.pendingPathSearchEngine == null)
+			this.pendingPathSearchEngine = new PathSearchEngine(this);
+		return this.pendingPathSearchEngine;
+	}
+	
+	/*___________________________________________________________________
+	 *___________________________________________________________________
+	 * -----------------------SLEEPING UNITS-----------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+	
+	/**
+	 * Return the time the units of this world are advanced to, at the start of the current tick
+	 * 	or at the end of the last one
+	 */
+	@Basic @Raw
+	public double getGameTime() {
+		return this.gameTime;
+	}
+	
+	/**
+	 * Return the number of ticks of this world
+	 */
+	@Basic @Raw
+	public long getNbTicks() {
+		return this.nbTicks;
+	}
+	
+	/**
+	 * Return the number of times a unit was advanced by a tick of this world
+	 */
+	@Basic @Raw
+	public long getNbUnitAdvances() {
+		return this.nbUnitAdvances;
 	}
 	
 	/**
-	 * Checks whether there are solid cubes surrounding the given cube
-	 * 		or the cube is positioned on ground level
-	 * 
-	 * @param position
-	 * 		The position
-	 * @return
-	 * 		whether there are solid cubes surrounding the given cube
-	 *  or the cube itself is positioned on ground level
-	 * 		
+	 * Return the number of sleeping units in this world
 	 */
-	public boolean hasSolidAdjacents(int[] position){
-		int x = position[0];
-		int y = position[1];
-		int z = position[2];
-		
-		if(z == 0)
-			return true;
-		
-		for (int dx= -1; dx <=1;dx++){
-			for (int dy= -1; dy <=1;dy++){
-				for (int dz= -1; dz <=1;dz++){
-
-					int[] adjacentCube = new int[]{x+dx,y+dy,z+dz};
-					
-					if(isValidPosition(adjacentCube) && !(dx==0&&dy==0&&dz==0) && isSolidCube(adjacentCube)){
-						return true ;
-					}	
-				}
-			}	
-		}
-		return false;
+	public int getNbSleepingUnits() {
+		return this.sleepingUnits.size();
 	}
 	
 	/**
-	 * Checks whether the cube under the give position is solid
-	 * 
-	 * @param position
-	 * 		the given position
-	 * @return
-	 * 		whether the cube under the give position is solid
-	 * 			 with the level under z=0 considered as 0
+	 * Check whether units waiting for an event sleep instead of being advanced every tick
 	 */
-	public boolean isSolidUnder(int[] position){
-		return position[2] == 0 || 
-				isSolidCube(Utils.getPositionUnder(position));
+	@Basic @Raw
+	public boolean isSleepingUnitsEnabled() {
+		return this.sleepingUnitsEnabled;
 	}
 	
 	/**
-	 * TODO find a more comprehensible piece of code (efficiency is okay!)
-	 * 
-	 * Check if you can move directly from the given position to the other
-	 * !!Only meant for adjacent cubes!!
+	 * Let the units waiting for an event sleep or not
 	 * 
-	 * @param nextPosition
-	 * @param currentPosition
-	 * @return
-	 * 		if you can move directly from the current position to the next
+	 * @param enabled
+	 * 		whether units may sleep
+	 * @post | new.isSleepingUnitsEnabled() == enabled
+	 * @effect if units may not sleep anymore, all sleeping units wake up
 	 */
-	@Raw
-	public boolean canMoveDirectly(int[] currentPosition, int dx, int dy, int dz) {
-		
-		if(dx!=0 && dy !=0 && dz !=0){
-			// chance : 8/26
-			if(isSolidCube(new int[] {currentPosition[0],currentPosition[1], currentPosition[2]+dz})&&
-					isSolidCube(new int[]{currentPosition[0],currentPosition[1]+dy, currentPosition[2]}) &&
-					isSolidCube(new int[]{currentPosition[0]+dx,currentPosition[1], currentPosition[2]}))
-				return false;
-		} else if(dx!=0 && dy !=0 && dz ==0){
-			//chance : 4/26
-			if(isSolidCube(new int[] {currentPosition[0]+dx,currentPosition[1], currentPosition[2]})&&
-					isSolidCube(new int[]{currentPosition[0],currentPosition[1]+dy, currentPosition[2]}))
-				return false;
-		} else if(dx==0 && dy !=0 && dz !=0){
-			//chance : 4/26
-			if(isSolidCube(new int[] {currentPosition[0],currentPosition[1], currentPosition[2]+dz})&&
-					isSolidCube(new int[]{currentPosition[0],currentPosition[1]+dy, currentPosition[2]}))
-				return false;
-		}else if(dx!=0 && dy ==0 && dz !=0){
-			//chance :  4/26
-			if(isSolidCube(new int[] {currentPosition[0],currentPosition[1], currentPosition[2]+dz})&&
-					isSolidCube(new int[]{currentPosition[0]+dx,currentPosition[1], currentPosition[2]}))
-				return false;
-		}
-		
-		return true;
-
+	public void setSleepingUnitsEnabled(boolean enabled) {
+		this.sleepingUnitsEnabled = enabled;
+		if(!enabled)
+			while(!this.sleepingUnits.isEmpty())
+				this.sleepingUnits.peek().wakeUp();
 	}
+	
 	/**
+	 * Return the time the given unit is advanced to, whether it sleeps or not
 	 * 
-	 * Get a list with all positions
-	 * Inside game world, non solid,directly movable to and not the same
-	 * 
-	 * @param position
-	 * @return
-	 * 		a list with all positions Inside game world, non solid,directly movable to and not the same
+	 * @return the end of the current tick if the tick is past the given unit,
+	 * 		the start of the current tick otherwise
 	 */
-	public List<int[]> findReachableAdjacents(int[] position){
-		
-		List<int[]> adjacentCubes = new ArrayList<>(26);
-		
-		int x = position[0];
-		int y = position[1];
-		int z = position[2];
-		
-			for (int dx=-1; dx<=1;dx++){
-				for (int dy=-1; dy<=1;dy++){
-					for (int dz=-1; dz<=1;dz++){
-						int[] nextPos = new int[]{x+dx,y+dy,z+dz};
-						//Inside game world, non solid,directly movable to and not the same
-						//quick checks
-						if(isValidPosition(nextPos)&&!isSolidCube(nextPos)&&!(dx==0&&dy==0&&dz==0))
-							//longer checks
-							if(hasSolidAdjacents(nextPos) && canMoveDirectly(position,dx,dy,dz))
-								adjacentCubes.add(nextPos);
-						}	
-					}
-				}
-			return adjacentCubes;
-		}
+	double getTimeAdvancedTo(Unit unit) {
+		if(this.advancingUnits && unit.getLastTick() == this.nbTicks)
+			return this.gameTime + this.tickDuration;
+		return this.gameTime;
+	}
+	
 	/**
-	 * A quicker way to select proper adjacents moving only in one direction at a time
+	 * Let the given unit sleep till the event it waits for, if it waits for one
 	 * 
-	 * @param position
-	 * 		the position departing from
-	 * @return
-	 * 		the list with adjacents where is direct access to
+	 * @effect | if (isSleepingUnitsEnabled() && unit.getTimeTillNextEvent() > 0)
+	 * 		|	then unit.sleep(getTimeAdvancedTo(unit), getTimeAdvancedTo(unit) + unit.getTimeTillNextEvent())
 	 */
-	public List<int[]> quickFindReachableAdjacents(int[] position){
-		
-		List<int[]> adjacentCubes = new ArrayList<>(6);
-		
-		int x = position[0];
-		int y = position[1];
-		int z = position[2];
-		
-		int[] di= new int[3];
-		
-		for(int i=0; i<=2; i++){
-			for(int d=-1;d<=1;d+=2){
-				
-				di[i] = d;
-				di[(i+1)%3] = 0;
-				di[(i+2)%3] = 0;
-				
-				
-				int[] nextPos = new int[]{x+di[0],y+di[1],z+di[2]};
-				
-
-				if(isValidPosition(nextPos) && !isSolidCube(nextPos) && hasSolidAdjacents(nextPos)){
-					adjacentCubes.add(nextPos);
-				}
-			}
+	@Model
+	private void putToSleep(Unit unit) {
+		if(!this.isSleepingUnitsEnabled())
+			return;
+		double timeTillNextEvent = unit.getTimeTillNextEvent();
+		if(timeTillNextEvent > 0){
+			double time = this.getTimeAdvancedTo(unit);
+			unit.sleep(time, time + timeTillNextEvent);
+			this.sleepingUnits.add(unit);
 		}
-		return adjacentCubes;
 	}
 	
-	
-	
-	/*___________________________________________________________________
-	 *___________________________________________________________________
-	 * -----------------------TERRAIN CHANGES----------------------------
-	 *___________________________________________________________________
-	 *___________________________________________________________________*/
+	/**
+	 * Remove the given unit from the sleeping units of this world
+	 */
+	void removeSleepingUnit(Unit unit) {
+		this.sleepingUnits.remove(unit);
+	}
 	
 	/**
-	 * Cave in the world on the specific position and control if there
-	 *  are, due to this change, cubes not connected anymore to the border
-	 * 
-	 * @param position
-	 * 			The position where a cave in will happen
-	 * 
-	 * @post The type of the position will be changed to TYPE_AIR
-	 * @effect the ConnectedToBorder will change his content due to the change
-	 * @effect The TerrainChangeListener will be notified
-	 * 
-	 * @effect A boulder will be spawned
-	 * @effect A log will be spawned
+	 * Wake the units whose event happens in the current tick
 	 * 
+	 * @effect | for each unit in sleepingUnits:
+	 * 		|	if (unit.getWakeUpTime() <= getGameTime() + tickDuration) then unit.wakeUp()
 	 */
-	public void caveIn(int[] position) throws IllegalArgumentException{
-		
-		if(!isSolidCube(position) && !isValidPosition(position))
-			throw new IllegalArgumentException("The cube is not solid or is on an invalid location");
-		
-		List<int[]> caveInList = this.getConnectedToBorder().changeSolidToPassable(
-				position[0], position[1], position[2]);
-		caveInList.add(position);
-		
-		for(int[] caveInPosition: caveInList){
-			
-			if(isSolidCube(caveInPosition)){
-				
-				//REPLACE CUBE BY AIR
-				int type = this.getCubeType(caveInPosition);
-				this.setcubeType(TYPE_AIR, caveInPosition);	
-				
-				//SPAWN RAWMATERIAL
-				double probability = 0.25;
-				Random rand = new Random();
-				
-				if (rand.nextDouble() <= probability){
-					
-					if (type == TYPE_ROCK){
-						new Boulder(caveInPosition,this);
-						//System.out.println("spawn boulder");
-						
-					}else if(type == TYPE_TREE){
-						new Log(caveInPosition,this);
-						//System.out.println("spawn log");
-					}
-				}
-			}
-		}
+	@Model
+	private void wakeUpDueUnits() {
+		while(!this.sleepingUnits.isEmpty() && this.sleepingUnits.peek().getWakeUpTime() <= this.gameTime + this.tickDuration)
+			this.sleepingUnits.peek().wakeUp();
 	}
 	
 	/**
-	 * Makes all the solid cubes connected
-	 * 
-	 * @effect the solid cubes in the world which are not connected will cave in
+	 * Wake the units that can feel a change of the cube with the given coordinates,
+	 * 	they might have to fall
 	 * 
+	 * @effect | for each unit in sleepingUnits:
+	 * 		|	if (the cube of the unit is the given cube or next to it) then unit.wakeUp()
 	 */
-	@Raw @Model
-	private void makeAllSolidsConnected(){
-		
-		for (int x=0; x<getNbCubesX(); x++) {
-			for (int y=0; y<getNbCubesY(); y++) {
-				for (int z=0; z<getNbCubesZ(); z++) {
-					int[] position = new int[] {x,y,z};
-					// non solid cubes have to be notified if they are not already updated
-					if(!isSolidCube(position)){
-						// make a set with all cubepositions of workshop
-						if(getCubeType(position)==TYPE_WORKSHOP)
-							this.workshops.add(new CubePosition(position));
-						
-						if(this.getConnectedToBorder().isSolidConnectedToBorder(x, y, z)){
-								this.caveIn(position);
-					
-						}
-					}	
-				}
-			}
-		}
+	@Model
+	private void wakeUpUnitsAround(int x, int y, int z) {
+		if(this.sleepingUnits.isEmpty())
+			return;
+		for(Unit unit: this.unitIndex.getObjectsInBox(new double[]{x-1, y-1, z-1}, new double[]{x+2, y+2, z+2}))
+			unit.wakeUp();
 	}
 	
 	/*___________________________________________________________________
@@ -675,25 +2136,62 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	/**
 	 * Invokes the advanceTime method on all objects present in this World.
 	 * This are all units and all items
+	 * Units waiting for an event, like the end of their work, sleep till the tick of that event.
 	 * 
 	 * @param dt
 	 * 		The time by which to advance, expressed in seconds.
 	 * 
-	 * @effect The time will advance for all units
-	 * @effect The time will advance for all items
+	 * @effect The pending path searches are continued, in parallel if there is a tick pool
+	 * @effect The sleeping units whose event happens in this tick wake up
+	 * @effect The time will advance for all units that do not sleep, in the order they were added
+	 * 		since they change the terrain, the items and each other,
+	 * 		with a tick pool the units first decide in parallel and then change the world in that order
+	 * 		| if (isParallelTick())
+	 * 		|	then advanceUnitsInParallel(dt)
+	 * @effect The units that wait for an event after this tick fall asleep
+	 * @effect The time will advance for all items, in the order they were added
 	 */
 	public void advanceTime(double dt) throws IllegalArgumentException, IllegalStateException{
 		
 		if (!isValidDuration(dt))
 			throw new IllegalArgumentException();
 		
-		//UNITS
-		for(Unit unit: this.units){
-			unit.advanceTime(dt);	
+		//the GUI is told about the terrain changes of this tick at once
+		this.startCollectingTerrainChanges();
+		try{
+			//PATH SEARCHES
+			this.advancePathSearches();
+			
+			//UNITS
+			this.nbTicks++;
+			this.tickDuration = dt;
+			this.wakeUpDueUnits();
+			this.advancingUnits = true;
+			try{
+				if(this.isParallelTick())
+					this.advanceUnitsInParallel(dt);
+				else
+					for(Unit unit: this.units){
+						unit.setLastTick(this.nbTicks);
+						if(unit.isSleeping())
+							continue;
+						unit.advanceTime(dt);
+						this.nbUnitAdvances++;
+						if(unit.isAlive() && unit.getWorld() == this)
+							this.putToSleep(unit);
+					}
+			}
+			finally{
+				this.advancingUnits = false;
+				this.gameTime += dt;
+			}
+			//ITEMS
+			for(Item item: this.items){
+				item.advanceTime(dt);
+			}
 		}
-		//ITEMS
-		for(Item item: this.items){
-			item.advanceTime(dt);
+		finally{
+			this.stopCollectingTerrainChanges();
 		}
 		
 	}
@@ -739,7 +2237,7 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	 */
 	@Basic @Raw
 	public Set<Faction> getAllFactions(){
-		return new HashSet<>(factions);
+		return new LinkedHashSet<>(factions);
 	}
 	
 	/**
@@ -885,6 +2383,10 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	 *       |     (! unit.isTerminated()) )
 	 */
 	private Set<Unit> units;
+	/**
+	 * Variable registering the units of this world by the cube they are in
+	 */
+	private final SpatialIndex<Unit> unitIndex = new SpatialIndex<>(this, Unit::getPosition);
 	
 	//------------------------GETTERS
 	
@@ -893,7 +2395,7 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	 */
 	@Basic @Raw
 	public Set<Unit> getAllUnits() {
-		Set<Unit> AllUnits = new HashSet<>(units);
+		Set<Unit> AllUnits = new LinkedHashSet<>(units);
 		return AllUnits;
 	}
 	
@@ -938,6 +2440,9 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 			//ADDING UNIT TO WORLD
 			this.units.add(unit);
 			unit.setWorld(this);
+			//every unit draws its own random numbers, so units advanced at the same time draw the same numbers in every run
+			unit.setRandom(new Random(this.getSeed() ^ (0x9E3779B97F4A7C15L * ++this.nbAddedUnits)));
+			this.unitIndex.update(unit, getCubeIndex(unit.getPosition()));
 			
 			//ADDING UNIT TO FACTION
 			Faction faction = this.getFactionForUnit(unit);
@@ -968,7 +2473,9 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	public void removeUnit(Unit unit) throws IllegalArgumentException {
 		if(!this.hasAsUnit(unit) || !(unit.getWorld() == this))
 			throw new IllegalArgumentException("invalid unit to remove from this world");
+		unit.wakeUp();
 		units.remove(unit);
+		unitIndex.remove(unit);
 		unit.setWorld(null);
 
 	}
@@ -1034,15 +2541,98 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 			throw new IllegalArgumentException("Given position is invalid");
 		}
 		
-		List<Unit> AllUnits = new ArrayList<>();
-		
-		for (Unit unit: this.units) {
-			if (Utils.equals(position, Utils.getCubePosition(unit.getPosition()))) {
-				AllUnits.add(unit);
-			}
-		}
-		
-		return AllUnits;
+		return this.unitIndex.getObjectsInCube(getCubeIndex(position[0], position[1], position[2]));
+	}
+	
+	/**
+	 * Returns all units within the given distance of the given position
+	 * 
+	 * @param center
+	 * 		the position to measure from
+	 * @param radius
+	 * 		the maximal distance
+	 * @return
+	 * 		A new list of all units with positions within the distance
+	 */
+	public List<Unit> getUnitsInRadius(double[] center, double radius){
+		return this.unitIndex.getObjectsInRadius(center, radius);
+	}
+	
+	/**
+	 * Returns all units and items of this world with a position in the given box
+	 * 
+	 * @param low
+	 * 		the lowest corner of the box, included
+	 * @param high
+	 * 		the highest corner of the box, excluded
+	 * @return
+	 * 		A new set of all units and items with positions in the box
+	 */
+	public Set<IGameObject> getGameObjectsInBox(double[] low, double[] high){
+		Set<IGameObject> result = new HashSet<>();
+		this.unitIndex.collectObjectsInBox(low, high, result);
+		this.boulderIndex.collectObjectsInBox(low, high, result);
+		this.logIndex.collectObjectsInBox(low, high, result);
+		return result;
+	}
+	
+	/**
+	 * Returns all units of this world with a position in the given box
+	 * 
+	 * @param low
+	 * 		the lowest corner of the box, included
+	 * @param high
+	 * 		the highest corner of the box, excluded
+	 * @return
+	 * 		A new set of all units with positions in the box
+	 */
+	public Set<Unit> getUnitsInBox(double[] low, double[] high){
+		Set<Unit> result = new HashSet<>();
+		this.unitIndex.collectObjectsInBox(low, high, result);
+		return result;
+	}
+	
+	/**
+	 * Returns all boulders of this world with a position in the given box
+	 * 
+	 * @param low
+	 * 		the lowest corner of the box, included
+	 * @param high
+	 * 		the highest corner of the box, excluded
+	 * @return
+	 * 		A new set of all boulders with positions in the box
+	 */
+	public Set<Boulder> getBouldersInBox(double[] low, double[] high){
+		Set<Boulder> result = new HashSet<>();
+		this.boulderIndex.collectObjectsInBox(low, high, result);
+		return result;
+	}
+	
+	/**
+	 * Returns all logs of this world with a position in the given box
+	 * 
+	 * @param low
+	 * 		the lowest corner of the box, included
+	 * @param high
+	 * 		the highest corner of the box, excluded
+	 * @return
+	 * 		A new set of all logs with positions in the box
+	 */
+	public Set<Log> getLogsInBox(double[] low, double[] high){
+		Set<Log> result = new HashSet<>();
+		this.logIndex.collectObjectsInBox(low, high, result);
+		return result;
+	}
+	
+	/**
+	 * Register the cube the given unit is in after it moved to another cube
+	 * 
+	 * @param unit
+	 * 		the unit that moved
+	 */
+	void updatePosition(Unit unit){
+		if(this.hasAsUnit(unit))
+			this.unitIndex.update(unit, getCubeIndex(unit.getPosition()));
 	}
 	
 	
@@ -1050,28 +2640,40 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	//------------------------HELPERS
 	
 	/**
-	 * Gives back a random location for a unit
+	 * Gives back a random location for a unit, drawn by this world
+	 * 
+	 * @return | result == getRandomPositionForUnit(the random draws of this world)
+	 */
+	@Raw
+	public int[] getRandomPositionForUnit() {
+		return this.getRandomPositionForUnit(this.random);
+	}
+	
+	/**
+	 * Gives back a random location for a unit, drawn by the given random generator
 	 * 
+	 * @param random
+	 * 		the random generator drawing the position
 	 * @return a random position for a unit inside the game world
 	 * 			The type where the unit is located is non solid
 	 * 			The type where the unit is non solid or is ground level
 	 */
 	@Raw
-	public int[] getRandomPositionForUnit() {
+	public int[] getRandomPositionForUnit(Random random) {
 		
 		int nbX = this.getNbCubesX();
 		int nbY = this.getNbCubesY();
 		int nbZ = this.getNbCubesZ();
 		
-		int X = (int) (Math.random()*nbX);
-		int Y = (int) (Math.random()*nbY);
-		int Z = (int) (Math.random()*nbZ);
+		int X = random.nextInt(nbX);
+		int Y = random.nextInt(nbY);
+		int Z = random.nextInt(nbZ);
 		
 		//get a random non solid location
 		while(isSolidCube(new int[]{X,Y,Z})){
-			X = (int) (Math.random()*nbX);
-			Y = (int) (Math.random()*nbY);
-			Z = (int) (Math.random()*nbZ);	
+			X = random.nextInt(nbX);
+			Y = random.nextInt(nbY);
+			Z = random.nextInt(nbZ);	
 		};
 		// go down till you hit ground or level 0
 		while( Z != 0 && !isSolidCube(new int[]{X,Y,Z-1})){
@@ -1092,7 +2694,7 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	 */
 	public Unit createRandomUnit(boolean enableDefaultBehavior){
 		
-		Random rand = new Random();
+		Random rand = this.random;
 		int MIN = 25;
 		int MAX = 100;
 		
@@ -1129,6 +2731,11 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 	 *       |     (! item.isTerminated()) )
 	 */
 	private Set<Item> items;
+	/**
+	 * Variables registering the boulders and logs of this world by the cube they are in
+	 */
+	private final SpatialIndex<Boulder> boulderIndex = new SpatialIndex<>(this, Boulder::getPosition);
+	private final SpatialIndex<Log> logIndex = new SpatialIndex<>(this, Log::getPosition);
 	
 	/**
 	 * Check whether this World has the given Item as one of its
@@ -1207,6 +2814,8 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 			throw new IllegalArgumentException();
 		items.add(item);
 		item.setWorld(this);
+		if(item.hasPosition())
+			this.updateItemIndex(item);
 	}
 	
 	/**
@@ -1227,6 +2836,10 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 		if(!this.hasAsItem(item) || item.getWorld() != this)
 			throw new IllegalArgumentException();
 		items.remove(item);
+		if(item instanceof Boulder)
+			boulderIndex.remove((Boulder) item);
+		else
+			logIndex.remove((Log) item);
 		item.setWorld(null);
 	}
 	
@@ -1259,17 +2872,76 @@ public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws
 			throw new IllegalArgumentException("Given position is invalid");
 		}
 		
-		List<Item> AllItems = new ArrayList<Item>();
-		
-		for (Item item : this.items) {
-			if (Utils.equals(position, Utils.getCubePosition(item.getPosition()))) {
-				AllItems.add(item);
-			}
-		}
-		
+		int index = getCubeIndex(position[0], position[1], position[2]);
+		List<Item> AllItems = new ArrayList<Item>(this.boulderIndex.getObjectsInCube(index));
+		AllItems.addAll(this.logIndex.getObjectsInCube(index));
 		return AllItems;
 	}
 	
+	/**
+	 * Returns all items within the given distance of the given position
+	 * 
+	 * @param center
+	 * 		the position to measure from
+	 * @param radius
+	 * 		the maximal distance
+	 * @return
+	 * 		A new list of all items with positions within the distance
+	 */
+	public List<Item> getItemsInRadius(double[] center, double radius){
+		List<Item> result = new ArrayList<Item>(this.boulderIndex.getObjectsInRadius(center, radius));
+		result.addAll(this.logIndex.getObjectsInRadius(center, radius));
+		return result;
+	}
+	
+	/**
+	 * Register the cube the given item is in after it moved to another cube
+	 * 
+	 * @param item
+	 * 		the item that moved
+	 */
+	void updatePosition(Item item){
+		if(this.hasAsItem(item))
+			this.updateItemIndex(item);
+	}
+	
+	/**
+	 * Register the given item in the index of its kind, in the cube it is in
+	 */
+	@Model
+	private void updateItemIndex(Item item){
+		if(item instanceof Boulder)
+			this.boulderIndex.update((Boulder) item, getCubeIndex(item.getPosition()));
+		else
+			this.logIndex.update((Log) item, getCubeIndex(item.getPosition()));
+	}
+	
+	/**
+	 * Return the item of the given kind nearest to the given position,
+	 * 	that a unit standing on the given position can reach
+	 * 
+	 * @param type
+	 * 		the kind of item, Boulder or Log
+	 * @param position
+	 * 		the position to measure from
+	 * @return an item of the given kind, in a cube reachable from the cube of the given position,
+	 * 		with the least distance to the given position, or null if there is none
+	 * 		| for each item in getAllItems():
+	 * 		|	if type.isInstance(item) && isReachable(getCubeIndex(position), getCubeIndex(item.getPosition()))
+	 * 		|	then distance(result, position) <= distance(item, position)
+	 * @throws IllegalArgumentException
+	 * 		| type != Boulder.class && type != Log.class
+	 */
+	public <T extends Item> T getNearestItem(Class<T> type, double[] position) throws IllegalArgumentException{
+		int from = getCubeIndex(position);
+		Predicate<Item> reachable = (Item item) -> isReachable(from, getCubeIndex(item.getPosition()));
+		if(type == Boulder.class)
+			return type.cast(this.boulderIndex.findNearest(position, reachable));
+		if(type == Log.class)
+			return type.cast(this.logIndex.findNearest(position, reachable));
+		throw new IllegalArgumentException();
+	}
+	
 	/**
 	 * Returns a random item on the give position or null
 	 * 
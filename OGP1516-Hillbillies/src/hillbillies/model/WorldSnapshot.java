@@ -0,0 +1,151 @@
+package hillbillies.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+/**
+ * A class of snapshots of a world, taken between two ticks of a SimulationDriver
+ *
+ * A snapshot never changes after it is taken, so a view may read it on any thread
+ * while the simulation goes on.
+ *
+ * @Invar The number of ticks is never negative
+ * 		| getNbTicks() >= 0
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class WorldSnapshot {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * the number of ticks done before this snapshot was taken
+	 */
+	private final long nbTicks;
+	/*
+	 * the game time simulated before this snapshot was taken
+	 */
+	private final double gameTime;
+	/*
+	 * the positions of the units in the world, by unit
+	 */
+	private final Map<Unit,double[]> unitPositions;
+	/*
+	 * the positions of the items in the world, by item
+	 */
+	private final Map<Item,double[]> itemPositions;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize a snapshot of the given world
+	 *
+	 * @param world
+	 * 		the world to take a snapshot of
+	 * @param nbTicks
+	 * 		the number of ticks done before the snapshot is taken
+	 * @param gameTime
+	 * 		the game time simulated before the snapshot is taken
+	 * @post | new.getNbTicks() == nbTicks && new.getGameTime() == gameTime
+	 * @post | for each unit in world.getAllUnits():
+	 * 		|	Arrays.equals(new.getPosition(unit), unit.getPosition())
+	 * @post | for each item in world.getAllItems():
+	 * 		|	Arrays.equals(new.getPosition(item), item.getPosition())
+	 * @throws IllegalArgumentException
+	 * 		| world == null || nbTicks < 0
+	 */
+	WorldSnapshot(World world, long nbTicks, double gameTime) throws IllegalArgumentException{
+		if(world == null || nbTicks < 0)
+			throw new IllegalArgumentException();
+		this.nbTicks = nbTicks;
+		this.gameTime = gameTime;
+		Map<Unit,double[]> units = new LinkedHashMap<>();
+		for(Unit unit: world.getAllUnits())
+			units.put(unit, unit.getPosition());
+		this.unitPositions = Collections.unmodifiableMap(units);
+		Map<Item,double[]> items = new LinkedHashMap<>();
+		for(Item item: world.getAllItems())
+			items.put(item, item.getPosition());
+		this.itemPositions = Collections.unmodifiableMap(items);
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------INSPECTORS---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Return the number of ticks done before this snapshot was taken
+	 */
+	@Basic @Immutable
+	public long getNbTicks() {
+		return this.nbTicks;
+	}
+
+	/**
+	 * Return the game time simulated before this snapshot was taken
+	 */
+	@Basic @Immutable
+	public double getGameTime() {
+		return this.gameTime;
+	}
+
+	/**
+	 * Return the units of the world when this snapshot was taken
+	 */
+	@Immutable
+	public Set<Unit> getUnits() {
+		return this.unitPositions.keySet();
+	}
+
+	/**
+	 * Return the items of the world when this snapshot was taken
+	 */
+	@Immutable
+	public Set<Item> getItems() {
+		return this.itemPositions.keySet();
+	}
+
+	/**
+	 * Return the position of the given unit when this snapshot was taken
+	 *
+	 * @return null if the unit was not in the world
+	 * 		| if(!getUnits().contains(unit))
+	 * 		|	then result == null
+	 */
+	@Immutable
+	public double[] getPosition(Unit unit) {
+		double[] position = this.unitPositions.get(unit);
+		return position == null? null : position.clone();
+	}
+
+	/**
+	 * Return the position of the given item when this snapshot was taken
+	 *
+	 * @return null if the item was not in the world
+	 * 		| if(!getItems().contains(item))
+	 * 		|	then result == null
+	 */
+	@Immutable
+	public double[] getPosition(Item item) {
+		double[] position = this.itemPositions.get(item);
+		return position == null? null : position.clone();
+	}
+}
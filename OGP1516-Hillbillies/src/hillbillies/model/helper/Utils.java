@@ -79,6 +79,18 @@ public class Utils {
 		return cubePosition;
 		}
 
+	/**
+	 * Checks whether the given positions lie in the same cube
+	 * 
+	 * @return
+	 * 		| result == equals(getCubePosition(position1), getCubePosition(position2))
+	 */
+	public static boolean inSameCube(double[] position1, double[] position2){
+		return Math.floor(position1[0]) == Math.floor(position2[0]) &&
+				Math.floor(position1[1]) == Math.floor(position2[1]) &&
+				Math.floor(position1[2]) == Math.floor(position2[2]);
+	}
+
 	/**
 	 * Gives back the position of the center of the cube with the given position
 	 * 
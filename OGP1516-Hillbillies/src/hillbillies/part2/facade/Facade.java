@@ -61,8 +61,7 @@ public class Facade extends hillbillies.part1.facade.Facade implements IFacade {
 	@Override
 	public int getCubeType(World world, int x, int y, int z) throws ModelException {
 		try {
-			int[] position = {x,y,z};
-			return world.getCubeType(position);
+			return world.getCubeType(x, y, z);
 		} catch (IllegalArgumentException e) {
 			throw new ModelException(e);
 		}
@@ -170,4 +169,19 @@ public class Facade extends hillbillies.part1.facade.Facade implements IFacade {
 		return world.getAllLogs();
 	}
 
+	@Override
+	public Set<Unit> getUnitsInBox(World world, double[] low, double[] high) throws ModelException {
+		return world.getUnitsInBox(low, high);
+	}
+
+	@Override
+	public Set<Boulder> getBouldersInBox(World world, double[] low, double[] high) throws ModelException {
+		return world.getBouldersInBox(low, high);
+	}
+
+	@Override
+	public Set<Log> getLogsInBox(World world, double[] low, double[] high) throws ModelException {
+		return world.getLogsInBox(low, high);
+	}
+
 }
@@ -0,0 +1,340 @@
+package hillbillies.part3;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import hillbillies.model.Faction;
+import hillbillies.model.Scheduler;
+import hillbillies.model.SimulationDriver;
+import hillbillies.model.Task;
+import hillbillies.model.World;
+import hillbillies.part2.internal.map.GameMap;
+import hillbillies.part2.internal.map.GameMapReader;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.facade.Facade;
+import hillbillies.part3.programs.TaskParser;
+import ogp.framework.util.ModelException;
+
+/**
+ * A class running a Hillbillies scenario without a view, to measure how fast worlds and tasks are simulated
+ *
+ * The world is loaded from a .wrld file or resource and built through the facade of part 3,
+ * the units are spawned with their default behavior, and every faction gets the tasks of the
+ * given task files. The world is then advanced a fixed number of ticks as fast as possible.
+ *
+ * Usage: HeadlessRunner world.wrld nbUnits nbTicks [seed=N] [tasks.txt | x,y,z ...]
+ * 	where N seeds the random draws of the world, 0 by default,
+ * 	and x,y,z are the cubes selected for the tasks
+ *
+ * @author Holger Willems |2e bach. ing.: OOP
+ * @date 16/05/2016
+ * @Version 3.0
+ *
+ */
+public class HeadlessRunner {
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------VARIABLES---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/*
+	 * the game time of one tick
+	 */
+	public static final double TICK_DURATION = 0.1;
+
+	/*
+	 * the facade the scenario is built with
+	 */
+	private final Facade facade = new Facade();
+	/*
+	 * the file or resource holding the world
+	 */
+	private final String worldFile;
+	/*
+	 * the number of units to spawn
+	 */
+	private final int nbUnits;
+	/*
+	 * the number of ticks to simulate
+	 */
+	private final long nbTicks;
+	/*
+	 * the files holding the tasks for every faction
+	 */
+	private final List<String> taskFiles;
+	/*
+	 * the cubes selected for the tasks
+	 */
+	private final List<int[]> selectedCubes;
+	/*
+	 * the seed of the random draws of the world, the spawn positions among them
+	 */
+	private final long seed;
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------CONSTRUCTOR---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Initialize a runner for the given scenario
+	 *
+	 * @param worldFile
+	 * 		the file or resource holding the world
+	 * @param nbUnits
+	 * 		the number of units to spawn
+	 * @param nbTicks
+	 * 		the number of ticks to simulate
+	 * @param taskFiles
+	 * 		the files holding the tasks for every faction
+	 * @param selectedCubes
+	 * 		the cubes selected for the tasks
+	 * @param seed
+	 * 		the seed of the random draws of the world, so that a scenario can be repeated
+	 * @throws IllegalArgumentException
+	 * 		| worldFile == null || nbUnits < 0 || nbTicks < 0 || taskFiles == null || selectedCubes == null
+	 */
+	public HeadlessRunner(String worldFile, int nbUnits, long nbTicks, List<String> taskFiles,
+			List<int[]> selectedCubes, long seed) throws IllegalArgumentException{
+		if(worldFile == null || nbUnits < 0 || nbTicks < 0 || taskFiles == null || selectedCubes == null)
+			throw new IllegalArgumentException();
+		this.worldFile = worldFile;
+		this.nbUnits = nbUnits;
+		this.nbTicks = nbTicks;
+		this.taskFiles = new ArrayList<>(taskFiles);
+		this.selectedCubes = new ArrayList<>(selectedCubes);
+		this.seed = seed;
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------RUNNING---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * Build the scenario and simulate its ticks
+	 *
+	 * @return the report of the simulated ticks
+	 * @throws IOException
+	 * 		the world or a task file can not be read
+	 * @throws ModelException
+	 * 		the scenario can not be built, or a task file can not be parsed
+	 */
+	public Report run() throws IOException, ModelException{
+		World world = new World(readTypes(this.worldFile), new DefaultTerrainChangeListener(), this.seed);
+		for(int i=0; i<this.nbUnits; i++)
+			this.facade.spawnUnit(world, true);
+
+		List<Task> tasks = new ArrayList<>();
+		for(Faction faction: this.facade.getActiveFactions(world)){
+			Scheduler scheduler = this.facade.getScheduler(faction);
+			for(String taskFile: this.taskFiles){
+				List<Task> parsed = TaskParser.parseTasksFromFile(taskFile, this.facade.createTaskFactory(),
+						this.selectedCubes);
+				if(parsed == null)
+					throw new ModelException("Parsing file " + taskFile + " failed.");
+				for(Task task: parsed){
+					this.facade.schedule(scheduler, task);
+					tasks.add(task);
+				}
+			}
+		}
+
+		SimulationDriver driver = new SimulationDriver(world, TICK_DURATION);
+		int nbFailedTicks = 0;
+		long start = System.nanoTime();
+		while(driver.getNbTicks() < this.nbTicks){
+			try{
+				driver.fastForward(this.nbTicks - driver.getNbTicks());
+			}
+			//a model exception thrown out of a tick cuts it short, like in the game the simulation
+			//	goes on with the next tick; errors are bugs and end the run
+			catch(RuntimeException e){
+				nbFailedTicks++;
+			}
+		}
+		long duration = System.nanoTime() - start;
+
+		int nbCompleted = 0;
+		for(Task task: tasks)
+			if(task.isTerminated())
+				nbCompleted++;
+		return new Report(this.nbTicks, duration, nbFailedTicks, world.getNbUnits(), world.getNbPathFindings(),
+				world.getNbExpandedCubes(), world.getPathCache().getNbHits(), tasks.size(), nbCompleted);
+	}
+
+	/**
+	 * Read the terrain types of the world in the given file, or in the given resource if there is no such file
+	 *
+	 * @throws IOException
+	 * 		the world can not be read
+	 */
+	private static int[][][] readTypes(String worldFile) throws IOException{
+		GameMapReader reader = new GameMapReader();
+		GameMap map = new File(worldFile).isFile()? reader.readFromFile(worldFile) : reader.readFromResource(worldFile);
+		int[][][] types = new int[map.getNbTilesX()][map.getNbTilesY()][map.getNbTilesZ()];
+		for(int x=0; x<types.length; x++)
+			for(int y=0; y<types[x].length; y++)
+				for(int z=0; z<types[x][y].length; z++)
+					types[x][y][z] = map.getTypeAt(x, y, z).getByteValue();
+		return types;
+	}
+
+	/**
+	 * Run the scenario given on the command line and print its report
+	 */
+	public static void main(String[] args) throws IOException, ModelException{
+		if(args.length < 3){
+			System.err.println("Usage: HeadlessRunner world.wrld nbUnits nbTicks [seed=N] [tasks.txt | x,y,z ...]");
+			System.exit(1);
+		}
+		List<String> taskFiles = new ArrayList<>();
+		List<int[]> selectedCubes = new ArrayList<>();
+		long seed = 0;
+		for(int i=3; i<args.length; i++){
+			if(args[i].matches("seed=-?\\d+"))
+				seed = Long.parseLong(args[i].substring("seed=".length()));
+			else if(args[i].matches("\\d+,\\d+,\\d+"))
+				selectedCubes.add(Arrays.stream(args[i].split(",")).mapToInt(Integer::parseInt).toArray());
+			else
+				taskFiles.add(args[i]);
+		}
+		HeadlessRunner runner = new HeadlessRunner(args[0], Integer.parseInt(args[1]), Long.parseLong(args[2]),
+				taskFiles, selectedCubes, seed);
+		System.out.println(runner.run());
+	}
+
+	/*___________________________________________________________________
+	 * __________________________________________________________________
+	 * -----------------------REPORT---------------------------------
+	 *___________________________________________________________________
+	 *___________________________________________________________________*/
+
+	/**
+	 * A class of reports of a simulated scenario
+	 */
+	public static class Report {
+
+		private final long nbTicks;
+		private final long duration;
+		private final int nbFailedTicks;
+		private final int nbUnits;
+		private final long nbPathFindings;
+		private final long nbExpandedCubes;
+		private final int nbCachedPaths;
+		private final int nbTasks;
+		private final int nbCompletedTasks;
+
+		private Report(long nbTicks, long duration, int nbFailedTicks, int nbUnits, long nbPathFindings,
+				long nbExpandedCubes, int nbCachedPaths, int nbTasks, int nbCompletedTasks){
+			this.nbTicks = nbTicks;
+			this.duration = duration;
+			this.nbFailedTicks = nbFailedTicks;
+			this.nbUnits = nbUnits;
+			this.nbPathFindings = nbPathFindings;
+			this.nbExpandedCubes = nbExpandedCubes;
+			this.nbCachedPaths = nbCachedPaths;
+			this.nbTasks = nbTasks;
+			this.nbCompletedTasks = nbCompletedTasks;
+		}
+
+		/**
+		 * Return the number of simulated ticks
+		 */
+		@Basic @Immutable
+		public long getNbTicks() {
+			return this.nbTicks;
+		}
+
+		/**
+		 * Return the wall clock time the ticks took, in nanoseconds
+		 */
+		@Basic @Immutable
+		public long getDuration() {
+			return this.duration;
+		}
+
+		/**
+		 * Return the number of ticks simulated per second of wall clock time
+		 */
+		@Immutable
+		public double getTicksPerSecond() {
+			return this.duration == 0? Double.POSITIVE_INFINITY : this.nbTicks/(this.duration/1e9);
+		}
+
+		/**
+		 * Return the number of ticks cut short by a runtime exception thrown out of the world
+		 */
+		@Basic @Immutable
+		public int getNbFailedTicks() {
+			return this.nbFailedTicks;
+		}
+
+		/**
+		 * Return the number of units still in the world after the ticks
+		 */
+		@Basic @Immutable
+		public int getNbUnits() {
+			return this.nbUnits;
+		}
+
+		/**
+		 * Return the number of pathFindings started, during the setup and the ticks
+		 */
+		@Basic @Immutable
+		public long getNbPathFindings() {
+			return this.nbPathFindings;
+		}
+
+		/**
+		 * Return the number of cubes expanded by path searches
+		 */
+		@Basic @Immutable
+		public long getNbExpandedCubes() {
+			return this.nbExpandedCubes;
+		}
+
+		/**
+		 * Return the number of paths taken from the path cache
+		 */
+		@Basic @Immutable
+		public int getNbCachedPaths() {
+			return this.nbCachedPaths;
+		}
+
+		/**
+		 * Return the number of scheduled tasks
+		 */
+		@Basic @Immutable
+		public int getNbTasks() {
+			return this.nbTasks;
+		}
+
+		/**
+		 * Return the number of scheduled tasks that were completed
+		 */
+		@Basic @Immutable
+		public int getNbCompletedTasks() {
+			return this.nbCompletedTasks;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("ticks: %d in %.3f s (%.1f ticks/s, %d cut short)%n"
+					+ "units: %d%n"
+					+ "pathFindings: %d (%d cubes expanded, %d paths from the cache)%n"
+					+ "tasks completed: %d of %d",
+					nbTicks, duration/1e9, getTicksPerSecond(), nbFailedTicks, nbUnits,
+					nbPathFindings, nbExpandedCubes, nbCachedPaths, nbCompletedTasks, nbTasks);
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package hillbillies.statement;
+
+import hillbillies.expression.Expression;
+import hillbillies.model.TaskHandler;
+
+/**
+ * A statement performing an action with the value of its expression
+ */
+public abstract class ActionStatement extends Statement {
+
+	protected ActionStatement(Expression<?> expression) {
+		super(expression);
+	}
+
+	/**
+	 * Evaluate the expression of the statement and perform its action with the value
+	 * 
+	 * @effect | perform(taskHandler, getExpression().evaluate(taskHandler))
+	 */
+	@Override
+	public void execute(TaskHandler taskHandler) {
+		perform(taskHandler, getExpression().evaluate(taskHandler));
+	}
+
+	/**
+	 * A method to perform the action of the statement with the given value of its expression
+	 * 
+	 * @param taskHandler
+	 * 		the handler of the task
+	 * @param value
+	 * 		the value of the expression of this statement
+	 */
+	public abstract void perform(TaskHandler taskHandler, Object value);
+
+}
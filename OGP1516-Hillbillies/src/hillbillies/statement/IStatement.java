@@ -12,14 +12,4 @@ public interface IStatement {
 	 */
 	void execute(TaskHandler taskHandler);
 
-	/**
-	 * @return the previous
-	 */
-	IStatement getPrevious();
-
-	/**
-	 * @return the next
-	 */
-	IStatement getNext();
-
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package hillbillies.statement;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import hillbillies.expression.booleanExpression.True;
 import hillbillies.model.TaskHandler;
@@ -7,25 +9,25 @@ import hillbillies.model.TaskHandler;
 public class Sequence extends Statement {
 
 	private final List<Statement> statements;
-	private int counter;
 
 	public Sequence(List<Statement> statements) {
 		super(new True());
-		this.statements = statements;
-		for(Statement statement: statements)
-			statement.setPrevious(this);
+		this.statements = Collections.unmodifiableList(new ArrayList<>(statements));
 	}
 
+	/**
+	 * Execute the statements of this sequence one after the other
+	 * 
+	 * @throws IllegalStateException
+	 * 		a break is only executed in the program of a task
+	 * 		| getStatements().contains(null)
+	 */
 	@Override
-	public void execute(TaskHandler taskHandler) {
-		if(getNext() == null){
-			setCounter(0);
-		}
-		if(getCounter()<statements.size()){
-			setNext(statements.get(getCounter()));
-			setCounter(getCounter() + 1);
-		}else{
-			setNext(null);	
+	public void execute(TaskHandler taskHandler) throws IllegalStateException {
+		for(Statement statement: getStatements()){
+			if(statement == null)
+				throw new IllegalStateException("break outside the program of a task");
+			statement.execute(taskHandler);
 		}
 	}
 
@@ -35,18 +37,4 @@ public class Sequence extends Statement {
 	public List<Statement> getStatements() {
 		return statements;
 	}
-
-	/**
-	 * @return the counter
-	 */
-	public int getCounter() {
-		return counter;
-	}
-
-	/**
-	 * @param counter the counter to set
-	 */
-	public void setCounter(int counter) {
-		this.counter = counter;
-	}
 }
@@ -4,25 +4,28 @@ import be.kuleuven.cs.som.annotate.Model;
 import hillbillies.expression.Expression;
 import hillbillies.model.TaskHandler;
 
+/**
+ * A statement of a task
+ * 
+ * A statement is never changed once it is created, so the statements of one activity
+ * 	can be shared by all the tasks and units executing it. Where a unit is in the activity
+ * 	is kept in the execution frame of its task handler.
+ */
 public abstract class Statement implements IStatement{	
 	
 private final Expression<?> expression;
-private Statement next;
-private Statement previous;
 
 
 /**
- * Initialize this new S with given sourceLocation.
+ * Initialize this new Statement with given expression.
  * 
- * @post   The sourceLocation of this new S is equal to the given
- *         sourceLocation.
- *       | new.getSourceLocation() == sourceLocation
+ * @post   The expression of this new Statement is equal to the given
+ *         expression.
+ *       | new.getExpression() == expression
  */ 
 @Model
 protected Statement(Expression<?> expression){
 	this.expression = expression;
-	this.setNext(null);
-	this.setPrevious(null);	
 }
 
 //ATTRIBUTES
@@ -47,36 +50,6 @@ public Expression<?> getExpression() {
 @Override
 public abstract void execute(TaskHandler taskHandler);
 
-/**
- * @return the previous
- */
-@Override
-public Statement getPrevious() {
-	return previous;
-}
-
-/**
- * @param previous the previous to set
- */
-public void setPrevious(Statement previous) {
-	this.previous = previous;
-}
-
-/**
- * @return the next
- */
-@Override
-public Statement getNext() {
-	return next;
-}
-
-/**
- * @param next the next to set
- */
-public void setNext(Statement next) {
-	this.next = next;
-}
-
 
 
 
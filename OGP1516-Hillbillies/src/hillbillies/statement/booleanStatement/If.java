@@ -16,18 +16,22 @@ public class If extends Statement {
 		this.elseBody = elseBody;
 	}
 
+	/**
+	 * Execute the if body if the condition holds, the else body if there is one otherwise
+	 * 
+	 * @throws IllegalStateException
+	 * 		a break is only executed in the program of a task
+	 * 		| getIfBody() == null && getExpression().evaluate(taskHandler)
+	 */
 	@Override
-	public void execute(TaskHandler taskHandler) {
-		
+	public void execute(TaskHandler taskHandler) throws IllegalStateException {
 		if((boolean) getExpression().evaluate(taskHandler)){
-			setNext(getIfBody());
-			getIfBody().setPrevious(getPrevious());
-			
-		}else if(getElseBody()!=null){
-			setNext(getElseBody());
-			getElseBody().setPrevious(getPrevious());
-		} else
-			setNext(null);
+			if(getIfBody() == null)
+				throw new IllegalStateException("break outside the program of a task");
+			getIfBody().execute(taskHandler);
+		}
+		else if(getElseBody()!=null)
+			getElseBody().execute(taskHandler);
 	}
 	
 	/**
@@ -7,20 +7,27 @@ import hillbillies.statement.Statement;
 public class While extends Statement {
  
 
-	private Statement body;
+	private final Statement body;
 
 	public While(Expression<Boolean> condition, Statement body) {
 		super(condition);
 		this.body = body;
 	}
 
+	/**
+	 * Execute the body as long as the condition holds
+	 * 
+	 * @throws IllegalStateException
+	 * 		a break is only executed in the program of a task
+	 * 		| getBody() == null && getExpression().evaluate(taskHandler)
+	 */
 	@Override
-	public void execute(TaskHandler taskHandler) {
-		if((boolean) getExpression().evaluate(taskHandler)){
-			setNext(getBody());
-			getBody().setPrevious(this);
-		}	else
-			setNext(null);
+	public void execute(TaskHandler taskHandler) throws IllegalStateException {
+		while((boolean) getExpression().evaluate(taskHandler)){
+			if(getBody() == null)
+				throw new IllegalStateException("break outside the program of a task");
+			getBody().execute(taskHandler);
+		}
 	}
 
 	/**
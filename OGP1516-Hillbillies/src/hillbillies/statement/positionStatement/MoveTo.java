@@ -4,25 +4,31 @@ import hillbillies.expression.Expression;
 import hillbillies.model.TaskHandler;
 import hillbillies.model.Unit;
 import hillbillies.model.helper.CubePosition;
-import hillbillies.statement.Statement;
+import hillbillies.statement.ActionStatement;
 
-public class MoveTo extends Statement {
+public class MoveTo extends ActionStatement {
 
 	public MoveTo(Expression<CubePosition> position) {
 		super(position);
 	}
 
+	/**
+	 * Let the unit of the handler move to the given cube
+	 * 
+	 * @effect | taskHandler.getUnit().moveTo(((CubePosition) value).toArray())
+	 * @throws IllegalStateException
+	 * 		the expression has no cube to move to
+	 * 		| value == null
+	 * @throws IllegalArgumentException
+	 * 		the unit can not move to the cube, as thrown by moveTo
+	 * 		the handler catches these exceptions and interrupts the task
+	 */
 	@Override
-	public void execute(TaskHandler taskHandler) {
+	public void perform(TaskHandler taskHandler, Object value) throws IllegalArgumentException, IllegalStateException{
+		if(value == null)
+			throw new IllegalStateException("no cube to move to");
 		Unit unit = taskHandler.getUnit();
-		try{
-			int[] cube = ((CubePosition) getExpression().evaluate(taskHandler)).toArray();
-			unit.moveTo(cube);
-		}catch(Exception e){
-			taskHandler.interruptTask();
-			System.out.println(e.toString());
-			throw new Error("moveTo not executable");
-		}
+		unit.moveTo(((CubePosition) value).toArray());
 	}
 
 }
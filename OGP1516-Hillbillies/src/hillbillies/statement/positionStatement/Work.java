@@ -5,26 +5,31 @@ import hillbillies.expression.Expression;
 import hillbillies.model.TaskHandler;
 import hillbillies.model.Unit;
 import hillbillies.model.helper.CubePosition;
-import hillbillies.statement.Statement;
+import hillbillies.statement.ActionStatement;
 
-public class Work extends Statement {
+public class Work extends ActionStatement {
 
 	public Work(Expression<CubePosition> position) {
 		super(position);
 	}
 
+	/**
+	 * Let the unit of the handler work at the given cube
+	 * 
+	 * @effect | taskHandler.getUnit().workAt(((CubePosition) value).toArray())
+	 * @throws IllegalStateException
+	 * 		the expression has no cube to work at
+	 * 		| value == null
+	 * @throws IllegalArgumentException
+	 * 		the unit can not work at the cube, as thrown by workAt
+	 * 		the handler catches these exceptions and interrupts the task
+	 */
 	@Override
-	public void execute(TaskHandler taskHandler) {
+	public void perform(TaskHandler taskHandler, Object value) throws IllegalArgumentException, IllegalStateException{
+		if(value == null)
+			throw new IllegalStateException("no cube to work at");
 		Unit unit = taskHandler.getUnit();
-		try{
-			int[] cube = ((CubePosition) getExpression().evaluate(taskHandler)).toArray();
-			unit.workAt(cube);
-		} catch(Exception e){
-			taskHandler.interruptTask();
-			System.out.println(e.toString());
-			throw new Error("work not executable");
-		}
-
+		unit.workAt(((CubePosition) value).toArray());
 	}
 
 }
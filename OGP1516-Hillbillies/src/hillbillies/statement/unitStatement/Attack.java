@@ -3,28 +3,31 @@ package hillbillies.statement.unitStatement;
 import hillbillies.expression.Expression;
 import hillbillies.model.TaskHandler;
 import hillbillies.model.Unit;
-import hillbillies.statement.Statement;
+import hillbillies.statement.ActionStatement;
 
-public class Attack extends Statement {
+public class Attack extends ActionStatement {
 
 	public Attack(Expression<Unit> unit) {
 		super(unit);
 	}
 
+	/**
+	 * Let the unit of the handler attack the given unit
+	 * 
+	 * @effect | taskHandler.getUnit().attack((Unit) value)
+	 * @throws IllegalStateException
+	 * 		the expression has no unit to attack
+	 * 		| value == null
+	 * @throws IllegalArgumentException
+	 * 		the unit can not attack the given unit, as thrown by attack
+	 * 		the handler catches these exceptions and interrupts the task
+	 */
 	@Override
-	public void execute(TaskHandler taskHandler) {
+	public void perform(TaskHandler taskHandler, Object value) throws IllegalArgumentException, IllegalStateException{
+		if(value == null)
+			throw new IllegalStateException("no unit to attack");
 		Unit attacker = taskHandler.getUnit();
-		try{
-			Unit defender = (Unit) getExpression().evaluate(taskHandler);
-			attacker.attack(defender);
-			
-		} catch(Exception e){
-			taskHandler.interruptTask();
-			System.out.println(e.toString());
-			throw new Error("attack not executable ");
-		}
-		
-		
+		attacker.attack((Unit) value);
 	}
 
 }
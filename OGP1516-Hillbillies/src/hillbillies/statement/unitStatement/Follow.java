@@ -3,24 +3,30 @@ package hillbillies.statement.unitStatement;
 import hillbillies.expression.Expression;
 import hillbillies.model.TaskHandler;
 import hillbillies.model.Unit;
-import hillbillies.statement.Statement;
+import hillbillies.statement.ActionStatement;
 
-public class Follow extends Statement {
+public class Follow extends ActionStatement {
 
 	public Follow(Expression<Unit> unit) {
 		super(unit);
 	}
 
+	/**
+	 * Let the unit of the handler follow the given unit
+	 * 
+	 * @effect | taskHandler.getUnit().follow((Unit) value)
+	 * @throws IllegalStateException
+	 * 		the expression has no unit to follow
+	 * 		| value == null
+	 * @throws IllegalArgumentException
+	 * 		the unit can not follow the given unit, as thrown by follow
+	 * 		the handler catches these exceptions and interrupts the task
+	 */
 	@Override
-	public void execute(TaskHandler taskHandler) {
+	public void perform(TaskHandler taskHandler, Object value) throws IllegalArgumentException, IllegalStateException{
+		if(value == null)
+			throw new IllegalStateException("no unit to follow");
 		Unit stalker = taskHandler.getUnit();
-		try{
-			Unit leader = (Unit) getExpression().evaluate(taskHandler);
-			stalker.follow(leader);
-		} catch(Exception e){
-			taskHandler.interruptTask();
-			System.out.println(e.toString());
-			throw new Error("follow not executable");
-		}
+		stalker.follow((Unit) value);
 	}
 }
\ No newline at end of file
@@ -7,16 +7,33 @@ import hillbillies.statement.Statement;
 public class Assignment extends Statement {
 	
 	private final String variableName;
+	private final int slot;
 
+	/**
+	 * Initialize an assignment to the variable with the given name, stored in the slot the program gives its name
+	 */
 	public Assignment(String variableName, Expression<?> value) {
+		this(variableName, value, -1);
+	}
+
+	/**
+	 * Initialize an assignment to the variable with the given name, stored in the given slot
+	 * 	of the frame executing it, or in the slot the program gives its name if the slot is negative
+	 */
+	public Assignment(String variableName, Expression<?> value, int slot) {
 		super(value);
 		this.variableName = variableName;
+		this.slot = slot;
 	}
 
+	/**
+	 * Evaluate the expression once and store its value in the variable
+	 * 
+	 * @effect | taskHandler.assign(getSlot(), getVariableName(), getExpression().evaluate(taskHandler))
+	 */
 	@Override
 	public void execute(TaskHandler taskHandler) {
-		System.out.println(getVariableName()+ getExpression().getClass());
-		taskHandler.assign(getVariableName(), getExpression());
+		taskHandler.assign(getSlot(), getVariableName(), getExpression().evaluate(taskHandler));
 	}
 	
 	/**
@@ -26,4 +43,11 @@ public class Assignment extends Statement {
 		return variableName;
 	}
 
+	/**
+	 * @return the slot of the variable, negative if the program gives its name a slot
+	 */
+	public final int getSlot() {
+		return slot;
+	}
+
 }
\ No newline at end of file
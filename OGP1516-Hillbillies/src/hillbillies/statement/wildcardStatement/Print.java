@@ -2,17 +2,17 @@ package hillbillies.statement.wildcardStatement;
 
 import hillbillies.expression.Expression;
 import hillbillies.model.TaskHandler;
-import hillbillies.statement.Statement;
+import hillbillies.statement.ActionStatement;
 
-public class Print extends Statement {
+public class Print extends ActionStatement {
 	
 	public Print(Expression<?> expression) {
 		super(expression);
 	}
 
 	@Override
-	public void execute(TaskHandler taskHandler) {
-		System.out.println(getExpression().evaluate(taskHandler).toString());
+	public void perform(TaskHandler taskHandler, Object value) {
+		System.out.println(value.toString());
 	}
 
 }
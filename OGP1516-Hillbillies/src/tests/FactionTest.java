@@ -10,7 +10,9 @@ import org.junit.Before;
 //import org.junit.BeforeClass;
 import org.junit.Test;
 
+import hillbillies.model.ConcurrentScheduler;
 import hillbillies.model.Faction;
+import hillbillies.model.Scheduler;
 import hillbillies.model.Unit;
 import hillbillies.model.World;
 import hillbillies.part2.listener.DefaultTerrainChangeListener;
@@ -96,6 +98,19 @@ public class FactionTest {
 		assertFalse(faction1.getAllUnits().contains(unit1));
 	}
 	
+	@Test
+	public void testFactionWithScheduler(){
+		Scheduler scheduler = new ConcurrentScheduler();
+		Faction faction2 = new Faction(scheduler);
+		assertEquals(scheduler, faction2.getScheduler());
+		assertEquals(0, faction2.getNbUnits());
+	}
+	
+	@Test (expected=IllegalArgumentException.class)
+	public void testFactionWithoutScheduler(){
+		new Faction(null);
+	}
+	
 	@Test
 	public void testTerminateFaction(){
 		Faction faction2 = new Faction();
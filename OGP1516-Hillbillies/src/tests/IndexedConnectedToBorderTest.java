@@ -0,0 +1,113 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import hillbillies.model.ITerrainType;
+import hillbillies.model.IndexedConnectedToBorder;
+import hillbillies.part2.internal.map.CubeType;
+import hillbillies.part2.internal.map.GameMap;
+import hillbillies.part2.internal.map.GameMapReader;
+import hillbillies.util.ConnectedToBorder;
+
+public class IndexedConnectedToBorderTest implements ITerrainType {
+
+	@Test
+	public void testEquivalentOn20x20x10() throws IOException {
+		checkEquivalent("resources/20x20x10.wrld", 300);
+	}
+
+	@Test
+	public void testEquivalentOn50x50x10() throws IOException {
+		checkEquivalent("resources/50x50x10.wrld", 300);
+	}
+
+	@Test
+	public void testEquivalentOn25x25x25() throws IOException {
+		checkEquivalent("resources/25x25x25.wrld", 300);
+	}
+
+	@Test
+	public void testEquivalentOn80x80x80() throws IOException {
+		checkEquivalent("resources/80x80x80.wrld", 50);
+	}
+
+	@Test
+	public void testChangePassableToSolid() {
+		IndexedConnectedToBorder border = new IndexedConnectedToBorder(5, 5, 5);
+		assertTrue(border.isSolidConnectedToBorder(2, 2, 2));
+		//dig out the cubes around the center cube
+		for(int[] c: new int[][]{{1,2,2},{3,2,2},{2,1,2},{2,3,2},{2,2,1}})
+			assertTrue(border.changeSolidToPassable(c[0], c[1], c[2]).isEmpty());
+		List<int[]> changed = border.changeSolidToPassable(2, 2, 3);
+		assertEquals(1, changed.size());
+		assertArrayEquals(new int[]{2,2,2}, changed.get(0));
+		assertFalse(border.isSolidConnectedToBorder(2, 2, 2));
+		assertTrue(border.changeSolidToPassable(2, 2, 3).isEmpty());
+
+		assertEquals(2, border.changePassableToSolid(1, 2, 2).size());
+		assertTrue(border.isSolidConnectedToBorder(2, 2, 2));
+		assertTrue(border.changePassableToSolid(1, 2, 2).isEmpty());
+	}
+
+	/**
+	 * Carve the passable cubes of the given world in both algorithms, then make random changes,
+	 * 	checking after every change that both give the same cubes and agree on every cube
+	 */
+	private static void checkEquivalent(String resource, int nbChanges) throws IOException {
+		GameMap map = new GameMapReader().readFromResource(resource);
+		int nbX = map.getNbTilesX();
+		int nbY = map.getNbTilesY();
+		int nbZ = map.getNbTilesZ();
+		ConnectedToBorder expected = new ConnectedToBorder(nbX, nbY, nbZ);
+		IndexedConnectedToBorder actual = new IndexedConnectedToBorder(nbX, nbY, nbZ);
+
+		for(int x=0; x<nbX; x++)
+			for(int y=0; y<nbY; y++)
+				for(int z=0; z<nbZ; z++){
+					CubeType type = map.getTypeAt(x, y, z);
+					if(type == CubeType.EMPTY || type == CubeType.WORKSHOP)
+						assertSameCubes(expected.changeSolidToPassable(x, y, z), actual.changeSolidToPassable(x, y, z));
+				}
+		assertSameState(expected, actual, nbX, nbY, nbZ);
+
+		Random random = new Random(nbX*nbY*nbZ);
+		for(int i=0; i<nbChanges; i++){
+			int x = random.nextInt(nbX);
+			int y = random.nextInt(nbY);
+			int z = random.nextInt(nbZ);
+			if(random.nextBoolean())
+				assertSameCubes(expected.changeSolidToPassable(x, y, z), actual.changeSolidToPassable(x, y, z));
+			else
+				assertSameCubes(expected.changePassableToSolid(x, y, z), actual.changePassableToSolid(x, y, z));
+		}
+		assertSameState(expected, actual, nbX, nbY, nbZ);
+	}
+
+	private static void assertSameCubes(List<int[]> expected, List<int[]> actual) {
+		assertEquals(toSet(expected), toSet(actual));
+		assertEquals(expected.size(), actual.size());
+	}
+
+	private static Set<List<Integer>> toSet(List<int[]> cubes) {
+		Set<List<Integer>> result = new HashSet<>();
+		for(int[] cube: cubes)
+			result.add(java.util.Arrays.asList(cube[0], cube[1], cube[2]));
+		return result;
+	}
+
+	private static void assertSameState(ConnectedToBorder expected, IndexedConnectedToBorder actual,
+			int nbX, int nbY, int nbZ) {
+		for(int x=0; x<nbX; x++)
+			for(int y=0; y<nbY; y++)
+				for(int z=0; z<nbZ; z++)
+					assertEquals(expected.isSolidConnectedToBorder(x, y, z), actual.isSolidConnectedToBorder(x, y, z));
+	}
+}
@@ -2,6 +2,9 @@ package tests;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -24,6 +27,7 @@ import hillbillies.model.World;
 import hillbillies.model.helper.CubePosition;
 import hillbillies.model.helper.Utils;
 import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.HeadlessRunner;
 import hillbillies.part3.facade.Facade;
 import hillbillies.part3.facade.IFacade;
 
@@ -225,6 +229,25 @@ public class Part3Test implements ITerrainType {
 		 advanceTimeFor(facade, world, 20, 0.02);
 		 assertEquals(new CubePosition(0,5,0),unit.getCubePosition());
 	}
+	
+	@Test
+	public void testHeadlessRunner() throws Exception{
+		// every unit stands on solid ground, so it can always step to a neighbouring cube
+		File taskFile = File.createTempFile("step", ".txt");
+		taskFile.deleteOnExit();
+		Files.write(taskFile.toPath(), Arrays.asList("name: \"step aside\"", "priority: 10",
+				"activities: moveTo (next_to here);"));
+		HeadlessRunner runner = new HeadlessRunner("resources/20x20x10.wrld", 10, 300,
+				Collections.singletonList(taskFile.getPath()), Collections.emptyList(), 42);
+		HeadlessRunner.Report report = runner.run();
+		assertEquals(300, report.getNbTicks());
+		assertEquals(0, report.getNbFailedTicks());
+		assertTrue(report.getNbPathFindings() > 0);
+		// every faction gets its own copy of the task
+		assertEquals(5, report.getNbTasks());
+		assertTrue(report.getNbCompletedTasks() >= 1);
+		assertTrue(report.getTicksPerSecond() > 0);
+	}
 
 
 	
@@ -0,0 +1,621 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hillbillies.model.FlowField;
+import hillbillies.model.FlowFieldService;
+import hillbillies.model.ITerrainType;
+import hillbillies.model.PathCache;
+import hillbillies.model.PathFinding;
+import hillbillies.model.PathFindingStrategy;
+import hillbillies.model.PathRequestService;
+import hillbillies.model.PathSearchEngine;
+import hillbillies.model.Unit;
+import hillbillies.model.World;
+import hillbillies.model.helper.Utils;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+public class PathFindingTest implements ITerrainType {
+
+	private World world;
+
+	@Before
+	public void setUp() throws Exception {
+		//a wall of rock on x == 2, with a single gap at y == 4
+		int[][][] types = new int[5][5][3];
+		for(int y=0; y<4; y++){
+			types[2][y][0] = TYPE_ROCK;
+			types[2][y][1] = TYPE_ROCK;
+			types[2][y][2] = TYPE_ROCK;
+		}
+		world = new World(types, new DefaultTerrainChangeListener());
+	}
+
+	@Test
+	public void testPathAroundWall() {
+		int[] start = new int[]{0,0,0};
+		int[] target = new int[]{4,0,0};
+		PathFinding path = new PathFinding(world, start, target);
+
+		assertFalse(path.hasPathCompleted());
+		assertTrue(Utils.equals(target, path.getTargetPosition()));
+
+		int[] previous = start;
+		int steps = 0;
+		while(!path.hasPathCompleted()){
+			int[] next = path.getNextPosition();
+			assertTrue(Utils.areAdjacent(previous, next));
+			assertFalse(world.isSolidCube(next));
+			previous = next;
+			steps++;
+		}
+		assertTrue(Utils.equals(target, previous));
+		// 4 steps along y to the gap, 4 steps across and 4 steps back
+		assertEquals(12, steps);
+		assertNull(path.getNextPosition());
+		assertNull(path.getTargetPosition());
+	}
+
+	@Test
+	public void testSameStartAndTarget() {
+		PathFinding path = new PathFinding(world, new int[]{1,1,0}, new int[]{1,1,0});
+		assertTrue(path.hasPathCompleted());
+	}
+
+	@Test
+	public void testUnreachableTarget() {
+		world.setcubeType(TYPE_ROCK, new int[]{2,4,0});
+		world.setcubeType(TYPE_ROCK, new int[]{2,4,1});
+		world.setcubeType(TYPE_ROCK, new int[]{2,4,2});
+		PathFinding path = new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+		assertTrue(path.hasPathCompleted());
+	}
+
+	@Test
+	public void testConsecutiveSearches() {
+		PathFinding first = new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+		PathFinding second = new PathFinding(world, new int[]{4,4,0}, new int[]{0,4,0});
+		PathFinding third = new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+
+		assertTrue(Utils.equals(new int[]{4,0,0}, first.getTargetPosition()));
+		assertTrue(Utils.equals(new int[]{0,4,0}, second.getTargetPosition()));
+		while(!first.hasPathCompleted())
+			assertTrue(Utils.equals(first.getNextPosition(), third.getNextPosition()));
+		assertTrue(third.hasPathCompleted());
+	}
+
+	@Test
+	public void testPendingSearchContinuesEachTick() {
+		world.setPathSearchBudget(3);
+		PathFinding path = new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+		assertTrue(path.isSearching());
+		assertTrue(path.hasPathCompleted());
+		assertTrue(Utils.equals(new int[]{4,0,0}, path.getTargetPosition()));
+		assertEquals(1, world.getNbPendingPathSearches());
+
+		int ticks = 0;
+		while(path.isSearching()){
+			world.advanceTime(0.1);
+			ticks++;
+		}
+		assertTrue(ticks > 1);
+		assertEquals(0, world.getNbPendingPathSearches());
+		assertFalse(path.hasPathCompleted());
+		assertTrue(Utils.equals(new int[]{4,0,0}, path.getTargetPosition()));
+	}
+
+	@Test
+	public void testCancelPendingSearch() {
+		world.setPathSearchBudget(1);
+		PathFinding path = new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+		path.cancelSearch();
+		assertFalse(path.isSearching());
+		assertEquals(0, world.getNbPendingPathSearches());
+		assertTrue(path.hasPathCompleted());
+	}
+
+	@Test
+	public void testUnitKeepsActivityWhileSearching() {
+		Unit unit = new Unit("Test", new int[]{0,0,0}, 50, 50, 50, 50, false);
+		world.addUnit(unit);
+		world.setPathSearchBudget(2);
+		unit.moveTo(new int[]{4,0,0});
+		assertTrue(unit.isSearchingPath());
+		assertFalse(unit.isMoving());
+
+		for(int i=0; i<100 && !unit.isMoving(); i++)
+			world.advanceTime(0.1);
+		assertFalse(unit.isSearchingPath());
+		assertTrue(unit.isMoving());
+	}
+
+	@Test
+	public void testHierarchicalPath() {
+		World large = createLargeWorld();
+		large.setPathFindingStrategy(PathFindingStrategy.HIERARCHICAL);
+		int[] start = new int[]{0,0,0};
+		int[] target = new int[]{19,0,0};
+		PathFinding path = new PathFinding(large, start, target);
+
+		assertFalse(path.hasPathCompleted());
+		assertTrue(Utils.equals(target, path.getTargetPosition()));
+		int[] previous = start;
+		while(!path.hasPathCompleted()){
+			int[] next = path.getNextPosition();
+			assertTrue(Utils.areAdjacent(previous, next));
+			assertFalse(large.isSolidCube(next));
+			previous = next;
+		}
+		assertTrue(Utils.equals(target, previous));
+	}
+
+	@Test
+	public void testPositionsLeft() {
+		World large = createLargeWorld();
+		large.setPathFindingStrategy(PathFindingStrategy.HIERARCHICAL);
+		PathFinding path = new PathFinding(large, new int[]{0,0,0}, new int[]{19,0,0});
+		// asking for positions left does not refine the next part of the path
+		boolean left = path.hasPositionsLeft();
+		while(left){
+			assertFalse(path.hasPathCompleted());
+			path.getNextPosition();
+			left = path.hasPositionsLeft();
+		}
+		assertTrue(path.hasPathCompleted());
+	}
+
+	@Test
+	public void testFollowedLocally() {
+		World large = createLargeWorld();
+		large.setPathFindingStrategy(PathFindingStrategy.HIERARCHICAL);
+		PathFinding path = new PathFinding(large, new int[]{0,0,0}, new int[]{19,0,0});
+		assertFalse(path.isFollowedLocally());
+		// once the last waypoint is refined, the rest of the path no longer needs the graph
+		while(!path.hasPathCompleted())
+			path.getNextPosition();
+		assertTrue(path.isFollowedLocally());
+
+		PathFinding replaced = new PathFinding(large, new int[]{0,0,0}, new int[]{19,0,0});
+		replaced.cancelSearch();
+		assertTrue(replaced.isFollowedLocally());
+	}
+
+	@Test
+	public void testHierarchicalPathAfterTerrainChange() {
+		World large = createLargeWorld();
+		large.setPathFindingStrategy(PathFindingStrategy.HIERARCHICAL);
+		assertFalse(new PathFinding(large, new int[]{0,0,0}, new int[]{19,0,0}).hasPathCompleted());
+
+		//close the gap in the wall
+		large.setcubeType(TYPE_ROCK, new int[]{10,19,0});
+		large.setcubeType(TYPE_ROCK, new int[]{10,19,1});
+		assertTrue(new PathFinding(large, new int[]{0,0,0}, new int[]{19,0,0}).hasPathCompleted());
+
+		//open another one
+		large.setcubeType(TYPE_AIR, new int[]{10,5,0});
+		assertFalse(new PathFinding(large, new int[]{0,0,0}, new int[]{19,0,0}).hasPathCompleted());
+	}
+
+	@Test
+	public void testHierarchicalPathReplannedAfterTerrainChange() {
+		World large = createLargeWorld();
+		large.setPathFindingStrategy(PathFindingStrategy.HIERARCHICAL);
+		int[] target = new int[]{19,0,0};
+		PathFinding path = new PathFinding(large, new int[]{0,0,0}, target);
+		int[] previous = path.getNextPosition();
+
+		//move the gap in the wall while the path is followed
+		large.setcubeType(TYPE_ROCK, new int[]{10,19,0});
+		large.setcubeType(TYPE_ROCK, new int[]{10,19,1});
+		large.setcubeType(TYPE_AIR, new int[]{10,5,0});
+		while(!path.hasPathCompleted()){
+			int[] next = path.getNextPosition();
+			assertTrue(Utils.areAdjacent(previous, next));
+			assertFalse(large.isSolidCube(next));
+			previous = next;
+		}
+		assertTrue(Utils.equals(target, previous));
+	}
+
+	@Test
+	public void testCachedPath() {
+		new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+		assertEquals(1, world.getPathCache().getNbPaths());
+		assertEquals(1, world.getPathCache().getNbMisses());
+
+		PathFinding cached = new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+		assertEquals(1, world.getPathCache().getNbHits());
+		assertFalse(cached.isSearching());
+		int steps = 0;
+		while(!cached.hasPathCompleted()){
+			cached.getNextPosition();
+			steps++;
+		}
+		assertEquals(12, steps);
+	}
+
+	@Test
+	public void testCachedPathSuffix() {
+		new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+		//every path passes the gap at (2,4,0)
+		PathFinding suffix = new PathFinding(world, new int[]{2,4,0}, new int[]{4,0,0});
+		assertEquals(1, world.getPathCache().getNbSuffixHits());
+		int[] previous = new int[]{2,4,0};
+		int steps = 0;
+		while(!suffix.hasPathCompleted()){
+			int[] next = suffix.getNextPosition();
+			assertTrue(Utils.areAdjacent(previous, next));
+			previous = next;
+			steps++;
+		}
+		assertTrue(Utils.equals(new int[]{4,0,0}, previous));
+		assertEquals(6, steps);
+	}
+
+	@Test
+	public void testCachedPathInvalidatedByTerrainChange() {
+		new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+		int version = world.getTerrainVersion();
+		world.setcubeType(TYPE_ROCK, new int[]{2,4,0});
+		world.setcubeType(TYPE_ROCK, new int[]{2,4,1});
+		world.setcubeType(TYPE_ROCK, new int[]{2,4,2});
+		assertTrue(world.getTerrainVersion() > version);
+
+		PathFinding path = new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+		assertEquals(0, world.getPathCache().getNbHits());
+		assertTrue(path.hasPathCompleted());
+	}
+
+	@Test
+	public void testPathCacheEvictsLeastRecentlyUsed() {
+		PathCache cache = new PathCache(world, 2);
+		int a = world.getCubeIndex(0,0,0);
+		int b = world.getCubeIndex(1,0,0);
+		int c = world.getCubeIndex(1,1,0);
+		cache.putPath(a, b, new int[]{b});
+		cache.putPath(b, c, new int[]{c});
+		assertNotNull(cache.getPath(a, b));
+		cache.putPath(c, a, new int[]{a});
+		assertEquals(2, cache.getNbPaths());
+		assertNotNull(cache.getPath(a, b));
+		assertNull(cache.getPath(b, c));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalPathCacheCapacity() {
+		new PathCache(world, 0);
+	}
+
+	@Test
+	public void testFlowFieldPath() {
+		world.setPathFindingStrategy(PathFindingStrategy.FLOW_FIELD);
+		int[] start = new int[]{0,0,0};
+		int[] target = new int[]{4,0,0};
+		PathFinding path = new PathFinding(world, start, target);
+
+		assertFalse(path.hasPathCompleted());
+		assertTrue(Utils.equals(target, path.getTargetPosition()));
+		int[] previous = start;
+		int steps = 0;
+		while(!path.hasPathCompleted()){
+			int[] next = path.getNextPosition();
+			assertTrue(Utils.areAdjacent(previous, next));
+			assertFalse(world.isSolidCube(next));
+			previous = next;
+			steps++;
+		}
+		assertTrue(Utils.equals(target, previous));
+		assertEquals(12, steps);
+		assertNull(path.getTargetPosition());
+	}
+
+	@Test
+	public void testFlowFieldShared() {
+		world.setPathFindingStrategy(PathFindingStrategy.FLOW_FIELD);
+		FlowFieldService service = world.getFlowFieldService();
+		PathFinding first = new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+		PathFinding second = new PathFinding(world, new int[]{0,3,1}, new int[]{4,0,0});
+		assertEquals(1, service.getNbUsedFlowFields());
+
+		while(!first.hasPathCompleted())
+			first.getNextPosition();
+		assertEquals(1, service.getNbUsedFlowFields());
+		second.cancelSearch();
+		assertEquals(0, service.getNbUsedFlowFields());
+		assertEquals(1, service.getNbUnusedFlowFields());
+		assertTrue(service.hasFlowField(world.getCubeIndex(4,0,0)));
+	}
+
+	@Test
+	public void testFlowFieldEvictsUnused() {
+		FlowFieldService service = new FlowFieldService(world, 1);
+		FlowField first = service.acquireFlowField(world.getCubeIndex(4,0,0));
+		FlowField second = service.acquireFlowField(world.getCubeIndex(0,0,0));
+		assertSame(first, service.acquireFlowField(world.getCubeIndex(4,0,0)));
+		assertEquals(2, first.getNbUsers());
+
+		service.releaseFlowField(second);
+		service.releaseFlowField(first);
+		assertEquals(1, service.getNbUnusedFlowFields());
+		service.releaseFlowField(first);
+		assertEquals(1, service.getNbUnusedFlowFields());
+		assertTrue(service.hasFlowField(world.getCubeIndex(4,0,0)));
+		assertFalse(service.hasFlowField(world.getCubeIndex(0,0,0)));
+	}
+
+	@Test
+	public void testFlowFieldAfterTerrainChange() {
+		World large = createLargeWorld();
+		int target = large.getCubeIndex(19,0,0);
+		FlowField field = large.getFlowFieldService().acquireFlowField(target);
+		int start = large.getCubeIndex(0,0,0);
+		assertTrue(field.getNextCube(start) >= 0);
+
+		//close the gap in the wall
+		large.setcubeType(TYPE_ROCK, new int[]{10,19,0});
+		large.setcubeType(TYPE_ROCK, new int[]{10,19,1});
+		assertEquals(-1, field.getNextCube(start));
+
+		//open another one, the field equals a field built from scratch
+		large.setcubeType(TYPE_AIR, new int[]{10,5,0});
+		FlowField fresh = new FlowField(large, target);
+		for(int index=0; index<large.getNbCubes(); index++)
+			assertEquals(fresh.getCost(index), field.getCost(index), 0.0001);
+		assertTrue(field.getNextCube(start) >= 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReleaseUnusedFlowField() {
+		FlowFieldService service = world.getFlowFieldService();
+		FlowField field = service.acquireFlowField(world.getCubeIndex(4,0,0));
+		service.releaseFlowField(field);
+		service.releaseFlowField(field);
+	}
+
+	/**
+	 * a world of 20x20x2 cubes spanning several chunks, with a wall on x == 10
+	 * 	that can only be passed at y == 19
+	 */
+	private World createLargeWorld() {
+		int[][][] types = new int[20][20][2];
+		for(int y=0; y<19; y++){
+			types[10][y][0] = TYPE_ROCK;
+			types[10][y][1] = TYPE_ROCK;
+		}
+		return new World(types, new DefaultTerrainChangeListener());
+	}
+
+	@Test
+	public void testParallelPathSearches() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			int[] finished = runParallelSearches(pool);
+			// which search ends in which tick does not depend on the threads
+			for(int run=0; run<3; run++)
+				assertArrayEquals(finished, runParallelSearches(pool));
+		}
+		finally{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Search paths from one corner of the large world to the other side of its wall, with a small budget
+	 * 	and the given pool, checking every path against a search done at once
+	 * 
+	 * @return for every search the tick in which it ended
+	 */
+	private int[] runParallelSearches(ForkJoinPool pool) {
+		World world = createLargeWorld();
+		world.setPathSearchBudget(25);
+		world.setTickPool(pool);
+		PathFinding[] paths = new PathFinding[12];
+		for(int i=0; i<paths.length; i++)
+			paths[i] = new PathFinding(world, new int[]{0,i,0}, new int[]{19,19-i,0});
+		assertEquals(paths.length, world.getNbPendingPathSearches());
+
+		int[] finished = new int[paths.length];
+		for(int tick=1; world.getNbPendingPathSearches() > 0; tick++){
+			world.advanceTime(0.01);
+			for(int i=0; i<paths.length; i++)
+				if(finished[i] == 0 && !paths[i].isSearching())
+					finished[i] = tick;
+		}
+
+		PathSearchEngine engine = new PathSearchEngine(world);
+		for(int i=0; i<paths.length; i++){
+			int steps = 0;
+			while(!paths[i].hasPathCompleted()){
+				paths[i].getNextPosition();
+				steps++;
+			}
+			assertEquals(engine.findPath(world.getCubeIndex(0,i,0), world.getCubeIndex(19,19-i,0)).length, steps);
+		}
+		return finished;
+	}
+
+	@Test
+	public void testParallelAndSequentialSearches() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			World sequential = createLargeWorld();
+			World parallel = createLargeWorld();
+			parallel.setTickPool(pool);
+			List<int[]> sequentialPositions = followSearches(sequential);
+			List<int[]> parallelPositions = followSearches(parallel);
+			assertEquals(sequentialPositions.size(), parallelPositions.size());
+			for(int i=0; i<sequentialPositions.size(); i++)
+				assertTrue(Utils.equals(sequentialPositions.get(i), parallelPositions.get(i)));
+		}
+		finally{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Search paths from one corner of the large world to the other side of its wall, with a small budget,
+	 * 	checking that no tick expands more cubes than the budget
+	 * 
+	 * @return the positions of all paths, one path after the other
+	 */
+	private List<int[]> followSearches(World world) {
+		world.setPathSearchBudget(25);
+		PathFinding[] paths = new PathFinding[12];
+		for(int i=0; i<paths.length; i++)
+			paths[i] = new PathFinding(world, new int[]{0,i,0}, new int[]{19,19-i,0});
+		while(world.getNbPendingPathSearches() > 0){
+			long expanded = world.getNbExpandedCubes();
+			world.advanceTime(0.01);
+			assertTrue(world.getNbExpandedCubes() - expanded <= world.getPathSearchBudget());
+		}
+
+		List<int[]> positions = new ArrayList<>();
+		for(PathFinding path: paths)
+			while(!path.hasPathCompleted())
+				positions.add(path.getNextPosition());
+		return positions;
+	}
+
+	@Test
+	public void testRequestedPaths() throws InterruptedException {
+		World world = createLargeWorld();
+		PathRequestService service = new PathRequestService(world, 2, 12);
+		world.setPathRequestService(service);
+		try{
+			PathFinding[] paths = new PathFinding[12];
+			for(int i=0; i<paths.length; i++){
+				paths[i] = new PathFinding(world, new int[]{0,i,0}, new int[]{19,19-i,0});
+				assertTrue(paths[i].isSearching());
+			}
+			assertEquals(paths.length, world.getNbPendingPathRequests());
+			waitForRequests(world);
+			assertPaths(world, paths);
+		}
+		finally{
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void testRequestedPathAfterTerrainChange() throws InterruptedException {
+		PathRequestService service = new PathRequestService(world, 1, 1);
+		world.setPathRequestService(service);
+		try{
+			PathFinding path = new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+			// close the gap before the path is handed out
+			world.setcubeType(TYPE_ROCK, new int[]{2,4,0});
+			world.setcubeType(TYPE_ROCK, new int[]{2,4,1});
+			world.setcubeType(TYPE_ROCK, new int[]{2,4,2});
+			waitForRequests(world);
+
+			assertFalse(path.isSearching());
+			assertTrue(path.hasPathCompleted());
+			assertEquals(0, world.getPathCache().getNbPaths());
+		}
+		finally{
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void testCancelledRequest() {
+		PathRequestService service = new PathRequestService(world, 1, 1);
+		world.setPathRequestService(service);
+		try{
+			PathFinding path = new PathFinding(world, new int[]{0,0,0}, new int[]{4,0,0});
+			assertEquals(1, world.getNbPendingPathRequests());
+			path.cancelSearch();
+			assertFalse(path.isSearching());
+			assertEquals(0, world.getNbPendingPathRequests());
+		}
+		finally{
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void testShutdownWithRequests() throws InterruptedException {
+		World world = createLargeWorld();
+		world.setPathSearchBudget(25);
+		PathRequestService service = new PathRequestService(world, 1, 12);
+		world.setPathRequestService(service);
+		PathFinding[] paths = new PathFinding[12];
+		for(int i=0; i<paths.length; i++)
+			paths[i] = new PathFinding(world, new int[]{0,i,0}, new int[]{19,19-i,0});
+		service.shutdown();
+		// the requests cancelled by the shutdown are searched in the ticks of the world
+		waitForRequests(world);
+		while(world.getNbPendingPathSearches() > 0)
+			world.advanceTime(0.01);
+		assertPaths(world, paths);
+	}
+
+	@Test
+	public void testRefusedRequests() {
+		World world = createLargeWorld();
+		world.setPathSearchBudget(25);
+		PathRequestService service = new PathRequestService(world, 1, 1);
+		world.setPathRequestService(service);
+		service.shutdown();
+		PathFinding[] paths = new PathFinding[12];
+		for(int i=0; i<paths.length; i++)
+			paths[i] = new PathFinding(world, new int[]{0,i,0}, new int[]{19,19-i,0});
+		assertEquals(0, world.getNbPendingPathRequests());
+		assertEquals(paths.length, world.getNbPendingPathSearches());
+		while(world.getNbPendingPathSearches() > 0)
+			world.advanceTime(0.01);
+		assertPaths(world, paths);
+	}
+
+	/**
+	 * Check that the given paths from one corner of the large world to the other side of its wall
+	 * 	are as long as a search done at once
+	 */
+	private void assertPaths(World world, PathFinding[] paths) {
+		PathSearchEngine engine = new PathSearchEngine(world);
+		for(int i=0; i<paths.length; i++){
+			assertFalse(paths[i].isSearching());
+			int steps = 0;
+			while(!paths[i].hasPathCompleted()){
+				paths[i].getNextPosition();
+				steps++;
+			}
+			assertEquals(engine.findPath(world.getCubeIndex(0,i,0), world.getCubeIndex(19,19-i,0)).length, steps);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPathRequestServiceOfOtherWorld() {
+		world.setPathRequestService(new PathRequestService(createLargeWorld(), 1, 1));
+	}
+
+	/**
+	 * Advance the given world until no pathFinding waits for the path request service anymore
+	 */
+	private void waitForRequests(World world) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while(world.getNbPendingPathRequests() > 0){
+			assertTrue(System.currentTimeMillis() < deadline);
+			world.advanceTime(0.01);
+			Thread.sleep(1);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalPathSearchBudget() {
+		world.setPathSearchBudget(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalTarget() {
+		new PathFinding(world, new int[]{0,0,0}, new int[]{5,0,0});
+	}
+
+}
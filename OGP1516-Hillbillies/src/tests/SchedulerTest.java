@@ -5,7 +5,14 @@ import static org.junit.Assert.*;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.function.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Before;
@@ -14,6 +21,7 @@ import org.junit.Test;
 
 import hillbillies.expression.booleanExpression.True;
 import hillbillies.expression.positionExpression.LiteralPosition;
+import hillbillies.model.ConcurrentScheduler;
 import hillbillies.model.Faction;
 import hillbillies.model.Scheduler;
 import hillbillies.model.Task;
@@ -240,4 +248,120 @@ public class SchedulerTest {
 	
 	
 
+	 @Test
+	 public void testEqualPrioritiesRetained() throws Exception{
+		 Scheduler scheduler = new Scheduler();
+		 Task first = new Task("first",100,new Print(new LiteralPosition(0,0,0)));
+		 Task second = new Task("second",100,new Print(new LiteralPosition(0,0,0)));
+		 scheduler.addAsTask(second);
+		 scheduler.addAsTask(first);
+		 assertEquals(2, scheduler.getNbTasks());
+		 assertTrue(scheduler.hasAsTask(first) && scheduler.hasAsTask(second));
+		 // the task created first goes first
+		 assertEquals(first, scheduler.getHighestPriorityAssignableTask());
+		 scheduler.removeAsTask(first);
+		 assertEquals(second, scheduler.getHighestPriorityAssignableTask());
+	 }
+	 
+	 @Test
+	 public void testAssignableTaskAfterChanges() throws Exception{
+		 Scheduler scheduler = new Scheduler();
+		 Task low = new Task("low",100,new Print(new LiteralPosition(0,0,0)));
+		 Task high = new Task("high",200,new Print(new LiteralPosition(0,0,0)));
+		 scheduler.addAsTask(low);
+		 scheduler.addAsTask(high);
+		 assertEquals(high, scheduler.getHighestPriorityAssignableTask());
+		 
+		 low.setPriority(300);
+		 assertEquals(low, scheduler.getHighestPriorityAssignableTask());
+		 assertEquals(low, scheduler.getAllTasksIterator().next());
+		 
+		 Unit unit = new Unit("Worker", new int[] { 0, 0, 0 }, 50, 50, 50, 50, false);
+		 low.addUnit(unit);
+		 assertEquals(high, scheduler.getHighestPriorityAssignableTask());
+		 assertEquals(1, scheduler.getNbAssignableTasks());
+		 high.setPriority(50);
+		 assertEquals(high, scheduler.getHighestPriorityAssignableTask());
+		 
+		 low.removeUnit(unit);
+		 assertEquals(low, scheduler.getHighestPriorityAssignableTask());
+		 assertEquals(2, scheduler.getNbTasks());
+	 }
+	 
+	 @Test(expected = UnsupportedOperationException.class)
+	 public void testAllTasksUnmodifiable() throws Exception{
+		 new Scheduler().getAllTasks().add(task1);
+	 }
+
+	 
+	 /**
+	  * Let several threads claim and release the tasks of a concurrent scheduler at once
+	  * 	no task may ever be held by two units, and in the end every task is claimed once
+	  */
+	 @Test
+	 public void testConcurrentClaims() throws Exception{
+		 int nbTasks = 400;
+		 int nbThreads = 8;
+		 Scheduler scheduler = new ConcurrentScheduler();
+		 List<Task> tasks = new ArrayList<>();
+		 for(int i=0; i<nbTasks; i++){
+			 // few different priorities, so the threads fight for the same tasks
+			 Task task = new Task("task"+i, i%4, new Print(new LiteralPosition(0,0,0)));
+			 tasks.add(task);
+			 scheduler.addAsTask(task);
+		 }
+		 List<List<Unit>> units = new ArrayList<>();
+		 for(int t=0; t<nbThreads; t++){
+			 List<Unit> threadUnits = new ArrayList<>();
+			 for(int i=0; i<nbTasks; i++)
+				 threadUnits.add(new Unit("Claimer", new int[] { 0, 0, 0 }, 50, 50, 50, 50, false));
+			 units.add(threadUnits);
+		 }
+		 
+		 AtomicIntegerArray holders = new AtomicIntegerArray(nbTasks);
+		 ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+		 try{
+			 List<Future<Integer>> results = new ArrayList<>();
+			 for(int t=0; t<nbThreads; t++){
+				 List<Unit> threadUnits = units.get(t);
+				 Random random = new Random(t);
+				 results.add(executor.submit(() -> {
+					 int nbKept = 0;
+					 int next = 0;
+					 while(true){
+						 Unit unit = threadUnits.get(next);
+						 Task task = scheduler.claimHighestPriorityAssignableTask(unit);
+						 if(task == null)
+							 return nbKept;
+						 int index = tasks.indexOf(task);
+						 if(holders.incrementAndGet(index) != 1)
+							 throw new AssertionError("task claimed twice");
+						 if(random.nextInt(4) == 0){
+							 holders.decrementAndGet(index);
+							 task.release(unit);
+						 } else {
+							 nbKept++;
+							 next++;
+						 }
+					 }
+				 }));
+			 }
+			 int nbKept = 0;
+			 for(Future<Integer> result: results)
+				 nbKept += result.get();
+			 assertEquals(nbTasks, nbKept);
+		 }
+		 finally{
+			 executor.shutdown();
+		 }
+		 
+		 for(int i=0; i<nbTasks; i++){
+			 assertEquals(1, holders.get(i));
+			 assertTrue(tasks.get(i).hasUnit());
+			 assertEquals(tasks.get(i), tasks.get(i).getUnit().getTask());
+		 }
+		 assertNull(scheduler.getHighestPriorityAssignableTask());
+		 assertEquals(0, scheduler.getNbAssignableTasks());
+	 }
+
 }
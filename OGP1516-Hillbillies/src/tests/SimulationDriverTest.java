@@ -0,0 +1,113 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hillbillies.model.ITerrainType;
+import hillbillies.model.SimulationDriver;
+import hillbillies.model.Unit;
+import hillbillies.model.World;
+import hillbillies.model.WorldSnapshot;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+public class SimulationDriverTest implements ITerrainType {
+
+	private World world;
+	private Unit unit;
+
+	@Before
+	public void setUp() throws Exception {
+		int[][][] types = new int[5][5][3];
+		for(int x=0; x<5; x++)
+			for(int y=0; y<5; y++)
+				types[x][y][0] = TYPE_ROCK;
+		world = new World(types, new DefaultTerrainChangeListener());
+		unit = new Unit("Driven", new int[] { 0, 0, 1 }, 50, 50, 50, 50, false);
+		world.addUnit(unit);
+	}
+
+	@Test
+	public void testAccumulator() {
+		SimulationDriver driver = new SimulationDriver(world, 0.125);
+		assertEquals(2, driver.advanceTime(0.3125));
+		assertEquals(0.0625, driver.getAccumulatedTime(), 0);
+		assertEquals(1, driver.advanceTime(0.0625));
+		assertEquals(0, driver.getAccumulatedTime(), 0);
+		assertEquals(0, driver.advanceTime(0.1));
+		assertEquals(3, driver.getNbTicks());
+		assertEquals(3, driver.getSnapshot().getNbTicks());
+	}
+
+	@Test
+	public void testMaxTicksPerStep() {
+		SimulationDriver driver = new SimulationDriver(world, 0.125, 3);
+		assertEquals(3, driver.advanceTime(10));
+		assertTrue(driver.getAccumulatedTime() < 0.125);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidTickDuration() {
+		new SimulationDriver(world, 0.5);
+	}
+
+	@Test
+	public void testFastForwardAndSnapshot() {
+		SimulationDriver driver = new SimulationDriver(world, 0.125);
+		WorldSnapshot before = driver.getSnapshot();
+		driver.invokeLater(() -> unit.moveTo(new int[]{4,4,1}));
+		driver.fastForward(200);
+		WorldSnapshot after = driver.getSnapshot();
+		assertEquals(200, after.getNbTicks());
+		assertEquals(25, after.getGameTime(), 1e-9);
+		assertArrayEquals(new double[]{4.5,4.5,1.5}, after.getPosition(unit), 1e-9);
+		//the old snapshot stays as it was
+		assertArrayEquals(new double[]{0.5,0.5,1.5}, before.getPosition(unit), 1e-9);
+		assertTrue(after.getUnits().contains(unit));
+	}
+
+	@Test
+	public void testThread() throws InterruptedException {
+		SimulationDriver driver = new SimulationDriver(world, 0.01);
+		driver.start();
+		assertTrue(driver.isRunning());
+		try{
+			driver.start();
+			fail();
+		}
+		catch(IllegalStateException e){
+		}
+		Thread.sleep(200);
+		driver.stop();
+		assertFalse(driver.isRunning());
+		long nbTicks = driver.getNbTicks();
+		assertTrue(nbTicks > 0);
+		assertEquals(nbTicks, driver.getSnapshot().getNbTicks());
+	}
+
+	@Test
+	public void testStopDuringTick() throws InterruptedException {
+		SimulationDriver driver = new SimulationDriver(world, 0.01);
+		CountDownLatch started = new CountDownLatch(1);
+		boolean[] interrupted = new boolean[1];
+		boolean[] finished = new boolean[1];
+		driver.invokeLater(() -> {
+			started.countDown();
+			long end = System.nanoTime() + 100000000L;
+			while(System.nanoTime() < end)
+				Thread.yield();
+			interrupted[0] = Thread.currentThread().isInterrupted();
+			finished[0] = true;
+		});
+		driver.start();
+		started.await();
+		driver.stop();
+		assertFalse(driver.isRunning());
+		assertTrue(finished[0]);
+		assertFalse(interrupted[0]);
+		assertEquals(driver.getNbTicks(), driver.getSnapshot().getNbTicks());
+	}
+}
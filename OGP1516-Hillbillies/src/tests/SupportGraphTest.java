@@ -0,0 +1,145 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import hillbillies.model.ITerrainType;
+import hillbillies.model.IndexedConnectedToBorder;
+import hillbillies.model.SupportGraph;
+import hillbillies.model.TerrainStore;
+import hillbillies.part2.internal.map.CubeType;
+import hillbillies.part2.internal.map.GameMap;
+import hillbillies.part2.internal.map.GameMapReader;
+
+public class SupportGraphTest implements ITerrainType {
+
+	@Test
+	public void testAnchoredAfterRemoval() {
+		SupportGraph graph = new SupportGraph(5, 5, 5);
+		int center = graph.getIndex(2, 2, 2);
+		assertTrue(graph.isAnchored(center));
+		assertEquals(125, graph.getGroupSize(center));
+		//dig out the cubes around the center cube
+		for(int[] c: new int[][]{{1,2,2},{3,2,2},{2,1,2},{2,3,2},{2,2,1}})
+			assertEquals(0, graph.changeSolidToPassable(graph.getIndex(c[0], c[1], c[2])).length);
+		assertTrue(graph.inSameGroup(center, graph.getIndex(0, 0, 0)));
+		assertArrayEquals(new int[]{center}, graph.changeSolidToPassable(graph.getIndex(2, 2, 3)));
+		assertFalse(graph.isAnchored(center));
+		assertFalse(graph.inSameGroup(center, graph.getIndex(0, 0, 0)));
+		assertEquals(1, graph.getGroupSize(center));
+		assertEquals(125-7, graph.getGroupSize(graph.getIndex(0, 0, 0)));
+
+		//removing a loose cube loosens nothing
+		assertEquals(0, graph.changeSolidToPassable(center).length);
+		assertEquals(2, graph.changePassableToSolid(graph.getIndex(2, 2, 3)).length +
+				graph.changePassableToSolid(center).length);
+		assertTrue(graph.isAnchored(center));
+		assertEquals(125-5, graph.getGroupSize(center));
+	}
+
+	@Test
+	public void testLoosePiecesJoinAnchoredGroup() {
+		SupportGraph graph = new SupportGraph(7, 7, 7);
+		//cut loose a bar of three cubes
+		for(int x=1; x<6; x++)
+			for(int y=1; y<6; y++)
+				for(int z=1; z<6; z++)
+					if(!(y == 3 && z == 3 && x >= 2 && x <= 4) && !(x == 1 && y == 3 && z == 3))
+						graph.changeSolidToPassable(graph.getIndex(x, y, z));
+		assertEquals(4, graph.changeSolidToPassable(graph.getIndex(1, 3, 3)).length + 1);
+		assertFalse(graph.isAnchored(graph.getIndex(3, 3, 3)));
+		//a new cube between the bar and the wall anchors the whole bar
+		int[] anchored = graph.changePassableToSolid(graph.getIndex(5, 3, 3));
+		assertEquals(4, anchored.length);
+		assertTrue(graph.isAnchored(graph.getIndex(2, 3, 3)));
+	}
+
+	@Test
+	public void testEquivalentOn20x20x10() throws IOException {
+		checkEquivalent("resources/20x20x10.wrld", 500);
+	}
+
+	@Test
+	public void testEquivalentOn25x25x25() throws IOException {
+		checkEquivalent("resources/25x25x25.wrld", 500);
+	}
+
+	@Test
+	public void testEquivalentOn50x50x50() throws IOException {
+		checkEquivalent("resources/50x50x50.wrld", 300);
+	}
+
+	/**
+	 * Carve the passable cubes of the given world in both algorithms, then make random changes,
+	 * 	removing the cubes that lose their anchor like World.caveIn does,
+	 * 	and check that both give the same cubes and agree on every cube
+	 */
+	private static void checkEquivalent(String resource, int nbChanges) throws IOException {
+		GameMap map = new GameMapReader().readFromResource(resource);
+		int nbX = map.getNbTilesX();
+		int nbY = map.getNbTilesY();
+		int nbZ = map.getNbTilesZ();
+		IndexedConnectedToBorder expected = new IndexedConnectedToBorder(nbX, nbY, nbZ);
+		SupportGraph actual = new SupportGraph(nbX, nbY, nbZ);
+
+		for(int x=0; x<nbX; x++)
+			for(int y=0; y<nbY; y++)
+				for(int z=0; z<nbZ; z++){
+					CubeType type = map.getTypeAt(x, y, z);
+					if((type == CubeType.EMPTY || type == CubeType.WORKSHOP) && actual.isSolidConnectedToBorder(x, y, z))
+						removeAndCaveIn(expected, actual, expected.getIndex(x, y, z));
+				}
+		assertSameState(expected, actual, nbX*nbY*nbZ);
+		//one flood fill over the whole terrain gives the same anchors
+		SupportGraph bulk = new SupportGraph(new TerrainStore(toTypes(map)));
+		for(int index=0; index<nbX*nbY*nbZ; index++)
+			assertEquals(actual.isAnchored(index), bulk.isAnchored(index));
+
+		Random random = new Random(nbX*nbY*nbZ);
+		for(int i=0; i<nbChanges; i++){
+			int index = random.nextInt(nbX*nbY*nbZ);
+			if(!actual.isAnchored(index))
+				assertEquals(sorted(expected.changePassableToSolid(index)), sorted(actual.changePassableToSolid(index)));
+			else
+				removeAndCaveIn(expected, actual, index);
+		}
+		assertSameState(expected, actual, nbX*nbY*nbZ);
+	}
+
+	private static int[][][] toTypes(GameMap map) {
+		int[][][] types = new int[map.getNbTilesX()][map.getNbTilesY()][map.getNbTilesZ()];
+		for(int x=0; x<types.length; x++)
+			for(int y=0; y<types[x].length; y++)
+				for(int z=0; z<types[x][y].length; z++){
+					CubeType type = map.getTypeAt(x, y, z);
+					types[x][y][z] = type == CubeType.ROCKS? TYPE_ROCK : type == CubeType.TREES? TYPE_TREE :
+						type == CubeType.WORKSHOP? TYPE_WORKSHOP : TYPE_AIR;
+				}
+		return types;
+	}
+
+	private static void removeAndCaveIn(IndexedConnectedToBorder expected, SupportGraph actual, int index) {
+		int[] loose = actual.changeSolidToPassable(index);
+		assertEquals(sorted(expected.changeSolidToPassable(index)), sorted(loose));
+		for(int cube: loose){
+			actual.changeSolidToPassable(cube);
+			expected.changeSolidToPassable(cube);
+		}
+	}
+
+	private static String sorted(int[] cubes) {
+		int[] result = cubes.clone();
+		Arrays.sort(result);
+		return Arrays.toString(result);
+	}
+
+	private static void assertSameState(IndexedConnectedToBorder expected, SupportGraph actual, int nbCubes) {
+		for(int index=0; index<nbCubes; index++)
+			assertEquals(expected.isSolidConnectedToBorder(index), actual.isAnchored(index));
+	}
+}
@@ -3,6 +3,7 @@ package tests;
 import static org.junit.Assert.*;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.After;
@@ -26,6 +27,7 @@ import hillbillies.expression.positionExpression.ItemPosition;
 import hillbillies.expression.positionExpression.LiteralPosition;
 import hillbillies.expression.positionExpression.NextToPosition;
 import hillbillies.expression.positionExpression.PositionOfUnit;
+import hillbillies.expression.positionExpression.SelectedPosition;
 import hillbillies.expression.positionExpression.Workshop;
 import hillbillies.expression.unitExpression.Any;
 import hillbillies.expression.unitExpression.Enemy;
@@ -36,7 +38,9 @@ import hillbillies.model.Faction;
 import hillbillies.model.ITerrainType;
 import hillbillies.model.Log;
 import hillbillies.model.Task;
+import hillbillies.model.TaskFactory;
 import hillbillies.model.TaskHandler;
+import hillbillies.model.TaskProgram;
 import hillbillies.model.Unit;
 import hillbillies.model.World;
 import hillbillies.model.helper.CubePosition;
@@ -235,15 +239,10 @@ public class TaskFactoryTest implements ITerrainType {
 		actionUnit.getFaction().getScheduler().addAsTask(taskTest1);;
 		TaskHandler handler1 = new TaskHandler(actionUnit,world,taskTest1);
 		
-		handler1.executeTask();
 		assertEquals(ifS,handler1.getCurrentStatement());
 		handler1.executeTask();
-		assertEquals(s1,handler1.getCurrentStatement());
-		handler1.executeTask();
 		assertEquals(elseS,handler1.getCurrentStatement());
 		handler1.executeTask();
-		assertEquals(s1,handler1.getCurrentStatement());
-		handler1.executeTask();
 		assertEquals(null,handler1.getCurrentStatement());
 		handler1.executeTask();
 		assertFalse(actionUnit.hasTask());
@@ -324,6 +323,24 @@ public class TaskFactoryTest implements ITerrainType {
 	}
 	
 	
+	/**
+	 * create a task for every selected cube, all sharing the program of the activity
+	 */
+	@Test
+	public final void testCreateTasks() {
+		Statement s = new Work(new SelectedPosition());
+		List<int[]> cubes = Arrays.asList(new int[] { 0, 0, 0 }, new int[] { 1, 1, 0 }, new int[] { 2, 2, 0 });
+		List<Task> tasks = new TaskFactory().createTasks("Task", 100, s, cubes);
+		assertEquals(3, tasks.size());
+		for(int i = 0; i < 3; i++){
+			assertSame(tasks.get(0).getProgram(), tasks.get(i).getProgram());
+			assertEquals(new CubePosition(cubes.get(i)), tasks.get(i).getSelectedCube());
+		}
+		List<Task> single = new TaskFactory().createTasks("Task", 100, s, Collections.emptyList());
+		assertEquals(1, single.size());
+		assertNull(single.get(0).getSelectedCube());
+	}
+
 	//EXPRESSIONS
 	
 	/**
@@ -344,7 +361,7 @@ public class TaskFactoryTest implements ITerrainType {
 	/**
 	 * Try to read an unexisting variable
 	 */
-	@Test (expected = Error.class)
+	@Test (expected = IllegalStateException.class)
 	public final void testCreateIllegalReadVariable() {
 		Statement s = new Assignment("True",new True());
 		Task taskTest = new Task("Task",100,s);
@@ -358,6 +375,17 @@ public class TaskFactoryTest implements ITerrainType {
 		e.evaluate(handler);
 	}
 	
+	/**
+	 * read the cube selected for the task
+	 */
+	@Test
+	public final void testCreateSelectedPosition() {
+		Statement s = new Work(new SelectedPosition());
+		Task taskTest = new Task("Task",100,TaskProgram.compile(s),new int[] { 1, 1, 0 });
+		TaskHandler handler = new TaskHandler(actionUnit,world,taskTest);
+		assertEquals(rock, new SelectedPosition().evaluate(handler));
+	}
+
 	@Test
 	public final void testCreateIsSolid() {
 		Expression<Boolean> e1 = new IsSolid(new LiteralPosition(rock.getX(), rock.getY(), rock.getZ()));
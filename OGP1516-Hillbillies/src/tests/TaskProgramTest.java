@@ -0,0 +1,304 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import hillbillies.expression.Expression;
+import hillbillies.expression.ReadVariable;
+import hillbillies.expression.booleanExpression.And;
+import hillbillies.expression.booleanExpression.Not;
+import hillbillies.expression.booleanExpression.Or;
+import hillbillies.expression.booleanExpression.True;
+import hillbillies.expression.positionExpression.LiteralPosition;
+import hillbillies.expression.positionExpression.Workshop;
+import hillbillies.model.ITerrainType;
+import hillbillies.model.Task;
+import hillbillies.model.TaskFactory;
+import hillbillies.model.TaskHandler;
+import hillbillies.model.TaskProgram;
+import hillbillies.model.Unit;
+import hillbillies.model.World;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.programs.TaskParser;
+import hillbillies.statement.Sequence;
+import hillbillies.statement.Statement;
+import hillbillies.statement.booleanStatement.If;
+import hillbillies.statement.booleanStatement.While;
+import hillbillies.statement.positionStatement.MoveTo;
+import hillbillies.statement.wildcardStatement.Assignment;
+import hillbillies.statement.wildcardStatement.Print;
+
+public class TaskProgramTest implements ITerrainType {
+
+	private static World world;
+	private Unit unit;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		world = new World(new int[3][3][3], new DefaultTerrainChangeListener());
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		unit = new Unit("Unit", new int[] { 0, 0, 0 }, 50, 50, 50, 50, false);
+		world.addUnit(unit);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		world.removeUnit(unit);
+	}
+
+	private TaskHandler handle(Statement activity){
+		Task task = new Task("Task", 100, activity);
+		task.addUnit(unit);
+		unit.getFaction().getScheduler().addAsTask(task);
+		return new TaskHandler(unit, world, task);
+	}
+
+	/**
+	 * The condition of a while jumps over its body, which jumps back to the condition
+	 */
+	@Test
+	public final void testCompileWhile() {
+		Statement inner = new Print(new True());
+		Statement loop = new While(new True(), inner);
+		TaskProgram program = TaskProgram.compile(loop);
+		assertEquals(5, program.getNbInstructions());
+		assertEquals(1, program.getMaxStackSize());
+		assertEquals(loop, program.getStatementAt(0));
+		assertTrue(program.isStatementStart(0));
+		assertEquals(inner, program.getStatementAt(2));
+		assertTrue(program.isStatementStart(2));
+		assertFalse(program.isStatementStart(4));
+		assertEquals(null, program.getStatementAt(5));
+	}
+
+	/**
+	 * A budget executes that many statements, running through the loop,
+	 * 	like executing the task that many times one statement at a time
+	 */
+	@Test
+	public final void testBudget() {
+		TaskHandler handler = handle(new While(new True(), new Print(new True())));
+		handler.executeTask(5);
+		assertEquals(2, handler.getProgramCounter());
+		assertTrue(unit.hasTask());
+		handler.executeTask(1);
+		assertEquals(0, handler.getProgramCounter());
+		// a budget of a tick of 0.1 seconds executes 100 statements, ending where it started
+		handler.executeTask(100);
+		assertEquals(0, handler.getProgramCounter());
+	}
+
+	/**
+	 * Tasks created from one program share it, every handler executing it in a frame of its own
+	 */
+	@Test
+	public final void testSharedProgram() {
+		Unit other = new Unit("Other", new int[] { 0, 0, 0 }, 50, 50, 50, 50, false);
+		world.addUnit(other);
+		TaskProgram program = TaskProgram.compile(new While(new True(), new Print(new True())));
+		Task first = new Task("First", 100, program, null);
+		Task second = new Task("Second", 100, program, null);
+		first.addUnit(unit);
+		second.addUnit(other);
+		TaskHandler firstHandler = new TaskHandler(unit, world, first);
+		TaskHandler secondHandler = new TaskHandler(other, world, second);
+		firstHandler.executeTask(2);
+		secondHandler.executeTask(3);
+		firstHandler.executeTask(1);
+		assertSame(first.getActivity(), second.getActivity());
+		assertNotSame(firstHandler.getFrame(), secondHandler.getFrame());
+		assertEquals(2, firstHandler.getProgramCounter());
+		assertEquals(2, secondHandler.getProgramCounter());
+		world.removeUnit(other);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Expression<Boolean> readBoolean(String variableName){
+		return (Expression<Boolean>) (Expression<?>) new ReadVariable(variableName);
+	}
+
+	/**
+	 * The right operand of and and or is not evaluated if the left operand decides
+	 */
+	@Test
+	public final void testShortCircuit() {
+		Statement and = new If(new And(new Not(new True()), readBoolean("none")), new Print(new True()), null);
+		Statement or = new If(new Or(new True(), readBoolean("none")), new Print(new True()), null);
+		TaskHandler handler = handle(new Sequence(Arrays.asList(and, or)));
+		handler.executeTask(100);
+		assertFalse(unit.hasTask());
+	}
+
+	/**
+	 * A null statement leaves the loop around it
+	 */
+	@Test
+	public final void testBreak() {
+		Statement loop = new While(new True(), new Sequence(Arrays.asList(new Print(new True()), null)));
+		TaskHandler handler = handle(loop);
+		handler.executeTask();
+		handler.executeTask();
+		handler.executeTask();
+		assertNull(handler.getCurrentStatement());
+		handler.executeTask();
+		assertFalse(unit.hasTask());
+	}
+
+	/**
+	 * The factory resolves the variables of every task it parses to slots of its own
+	 */
+	@Test
+	public final void testResolvedVariables() {
+		TaskFactory factory = new TaskFactory();
+		Task task = TaskParser.parseTasksFromString("name: \"t\"\npriority: 1\nactivities: x := true; y := x; if y then print x; fi",
+				factory, Collections.emptyList()).get(0);
+		TaskProgram program = task.getProgram();
+		assertEquals(2, program.getNbVariables());
+		assertEquals(0, program.getVariableSlot("x"));
+		assertEquals(1, program.getVariableSlot("y"));
+		task.addUnit(unit);
+		TaskHandler handler = new TaskHandler(unit, world, task);
+		handler.executeTask(100);
+		assertFalse(unit.hasTask());
+		assertEquals(true, handler.getValueOfVariable(1, "y"));
+		assertEquals(true, handler.getValueOfVariable(-1, "x"));
+		// the variables of a text that fails to parse are forgotten as well
+		assertNull(TaskParser.parseTasksFromString("name: \"t\"\npriority: 1\nactivities: a := true; b := ;",
+				factory, Collections.emptyList()));
+		Task next = TaskParser.parseTasksFromString("name: \"t\"\npriority: 1\nactivities: z := true;",
+				factory, Collections.emptyList()).get(0);
+		assertEquals(1, next.getProgram().getNbVariables());
+		assertEquals(0, next.getProgram().getVariableSlot("z"));
+	}
+
+	/**
+	 * An assignment evaluates its expression once, reads return the value it stored
+	 */
+	@Test
+	public final void testAssignmentEvaluatedOnce() {
+		int[] nbEvaluations = new int[1];
+		Expression<Boolean> counted = new Expression<Boolean>(){
+			@Override
+			public Boolean evaluate(TaskHandler taskHandler) {
+				nbEvaluations[0]++;
+				return true;
+			}
+		};
+		Statement read = new Print(new ReadVariable("x", 0));
+		TaskHandler handler = handle(new Sequence(Arrays.asList(new Assignment("x", counted, 0), read, read, read)));
+		handler.executeTask(100);
+		assertFalse(unit.hasTask());
+		assertEquals(1, nbEvaluations[0]);
+	}
+
+	/**
+	 * Variables assigned or read without a slot get a slot of the program for their name
+	 */
+	@Test
+	public final void testVariableByName() {
+		Statement assignment = new Assignment("x", new True());
+		Statement read = new If(new Not(readBoolean("y")), new Print(new True()), null);
+		TaskProgram program = TaskProgram.compile(new Sequence(Arrays.asList(assignment, read)));
+		assertEquals(2, program.getNbVariables());
+		assertEquals(0, program.getVariableSlot("x"));
+		assertEquals(1, program.getVariableSlot("y"));
+		// the assignment is compiled to its slot, the program keeps the statement it was compiled from
+		assertSame(assignment, program.getStatementAt(0));
+		Task task = new Task("T", 100, program, null);
+		task.addUnit(unit);
+		TaskHandler handler = new TaskHandler(unit, world, task);
+		handler.executeTask();
+		assertEquals(true, handler.getValueOfVariable(0, "x"));
+		assertEquals(true, handler.getValueOfVariable(-1, "x"));
+		assertEquals(true, new ReadVariable("x").evaluate(handler));
+		handler.assign(-1, "y", false);
+		assertEquals(false, handler.getValueOfVariable(1, "y"));
+	}
+
+	/**
+	 * A frame has no room for variables its program does not know
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testAssignUnknownVariable() {
+		TaskHandler handler = handle(new Assignment("x", new True()));
+		handler.assign(-1, "other", false);
+	}
+
+	/**
+	 * An expression that can not be evaluated interrupts the task instead of stopping the world
+	 */
+	@Test
+	public final void testFailingExpression() {
+		Task task = new Task("T", 100, new MoveTo(new Workshop()));
+		task.addUnit(unit);
+		unit.getFaction().getScheduler().addAsTask(task);
+		TaskHandler handler = new TaskHandler(unit, world, task);
+		unit.setTaskHandler(handler);
+		world.advanceTime(0.1);
+		assertFalse(unit.hasTask());
+		assertEquals(0, task.getPriority());
+		assertEquals(0, handler.getProgramCounter());
+	}
+
+	/**
+	 * An action the unit can not do, like moving outside the world, interrupts the task in the tick
+	 */
+	@Test
+	public final void testInvalidAction() {
+		Task task = new Task("T", 100, new MoveTo(new LiteralPosition(10, 10, 10)));
+		task.addUnit(unit);
+		unit.getFaction().getScheduler().addAsTask(task);
+		TaskHandler handler = new TaskHandler(unit, world, task);
+		unit.setTaskHandler(handler);
+		world.advanceTime(0.1);
+		assertFalse(unit.hasTask());
+		assertEquals(0, task.getPriority());
+		assertEquals(0, handler.getProgramCounter());
+	}
+
+	/**
+	 * Reading a variable that is not assigned interrupts the task in the tick, the frame starting over
+	 */
+	@Test
+	public final void testUnassignedRead() {
+		Task task = new Task("T", 100, new Print(new ReadVariable("x")));
+		task.addUnit(unit);
+		unit.getFaction().getScheduler().addAsTask(task);
+		TaskHandler handler = new TaskHandler(unit, world, task);
+		unit.setTaskHandler(handler);
+		world.advanceTime(0.1);
+		assertFalse(unit.hasTask());
+		assertFalse(task.hasUnit());
+		assertEquals(0, task.getPriority());
+		assertEquals(0, handler.getProgramCounter());
+	}
+
+	/**
+	 * Other failures than the ones of the program itself are bugs, they are not hidden by interrupting the task
+	 */
+	@Test(expected = ArithmeticException.class)
+	public final void testBugInExpression() {
+		Expression<Boolean> failing = new Expression<Boolean>(){
+			@Override
+			public Boolean evaluate(TaskHandler taskHandler) {
+				throw new ArithmeticException();
+			}
+		};
+		handle(new Print(failing)).executeTask();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public final void testBreakOutsideLoop() {
+		new Task("Task", 100, new Sequence(Arrays.asList(new Print(new True()), null)));
+	}
+}
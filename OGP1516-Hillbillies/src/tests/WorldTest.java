@@ -8,13 +8,23 @@ import org.junit.Before;
 //import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 import hillbillies.model.Boulder;
 import hillbillies.model.ITerrainType;
 import hillbillies.model.Log;
+import hillbillies.model.TerrainStore;
 import hillbillies.model.Unit;
+import hillbillies.model.WalkableComponents;
 import hillbillies.model.World;
 import hillbillies.model.helper.CubePosition;
+import hillbillies.model.helper.Utils;
 import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part2.listener.TerrainChangeListener;
 
 public class WorldTest implements ITerrainType {
 
@@ -56,6 +66,23 @@ public class WorldTest implements ITerrainType {
 		assertTrue(!world1.isSolidCube(position));
 	}
 	
+	@Test
+	public void testTerrainStore() {
+		TerrainStore terrain = world1.getTerrain();
+		assertEquals(3*4*5, terrain.getNbCubes());
+		assertEquals(TYPE_ROCK, terrain.getType(1,1,0));
+		assertEquals(TYPE_WORKSHOP, terrain.getType(world1.getCubeIndex(1,1,2)));
+		assertTrue(terrain.isSolid(world1.getCubeIndex(1,1,1)));
+
+		int[][][] view = world1.getTerrainTypes();
+		assertEquals(TYPE_TREE, view[1][1][1]);
+		view[1][1][1] = TYPE_WORKSHOP;
+		assertEquals(TYPE_TREE, world1.getTerrainTypes()[1][1][1]);
+		world1.setcubeType(TYPE_AIR, new int[]{1,1,1});
+		assertEquals(TYPE_AIR, terrain.getType(1,1,1));
+		assertEquals(TYPE_AIR, world1.getTerrainTypes()[1][1][1]);
+	}
+
 	@Test
 	public void testInitialCaveIn(){
 		int[][][] types = new int[4][4][4];
@@ -69,6 +96,142 @@ public class WorldTest implements ITerrainType {
 		assertEquals(TYPE_AIR, world1.getCubeType(new int[]{2,2,2}));
 	}
 
+	@Test
+	public void testInitialCaveInBatch(){
+		int[][][] types = new int[5][5][5];
+		for(int x=0; x<5; x++)
+			for(int y=0; y<5; y++)
+				types[x][y][0] = TYPE_ROCK;
+		//a floating group of three cubes and a pillar standing on the ground
+		types[1][1][3] = TYPE_ROCK;
+		types[2][1][3] = TYPE_TREE;
+		types[2][2][3] = TYPE_ROCK;
+		types[3][3][1] = TYPE_ROCK;
+		types[3][3][2] = TYPE_ROCK;
+		List<List<int[]>> batches = new ArrayList<>();
+		int[] nbSingle = new int[1];
+		World world = new World(types, new TerrainChangeListener() {
+			@Override
+			public void notifyTerrainChanged(int x, int y, int z) {
+				nbSingle[0]++;
+			}
+			@Override
+			public void notifyTerrainChangedBatch(List<int[]> positions) {
+				batches.add(positions);
+			}
+		});
+		assertEquals(TYPE_AIR, world.getCubeType(new int[]{1,1,3}));
+		assertEquals(TYPE_AIR, world.getCubeType(new int[]{2,1,3}));
+		assertEquals(TYPE_AIR, world.getCubeType(new int[]{2,2,3}));
+		assertEquals(TYPE_ROCK, world.getCubeType(new int[]{3,3,2}));
+		assertTrue(world.getConnectedToBorder().isSolidConnectedToBorder(3, 3, 2));
+		assertFalse(world.getConnectedToBorder().isSolidConnectedToBorder(2, 2, 3));
+		assertTrue(world.hasConsistentTerrainLayers());
+		assertEquals(0, nbSingle[0]);
+		assertEquals(1, batches.size());
+		assertEquals(3, batches.get(0).size());
+	}
+
+	@Test
+	public void testSleepingWorkingUnit() throws Exception {
+		int[] polledTicks = workTillDone(false);
+		int[] sleepingTicks = workTillDone(true);
+		// the work ends in the same tick, with far fewer advances of the unit
+		assertEquals(polledTicks[0], sleepingTicks[0]);
+		assertTrue(sleepingTicks[1] < polledTicks[1]/10);
+	}
+
+	/**
+	 * Let a unit work on the rock of world1 till it is done
+	 * 
+	 * @return the number of ticks and the number of advances of the unit
+	 */
+	private int[] workTillDone(boolean sleepingUnitsEnabled) throws Exception {
+		setUp();
+		world1.setSleepingUnitsEnabled(sleepingUnitsEnabled);
+		Unit worker = new Unit("Worker", new int[]{1,0,0}, 50, 50, 50, 50, false);
+		world1.addUnit(worker);
+		worker.workAt(new int[]{1,1,0});
+		world1.advanceTime(0.1);
+		assertEquals(sleepingUnitsEnabled, worker.isSleeping());
+		int nbTicks = 1;
+		while(worker.isWorking()){
+			world1.advanceTime(0.1);
+			nbTicks++;
+		}
+		assertFalse(world1.isSolidCube(1,1,0));
+		return new int[]{nbTicks, (int) world1.getNbUnitAdvances()};
+	}
+
+	@Test
+	public void testSleepingUnitWakesOnTerrainChange(){
+		int[][][] types = new int[3][3][3];
+		types[1][1][0] = TYPE_ROCK;
+		World world = new World(types, new DefaultTerrainChangeListener());
+		Unit unit = new Unit("Sleeper", new int[]{1,1,1}, 50, 50, 50, 50, false);
+		world.addUnit(unit);
+		world.advanceTime(0.1);
+		assertTrue(unit.isSleeping());
+		assertEquals(1, world.getNbSleepingUnits());
+
+		world.setcubeType(TYPE_AIR, new int[]{1,1,0});
+		assertFalse(unit.isSleeping());
+		assertEquals(0, world.getNbSleepingUnits());
+		world.advanceTime(0.1);
+		// the unit falls
+		assertTrue(unit.getPosition()[2] < 1.5);
+	}
+
+	@Test
+	public void testSleepingUnitWakesWhenOrdered(){
+		world1.addUnit(unit1);
+		unit1.stopDefaultBehaviour();
+		world1.advanceTime(0.1);
+		assertTrue(unit1.isSleeping());
+		unit1.moveTo(new int[]{2,3,0});
+		assertFalse(unit1.isSleeping());
+		world1.advanceTime(0.1);
+		assertFalse(unit1.isSleeping());
+	}
+
+	@Test
+	public void testTerrainChangesCollected(){
+		int[][][] types = new int[5][5][5];
+		for(int x=0; x<5; x++)
+			for(int y=0; y<5; y++)
+				types[x][y][0] = TYPE_ROCK;
+		//a cube hanging on a pillar standing on the ground
+		types[2][2][1] = TYPE_ROCK;
+		types[2][2][2] = TYPE_ROCK;
+		types[2][3][2] = TYPE_TREE;
+		List<List<int[]>> batches = new ArrayList<>();
+		int[] nbSingle = new int[1];
+		World world = new World(types, new TerrainChangeListener() {
+			@Override
+			public void notifyTerrainChanged(int x, int y, int z) {
+				nbSingle[0]++;
+			}
+			@Override
+			public void notifyTerrainChangedBatch(List<int[]> positions) {
+				batches.add(positions);
+			}
+		});
+		assertFalse(world.isCollectingTerrainChanges());
+		//a tick without terrain changes notifies nothing
+		world.advanceTime(0.1);
+		assertTrue(batches.isEmpty());
+		//the pillar and the cube it carries fall at once
+		world.caveIn(new int[]{2,2,1});
+		assertEquals(0, nbSingle[0]);
+		assertEquals(1, batches.size());
+		assertEquals(3, batches.get(0).size());
+		assertFalse(world.isCollectingTerrainChanges());
+		//changes outside of a tick are notified at once
+		world.setcubeType(TYPE_ROCK, new int[]{0,0,1});
+		assertEquals(1, nbSingle[0]);
+		assertEquals(1, batches.size());
+	}
+
 	@Test
 	public void testAddUnitToWorld() {
 		world1.addUnit(unit1);
@@ -127,6 +290,69 @@ public class WorldTest implements ITerrainType {
 		assertEquals(1,world.quickFindReachableAdjacents(new int[]{1,1,1}).size());
 		
 	}
+	@Test
+	public void testNeighbourIteration() {
+		int[][][] types = new int[3][3][3];
+		types[0][0][0] = TYPE_ROCK;
+		types[2][2][0] = TYPE_ROCK;
+		World world = new World(types, new DefaultTerrainChangeListener());
+		int corner = world.getCubeIndex(0,0,0);
+		int center = world.getCubeIndex(1,1,1);
+
+		assertEquals(World.BORDER_LOW_X | World.BORDER_LOW_Y | World.BORDER_LOW_Z, world.getBorderMask(corner));
+		assertEquals(0, world.getBorderMask(center));
+
+		List<Integer> adjacents = new ArrayList<>();
+		world.forEachAdjacentCube(corner, adjacents::add);
+		assertEquals(7, adjacents.size());
+		adjacents.clear();
+		world.forEachAdjacentCube(center, adjacents::add);
+		assertEquals(26, adjacents.size());
+
+		List<Integer> reachable = new ArrayList<>();
+		world.forEachDirectlyReachableNeighbour(center, reachable::add);
+		assertEquals(world.quickFindReachableAdjacents(new int[]{1,1,1}).size(), reachable.size());
+		reachable.clear();
+		world.forEachReachableNeighbour(center, reachable::add);
+		List<int[]> positions = world.findReachableAdjacents(new int[]{1,1,1});
+		assertEquals(positions.size(), reachable.size());
+		for(int i=0; i<positions.size(); i++)
+			assertEquals(world.getCubeIndex(positions.get(i)[0], positions.get(i)[1], positions.get(i)[2]),
+					(int) reachable.get(i));
+
+		assertEquals(world.getCubeIndex(1,1,0), world.findReachableNeighbour(center,
+				index -> index == world.getCubeIndex(1,1,0)));
+		assertEquals(-1, world.findReachableNeighbour(center, index -> false));
+	}
+
+	@Test
+	public void testTerrainLayers() {
+		int[][][] types = new int[6][6][6];
+		for(int x=0; x<6; x++)
+			for(int y=0; y<6; y++)
+				types[x][y][0] = TYPE_ROCK;
+		types[2][2][1] = TYPE_TREE;
+		World world = new World(types, new DefaultTerrainChangeListener());
+		assertTrue(world.hasConsistentTerrainLayers());
+		assertTrue(world.isWalkableCube(world.getCubeIndex(3,3,1)));
+		assertFalse(world.isWalkableCube(world.getCubeIndex(3,3,3)));
+		assertFalse(world.isWalkableCube(world.getCubeIndex(2,2,1)));
+		assertTrue(world.isWalkableCube(world.getCubeIndex(2,2,2)));
+
+		world.setcubeType(TYPE_AIR, new int[]{2,2,1});
+		assertTrue(world.hasConsistentTerrainLayers());
+		assertFalse(world.hasSolidAdjacents(world.getCubeIndex(2,2,3)));
+
+		java.util.Random random = new java.util.Random(1);
+		for(int i=0; i<200; i++){
+			int[] position = new int[]{random.nextInt(6), random.nextInt(6), random.nextInt(6)};
+			world.setcubeType(random.nextInt(4), position);
+		}
+		assertTrue(world.hasConsistentTerrainLayers());
+		world.caveIn(new int[]{0,0,0});
+		assertTrue(world.hasConsistentTerrainLayers());
+	}
+
 	@Test
 	public void testisSolidUnder(){
 		int[][][] types = new int[2][2][2];
@@ -203,9 +429,237 @@ public class WorldTest implements ITerrainType {
 		assertEquals(unit1,world1.getAllUnitsOnPosition(new int[]{0,0,0}).get(0));
 	}
 	
+	@Test
+	public void spatialIndexTest(){
+		world1.addUnit(unit1);
+		Log l = new Log(new int[]{2,3,0}, world1);
+		assertEquals(1, world1.getAllUnitsOnPosition(new int[]{0,0,0}).size());
+		assertEquals(l, world1.getItemOnPosition(new int[]{2,3,0}));
+
+		unit1.setPosition(new double[]{0.9, 0.2, 0.5});
+		assertEquals(1, world1.getAllUnitsOnPosition(new int[]{0,0,0}).size());
+		unit1.setPosition(new double[]{1.5, 0.5, 0.5});
+		assertTrue(world1.getAllUnitsOnPosition(new int[]{0,0,0}).isEmpty());
+		assertEquals(unit1, world1.getAllUnitsOnPosition(new int[]{1,0,0}).get(0));
+
+		assertEquals(2, world1.getGameObjectsInBox(new double[]{0,0,0}, new double[]{3,4,1}).size());
+		assertTrue(world1.getGameObjectsInBox(new double[]{0,0,0}, new double[]{2,3,1}).contains(unit1));
+		assertFalse(world1.getGameObjectsInBox(new double[]{0,0,0}, new double[]{2,3,1}).contains(l));
+		assertTrue(world1.getUnitsInBox(new double[]{0,0,0}, new double[]{2,3,1}).contains(unit1));
+		assertTrue(world1.getLogsInBox(new double[]{0,0,0}, new double[]{3,4,1}).contains(l));
+		assertTrue(world1.getBouldersInBox(new double[]{0,0,0}, new double[]{3,4,1}).isEmpty());
+		assertEquals(1, world1.getUnitsInRadius(new double[]{1.5,1.5,0.5}, 1.0).size());
+		assertTrue(world1.getUnitsInRadius(new double[]{1.5,1.5,0.5}, 0.9).isEmpty());
+		assertEquals(l, world1.getItemsInRadius(new double[]{2.5,2.5,0.5}, 1.0).get(0));
+
+		world1.removeItem(l);
+		assertTrue(world1.getAllItemsOnPosition(new int[]{2,3,0}).isEmpty());
+		world1.removeUnit(unit1);
+		assertTrue(world1.getAllUnitsOnPosition(new int[]{1,0,0}).isEmpty());
+	}
+
+	@Test
+	public void nearestItemTest(){
+		int[][][] types = new int[8][8][4];
+		for(int x=0; x<8; x++)
+			for(int y=0; y<8; y++)
+				types[x][y][0] = TYPE_ROCK;
+		//a wall of trees the units can not climb over
+		for(int y=0; y<8; y++)
+			for(int z=1; z<4; z++)
+				types[5][y][z] = TYPE_TREE;
+		types[7][0][1] = TYPE_WORKSHOP;
+		types[0][6][1] = TYPE_WORKSHOP;
+		World world = new World(types, new DefaultTerrainChangeListener());
+		double[] here = new double[]{0.5, 0.5, 1.5};
+
+		Log far = new Log(new int[]{4,6,1}, world);
+		Log near = new Log(new int[]{2,1,1}, world);
+		Log unreachable = new Log(new int[]{6,0,1}, world);
+		Boulder boulder = new Boulder(new int[]{3,3,1}, world);
+		assertEquals(near, world.getNearestItem(Log.class, here));
+		assertEquals(boulder, world.getNearestItem(Boulder.class, here));
+		assertEquals(new CubePosition(0,6,1), world.getNearestWorkshop(here));
+
+		world.removeItem(near);
+		assertEquals(far, world.getNearestItem(Log.class, here));
+		world.removeItem(far);
+		assertNull(world.getNearestItem(Log.class, here));
+		assertEquals(unreachable, world.getNearestItem(Log.class, new double[]{7.5, 7.5, 1.5}));
+
+		//a gap in the wall
+		world.setcubeType(TYPE_AIR, new int[]{5,0,1});
+		world.setcubeType(TYPE_AIR, new int[]{5,0,2});
+		world.setcubeType(TYPE_AIR, new int[]{5,0,3});
+		assertEquals(unreachable, world.getNearestItem(Log.class, here));
+		assertEquals(new CubePosition(0,6,1), world.getNearestWorkshop(here));
+		assertEquals(new CubePosition(7,0,1), world.getNearestWorkshop(new double[]{6.5, 0.5, 1.5}));
+		assertTrue(world.isReachable(world.getCubeIndex(0,0,1), world.getCubeIndex(7,7,1)));
+		assertFalse(world.isReachable(world.getCubeIndex(0,0,1), world.getCubeIndex(0,0,3)));
+	}
+
+	@Test
+	public void reachableAfterDiggingTest(){
+		int[][][] types = new int[10][10][6];
+		for(int x=0; x<10; x++)
+			for(int y=0; y<10; y++)
+				for(int z=0; z<4; z++)
+					types[x][y][z] = (x+y+z) % 3 == 0? TYPE_TREE : TYPE_ROCK;
+		World world = new World(types, new DefaultTerrainChangeListener());
+		assertTrue(world.isReachable(world.getCubeIndex(0,0,4), world.getCubeIndex(9,9,4)));
+
+		//a corridor on the ground breaks in two pieces and grows together again
+		World corridor = new World(new int[5][1][1], new DefaultTerrainChangeListener());
+		assertTrue(corridor.isReachable(corridor.getCubeIndex(0,0,0), corridor.getCubeIndex(4,0,0)));
+		corridor.setcubeType(TYPE_ROCK, new int[]{2,0,0});
+		assertFalse(corridor.isReachable(corridor.getCubeIndex(0,0,0), corridor.getCubeIndex(4,0,0)));
+		assertTrue(corridor.isReachable(corridor.getCubeIndex(3,0,0), corridor.getCubeIndex(4,0,0)));
+		corridor.setcubeType(TYPE_AIR, new int[]{2,0,0});
+		assertTrue(corridor.isReachable(corridor.getCubeIndex(0,0,0), corridor.getCubeIndex(4,0,0)));
+
+		Random random = new Random(10);
+		for(int i=0; i<150; i++){
+			int[] cube = new int[]{random.nextInt(10), random.nextInt(10), random.nextInt(6)};
+			world.setcubeType(random.nextInt(4) == 0? TYPE_ROCK : TYPE_AIR, cube);
+			if(i % 10 != 0)
+				continue;
+			//the groups kept through the changes equal the groups of one new flood fill
+			BitSet walkable = new BitSet();
+			for(int index=0; index<world.getNbCubes(); index++)
+				if(world.isWalkableCube(index))
+					walkable.set(index);
+			WalkableComponents expected = new WalkableComponents(10, 10, 6, walkable);
+			for(int from = walkable.nextSetBit(0); from >= 0; from = walkable.nextSetBit(from+1))
+				for(int to = walkable.nextSetBit(0); to >= 0; to = walkable.nextSetBit(to+1))
+					assertEquals(expected.isConnected(from, to), world.isReachable(from, to));
+		}
+	}
+
 	@Test
 	public void getAllWorkshopsTest(){
 		assertTrue(world1.getAllWorkshops().contains(new CubePosition(1,1,2)));
 	}
 
+	@Test
+	public void testParallelTick(){
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			World sequential = createFlatWorld();
+			World parallel = createFlatWorld();
+			parallel.setTickPool(pool);
+			Unit[] sequentialUnits = addMovingUnits(sequential);
+			Unit[] parallelUnits = addMovingUnits(parallel);
+			for(int tick=0; tick<250; tick++){
+				sequential.advanceTime(0.05);
+				parallel.advanceTime(0.05);
+				for(int i=0; i<sequentialUnits.length; i++)
+					assertTrue(Utils.equals(sequentialUnits[i].getPosition(), parallelUnits[i].getPosition()));
+				assertEquals(sequential.isSolidCube(9,9,0), parallel.isSolidCube(9,9,0));
+			}
+			// the units reached their targets and the world knows where they are
+			for(int i=0; i<parallelUnits.length-1; i++){
+				assertFalse(parallelUnits[i].isMoving());
+				assertTrue(parallel.getAllUnitsOnPosition(new int[]{i+3,i,1}).contains(parallelUnits[i]));
+			}
+			assertFalse(parallel.isSolidCube(9,9,0));
+		}
+		finally{
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void testParallelTickDefaultBehaviour(){
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			World world = createFlatWorld();
+			world.setTickPool(pool);
+			for(int i=0; i<20; i++)
+				world.addUnit(new Unit("Default", new int[]{i%10,i/10,1}, 50, 50, 50, 50, true));
+			for(int tick=0; tick<500; tick++){
+				world.advanceTime(0.1);
+				// every unit is registered on the cube it stands on
+				for(Unit unit: world.getAllUnits())
+					assertTrue(world.getAllUnitsOnPosition(Utils.getCubePosition(unit.getPosition())).contains(unit));
+			}
+		}
+		finally{
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void testParallelTickReproducible(){
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			List<double[]> first = runDefaultBehaviour(pool, 42);
+			List<double[]> second = runDefaultBehaviour(pool, 42);
+			assertEquals(first.size(), second.size());
+			for(int i=0; i<first.size(); i++)
+				assertArrayEquals(first.get(i), second.get(i), 0);
+		}
+		finally{
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Let units with default behaviour fight, work and walk in a world with the given seed
+	 * 
+	 * @return the position, hitpoints, stamina and orientation of every unit after every tick
+	 */
+	private List<double[]> runDefaultBehaviour(ForkJoinPool pool, long seed) {
+		int[][][] types = new int[10][10][3];
+		for(int x=0; x<10; x++)
+			for(int y=0; y<10; y++)
+				types[x][y][0] = TYPE_ROCK;
+		World world = new World(types, new DefaultTerrainChangeListener(), seed);
+		world.setTickPool(pool);
+		List<Unit> units = new ArrayList<>();
+		for(int i=0; i<20; i++){
+			Unit unit = new Unit("Default", new int[]{i%5,i/5,1}, 50, 50, 50, 50, true);
+			world.addUnit(unit);
+			units.add(unit);
+		}
+		List<double[]> states = new ArrayList<>();
+		for(int tick=0; tick<300; tick++){
+			world.advanceTime(0.1);
+			for(Unit unit: units){
+				double[] position = unit.getPosition();
+				states.add(new double[]{position[0], position[1], position[2], unit.getHitpoints(),
+						unit.getStamina(), unit.getOrientation()});
+			}
+		}
+		return states;
+	}
+	
+	/**
+	 * Create a world of 10 by 10 by 3 cubes with a floor of rock
+	 */
+	private World createFlatWorld() {
+		int[][][] types = new int[10][10][3];
+		for(int x=0; x<10; x++)
+			for(int y=0; y<10; y++)
+				types[x][y][0] = TYPE_ROCK;
+		return new World(types, new DefaultTerrainChangeListener());
+	}
+	
+	/**
+	 * Add units to the given world that walk a few cubes, and a unit digging the rock at (9,9,0)
+	 * 
+	 * @return the units, the digging unit last
+	 */
+	private Unit[] addMovingUnits(World world) {
+		Unit[] units = new Unit[6];
+		for(int i=0; i<units.length-1; i++){
+			units[i] = new Unit("Walker", new int[]{i,i,1}, 50, 50, 50, 50, false);
+			world.addUnit(units[i]);
+			units[i].moveTo(new int[]{i+3,i,1});
+		}
+		units[units.length-1] = new Unit("Digger", new int[]{9,8,1}, 50, 50, 50, 50, false);
+		world.addUnit(units[units.length-1]);
+		units[units.length-1].workAt(new int[]{9,9,0});
+		return units;
+	}
+
 }